@@ -70,6 +70,7 @@ class Voxcore < Formula
       #!/usr/bin/env bash
       set -euo pipefail
       exec "#{Formula["openjdk@17"].opt_bin}/java" \
+        --add-modules jdk.incubator.vector \
         -cp "#{libexec}/whisper-post-processor/build/libs/whisper-post.jar" \
         com.cliffmin.whisper.daemon.PTTServiceDaemon
     EOS
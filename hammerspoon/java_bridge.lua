@@ -10,7 +10,7 @@ M.config = {
   base_url = "http://127.0.0.1:8765",
   startup_cmd = {
     "/usr/bin/env", "bash", "-lc",
-    "cd ~/code/voxcore/whisper-post-processor && java -cp build/libs/whisper-post.jar com.cliffmin.whisper.daemon.PTTServiceDaemon >/tmp/ptt_daemon.log 2>&1 &"
+    "cd ~/code/voxcore/whisper-post-processor && java --add-modules jdk.incubator.vector -cp build/libs/whisper-post.jar com.cliffmin.whisper.daemon.PTTServiceDaemon >/tmp/ptt_daemon.log 2>&1 &"
   },
   health_timeout_sec = 1.5,
   enable_http_daemon = true,   -- if false, fall back to CLI
@@ -36,6 +36,14 @@ function M.ensure_up()
   return is_up()
 end
 
+-- Fire-and-forget at hotkey-down: the daemon pages in the model and warms the processors while the user speaks
+function M.prewarm(model)
+  if not M.config.enable_http_daemon then return end
+  local payload = model and json.encode({ model = model }) or ""
+  local headers = { ["Content-Type"] = "application/json" }
+  http.asyncPost(M.config.base_url .. "/prewarm", payload, headers, function() end)
+end
+
 function M.transcribe(path, model)
   if M.config.enable_http_daemon then
     if not M.ensure_up() then
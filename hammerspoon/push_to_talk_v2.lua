@@ -85,6 +85,10 @@ local LONG_MODEL = cfg.LONG_MODEL or "medium.en"
 -- Debug mode: passes --debug to VoxCore CLI for verbose output
 local DEBUG_MODE = (cfg.DEBUG_MODE == true)  -- default: false
 
+-- Daemon warm-up at hotkey-down (voxcore transcribe forwards to the same daemon)
+local DAEMON_URL = cfg.DAEMON_URL or os.getenv("VOXCORE_DAEMON_URL") or "http://127.0.0.1:8765"
+local PREWARM_ENABLED = (cfg.PREWARM_ENABLED ~= false)  -- default: true
+
 ------------------
 -- DEVICE DETECTION
 ------------------
@@ -341,6 +345,14 @@ local function transcribeWithVoxCore(audioPath, model)
   return transcript
 end
 
+-- Fire-and-forget: the daemon pages in the model and warms the processors while the user speaks.
+-- No daemon running is fine; voxcore transcribe falls back to in-process Whisper.
+local function prewarmDaemon(model)
+  if not PREWARM_ENABLED then return end
+  local payload = model and hs.json.encode({ model = model }) or ""
+  hs.http.asyncPost(DAEMON_URL .. "/prewarm", payload, { ["Content-Type"] = "application/json" }, function() end)
+end
+
 local function pasteText(text)
   hs.pasteboard.setContents(text)
   hs.eventtap.keyStroke({"cmd"}, "v")
@@ -350,6 +362,9 @@ end
 local function startRecording()
   if recording then return end
 
+  -- Duration is unknown at key-down; most recordings are short
+  prewarmDaemon(DYNAMIC_MODEL and SHORT_MODEL or nil)
+
   local baseName = humanTimestamp()
   local sessionDir = string.format("%s/%s", NOTES_DIR, baseName)
   ensureDir(sessionDir)
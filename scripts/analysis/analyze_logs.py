@@ -2,6 +2,10 @@
 """
 Analyze push-to-talk dictation logs for performance metrics and insights.
 Reads JSONL log files from ~/Documents/VoiceNotes/tx_logs/
+
+Usage: analyze_logs.py [LOG_DIR] [--voxcore] [--json]
+  --voxcore  read the Java CLI's voxcore-*.jsonl logs (with per-phase timings)
+             instead of the Hammerspoon tx-*.jsonl logs
 """
 
 import json
@@ -12,10 +16,10 @@ from pathlib import Path
 from typing import Dict, List, Any
 import statistics
 
-def load_logs(log_dir: Path) -> List[Dict[str, Any]]:
-    """Load all JSONL log files."""
+def load_logs(log_dir: Path, pattern: str = "tx-*.jsonl") -> List[Dict[str, Any]]:
+    """Load all JSONL log files matching pattern."""
     logs = []
-    for file in sorted(log_dir.glob("tx-*.jsonl")):
+    for file in sorted(log_dir.glob(pattern)):
         with open(file, 'r') as f:
             for line in f:
                 try:
@@ -103,6 +107,29 @@ def analyze_logs(logs: List[Dict[str, Any]]) -> Dict[str, Any]:
         "session_types": session_kinds,
     }
     
+    # Per-phase timings (voxcore-*.jsonl records)
+    phases = {}
+    for l in success_logs:
+        for phase, ms in (l.get('phases_ms') or {}).items():
+            phases.setdefault(phase, []).append(ms)
+    if phases:
+        stats["phases"] = {
+            phase: {
+                "median": f"{statistics.median(values):.1f}ms",
+                "p95": f"{sorted(values)[min(len(values) - 1, int(len(values) * 0.95))]:.1f}ms",
+                "count": len(values),
+            }
+            for phase, values in phases.items()
+        }
+
+    # Error codes
+    error_codes = {}
+    for l in error_logs:
+        if l.get('error_code'):
+            error_codes[l['error_code']] = error_codes.get(l['error_code'], 0) + 1
+    if error_codes:
+        stats["error_codes"] = error_codes
+
     # Performance ratios
     if durations and tx_times:
         realtime_ratios = [d / (t/1000) for d, t in zip(durations, tx_times) if t > 0]
@@ -175,6 +202,16 @@ def print_report(stats: Dict[str, Any]):
         r = stats['realtime_ratio']
         print(f"  Realtime ratio: {r['avg']} ({r['note']})")
     
+    if 'phases' in stats:
+        print(f"\n🔬 PHASES")
+        for phase, p in stats['phases'].items():
+            print(f"  {phase}: median {p['median']} | p95 {p['p95']} ({p['count']} runs)")
+
+    if 'error_codes' in stats:
+        print(f"\n🚫 ERROR CODES")
+        for code, count in stats['error_codes'].items():
+            print(f"  {code}: {count} times")
+
     if 'file_size' in stats:
         print(f"\n💾 FILE SIZES")
         f = stats['file_size']
@@ -218,8 +255,10 @@ def main():
     # Default log directory
     log_dir = Path.home() / "Documents" / "VoiceNotes" / "tx_logs"
     
-    if len(sys.argv) > 1:
-        log_dir = Path(sys.argv[1])
+    args = [a for a in sys.argv[1:] if not a.startswith("--")]
+    if args:
+        log_dir = Path(args[0])
+    pattern = "voxcore-*.jsonl" if "--voxcore" in sys.argv else "tx-*.jsonl"
     
     if not log_dir.exists():
         print(f"Error: Log directory not found: {log_dir}")
@@ -227,7 +266,7 @@ def main():
     
     print(f"Analyzing logs from: {log_dir}")
     
-    logs = load_logs(log_dir)
+    logs = load_logs(log_dir, pattern)
     if not logs:
         print("No log entries found")
         sys.exit(1)
@@ -9,7 +9,7 @@ cd "$ROOT_DIR/whisper-post-processor"
 ./gradlew -q shadowJar || true
 
 # Start daemon
-nohup java -cp build/libs/whisper-post.jar com.cliffmin.whisper.daemon.PTTServiceDaemon >/tmp/ptt_daemon_ci.log 2>&1 &
+nohup java --add-modules jdk.incubator.vector -cp build/libs/whisper-post.jar com.cliffmin.whisper.daemon.PTTServiceDaemon >/tmp/ptt_daemon_ci.log 2>&1 &
 DAEMON_PID=$!
 
 sleep 2
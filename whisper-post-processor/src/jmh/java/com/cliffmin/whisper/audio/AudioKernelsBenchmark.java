@@ -0,0 +1,134 @@
+package com.cliffmin.whisper.audio;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the audio-analysis kernels. Each invocation processes one
+ * second of 16kHz audio, so reported ops/s are directly samples/sec.
+ * The {@code *Scalar} variants fork with the Vector API disabled, for comparison
+ * with the float[] kernels' Vector API path in the same run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AudioKernelsBenchmark {
+    private static final int SAMPLES = 16_000;
+    private static final int FRAME = 512;
+    private static final String SCALAR = "-Dvoxcore.audio.disableVectorApi=true";
+
+    private short[] pcm;
+    private float[] floats;
+    private byte[] bytes;
+    private short[] scratchShorts;
+    private float[] re;
+    private float[] im;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        pcm = new short[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            pcm[i] = (short) (8000 * Math.sin(2 * Math.PI * 220 * i / 16000.0) + random.nextGaussian() * 500);
+        }
+        floats = AudioKernels.toFloat(pcm, 0, SAMPLES, new float[SAMPLES]);
+        bytes = new byte[SAMPLES * 2];
+        for (int i = 0; i < SAMPLES; i++) {
+            bytes[2 * i] = (byte) pcm[i];
+            bytes[2 * i + 1] = (byte) (pcm[i] >> 8);
+        }
+        scratchShorts = new short[SAMPLES];
+        re = new float[FRAME];
+        im = new float[FRAME];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int decodePcm16le() {
+        return AudioKernels.decodePcm(bytes, bytes.length, 2, false, scratchShorts);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double rmsShort() {
+        return AudioKernels.rms(pcm, 0, SAMPLES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double rmsFloat() {
+        return AudioKernels.rms(floats, 0, SAMPLES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    @Fork(value = 1, jvmArgsPrepend = SCALAR)
+    public double rmsFloatScalar() {
+        return AudioKernels.rms(floats, 0, SAMPLES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double peakShort() {
+        return AudioKernels.peak(pcm, 0, SAMPLES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double peakFloat() {
+        return AudioKernels.peak(floats, 0, SAMPLES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    @Fork(value = 1, jvmArgsPrepend = SCALAR)
+    public double peakFloatScalar() {
+        return AudioKernels.peak(floats, 0, SAMPLES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double clippingRatio() {
+        return AudioKernels.clippingRatio(pcm, 0, SAMPLES, Short.MAX_VALUE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double dcOffsetShort() {
+        return AudioKernels.dcOffset(pcm, 0, SAMPLES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double dcOffsetFloat() {
+        return AudioKernels.dcOffset(floats, 0, SAMPLES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    @Fork(value = 1, jvmArgsPrepend = SCALAR)
+    public double dcOffsetFloatScalar() {
+        return AudioKernels.dcOffset(floats, 0, SAMPLES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES / FRAME * FRAME)
+    public double spectralFlatness() {
+        double acc = 0;
+        for (int off = 0; off + FRAME <= SAMPLES; off += FRAME) {
+            acc += AudioKernels.spectralFlatness(floats, off, FRAME, re, im);
+        }
+        return acc;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES / FRAME * FRAME)
+    public AudioKernels.FrameStats[] analyzeFrames() {
+        return AudioKernels.analyzeFrames(pcm, 0, SAMPLES, FRAME);
+    }
+}
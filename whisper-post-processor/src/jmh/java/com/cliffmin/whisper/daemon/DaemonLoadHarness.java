@@ -0,0 +1,461 @@
+package com.cliffmin.whisper.daemon;
+
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.config.Configuration;
+import com.cliffmin.whisper.service.WhisperCppAdapter;
+import com.cliffmin.whisper.service.WhisperService;
+import com.cliffmin.whisper.testing.FakeWhisperCli;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Load test for the daemon: starts {@link PTTServiceDaemon} in-process with a fake Whisper
+ * (configurable latency distribution and failure rate), drives {@code /transcribe} and {@code /ws}
+ * with concurrent closed-loop clients, and prints throughput, latency percentiles and error rates
+ * as JSON. Whisper is simulated, so the numbers measure the daemon's threading, queueing and text
+ * pipeline, not transcription.
+ *
+ * <pre>
+ * ./gradlew loadTest --args='--transcribe-clients=16 --ws-clients=16 --duration=30'
+ * </pre>
+ *
+ * Options (defaults in brackets): {@code --transcribe-clients} [8], {@code --ws-clients} [8],
+ * {@code --duration} seconds measured [20], {@code --warmup} seconds discarded first [5],
+ * {@code --whisper-latency-ms} median fake Whisper latency [300], {@code --whisper-latency-sigma}
+ * log-normal spread, 0 for a fixed latency [0.5], {@code --whisper-failure-rate} [0.02],
+ * {@code --audio-files} distinct WAVs cycled through [64], {@code --ws-chunks} chunks per
+ * {@code /ws} session before reconnecting [100], {@code --out} file for the report [stdout only].
+ *
+ * {@code --whisper=binary} replaces the in-process fake with {@link WhisperCppAdapter} running
+ * {@link FakeWhisperCli}, so each transcription also pays for a process launch, argument passing
+ * and JSON parsing; {@code --whisper-rtf} [0.05] then sets its decode time per second of audio and
+ * the latency and failure options do not apply.
+ *
+ * Requests for the same WAV can be served by the transcript cache (when enabled in the user's
+ * config) or coalesced with one in flight; the report counts both.
+ */
+public class DaemonLoadHarness {
+
+    private static final String[] WORDS = {
+        "so", "um", "i", "think", "we", "should", "move", "the", "meeting", "to", "tuesday", "because",
+        "the", "api", "isnt", "ready", "and", "you", "know", "the", "json", "parser", "on", "github",
+    };
+
+    /**
+     * Command line options.
+     */
+    static final class Options {
+        int transcribeClients = 8;
+        int wsClients = 8;
+        int durationSeconds = 20;
+        int warmupSeconds = 5;
+        double whisperLatencyMs = 300;
+        double whisperLatencySigma = 0.5;
+        double whisperFailureRate = 0.02;
+        int audioFiles = 64;
+        int wsChunks = 100;
+        String whisper = "in-process";
+        double whisperRtf = FakeWhisperCli.DEFAULT_RTF;
+        Path out;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                switch (name) {
+                    case "transcribe-clients" -> o.transcribeClients = Integer.parseInt(value);
+                    case "ws-clients" -> o.wsClients = Integer.parseInt(value);
+                    case "duration" -> o.durationSeconds = Integer.parseInt(value);
+                    case "warmup" -> o.warmupSeconds = Integer.parseInt(value);
+                    case "whisper-latency-ms" -> o.whisperLatencyMs = Double.parseDouble(value);
+                    case "whisper-latency-sigma" -> o.whisperLatencySigma = Double.parseDouble(value);
+                    case "whisper-failure-rate" -> o.whisperFailureRate = Double.parseDouble(value);
+                    case "audio-files" -> o.audioFiles = Math.max(1, Integer.parseInt(value));
+                    case "ws-chunks" -> o.wsChunks = Math.max(1, Integer.parseInt(value));
+                    case "whisper" -> {
+                        if (!value.equals("in-process") && !value.equals("binary")) {
+                            throw new IllegalArgumentException("--whisper must be in-process or binary");
+                        }
+                        o.whisper = value;
+                    }
+                    case "whisper-rtf" -> o.whisperRtf = Double.parseDouble(value);
+                    case "out" -> o.out = Path.of(value);
+                    default -> throw new IllegalArgumentException("unknown option --" + name);
+                }
+            }
+            return o;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("transcribeClients", transcribeClients);
+            m.put("wsClients", wsClients);
+            m.put("whisper", whisper);
+            m.put("durationSeconds", durationSeconds);
+            m.put("warmupSeconds", warmupSeconds);
+            if (whisper.equals("binary")) {
+                m.put("whisperRtf", whisperRtf);
+            } else {
+                m.put("whisperLatencyMs", whisperLatencyMs);
+                m.put("whisperLatencySigma", whisperLatencySigma);
+                m.put("whisperFailureRate", whisperFailureRate);
+            }
+            m.put("audioFiles", audioFiles);
+            m.put("wsChunks", wsChunks);
+            m.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+            return m;
+        }
+    }
+
+    /**
+     * Whisper stand-in: sleeps for a log-normally distributed time (median {@code latencyMs}) and
+     * fails a fraction of calls, the way a real run fails on a bad model or a killed process.
+     */
+    static final class FakeWhisper implements WhisperService {
+        private final double latencyMs;
+        private final double sigma;
+        private final double failureRate;
+
+        FakeWhisper(double latencyMs, double sigma, double failureRate) {
+            this.latencyMs = latencyMs;
+            this.sigma = sigma;
+            this.failureRate = failureRate;
+        }
+
+        @Override
+        public TranscriptionResult transcribe(Path audioPath, TranscriptionOptions options) throws TranscriptionException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long millis = Math.round(latencyMs * Math.exp(sigma * random.nextGaussian()));
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TranscriptionException("interrupted");
+            }
+            if (random.nextDouble() < failureRate) {
+                throw new TranscriptionException("simulated whisper failure");
+            }
+            return new TranscriptionResult(sentence(random, 40), List.of(), options.getLanguage(), 1.0, Map.of());
+        }
+
+        @Override
+        public CompletableFuture<TranscriptionResult> transcribeAsync(Path audioPath, TranscriptionOptions options) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return transcribe(audioPath, options);
+                } catch (TranscriptionException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+
+        @Override
+        public String detectModel(double durationSeconds) {
+            return "base.en";
+        }
+
+        @Override
+        public boolean validateAudioFile(Path audioPath) {
+            return true;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getImplementationName() {
+            return "fake";
+        }
+    }
+
+    /**
+     * Outcomes seen by one client; merged once the run is over, so no locking while measuring.
+     */
+    static final class Recorder {
+        private long[] latenciesNanos = new long[1024];
+        private int count;
+        long errors;
+        final Map<String, Long> outcomes = new TreeMap<>();
+
+        void record(long nanos, String outcome, boolean error) {
+            if (count == latenciesNanos.length) latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+            latenciesNanos[count++] = nanos;
+            if (error) errors++;
+            outcomes.merge(outcome, 1L, Long::sum);
+        }
+
+        static Map<String, Object> report(List<Recorder> recorders, double seconds) {
+            long[] all = recorders.stream().flatMapToLong(r -> Arrays.stream(r.latenciesNanos, 0, r.count)).sorted().toArray();
+            long errors = recorders.stream().mapToLong(r -> r.errors).sum();
+            Map<String, Long> outcomes = new TreeMap<>();
+            recorders.forEach(r -> r.outcomes.forEach((k, v) -> outcomes.merge(k, v, Long::sum)));
+
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("requests", all.length);
+            m.put("errors", errors);
+            m.put("errorRate", all.length == 0 ? 0.0 : round((double) errors / all.length));
+            m.put("throughputPerSecond", round(all.length / seconds));
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", percentileMillis(all, 0.50));
+            latency.put("p95", percentileMillis(all, 0.95));
+            latency.put("p99", percentileMillis(all, 0.99));
+            latency.put("max", all.length == 0 ? 0.0 : round(all[all.length - 1] / 1e6));
+            latency.put("mean", round(Arrays.stream(all).average().orElse(0) / 1e6));
+            m.put("latencyMs", latency);
+            m.put("outcomes", outcomes);
+            return m;
+        }
+
+        // Nearest-rank percentile
+        private static double percentileMillis(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int rank = (int) Math.ceil(p * sorted.length);
+            return round(sorted[Math.max(0, rank - 1)] / 1e6);
+        }
+
+        private static double round(double v) {
+            return Math.round(v * 1000) / 1000.0;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        Path workDir = Files.createTempDirectory("ptt-load");
+        PTTServiceDaemon daemon = null;
+        ExecutorService clients = null;
+        try {
+            List<Path> wavs = writeWavs(workDir, options.audioFiles);
+            int port;
+            try (ServerSocket free = new ServerSocket(0)) {
+                port = free.getLocalPort();
+            }
+            daemon = new PTTServiceDaemon(whisper(options, workDir), new AudioProcessor(),
+                    Configuration.defaults().txLogDir(workDir.resolve("tx_logs").toString()).build());
+            daemon.start(port, workDir.resolve("ptt.sock"));
+
+            int total = options.transcribeClients + options.wsClients;
+            clients = Executors.newFixedThreadPool(Math.max(1, total));
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(clients)
+                    .build();
+            long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+            long deadline = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+
+            List<Recorder> transcribe = new ArrayList<>();
+            List<Recorder> ws = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(total);
+            for (int i = 0; i < options.transcribeClients; i++) {
+                Recorder r = new Recorder();
+                transcribe.add(r);
+                int client = i;
+                clients.execute(() -> {
+                    try {
+                        transcribeClient(http, port, wavs, client, measureFrom, deadline, r);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            for (int i = 0; i < options.wsClients; i++) {
+                Recorder r = new Recorder();
+                ws.add(r);
+                long seed = i;
+                clients.execute(() -> {
+                    try {
+                        wsClient(http, port, options.wsChunks, seed, measureFrom, deadline, r);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("options", options.toMap());
+            report.put("transcribe", Recorder.report(transcribe, options.durationSeconds));
+            report.put("ws", Recorder.report(ws, options.durationSeconds));
+            String json = new GsonBuilder().setPrettyPrinting().create().toJson(report);
+            System.out.println(json);
+            if (options.out != null) Files.writeString(options.out, json + "\n");
+        } finally {
+            if (clients != null) clients.shutdownNow();
+            if (daemon != null) daemon.stop();
+            try (var files = Files.walk(workDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static WhisperService whisper(Options options, Path workDir) throws IOException {
+        if (options.whisper.equals("binary")) {
+            Path binary = FakeWhisperCli.install(workDir.resolve("bin"),
+                    Map.of(FakeWhisperCli.ENV_RTF, String.valueOf(options.whisperRtf)));
+            Path models = FakeWhisperCli.createModels(workDir.resolve("models"), "tiny.en", "base.en", "small.en", "medium.en");
+            return new WhisperCppAdapter(binary.toString(), models, 60);
+        }
+        return new FakeWhisper(options.whisperLatencyMs, options.whisperLatencySigma, options.whisperFailureRate);
+    }
+
+    private static void transcribeClient(HttpClient http, int port, List<Path> wavs, int client,
+                                         long measureFrom, long deadline, Recorder recorder) {
+        URI uri = URI.create("http://127.0.0.1:" + port + "/transcribe");
+        for (int n = client; System.nanoTime() < deadline; n++) {
+            Path wav = wavs.get(n % wavs.size());
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"path\":\"" + wav.toAbsolutePath() + "\"}"))
+                    .build();
+            long start = System.nanoTime();
+            String outcome;
+            boolean error;
+            try {
+                HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                error = response.statusCode() != 200;
+                outcome = error ? String.valueOf(response.statusCode())
+                        : response.body().contains("\"cached\":true") ? "cached"
+                        : response.body().contains("\"coalesced\":true") ? "coalesced" : "200";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                error = true;
+                outcome = e.getClass().getSimpleName();
+            }
+            if (start >= measureFrom) recorder.record(System.nanoTime() - start, outcome, error);
+        }
+    }
+
+    /**
+     * One dictation after another: a session sends {@code chunks} words, each after the reply to
+     * the previous one, then closes and reconnects (the daemon keeps the whole session's text).
+     */
+    private static void wsClient(HttpClient http, int port, int chunks, long seed,
+                                 long measureFrom, long deadline, Recorder recorder) {
+        URI uri = URI.create("ws://127.0.0.1:" + port + "/ws");
+        Random random = new Random(seed);
+        while (System.nanoTime() < deadline) {
+            Replies replies = new Replies();
+            WebSocket socket;
+            try {
+                socket = http.newWebSocketBuilder().buildAsync(uri, replies).get(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (System.nanoTime() >= measureFrom) recorder.record(0, "connect-failed", true);
+                continue;
+            }
+            try {
+                for (int i = 0; i < chunks && System.nanoTime() < deadline; i++) {
+                    CompletableFuture<String> reply = replies.next();
+                    long start = System.nanoTime();
+                    String outcome;
+                    boolean error;
+                    try {
+                        socket.sendText(WORDS[random.nextInt(WORDS.length)] + " ", true).get(5, TimeUnit.SECONDS);
+                        String message = reply.get(30, TimeUnit.SECONDS);
+                        error = !message.startsWith("{\"processed\"");
+                        outcome = message.contains("\"busy\"") ? "busy" : error ? "unexpected" : "processed";
+                    } catch (TimeoutException e) {
+                        error = true;
+                        outcome = "timeout";
+                    } catch (Exception e) {
+                        error = true;
+                        outcome = "send-failed";
+                    }
+                    if (start >= measureFrom) recorder.record(System.nanoTime() - start, outcome, error);
+                    if (outcome.equals("timeout") || outcome.equals("send-failed")) break;
+                }
+            } finally {
+                socket.abort();
+            }
+        }
+    }
+
+    /**
+     * Hands each complete text message to the future taken for it.
+     */
+    private static final class Replies implements WebSocket.Listener {
+        private final StringBuilder partial = new StringBuilder();
+        private volatile CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> next() {
+            CompletableFuture<String> current = new CompletableFuture<>();
+            pending = current;
+            return current;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                pending.complete(partial.toString());
+                partial.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+    }
+
+    private static List<Path> writeWavs(Path dir, int count) throws IOException {
+        AudioProcessor audio = new AudioProcessor();
+        List<Path> wavs = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            // A different tone per file, so each has its own content hash
+            short[] samples = new short[16_000];
+            double hz = 180 + 7 * n;
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = (short) (6000 * Math.sin(2 * Math.PI * hz * i / 16000.0));
+            }
+            Path wav = dir.resolve("load_" + n + ".wav");
+            audio.writeWhisperWav(samples, 0, samples.length, wav);
+            wavs.add(wav);
+        }
+        return wavs;
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,141 @@
+package com.cliffmin.whisper.daemon;
+
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.config.Configuration;
+import com.cliffmin.whisper.service.WhisperService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trip latency of the daemon's transports: loopback HTTP (keep-alive) vs the
+ * Unix socket protocol. Whisper is stubbed out, so the numbers are transport plus
+ * request handling only; the transcribe pair includes probing a 1s WAV.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransportLatencyBenchmark {
+    private PTTServiceDaemon daemon;
+    private Path workDir;
+    private String baseUrl;
+    private LocalSocketClient socketClient;
+    private String transcribeBody;
+
+    @Setup
+    public void setup() throws Exception {
+        workDir = Files.createTempDirectory("ptt-transport");
+        Path wav = workDir.resolve("one_second.wav");
+        AudioProcessor audio = new AudioProcessor();
+        short[] samples = new short[16_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (6000 * Math.sin(2 * Math.PI * 220 * i / 16000.0));
+        }
+        audio.writeWhisperWav(samples, 0, samples.length, wav);
+        transcribeBody = "{\"path\":\"" + wav.toAbsolutePath() + "\"}";
+
+        int port;
+        try (ServerSocket free = new ServerSocket(0)) {
+            port = free.getLocalPort();
+        }
+        Path socket = workDir.resolve("ptt.sock");
+        daemon = new PTTServiceDaemon(new StubWhisper(), audio,
+                Configuration.defaults().txLogDir(workDir.resolve("tx_logs").toString()).build());
+        daemon.start(port, socket);
+        baseUrl = "http://127.0.0.1:" + port;
+        socketClient = new LocalSocketClient(socket);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        socketClient.close();
+        daemon.stop();
+        try (var files = Files.walk(workDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String healthHttp() throws IOException {
+        return http("GET", "/health", null);
+    }
+
+    @Benchmark
+    public String healthSocket() throws IOException {
+        return socketClient.call(LocalSocketServer.OP_HEALTH, "").body;
+    }
+
+    @Benchmark
+    public String transcribeHttp() throws IOException {
+        return http("POST", "/transcribe", transcribeBody);
+    }
+
+    @Benchmark
+    public String transcribeSocket() throws IOException {
+        return socketClient.call(LocalSocketServer.OP_TRANSCRIBE, transcribeBody).body;
+    }
+
+    private String http(String method, String path, String body) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        conn.setRequestMethod(method);
+        if (body != null) {
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        // Reading the body to EOF and closing returns the connection to the keep-alive pool
+        try (InputStream in = conn.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class StubWhisper implements WhisperService {
+        @Override
+        public TranscriptionResult transcribe(Path audioPath, TranscriptionOptions options) {
+            return new TranscriptionResult("hello world", List.of(), options.getLanguage(), 1.0, Map.of());
+        }
+
+        @Override
+        public CompletableFuture<TranscriptionResult> transcribeAsync(Path audioPath, TranscriptionOptions options) {
+            return CompletableFuture.completedFuture(transcribe(audioPath, options));
+        }
+
+        @Override
+        public String detectModel(double durationSeconds) {
+            return "base.en";
+        }
+
+        @Override
+        public boolean validateAudioFile(Path audioPath) {
+            return true;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getImplementationName() {
+            return "stub";
+        }
+    }
+}
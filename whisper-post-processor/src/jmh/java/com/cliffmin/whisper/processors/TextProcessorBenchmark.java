@@ -0,0 +1,171 @@
+package com.cliffmin.whisper.processors;
+
+import com.cliffmin.whisper.pipeline.ProcessingPipeline;
+import com.cliffmin.whisper.pipeline.TextProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cost of each text processor and of the full pipeline over the golden-public transcripts.
+ * The corpus is every transcript of one length class joined together (short ~45 words, medium
+ * ~190, long ~430). Each processor is measured on the text it receives inside the pipeline,
+ * i.e. the output of the processors ahead of it in {@link DefaultProcessors}, the daemon's
+ * chain. Run with the gc profiler (the default in build.gradle) to get allocation per
+ * operation:
+ * {@code ./gradlew jmh -Pjmh.includes=TextProcessorBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TextProcessorBenchmark {
+
+    @Param({"short", "medium", "long"})
+    public String corpus;
+
+    private ProcessingPipeline pipeline;
+    private String text;
+
+    private final ReflowProcessor reflow = new ReflowProcessor();
+    private final DisfluencyProcessor disfluency = new DisfluencyProcessor();
+    private final ContractionNormalizer contractions = new ContractionNormalizer();
+    private final ConjunctionFollowerSplitter conjunctions = new ConjunctionFollowerSplitter();
+    private final MergedWordProcessor mergedWords = new MergedWordProcessor();
+    private final SentenceBoundaryProcessor sentenceBoundaries = new SentenceBoundaryProcessor();
+    private final CapitalizationProcessor capitalization = new CapitalizationProcessor();
+    private final PunctuationProcessor punctuation = new PunctuationProcessor();
+    private final DictionaryProcessor dictionary = new DictionaryProcessor();
+    private final PunctuationNormalizer punctuationNormalizer = new PunctuationNormalizer();
+
+    // Input each processor sees in the pipeline
+    private String reflowIn;
+    private String disfluencyIn;
+    private String contractionsIn;
+    private String conjunctionsIn;
+    private String mergedWordsIn;
+    private String sentenceBoundariesIn;
+    private String capitalizationIn;
+    private String punctuationIn;
+    private String dictionaryIn;
+    private String punctuationNormalizerIn;
+
+    @Setup
+    public void setup() throws IOException {
+        text = loadCorpus(corpus);
+        List<TextProcessor> ordered = DefaultProcessors.create();
+        pipeline = new ProcessingPipeline();
+        ordered.forEach(pipeline::addProcessor);
+
+        String stage = text;
+        for (TextProcessor p : ordered) {
+            if (p instanceof ReflowProcessor) reflowIn = stage;
+            else if (p instanceof DisfluencyProcessor) disfluencyIn = stage;
+            else if (p instanceof ContractionNormalizer) contractionsIn = stage;
+            else if (p instanceof ConjunctionFollowerSplitter) conjunctionsIn = stage;
+            else if (p instanceof MergedWordProcessor) mergedWordsIn = stage;
+            else if (p instanceof SentenceBoundaryProcessor) sentenceBoundariesIn = stage;
+            else if (p instanceof CapitalizationProcessor) capitalizationIn = stage;
+            else if (p instanceof PunctuationProcessor) punctuationIn = stage;
+            else if (p instanceof DictionaryProcessor) dictionaryIn = stage;
+            else if (p instanceof PunctuationNormalizer) punctuationNormalizerIn = stage;
+            else throw new IllegalStateException("No benchmark for " + p.getName());
+            if (p.isEnabled()) stage = p.process(stage);
+        }
+    }
+
+    @Benchmark
+    public String fullPipeline() {
+        return pipeline.process(text);
+    }
+
+    @Benchmark
+    public String reflow() {
+        return reflow.process(reflowIn);
+    }
+
+    @Benchmark
+    public String disfluency() {
+        return disfluency.process(disfluencyIn);
+    }
+
+    @Benchmark
+    public String contractionNormalizer() {
+        return contractions.process(contractionsIn);
+    }
+
+    @Benchmark
+    public String conjunctionFollowerSplitter() {
+        return conjunctions.process(conjunctionsIn);
+    }
+
+    @Benchmark
+    public String mergedWord() {
+        return mergedWords.process(mergedWordsIn);
+    }
+
+    @Benchmark
+    public String sentenceBoundary() {
+        return sentenceBoundaries.process(sentenceBoundariesIn);
+    }
+
+    @Benchmark
+    public String capitalization() {
+        return capitalization.process(capitalizationIn);
+    }
+
+    @Benchmark
+    public String punctuation() {
+        return punctuation.process(punctuationIn);
+    }
+
+    @Benchmark
+    public String dictionary() {
+        return dictionary.process(dictionaryIn);
+    }
+
+    @Benchmark
+    public String punctuationNormalizer() {
+        return punctuationNormalizer.process(punctuationNormalizerIn);
+    }
+
+    /**
+     * All transcripts in golden-public/&lt;size&gt;, sorted by name and joined with spaces.
+     * The fixtures directory can be overridden with -Dgolden.public.dir.
+     */
+    static String loadCorpus(String size) throws IOException {
+        Path dir = fixturesDir().resolve(size);
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".txt"))
+                    .sorted()
+                    .map(TextProcessorBenchmark::read)
+                    .collect(Collectors.joining(" "));
+        }
+    }
+
+    private static Path fixturesDir() {
+        String override = System.getProperty("golden.public.dir");
+        if (override != null) return Path.of(override);
+        // JMH forks run from the subproject directory; IDE runs may use the repository root
+        for (Path candidate : List.of(Path.of("../tests/fixtures/golden-public"), Path.of("tests/fixtures/golden-public"))) {
+            if (Files.isDirectory(candidate)) return candidate;
+        }
+        throw new IllegalStateException("golden-public fixtures not found; set -Dgolden.public.dir");
+    }
+
+    private static String read(Path file) {
+        try {
+            return Files.readString(file).strip();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + file, e);
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package com.cliffmin.voxcore;
 
+import com.cliffmin.voxcore.bench.BenchmarkBaseline;
+import com.cliffmin.voxcore.bench.DeviceCalibrator;
+import com.cliffmin.voxcore.bench.GoldenBenchmark;
 import com.cliffmin.voxcore.config.VoxCoreConfig;
 import com.cliffmin.voxcore.exception.ErrorCode;
 import com.cliffmin.voxcore.exception.VoxCoreException;
+import com.cliffmin.voxcore.transcription.DaemonClient;
 import com.cliffmin.voxcore.transcription.TranscriptionService;
+import com.cliffmin.voxcore.txlog.TransactionLog;
+import com.cliffmin.voxcore.txlog.TransactionRecord;
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.service.DeviceProfile;
+import com.cliffmin.whisper.service.WhisperCppAdapter;
+import com.google.gson.JsonObject;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 /**
@@ -24,7 +37,9 @@ import java.util.concurrent.Callable;
     description = "VoxCore: Offline voice transcription with local processing",
     subcommands = {
         VoxCoreCLI.TranscribeCommand.class,
-        VoxCoreCLI.ConfigCommand.class
+        VoxCoreCLI.ConfigCommand.class,
+        VoxCoreCLI.BenchCommand.class,
+        VoxCoreCLI.CalibrateCommand.class
     }
 )
 public class VoxCoreCLI implements Callable<Integer> {
@@ -67,7 +82,7 @@ public class VoxCoreCLI implements Callable<Integer> {
 
         @Option(
             names = {"-m", "--model"},
-            description = "Whisper model (default: base.en)"
+            description = "Whisper model (default: the device profile's tier, else whisper_model)"
         )
         private String model;
 
@@ -77,6 +92,12 @@ public class VoxCoreCLI implements Callable<Integer> {
         )
         private boolean noPostProcess;
 
+        @Option(
+            names = {"--no-daemon"},
+            description = "Always transcribe in-process, even if the daemon is running"
+        )
+        private boolean noDaemon;
+
         @Option(
             names = {"--debug"},
             description = "Enable debug output"
@@ -102,19 +123,24 @@ public class VoxCoreCLI implements Callable<Integer> {
                     return 1;
                 }
 
-                // Override model if specified
-                if (model != null) {
-                    // TODO: Set model in config
-                }
-
-                // Create transcription service
-                TranscriptionService service = new TranscriptionService(config);
+                // Create transcription service (forwarding to the daemon when one is running)
+                DaemonClient daemon = noDaemon ? null : DaemonClient.fromEnvironment();
+                TranscriptionService service = new TranscriptionService(config, daemon, model);
 
                 // Transcribe
-                String result = service.transcribe(audioFile, !noPostProcess);
+                String result;
+                try {
+                    result = service.transcribe(audioFile, !noPostProcess);
+                } catch (VoxCoreException e) {
+                    outputError(e);
+                    logTransaction(config, service.lastRecord());
+                    return 1;
+                }
 
-                // Output to stdout
+                // Logged only once the caller has the transcript
                 System.out.println(result);
+                System.out.flush();
+                logTransaction(config, service.lastRecord());
 
                 return 0;
 
@@ -133,6 +159,16 @@ public class VoxCoreCLI implements Callable<Integer> {
             }
         }
 
+        /**
+         * Append an in-process run to the transaction log; a daemon-served run (null) is logged by the daemon.
+         */
+        private void logTransaction(VoxCoreConfig config, TransactionRecord record) {
+            if (record == null || !config.isTxLogEnabled() || config.getLogPath() == null) return;
+            try (TransactionLog txLog = TransactionLog.inline(config.getLogPath())) {
+                txLog.append(record);
+            }
+        }
+
         /**
          * Output structured error to stderr (JSON format for Hammerspoon parsing).
          */
@@ -252,4 +288,295 @@ public class VoxCoreCLI implements Callable<Integer> {
             return 0;
         }
     }
+
+    /**
+     * Benchmark golden fixtures in-process, per model and per stage.
+     */
+    @Command(
+        name = "bench",
+        description = "Benchmark golden fixtures: stage timings, real-time factor and word accuracy per model"
+    )
+    static class BenchCommand implements Callable<Integer> {
+
+        @Option(
+            names = {"-c", "--config"},
+            description = "Config file (default: ~/.config/voxcore/config.json)"
+        )
+        private Path configFile;
+
+        @Option(
+            names = {"--golden-dir"},
+            description = "Directory of name.wav + name.txt fixtures (default: $GOLDEN_DIR or tests/fixtures/golden-public)"
+        )
+        private Path goldenDir;
+
+        @Option(
+            names = {"-m", "--model"},
+            description = "Whisper model to benchmark, repeatable (default: configured model)"
+        )
+        private List<String> models = new ArrayList<>();
+
+        @Option(
+            names = {"--models-dir"},
+            description = "Directory of ggml-<model>.bin files (default: Homebrew's, else whisper.cpp's)"
+        )
+        private Path modelsDir;
+
+        @Option(
+            names = {"--whisper-bin"},
+            description = "whisper.cpp binary (default: configured, else auto-detected)"
+        )
+        private String whisperBin;
+
+        @Option(
+            names = {"-o", "--output"},
+            description = "Write the results as a baseline JSON file"
+        )
+        private Path output;
+
+        @Option(
+            names = {"--compare"},
+            description = "Baseline JSON to compare against; exits 1 on regression"
+        )
+        private Path compare;
+
+        @Option(
+            names = {"--max-slowdown"},
+            description = "Allowed avg_time_ms increase over the baseline, percent (default: ${DEFAULT-VALUE})"
+        )
+        private double maxSlowdownPct = 20;
+
+        @Option(
+            names = {"--max-accuracy-drop"},
+            description = "Allowed avg_accuracy_pct decrease from the baseline, points (default: ${DEFAULT-VALUE})"
+        )
+        private double maxAccuracyDrop = 1;
+
+        @Option(
+            names = {"--notes"},
+            description = "Notes recorded in the baseline"
+        )
+        private String notes;
+
+        @Override
+        public Integer call() throws Exception {
+            VoxCoreConfig config = (configFile != null)
+                ? VoxCoreConfig.load(configFile)
+                : VoxCoreConfig.loadDefault();
+            config.validate();
+
+            Path golden = goldenDir(goldenDir);
+            List<Path> fixtures = fixtures(golden);
+            if (fixtures == null) return 1;
+
+            WhisperCppAdapter whisper = whisperAdapter(config, whisperBin, modelsDir);
+            GoldenBenchmark benchmark = goldenBenchmark(config, whisper);
+
+            System.out.printf("Benchmarking %d fixtures from %s%n", fixtures.size(), golden);
+            List<GoldenBenchmark.ModelResult> results = new ArrayList<>();
+            for (String name : models.isEmpty() ? List.of(config.getWhisperModel()) : models) {
+                String model = installedName(whisper, name);
+                GoldenBenchmark.ModelResult result = benchmark.run(fixtures, model != null ? model : name);
+                results.add(result);
+                printResult(result);
+            }
+
+            JsonObject current = BenchmarkBaseline.toJson(version(), golden.toString(), results, notes);
+            if (output != null) {
+                BenchmarkBaseline.write(current, output);
+                System.out.println("Baseline written to " + output);
+            }
+            if (compare != null) {
+                List<String> regressions = BenchmarkBaseline.compare(
+                    BenchmarkBaseline.read(compare), current, maxSlowdownPct, maxAccuracyDrop);
+                if (!regressions.isEmpty()) {
+                    System.err.println("✗ Regressions against " + compare + ":");
+                    regressions.forEach(r -> System.err.println("  - " + r));
+                    return 1;
+                }
+                System.out.println("✓ No regressions against " + compare);
+            }
+            return 0;
+        }
+
+        private static void printResult(GoldenBenchmark.ModelResult result) {
+            System.out.println();
+            System.out.println("Model: " + result.model);
+            System.out.printf("  %-28s %7s %8s %8s %9s %9s %5s%n",
+                "fixture", "audio s", "probe", "norm", "whisper", "post", "acc");
+            for (GoldenBenchmark.FixtureResult f : result.fixtures) {
+                System.out.printf("  %-28s %7.2f %8.1f %8.1f %9.1f %9.2f %4d%%%s%n",
+                    f.name, f.audioSeconds, f.probeMs, f.normalizeMs, f.whisperMs, f.postProcessMs,
+                    f.accuracyPct, f.error != null ? "  " + f.error : "");
+            }
+            System.out.printf("  exact %d/%d (%d%%), accuracy %d%%, avg %d ms, RTF %.3f%n",
+                result.exactMatches(), result.fixtures.size(), result.exactMatchPct(),
+                result.avgAccuracyPct(), result.avgTimeMs(), result.realTimeFactor());
+        }
+
+        private static String version() {
+            String version = VoxCoreCLI.class.getPackage().getImplementationVersion();
+            return version != null ? version : "unknown";
+        }
+    }
+
+    /**
+     * Measure Whisper settings on this machine and write a device profile.
+     */
+    @Command(
+        name = "calibrate",
+        description = "Measure models, threads and beam sizes on this machine and write a device profile"
+    )
+    static class CalibrateCommand implements Callable<Integer> {
+
+        @Option(
+            names = {"-c", "--config"},
+            description = "Config file (default: ~/.config/voxcore/config.json)"
+        )
+        private Path configFile;
+
+        @Option(
+            names = {"--golden-dir"},
+            description = "Directory of name.wav + name.txt fixtures (default: $GOLDEN_DIR or tests/fixtures/golden-public)"
+        )
+        private Path goldenDir;
+
+        @Option(
+            names = {"--fixtures-per-category"},
+            description = "Fixtures used from each subdirectory (default: ${DEFAULT-VALUE})"
+        )
+        private int perCategory = 1;
+
+        @Option(
+            names = {"-m", "--model"},
+            description = "Model to calibrate, repeatable (default: every installed model)"
+        )
+        private List<String> models = new ArrayList<>();
+
+        @Option(
+            names = {"--models-dir"},
+            description = "Directory of ggml-<model>.bin files (default: Homebrew's, else whisper.cpp's)"
+        )
+        private Path modelsDir;
+
+        @Option(
+            names = {"--whisper-bin"},
+            description = "whisper.cpp binary (default: configured, else auto-detected)"
+        )
+        private String whisperBin;
+
+        @Option(
+            names = {"--max-latency"},
+            description = "Decode time allowed for short recordings, ms (default: ${DEFAULT-VALUE})"
+        )
+        private double maxLatencyMs = 2000;
+
+        @Option(
+            names = {"--max-rtf"},
+            description = "Decode time per second of audio allowed for long recordings (default: ${DEFAULT-VALUE})"
+        )
+        private double maxRtf = 0.1;
+
+        @Option(
+            names = {"--max-accuracy-drop"},
+            description = "Accuracy points greedy decoding may lose before beam search is used (default: ${DEFAULT-VALUE})"
+        )
+        private double maxAccuracyDrop = 1;
+
+        @Option(
+            names = {"-o", "--output"},
+            description = "Profile to write (default: $PTT_DEVICE_PROFILE or ~/.config/ptt-dictation/device-profile.json)"
+        )
+        private Path output;
+
+        @Override
+        public Integer call() throws Exception {
+            VoxCoreConfig config = (configFile != null)
+                ? VoxCoreConfig.load(configFile)
+                : VoxCoreConfig.loadDefault();
+            config.validate();
+
+            Path golden = goldenDir(goldenDir);
+            List<Path> fixtures = fixtures(golden);
+            if (fixtures == null) return 1;
+            fixtures = DeviceCalibrator.shortSet(fixtures, perCategory);
+
+            WhisperCppAdapter whisper = whisperAdapter(config, whisperBin, modelsDir);
+            List<String> installed = new ArrayList<>();
+            for (String name : models.isEmpty() ? DeviceCalibrator.MODELS : models) {
+                String model = installedName(whisper, name);
+                if (model != null && !installed.contains(model)) installed.add(model);
+            }
+            if (installed.isEmpty()) {
+                System.err.println("No models found in " + whisper.getModelsPath());
+                return 1;
+            }
+
+            System.out.printf("Calibrating %s on %d fixtures from %s%n", String.join(", ", installed),
+                fixtures.size(), golden);
+            DeviceCalibrator calibrator = new DeviceCalibrator(goldenBenchmark(config, whisper),
+                maxLatencyMs, maxRtf, maxAccuracyDrop, line -> System.out.println("  " + line));
+            DeviceProfile profile = calibrator.calibrate(fixtures, installed, Runtime.getRuntime().availableProcessors());
+
+            Path path = output != null ? output : DeviceProfile.defaultPath();
+            profile.save(path);
+            System.out.println();
+            System.out.println("Threads: " + profile.getThreads());
+            double from = 0;
+            for (DeviceProfile.Tier tier : profile.getTiers()) {
+                System.out.printf("  %5.0fs - %-6s %s (beam %d)%n", from,
+                    tier.maxSeconds > 0 ? String.format("%.0fs", tier.maxSeconds) : "", tier.model,
+                    profile.beamSizeFor(tier.model));
+                from = tier.maxSeconds;
+            }
+            System.out.println("Profile written to " + path);
+            return 0;
+        }
+    }
+
+    private static Path goldenDir(Path option) {
+        return option != null ? option
+            : Paths.get(System.getenv().getOrDefault("GOLDEN_DIR", "tests/fixtures/golden-public"));
+    }
+
+    /**
+     * Fixtures in {@code golden}, or null after reporting why there are none.
+     */
+    private static List<Path> fixtures(Path golden) throws java.io.IOException {
+        if (!Files.isDirectory(golden)) {
+            System.err.println("Golden fixtures not found: " + golden);
+            return null;
+        }
+        List<Path> fixtures = GoldenBenchmark.fixtures(golden);
+        if (fixtures.isEmpty()) {
+            System.err.println("No .wav fixtures with a .txt transcript in " + golden);
+            return null;
+        }
+        return fixtures;
+    }
+
+    private static WhisperCppAdapter whisperAdapter(VoxCoreConfig config, String whisperBin, Path modelsDir) {
+        Path homebrewModels = Paths.get("/opt/homebrew/share/whisper-cpp");
+        Path modelsPath = modelsDir != null ? modelsDir
+            : Files.isDirectory(homebrewModels) ? homebrewModels : WhisperCppAdapter.getDefaultModelsPath();
+        String binary = whisperBin != null ? whisperBin
+            : config.getWhisperCppPath() != null ? config.getWhisperCppPath() : WhisperCppAdapter.findWhisperBinary();
+        return new WhisperCppAdapter(binary, modelsPath, 300, DeviceProfile.loadDefault());
+    }
+
+    private static GoldenBenchmark goldenBenchmark(VoxCoreConfig config, WhisperCppAdapter whisper) {
+        TranscriptionService service = new TranscriptionService(config);
+        return new GoldenBenchmark(whisper, new AudioProcessor(),
+            service::applyPostProcessing, service.loadInitialPrompt());
+    }
+
+    /**
+     * The installed model file's name for {@code model}, or null if neither exists.
+     * Homebrew installs multilingual models without the .en suffix.
+     */
+    private static String installedName(WhisperCppAdapter whisper, String model) {
+        if (whisper.hasModel(model)) return model;
+        String multilingual = model.replace(".en", "");
+        return whisper.hasModel(multilingual) ? multilingual : null;
+    }
 }
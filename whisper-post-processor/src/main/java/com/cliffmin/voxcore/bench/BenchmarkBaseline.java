@@ -0,0 +1,149 @@
+package com.cliffmin.voxcore.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads, writes and compares benchmark baselines.
+ *
+ * The top-level fields are those written by {@code scripts/utilities/benchmark_cli.sh} and
+ * describe the first model benchmarked, so the existing baselines and CI checks keep working.
+ * {@code models} adds every model's aggregates, stage timings and per-fixture results.
+ */
+public final class BenchmarkBaseline {
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    private BenchmarkBaseline() {
+    }
+
+    public static JsonObject toJson(String version, String goldenDir, List<GoldenBenchmark.ModelResult> results,
+                                    String notes) {
+        JsonObject root = new JsonObject();
+        root.addProperty("version", version);
+        root.addProperty("timestamp", Instant.now().truncatedTo(ChronoUnit.SECONDS).toString());
+        root.addProperty("golden_dir", goldenDir);
+        if (!results.isEmpty()) {
+            GoldenBenchmark.ModelResult first = results.get(0);
+            root.addProperty("model", first.model);
+            summary(root, first);
+        }
+        if (notes != null) root.addProperty("notes", notes);
+
+        JsonObject models = new JsonObject();
+        for (GoldenBenchmark.ModelResult result : results) {
+            JsonObject model = new JsonObject();
+            summary(model, result);
+            model.addProperty("audio_seconds", round(result.audioSeconds(), 2));
+            model.addProperty("rtf", round(result.realTimeFactor(), 3));
+            model.addProperty("errors", result.errors());
+            model.add("stages_ms", stages(result));
+
+            JsonArray fixtures = new JsonArray();
+            for (GoldenBenchmark.FixtureResult f : result.fixtures) {
+                JsonObject fixture = new JsonObject();
+                fixture.addProperty("name", f.name);
+                fixture.addProperty("category", f.category);
+                fixture.addProperty("audio_seconds", round(f.audioSeconds, 2));
+                fixture.addProperty("accuracy_pct", f.accuracyPct);
+                fixture.addProperty("exact_match", f.exactMatch);
+                fixture.addProperty("probe_ms", round(f.probeMs, 2));
+                fixture.addProperty("normalize_ms", round(f.normalizeMs, 2));
+                fixture.addProperty("whisper_ms", round(f.whisperMs, 2));
+                fixture.addProperty("post_process_ms", round(f.postProcessMs, 2));
+                if (f.error != null) fixture.addProperty("error", f.error);
+                fixtures.add(fixture);
+            }
+            model.add("fixtures", fixtures);
+            models.add(result.model, model);
+        }
+        root.add("models", models);
+        return root;
+    }
+
+    public static void write(JsonObject baseline, Path path) throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        Files.writeString(path, gson.toJson(baseline) + "\n");
+    }
+
+    public static JsonObject read(Path path) throws IOException {
+        return JsonParser.parseString(Files.readString(path)).getAsJsonObject();
+    }
+
+    /**
+     * Regressions of {@code current} against {@code baseline}, empty if none.
+     *
+     * Models are matched by name. A baseline without {@code models} (one written by
+     * benchmark_cli.sh) is compared with the first model of the current run.
+     *
+     * @param maxSlowdownPct Allowed increase of avg_time_ms, in percent
+     * @param maxAccuracyDrop Allowed decrease of avg_accuracy_pct, in points
+     */
+    public static List<String> compare(JsonObject baseline, JsonObject current,
+                                       double maxSlowdownPct, double maxAccuracyDrop) {
+        List<String> regressions = new ArrayList<>();
+        if (!baseline.has("models") || !current.has("models")) {
+            compareSummary("", baseline, current, maxSlowdownPct, maxAccuracyDrop, regressions);
+            return regressions;
+        }
+        JsonObject currentModels = current.getAsJsonObject("models");
+        for (Map.Entry<String, JsonElement> entry : baseline.getAsJsonObject("models").entrySet()) {
+            JsonObject now = currentModels.getAsJsonObject(entry.getKey());
+            if (now == null) continue;
+            compareSummary(entry.getKey() + ": ", entry.getValue().getAsJsonObject(), now,
+                    maxSlowdownPct, maxAccuracyDrop, regressions);
+        }
+        return regressions;
+    }
+
+    private static void compareSummary(String prefix, JsonObject before, JsonObject after,
+                                       double maxSlowdownPct, double maxAccuracyDrop, List<String> regressions) {
+        double beforeMs = before.get("avg_time_ms").getAsDouble();
+        double afterMs = after.get("avg_time_ms").getAsDouble();
+        if (beforeMs > 0 && (afterMs - beforeMs) * 100 / beforeMs > maxSlowdownPct) {
+            regressions.add(String.format("%savg_time_ms %.0f -> %.0f (+%.0f%%, limit %.0f%%)",
+                    prefix, beforeMs, afterMs, (afterMs - beforeMs) * 100 / beforeMs, maxSlowdownPct));
+        }
+        double beforeAcc = before.get("avg_accuracy_pct").getAsDouble();
+        double afterAcc = after.get("avg_accuracy_pct").getAsDouble();
+        if (beforeAcc - afterAcc > maxAccuracyDrop) {
+            regressions.add(String.format("%savg_accuracy_pct %.0f -> %.0f (limit -%.0f)",
+                    prefix, beforeAcc, afterAcc, maxAccuracyDrop));
+        }
+    }
+
+    private static void summary(JsonObject target, GoldenBenchmark.ModelResult result) {
+        target.addProperty("total_tests", result.fixtures.size());
+        target.addProperty("exact_matches", result.exactMatches());
+        target.addProperty("exact_match_pct", result.exactMatchPct());
+        target.addProperty("avg_accuracy_pct", result.avgAccuracyPct());
+        target.addProperty("avg_time_ms", result.avgTimeMs());
+        target.addProperty("total_time_ms", result.totalTimeMs());
+    }
+
+    private static JsonObject stages(GoldenBenchmark.ModelResult result) {
+        JsonObject stages = new JsonObject();
+        stages.addProperty("probe", round(result.fixtures.stream().mapToDouble(f -> f.probeMs).sum(), 2));
+        stages.addProperty("normalize", round(result.fixtures.stream().mapToDouble(f -> f.normalizeMs).sum(), 2));
+        stages.addProperty("whisper", round(result.fixtures.stream().mapToDouble(f -> f.whisperMs).sum(), 2));
+        stages.addProperty("post_process", round(result.fixtures.stream().mapToDouble(f -> f.postProcessMs).sum(), 2));
+        return stages;
+    }
+
+    private static double round(double value, int places) {
+        double scale = Math.pow(10, places);
+        return Math.round(value * scale) / scale;
+    }
+}
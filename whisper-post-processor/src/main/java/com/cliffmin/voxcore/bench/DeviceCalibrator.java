@@ -0,0 +1,188 @@
+package com.cliffmin.voxcore.bench;
+
+import com.cliffmin.whisper.service.DeviceProfile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Measures whisper.cpp on this machine and derives a {@link DeviceProfile}.
+ *
+ * Three sweeps over a short fixture set: thread counts (on one reference model, greedy), then
+ * beam sizes 1 and 5 for every model at the chosen thread count. Each model's decode time is
+ * fitted as {@code overhead + rtf × audio length}, so process start and model load are not
+ * mistaken for per-second cost. Tiers then give each recording length the most accurate model
+ * whose predicted decode time fits the latency budget.
+ */
+public class DeviceCalibrator {
+
+    /** Models calibrated when none are named, smallest first. */
+    public static final List<String> MODELS =
+            List.of("tiny.en", "base.en", "small.en", "medium.en", "large-v3-turbo", "large-v3");
+    /** Tier limits, as in {@code WhisperCppAdapter.detectModel}; the last tier is open. */
+    static final double[] TIER_SECONDS = {10, 30, 300};
+    /** Length assumed for the open tier when checking the budget. */
+    static final double LAST_TIER_SECONDS = 600;
+    static final int[] BEAM_SIZES = {1, 5};
+    /** Fewer threads win when within this fraction of the fastest; leaves cores for everything else. */
+    private static final double THREAD_TOLERANCE = 0.05;
+
+    private final GoldenBenchmark benchmark;
+    private final double maxLatencyMs;
+    private final double maxRtf;
+    private final double maxAccuracyDrop;
+    private final Consumer<String> progress;
+
+    /**
+     * @param maxLatencyMs Decode time any recording may take (the budget for short recordings)
+     * @param maxRtf Decode time per second of audio allowed when that exceeds {@code maxLatencyMs}
+     * @param maxAccuracyDrop Accuracy points greedy decoding may lose before beam search is kept
+     * @param progress Receives one line per measurement
+     */
+    public DeviceCalibrator(GoldenBenchmark benchmark, double maxLatencyMs, double maxRtf, double maxAccuracyDrop,
+                            Consumer<String> progress) {
+        this.benchmark = benchmark;
+        this.maxLatencyMs = maxLatencyMs;
+        this.maxRtf = maxRtf;
+        this.maxAccuracyDrop = maxAccuracyDrop;
+        this.progress = progress;
+    }
+
+    /**
+     * The first {@code perCategory} fixtures of each directory, to keep calibration short.
+     */
+    public static List<Path> shortSet(List<Path> fixtures, int perCategory) {
+        Map<Path, List<Path>> byDir = new LinkedHashMap<>();
+        for (Path fixture : fixtures) {
+            List<Path> dir = byDir.computeIfAbsent(fixture.getParent(), d -> new ArrayList<>());
+            if (dir.size() < perCategory) dir.add(fixture);
+        }
+        return byDir.values().stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * Powers of two below the core count, plus the core count itself.
+     */
+    public static List<Integer> threadCandidates(int processors) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int t = 2; t < processors; t *= 2) candidates.add(t);
+        candidates.add(Math.max(1, processors));
+        return candidates;
+    }
+
+    /**
+     * @param models Installed models to measure; base (else the first) is the thread-sweep reference
+     */
+    public DeviceProfile calibrate(List<Path> fixtures, List<String> models, int processors) throws IOException {
+        if (fixtures.isEmpty()) throw new IllegalArgumentException("no fixtures");
+        if (models.isEmpty()) throw new IllegalArgumentException("no models");
+
+        String reference = models.stream().filter(m -> m.startsWith("base")).findFirst().orElse(models.get(0));
+        int threads = 0;
+        double best = Double.MAX_VALUE;
+        List<Integer> candidates = threadCandidates(processors);
+        double[] rtfs = new double[candidates.size()];
+        for (int i = 0; i < candidates.size(); i++) {
+            GoldenBenchmark.ModelResult result = benchmark.run(fixtures, reference, candidates.get(i), 1);
+            rtfs[i] = result.errors() == result.fixtures.size() ? Double.MAX_VALUE : result.realTimeFactor();
+            best = Math.min(best, rtfs[i]);
+            progress.accept(String.format("threads %-3d %-10s beam 1  RTF %.3f", candidates.get(i), reference, rtfs[i]));
+        }
+        if (best == Double.MAX_VALUE) {
+            throw new IOException("Whisper failed on every fixture with " + reference);
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            if (rtfs[i] <= best * (1 + THREAD_TOLERANCE)) {
+                threads = candidates.get(i);
+                break;
+            }
+        }
+
+        List<DeviceProfile.ModelProfile> profiles = new ArrayList<>();
+        for (String model : models) {
+            DeviceProfile.ModelProfile chosen = null;
+            for (int beam : BEAM_SIZES) {
+                GoldenBenchmark.ModelResult result = benchmark.run(fixtures, model, threads, beam);
+                if (result.errors() > 0) {
+                    progress.accept(String.format("threads %-3d %-10s beam %d  failed: %s", threads, model, beam,
+                            result.fixtures.stream().filter(f -> f.error != null).findFirst().get().error));
+                    chosen = null;
+                    break;
+                }
+                double[] fit = fit(result);
+                DeviceProfile.ModelProfile measured = new DeviceProfile.ModelProfile(
+                        model, beam, fit[1], fit[0], result.avgAccuracyPct());
+                progress.accept(String.format("threads %-3d %-10s beam %d  RTF %.3f  overhead %.0f ms  accuracy %d%%",
+                        threads, model, beam, measured.rtf, measured.overheadMs, measured.accuracyPct));
+                // Beam search only where it buys accuracy
+                if (chosen == null || measured.accuracyPct - chosen.accuracyPct > maxAccuracyDrop) {
+                    chosen = measured;
+                }
+            }
+            if (chosen != null) profiles.add(chosen);
+        }
+        if (profiles.isEmpty()) throw new IOException("No model transcribed every fixture");
+
+        return new DeviceProfile(Instant.now().truncatedTo(ChronoUnit.SECONDS).toString(), processors, threads,
+                profiles, tiers(profiles));
+    }
+
+    /**
+     * Most accurate model within budget per tier (ties to the faster), the fastest if none fits;
+     * adjacent tiers with the same model are merged.
+     */
+    List<DeviceProfile.Tier> tiers(List<DeviceProfile.ModelProfile> profiles) {
+        List<DeviceProfile.Tier> tiers = new ArrayList<>();
+        for (int i = 0; i <= TIER_SECONDS.length; i++) {
+            double limit = i < TIER_SECONDS.length ? TIER_SECONDS[i] : 0;
+            double seconds = limit > 0 ? limit : LAST_TIER_SECONDS;
+            double budget = Math.max(maxLatencyMs, seconds * 1000 * maxRtf);
+            Comparator<DeviceProfile.ModelProfile> faster = Comparator.comparingDouble(p -> p.predictMillis(seconds));
+            String model = profiles.stream()
+                    .filter(p -> p.predictMillis(seconds) <= budget)
+                    .max(Comparator.<DeviceProfile.ModelProfile>comparingInt(p -> p.accuracyPct).thenComparing(faster.reversed()))
+                    .or(() -> profiles.stream().min(faster))
+                    .get().model;
+            if (!tiers.isEmpty() && tiers.get(tiers.size() - 1).model.equals(model)) {
+                tiers.get(tiers.size() - 1).maxSeconds = limit;
+            } else {
+                tiers.add(new DeviceProfile.Tier(limit, model));
+            }
+        }
+        return tiers;
+    }
+
+    /**
+     * Least-squares {overhead ms, ms per audio ms} of whisper time against audio length; with a
+     * single length, or a negative intercept, all time is attributed to the audio.
+     */
+    static double[] fit(GoldenBenchmark.ModelResult result) {
+        int n = 0;
+        double sx = 0, sy = 0, sxx = 0, sxy = 0;
+        for (GoldenBenchmark.FixtureResult f : result.fixtures) {
+            if (f.error != null || f.audioSeconds <= 0) continue;
+            double x = f.audioSeconds * 1000;
+            n++;
+            sx += x;
+            sy += f.whisperMs;
+            sxx += x * x;
+            sxy += x * f.whisperMs;
+        }
+        if (n == 0 || sx == 0) return new double[]{0, 0};
+        double denominator = n * sxx - sx * sx;
+        if (n > 1 && denominator > 1e-9 * sxx * n) {
+            double slope = (n * sxy - sx * sy) / denominator;
+            double intercept = (sy - slope * sx) / n;
+            if (intercept >= 0 && slope > 0) return new double[]{intercept, slope};
+        }
+        return new double[]{0, sy / sx};
+    }
+}
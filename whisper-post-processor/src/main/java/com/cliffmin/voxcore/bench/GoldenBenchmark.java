@@ -0,0 +1,245 @@
+package com.cliffmin.voxcore.bench;
+
+import com.cliffmin.whisper.audio.AudioProbe;
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.service.WhisperService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Runs golden fixtures ({@code name.wav} + {@code name.txt}) through the daemon's transcription
+ * stages in one JVM and times each stage: probe, normalize, whisper, post-process.
+ *
+ * Word accuracy is scored like {@code scripts/utilities/benchmark_cli.sh} (lowercase, ASCII
+ * punctuation removed, words compared by position, integer percent of the expected words), so
+ * results can be compared with the baselines in {@code tests/results/baselines}.
+ */
+public class GoldenBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(GoldenBenchmark.class);
+
+    /**
+     * One fixture transcribed by one model.
+     */
+    public static final class FixtureResult {
+        public final String name;
+        public final String category;
+        public final double audioSeconds;
+        public final double probeMs;
+        public final double normalizeMs;
+        public final double whisperMs;
+        public final double postProcessMs;
+        public final int accuracyPct;
+        public final boolean exactMatch;
+        public final String error;
+
+        FixtureResult(String name, String category, double audioSeconds, double probeMs, double normalizeMs,
+                      double whisperMs, double postProcessMs, int accuracyPct, boolean exactMatch, String error) {
+            this.name = name;
+            this.category = category;
+            this.audioSeconds = audioSeconds;
+            this.probeMs = probeMs;
+            this.normalizeMs = normalizeMs;
+            this.whisperMs = whisperMs;
+            this.postProcessMs = postProcessMs;
+            this.accuracyPct = accuracyPct;
+            this.exactMatch = exactMatch;
+            this.error = error;
+        }
+
+        public double totalMs() {
+            return probeMs + normalizeMs + whisperMs + postProcessMs;
+        }
+    }
+
+    /**
+     * Every fixture for one model, with the aggregates a baseline records.
+     */
+    public static final class ModelResult {
+        public final String model;
+        public final List<FixtureResult> fixtures;
+
+        ModelResult(String model, List<FixtureResult> fixtures) {
+            this.model = model;
+            this.fixtures = fixtures;
+        }
+
+        public int exactMatches() {
+            return (int) fixtures.stream().filter(f -> f.exactMatch).count();
+        }
+
+        // Integer arithmetic, as in benchmark_cli.sh
+        public int exactMatchPct() {
+            return fixtures.isEmpty() ? 0 : exactMatches() * 100 / fixtures.size();
+        }
+
+        public int avgAccuracyPct() {
+            return fixtures.isEmpty() ? 0 : fixtures.stream().mapToInt(f -> f.accuracyPct).sum() / fixtures.size();
+        }
+
+        public long totalTimeMs() {
+            return Math.round(fixtures.stream().mapToDouble(FixtureResult::totalMs).sum());
+        }
+
+        public long avgTimeMs() {
+            return fixtures.isEmpty() ? 0 : totalTimeMs() / fixtures.size();
+        }
+
+        public double audioSeconds() {
+            return fixtures.stream().mapToDouble(f -> f.audioSeconds).sum();
+        }
+
+        /**
+         * Whisper time over audio time; below 1 is faster than real time.
+         */
+        public double realTimeFactor() {
+            double audio = audioSeconds();
+            return audio <= 0 ? 0 : fixtures.stream().mapToDouble(f -> f.whisperMs).sum() / 1000 / audio;
+        }
+
+        public int errors() {
+            return (int) fixtures.stream().filter(f -> f.error != null).count();
+        }
+    }
+
+    private final WhisperService whisper;
+    private final AudioProcessor audio;
+    private final UnaryOperator<String> postProcess;
+    private final String prompt;
+
+    /**
+     * @param postProcess Text pipeline applied to Whisper's output
+     * @param prompt Initial prompt for Whisper, or null
+     */
+    public GoldenBenchmark(WhisperService whisper, AudioProcessor audio, UnaryOperator<String> postProcess, String prompt) {
+        this.whisper = whisper;
+        this.audio = audio;
+        this.postProcess = postProcess;
+        this.prompt = prompt;
+    }
+
+    /**
+     * Every {@code .wav} below {@code goldenDir} that has a {@code .txt} transcript beside it, sorted.
+     */
+    public static List<Path> fixtures(Path goldenDir) throws IOException {
+        try (Stream<Path> files = Files.walk(goldenDir)) {
+            return files.filter(p -> p.toString().endsWith(".wav"))
+                    .filter(p -> Files.isRegularFile(transcriptFor(p)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Transcribe every fixture with {@code model}. A fixture that fails scores 0% and records the error.
+     */
+    public ModelResult run(List<Path> fixtures, String model) throws IOException {
+        return run(fixtures, model, 0, 0);
+    }
+
+    /**
+     * As {@link #run(List, String)} with explicit whisper.cpp settings; 0 leaves one to the service.
+     */
+    public ModelResult run(List<Path> fixtures, String model, int threads, int beamSize) throws IOException {
+        List<FixtureResult> results = new ArrayList<>();
+        for (Path wav : fixtures) {
+            results.add(runOne(wav, model, threads, beamSize));
+        }
+        return new ModelResult(model, results);
+    }
+
+    private FixtureResult runOne(Path wav, String model, int threads, int beamSize) throws IOException {
+        String name = wav.getFileName().toString();
+        String category = wav.getParent() != null ? wav.getParent().getFileName().toString() : "";
+        String expected = Files.readString(transcriptFor(wav));
+
+        long t0 = System.nanoTime();
+        AudioProbe probe = audio.probe(wav);
+        long t1 = System.nanoTime();
+        Path input = wav;
+        double seconds = probe.duration;
+        double normalizeMs = 0;
+        try {
+            if (!probe.isWhisperReady()) {
+                input = Files.createTempFile("voxcore_bench_", ".wav");
+                long start = System.nanoTime();
+                audio.normalizeForWhisper(probe, input);
+                normalizeMs = ms(System.nanoTime() - start);
+                if (seconds < 0) seconds = audio.getDuration(input);
+            }
+            long t2 = System.nanoTime();
+            WhisperService.TranscriptionOptions options = new WhisperService.TranscriptionOptions.Builder()
+                    .model(model)
+                    .language("en")
+                    .prompt(prompt)
+                    .threads(threads)
+                    .beamSize(beamSize)
+                    .build();
+            String raw = whisper.transcribe(input, options).getText();
+            long t3 = System.nanoTime();
+            String processed = postProcess.apply(raw);
+            long t4 = System.nanoTime();
+
+            boolean exact = normalize(expected).equals(normalize(processed));
+            log.debug("{} [{}] {}: {}", name, model, wordAccuracy(expected, processed), processed);
+            return new FixtureResult(name, category, seconds, ms(t1 - t0), normalizeMs, ms(t3 - t2), ms(t4 - t3),
+                    wordAccuracy(expected, processed), exact, null);
+        } catch (Exception e) {
+            log.warn("{} failed with {}: {}", name, model, e.getMessage());
+            return new FixtureResult(name, category, seconds, ms(t1 - t0), normalizeMs, 0, 0, 0, false, String.valueOf(e.getMessage()));
+        } finally {
+            if (!input.equals(wav)) Files.deleteIfExists(input);
+        }
+    }
+
+    /**
+     * Percentage of expected words matched at the same position (integer, as in benchmark_cli.sh).
+     */
+    public static int wordAccuracy(String expected, String actual) {
+        String e = normalize(expected);
+        String a = normalize(actual);
+        String[] expectedWords = e.isEmpty() ? new String[0] : e.split(" ");
+        String[] actualWords = a.isEmpty() ? new String[0] : a.split(" ");
+        if (expectedWords.length == 0) return 0;
+        int matches = 0;
+        for (int i = 0; i < Math.min(expectedWords.length, actualWords.length); i++) {
+            if (expectedWords[i].equals(actualWords[i])) matches++;
+        }
+        return matches * 100 / expectedWords.length;
+    }
+
+    // tr '[:upper:]' '[:lower:]' | tr -d '[:punct:]' | tr -s ' ', trimmed
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (char c : text.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (c < 128 && isAsciiPunct(c)) continue;
+            if (Character.isWhitespace(c)) {
+                if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') sb.append(' ');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    private static boolean isAsciiPunct(char c) {
+        return (c >= '!' && c <= '/') || (c >= ':' && c <= '@') || (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
+    }
+
+    private static Path transcriptFor(Path wav) {
+        String name = wav.getFileName().toString();
+        return wav.resolveSibling(name.substring(0, name.length() - ".wav".length()) + ".txt");
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+}
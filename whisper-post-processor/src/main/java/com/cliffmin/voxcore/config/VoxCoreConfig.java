@@ -29,6 +29,9 @@ public class VoxCoreConfig {
     @SerializedName("log_dir")
     private String logDir = null;  // Default: notesDir/tx_logs
 
+    @SerializedName("tx_log_enabled")
+    private boolean txLogEnabled = true;  // voxcore-YYYY-MM-DD.jsonl in logDir
+
     // Whisper configuration
     @SerializedName("whisper_model")
     private String whisperModel = "base.en";
@@ -184,6 +187,10 @@ public class VoxCoreConfig {
         return logPath;
     }
 
+    public boolean isTxLogEnabled() {
+        return txLogEnabled;
+    }
+
     public Path getVocabularyPath() {
         return vocabularyPath;
     }
@@ -0,0 +1,192 @@
+package com.cliffmin.voxcore.transcription;
+
+import com.cliffmin.voxcore.exception.ErrorCode;
+import com.cliffmin.voxcore.exception.VoxCoreException;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Forwards transcription to a running PTTServiceDaemon over its local HTTP endpoint.
+ * The daemon keeps Whisper and the processors warm, so the CLI skips binary detection
+ * and process setup. Only a daemon that is not running or is busy (503) yields an empty
+ * result for the caller to transcribe in-process; once the daemon has taken the request,
+ * its errors and timeouts are reported rather than decoded a second time here.
+ */
+public class DaemonClient {
+
+    private static final Logger log = LoggerFactory.getLogger(DaemonClient.class);
+
+    public static final String DEFAULT_URL = "http://127.0.0.1:8765";
+    static final String URL_ENV = "VOXCORE_DAEMON_URL";
+
+    // Loopback connects either succeed or are refused almost immediately
+    private static final int CONNECT_TIMEOUT_MS = 150;
+    private static final int READ_TIMEOUT_MS = 300_000;
+
+    /**
+     * A daemon transcription: the text, and what the daemon reports about how it got there.
+     */
+    public static final class Reply {
+        public final String text;
+        // Model the daemon used, or null if it did not say
+        public final String model;
+        public final double audioSeconds;
+        // Daemon-side phase timings (probe, normalize, model_select, whisper), empty if not reported
+        public final Map<String, Double> timingsMs;
+
+        Reply(String text, String model, double audioSeconds, Map<String, Double> timingsMs) {
+            this.text = text;
+            this.model = model;
+            this.audioSeconds = audioSeconds;
+            this.timingsMs = timingsMs;
+        }
+    }
+
+    private final String baseUrl;
+
+    public DaemonClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    /**
+     * Client for VOXCORE_DAEMON_URL, or the daemon's default port.
+     */
+    public static DaemonClient fromEnvironment() {
+        String url = System.getenv(URL_ENV);
+        return new DaemonClient(url != null && !url.isBlank() ? url.trim() : DEFAULT_URL);
+    }
+
+    /**
+     * Ask the daemon to transcribe a file.
+     *
+     * @param audioFile Audio file, resolved to an absolute path for the daemon
+     * @param model Whisper model name, or null for the daemon's default
+     * @param language Language code, or null for the daemon's default
+     * @param prompt Initial prompt with vocabulary hints, or null
+     * @return Raw transcript, or empty if no daemon is running or it is busy
+     * @throws VoxCoreException if the daemon failed, timed out or returned an empty transcript
+     */
+    public Optional<String> transcribe(Path audioFile, String model, String language, String prompt)
+            throws VoxCoreException {
+        return request(audioFile, model, language, prompt).map(reply -> reply.text);
+    }
+
+    /**
+     * Like {@link #transcribe}, but keeps the model, audio length and timings from the daemon's reply.
+     */
+    public Optional<Reply> request(Path audioFile, String model, String language, String prompt)
+            throws VoxCoreException {
+        JsonObject request = new JsonObject();
+        request.addProperty("path", audioFile.toAbsolutePath().toString());
+        if (model != null) request.addProperty("model", model);
+        if (language != null) request.addProperty("language", language);
+        if (prompt != null) request.addProperty("prompt", prompt);
+
+        HttpURLConnection conn;
+        try {
+            conn = (HttpURLConnection) new URL(baseUrl + "/transcribe").openConnection();
+            conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            conn.setReadTimeout(READ_TIMEOUT_MS);
+            conn.setRequestMethod("POST");
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.connect();
+        } catch (IOException e) {
+            log.debug("Daemon unavailable at {}: {}", baseUrl, e.getMessage());
+            return Optional.empty();
+        }
+
+        try {
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(request.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            int status = conn.getResponseCode();
+            if (status == 503) {
+                log.debug("Daemon busy: {}", readBody(conn.getErrorStream()));
+                return Optional.empty();
+            }
+            if (status != 200) {
+                throw daemonError(status, readBody(conn.getErrorStream()));
+            }
+
+            JsonObject response = JsonParser.parseString(readBody(conn.getInputStream())).getAsJsonObject();
+            JsonElement text = response.get("text");
+            if (text == null || text.isJsonNull() || text.getAsString().isBlank()) {
+                throw new VoxCoreException(
+                    ErrorCode.ERR_EMPTY_TRANSCRIPT,
+                    "Whisper returned empty transcript (possible silence or very short audio)"
+                );
+            }
+            log.info("Transcribed by daemon at {}", baseUrl);
+            return Optional.of(new Reply(text.getAsString().trim(),
+                response.has("model") && !response.get("model").isJsonNull() ? response.get("model").getAsString() : null,
+                response.has("audioSeconds") ? response.get("audioSeconds").getAsDouble() : 0,
+                timings(response.get("timingsMs"))));
+        } catch (SocketTimeoutException e) {
+            throw new VoxCoreException(
+                ErrorCode.ERR_WHISPER_FAILED,
+                "Daemon did not answer within " + READ_TIMEOUT_MS / 1000 + "s",
+                e
+            );
+        } catch (IOException | RuntimeException e) {
+            throw new VoxCoreException(ErrorCode.ERR_UNKNOWN, "Daemon request failed: " + e.getMessage(), e);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * The daemon's error reply as the CLI's exception: its {@code code} if it sent one,
+     * else whisper failed (5xx) or the request was rejected (4xx).
+     */
+    private static VoxCoreException daemonError(int status, String body) {
+        ErrorCode code = status >= 500 ? ErrorCode.ERR_WHISPER_FAILED : ErrorCode.ERR_UNKNOWN;
+        String message = body;
+        try {
+            JsonObject error = JsonParser.parseString(body).getAsJsonObject();
+            if (error.has("error")) message = error.get("error").getAsString();
+            if (error.has("code")) {
+                String name = error.get("code").getAsString();
+                for (ErrorCode candidate : ErrorCode.values()) {
+                    if (candidate.getCode().equals(name)) code = candidate;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Not JSON; keep the status's code and the raw body
+        }
+        return new VoxCoreException(code, "Daemon returned " + status + ": " + message);
+    }
+
+    private static Map<String, Double> timings(JsonElement element) {
+        if (element == null || !element.isJsonObject()) return Collections.emptyMap();
+        Map<String, Double> timings = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> phase : element.getAsJsonObject().entrySet()) {
+            timings.put(phase.getKey(), phase.getValue().getAsDouble());
+        }
+        return timings;
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        if (in == null) return "";
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -3,7 +3,10 @@ package com.cliffmin.voxcore.transcription;
 import com.cliffmin.voxcore.config.VoxCoreConfig;
 import com.cliffmin.voxcore.exception.ErrorCode;
 import com.cliffmin.voxcore.exception.VoxCoreException;
+import com.cliffmin.voxcore.txlog.TransactionRecord;
 import com.cliffmin.whisper.WhisperPostProcessorCLI;
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.audio.FlacDecoder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.slf4j.Logger;
@@ -16,32 +19,88 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Orchestrates transcription: Whisper invocation + post-processing.
  * Replaces Lua transcription logic from push_to_talk.lua.
+ * When a daemon client is given, a running daemon transcribes first and
+ * Whisper is only invoked in-process if no daemon answers.
+ * Each call leaves a transaction record with its phase timings; see {@link #lastRecord}.
  */
 public class TranscriptionService {
 
     private static final Logger log = LoggerFactory.getLogger(TranscriptionService.class);
 
     private final VoxCoreConfig config;
-    private final WhisperInvoker whisperInvoker;
+    private final DaemonClient daemon;
+    private final String model;
+    private WhisperInvoker whisperInvoker;
+    private TransactionRecord lastRecord;
 
     public TranscriptionService(VoxCoreConfig config) {
+        this(config, null);
+    }
+
+    /**
+     * @param daemon Client for a running daemon, or null to always transcribe in-process
+     */
+    public TranscriptionService(VoxCoreConfig config, DaemonClient daemon) {
+        this(config, daemon, null);
+    }
+
+    /**
+     * @param model Whisper model for every call, or null to let the device profile or config choose
+     */
+    public TranscriptionService(VoxCoreConfig config, DaemonClient daemon, String model) {
         this.config = config;
-        this.whisperInvoker = new WhisperInvoker(config);
+        this.daemon = daemon;
+        this.model = model;
     }
 
     /**
      * Transcribe audio file.
      *
-     * @param audioFile Path to WAV file
+     * @param audioFile Path to WAV file; its FLAC archive is used once the WAV has been archived
      * @param postProcess Whether to apply post-processing
      * @return Transcribed text
      * @throws VoxCoreException if transcription fails
      */
     public String transcribe(Path audioFile, boolean postProcess) throws VoxCoreException {
+        long start = System.nanoTime();
+        audioFile = AudioProcessor.resolveRecording(audioFile);
+        TransactionRecord record = new TransactionRecord(audioFile);
+        try {
+            String text = transcribe(audioFile, postProcess, record);
+            record.succeeded(text);
+            return text;
+        } catch (VoxCoreException e) {
+            record.failed(e.getErrorCode(), e.getMessage());
+            throw e;
+        } catch (RuntimeException e) {
+            record.failed(ErrorCode.ERR_UNKNOWN, e.getMessage());
+            throw e;
+        } finally {
+            lastRecord = record.finish(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The transaction record of the last {@link #transcribe} call, for the caller to log once the
+     * transcript is out, or null if the daemon transcribed it (the daemon logs its own runs).
+     */
+    public TransactionRecord lastRecord() {
+        TransactionRecord record = lastRecord;
+        if (record == null || TransactionRecord.BY_DAEMON.equals(record.transcribedBy)) return null;
+        // Read from the WAV header here rather than on the transcription path
+        if (record.durationSec == null && record.wav != null
+                && TransactionRecord.BY_IN_PROCESS.equals(record.transcribedBy)) {
+            record.durationSec = WhisperInvoker.audioSeconds(Path.of(record.wav));
+        }
+        return record;
+    }
+
+    private String transcribe(Path audioFile, boolean postProcess, TransactionRecord record) throws VoxCoreException {
         if (!Files.exists(audioFile)) {
             throw new VoxCoreException(
                 ErrorCode.ERR_AUDIO_NOT_FOUND,
@@ -52,30 +111,101 @@ public class TranscriptionService {
         log.info("Transcribing: {}", audioFile);
 
         // Load vocabulary hints if enabled
+        long mark = System.nanoTime();
         String initialPrompt = loadInitialPrompt();
+        mark = lap(record, "prompt", mark);
 
-        // Invoke Whisper
-        WhisperResult whisperResult = whisperInvoker.transcribe(audioFile, initialPrompt);
-
-        // Extract text
-        String text = whisperResult.getText();
+        // Prefer the warm daemon; invoke Whisper here only if none is running or it is busy.
+        // Without an explicit model the daemon picks one (its calibrated tiers first).
+        Optional<DaemonClient.Reply> forwarded;
+        try {
+            forwarded = daemon != null
+                ? daemon.request(audioFile, model, "en", initialPrompt)
+                : Optional.empty();
+        } catch (VoxCoreException e) {
+            // The daemon took the request, so its failure is in the daemon's log
+            record.transcribedBy = TransactionRecord.BY_DAEMON;
+            throw e;
+        }
+        String text;
+        if (forwarded.isPresent()) {
+            DaemonClient.Reply reply = forwarded.get();
+            text = reply.text;
+            record.transcribedBy = TransactionRecord.BY_DAEMON;
+            record.model = reply.model != null ? reply.model : model;
+            if (reply.audioSeconds > 0) record.durationSec = reply.audioSeconds;
+            record.phasesMs.putAll(reply.timingsMs);
+            mark = System.nanoTime();
+        } else {
+            // Whatever a failed daemon attempt took is in tx_ms but no phase
+            mark = System.nanoTime();
+            if (whisperInvoker == null) {
+                whisperInvoker = new WhisperInvoker(config);
+            }
+            record.transcribedBy = TransactionRecord.BY_IN_PROCESS;
+            // whisper-cli reads WAV, so an archived recording is decoded to a temporary one first
+            Path input = audioFile;
+            if (FlacDecoder.isFlac(audioFile)) {
+                input = decodeArchived(audioFile);
+                mark = lap(record, "normalize", mark);
+            }
+            WhisperResult result;
+            try {
+                result = whisperInvoker.transcribe(input, initialPrompt, model);
+            } finally {
+                if (!input.equals(audioFile)) deleteQuietly(input);
+            }
+            text = result.getText();
+            record.model = result.getMetadata().has("model") ? result.getMetadata().get("model").getAsString() : model;
+            mark = lap(record, "whisper", mark);
+        }
 
         // Apply post-processing if requested
         if (postProcess) {
             text = applyPostProcessing(text);
+            lap(record, "post_process", mark);
         }
 
         log.info("Transcription complete: {} chars", text.length());
         return text;
     }
 
+    private static Path decodeArchived(Path flac) throws VoxCoreException {
+        Path wav = null;
+        try {
+            wav = Files.createTempFile("voxcore_", ".wav");
+            return new AudioProcessor().normalizeForWhisper(flac, wav);
+        } catch (IOException e) {
+            if (wav != null) deleteQuietly(wav);
+            throw new VoxCoreException(
+                ErrorCode.ERR_WHISPER_FAILED,
+                "Failed to decode archived recording: " + flac,
+                e
+            );
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static long lap(TransactionRecord record, String phase, long since) {
+        long now = System.nanoTime();
+        record.phase(phase, now - since);
+        return now;
+    }
+
     /**
      * Load initial prompt with vocabulary hints.
      * Replaces Lua loadInitialPrompt() function.
      *
      * @return Initial prompt string
      */
-    private String loadInitialPrompt() {
+    public String loadInitialPrompt() {
         if (!config.isEnableDynamicVocab()) {
             return getStaticPrompt();
         }
@@ -110,7 +240,7 @@ public class TranscriptionService {
      * @param text Raw transcription
      * @return Post-processed text
      */
-    private String applyPostProcessing(String text) {
+    public String applyPostProcessing(String text) {
         try {
             // Use existing processing pipeline with default processors
             com.cliffmin.whisper.pipeline.ProcessingPipeline pipeline = createDefaultPipeline();
@@ -3,6 +3,9 @@ package com.cliffmin.voxcore.transcription;
 import com.cliffmin.voxcore.config.VoxCoreConfig;
 import com.cliffmin.voxcore.exception.ErrorCode;
 import com.cliffmin.voxcore.exception.VoxCoreException;
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.jfr.WhisperInvocationEvent;
+import com.cliffmin.whisper.service.DeviceProfile;
 import com.google.gson.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,16 +22,27 @@ import java.util.List;
 /**
  * Invokes whisper-cpp binary for transcription.
  * Replaces Lua Whisper invocation logic.
+ * A calibrated device profile picks the model by recording length and sets threads and beam size,
+ * as it does for the daemon; only a model named for the call outranks it.
  */
 public class WhisperInvoker {
 
     private static final Logger log = LoggerFactory.getLogger(WhisperInvoker.class);
 
     private final VoxCoreConfig config;
+    private final DeviceProfile profile;
     private final String whisperBinary;
 
     public WhisperInvoker(VoxCoreConfig config) {
+        this(config, DeviceProfile.loadDefault());
+    }
+
+    /**
+     * @param profile Calibrated model tiers, threads and beam sizes, or null to use the config's model
+     */
+    public WhisperInvoker(VoxCoreConfig config, DeviceProfile profile) {
         this.config = config;
+        this.profile = profile;
         this.whisperBinary = detectWhisperBinary();
     }
 
@@ -41,95 +55,161 @@ public class WhisperInvoker {
      * @throws VoxCoreException if transcription fails
      */
     public TranscriptionService.WhisperResult transcribe(Path audioFile, String initialPrompt) throws VoxCoreException {
-        List<String> command = buildWhisperCommand(audioFile, initialPrompt);
+        return transcribe(audioFile, initialPrompt, null);
+    }
+
+    /**
+     * As {@link #transcribe(Path, String)} with {@code model}, or null for the profile's tier or the config's model.
+     * The model used is reported as {@code model} in the result's metadata.
+     */
+    public TranscriptionService.WhisperResult transcribe(Path audioFile, String initialPrompt, String model) throws VoxCoreException {
+        String selectedModel = selectModel(audioFile, model);
+        List<String> command = buildWhisperCommand(audioFile, initialPrompt, selectedModel);
 
         log.info("Invoking Whisper: {}", String.join(" ", command));
 
         ProcessBuilder pb = new ProcessBuilder(command);
         pb.redirectErrorStream(false);
 
-        Process process;
+        WhisperInvocationEvent event = new WhisperInvocationEvent();
+        event.begin();
+        int exitCode = -1;
         try {
-            process = pb.start();
-        } catch (IOException e) {
-            throw new VoxCoreException(
-                ErrorCode.ERR_WHISPER_FAILED,
-                "Failed to start Whisper process",
-                e
-            );
-        }
-
-        // Read output
-        StringBuilder stdout = new StringBuilder();
-        StringBuilder stderr = new StringBuilder();
-
-        Thread stdoutReader = new Thread(() -> {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    stdout.append(line).append("\n");
-                }
+            Process process;
+            try {
+                process = pb.start();
             } catch (IOException e) {
-                log.error("Error reading stdout: {}", e.getMessage());
+                throw new VoxCoreException(
+                    ErrorCode.ERR_WHISPER_FAILED,
+                    "Failed to start Whisper process",
+                    e
+                );
             }
-        });
-
-        Thread stderrReader = new Thread(() -> {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    stderr.append(line).append("\n");
-                    log.debug("Whisper: {}", line);
+
+            // Read output
+            StringBuilder stdout = new StringBuilder();
+            StringBuilder stderr = new StringBuilder();
+
+            Thread stdoutReader = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        stdout.append(line).append("\n");
+                    }
+                } catch (IOException e) {
+                    log.error("Error reading stdout: {}", e.getMessage());
+                }
+            });
+
+            Thread stderrReader = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        stderr.append(line).append("\n");
+                        log.debug("Whisper: {}", line);
+                    }
+                } catch (IOException e) {
+                    log.error("Error reading stderr: {}", e.getMessage());
+                }
+            });
+
+            stdoutReader.start();
+            stderrReader.start();
+
+            try {
+                exitCode = process.waitFor();
+                stdoutReader.join();
+                stderrReader.join();
+
+                if (exitCode != 0) {
+                    throw new VoxCoreException(
+                        ErrorCode.ERR_WHISPER_FAILED,
+                        "Whisper failed with exit code " + exitCode,
+                        stderr.toString().trim()
+                    );
                 }
-            } catch (IOException e) {
-                log.error("Error reading stderr: {}", e.getMessage());
-            }
-        });
 
-        stdoutReader.start();
-        stderrReader.start();
+                // Parse output
+                TranscriptionService.WhisperResult result = parseWhisperOutput(stdout.toString());
+                result.getMetadata().addProperty("model", selectedModel);
+                return result;
 
-        try {
-            int exitCode = process.waitFor();
-            stdoutReader.join();
-            stderrReader.join();
-
-            if (exitCode != 0) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 throw new VoxCoreException(
                     ErrorCode.ERR_WHISPER_FAILED,
-                    "Whisper failed with exit code " + exitCode,
-                    stderr.toString().trim()
+                    "Whisper process interrupted",
+                    e
                 );
             }
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.model = selectedModel;
+                event.threads = threads();
+                event.beamSize = beamSize(selectedModel);
+                event.audioSeconds = audioSeconds(audioFile);
+                event.exitCode = exitCode;
+                event.commit();
+            }
+        }
+    }
 
-            // Parse output
-            return parseWhisperOutput(stdout.toString());
+    // Only read when the event is recorded or logged; 0 if the header cannot be read
+    static double audioSeconds(Path audioFile) {
+        try {
+            return new AudioProcessor().getDuration(audioFile);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new VoxCoreException(
-                ErrorCode.ERR_WHISPER_FAILED,
-                "Whisper process interrupted",
-                e
-            );
+    /**
+     * The model for this recording: {@code requested}, else the profile's tier for its length,
+     * else the configured model.
+     */
+    String selectModel(Path audioFile, String requested) {
+        if (requested != null && !requested.isBlank()) return requested;
+        if (profile != null && !profile.getTiers().isEmpty()) {
+            String calibrated = profile.modelFor(audioSeconds(audioFile));
+            if (calibrated != null) return calibrated;
         }
+        return config.getWhisperModel();
+    }
+
+    private int threads() {
+        return profile != null ? profile.getThreads() : 0;
+    }
+
+    private int beamSize(String model) {
+        return profile != null ? profile.beamSizeFor(model) : 0;
     }
 
     /**
      * Build Whisper command.
      */
-    private List<String> buildWhisperCommand(Path audioFile, String initialPrompt) {
+    List<String> buildWhisperCommand(Path audioFile, String initialPrompt, String model) {
         List<String> command = new ArrayList<>();
 
         command.add(whisperBinary);
         command.add("-m");
-        command.add(getModelPath(config.getWhisperModel()));
+        command.add(getModelPath(model));
         command.add("-f");
         command.add(audioFile.toAbsolutePath().toString());
         command.add("--language");
         command.add("en");
         command.add("--no-timestamps"); // Just the text, no timestamps
 
+        // Calibrated settings; whisper-cli's own defaults otherwise
+        if (threads() > 0) {
+            command.add("--threads");
+            command.add(String.valueOf(threads()));
+        }
+        if (beamSize(model) > 0) {
+            command.add("--beam-size");
+            command.add(String.valueOf(beamSize(model)));
+        }
+
         if (initialPrompt != null && !initialPrompt.isEmpty()) {
             command.add("--prompt");
             command.add(initialPrompt);
@@ -211,6 +291,17 @@ public class WhisperInvoker {
             return modelName;
         }
 
+        // Beside the configured model file, for calibrated tiers named without a path
+        Path configured = Paths.get(config.getWhisperModel());
+        if (configured.getParent() != null) {
+            for (String name : new String[] {modelName, normalizedName}) {
+                Path sibling = configured.resolveSibling("ggml-" + name + ".bin");
+                if (Files.exists(sibling)) {
+                    return sibling.toString();
+                }
+            }
+        }
+
         // Model not found - provide helpful error
         String errorMsg = String.format(
             "Whisper model '%s' not found at %s\n" +
@@ -0,0 +1,284 @@
+package com.cliffmin.voxcore.txlog;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only JSONL transaction log, written by a background thread.
+ *
+ * {@link #append} only offers the record to a bounded queue, so a slow or full disk never holds
+ * up a transcription; when the queue is full the record is dropped and counted instead. The
+ * writer drains whatever has queued up and writes it in one go, and fsyncs at most once per
+ * {@link #SYNC_INTERVAL} while records keep arriving (plus once on {@link #close}), so bursts
+ * share a sync.
+ *
+ * A log for a single short-lived command ({@link #inline}) has no writer thread: {@link #append}
+ * writes the record itself and nothing is fsynced, so exiting costs neither a thread join nor a
+ * sync; the OS writes the page cache back on its own.
+ *
+ * Files are {@code voxcore-YYYY-MM-DD.jsonl} in the log directory, next to the Hammerspoon
+ * {@code tx-YYYY-MM-DD.jsonl} files. A file reaching {@code maxBytes} is rotated to
+ * {@code voxcore-YYYY-MM-DD.1.jsonl} (older ones shift up, the oldest beyond
+ * {@code maxBackups} is deleted).
+ */
+public class TransactionLog implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(TransactionLog.class);
+    private static final Gson gson = new Gson();
+
+    public static final String PREFIX = "voxcore-";
+    public static final String SUFFIX = ".jsonl";
+    public static final long DEFAULT_MAX_BYTES = 10L * 1024 * 1024;
+    public static final int DEFAULT_MAX_BACKUPS = 5;
+    static final Duration SYNC_INTERVAL = Duration.ofSeconds(1);
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(2);
+    // Queued by close(); the writer stops once it reaches it
+    private static final TransactionRecord STOP = new TransactionRecord();
+
+    private final Path dir;
+    private final long maxBytes;
+    private final int maxBackups;
+    private final Clock clock;
+    private final BlockingQueue<TransactionRecord> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Writer thread only (or append's caller, under this, when inline)
+    private FileChannel channel;
+    private LocalDate day;
+    private long size;
+    private boolean dirty;
+    private long lastSync = System.nanoTime();
+
+    public TransactionLog(Path dir) {
+        this(dir, DEFAULT_MAX_BYTES, DEFAULT_MAX_BACKUPS, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param maxBytes Size at which the current file is rotated
+     * @param maxBackups Rotated files kept per day
+     * @param clock Decides the date in the file name
+     */
+    public TransactionLog(Path dir, long maxBytes, int maxBackups, Clock clock) {
+        this(dir, maxBytes, maxBackups, clock, false);
+    }
+
+    /**
+     * @param inline Write on {@link #append}'s thread and never fsync, for one-shot commands
+     */
+    public TransactionLog(Path dir, long maxBytes, int maxBackups, Clock clock, boolean inline) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.maxBackups = Math.max(1, maxBackups);
+        this.clock = clock;
+        if (inline) {
+            this.writer = null;
+            return;
+        }
+        this.writer = new Thread(this::run, "voxcore-txlog");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * A log for a process that appends a record or two and exits: written in place, not fsynced.
+     */
+    public static TransactionLog inline(Path dir) {
+        return new TransactionLog(dir, DEFAULT_MAX_BYTES, DEFAULT_MAX_BACKUPS, Clock.systemDefaultZone(), true);
+    }
+
+    /**
+     * Queue a record for writing; never blocks (an inline log writes it before returning).
+     *
+     * @return false if the log is closed or its queue is full (the record is dropped)
+     */
+    public boolean append(TransactionRecord record) {
+        if (writer == null) {
+            synchronized (this) {
+                if (closed) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                write(List.of(record));
+                return true;
+            }
+        }
+        if (closed || !queue.offer(record)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records dropped because the queue was full or the log closed.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * The file records for {@code date} go to before rotation.
+     */
+    public static Path fileFor(Path dir, LocalDate date) {
+        return dir.resolve(PREFIX + date + SUFFIX);
+    }
+
+    static Path backupFor(Path dir, LocalDate date, int index) {
+        return dir.resolve(PREFIX + date + "." + index + SUFFIX);
+    }
+
+    /**
+     * Write and fsync everything queued, waiting up to two seconds. An inline log only closes its file.
+     */
+    @Override
+    public void close() {
+        if (writer == null) {
+            synchronized (this) {
+                closed = true;
+                closeChannel();
+            }
+            return;
+        }
+        if (closed) return;
+        closed = true;
+        try {
+            if (!queue.offer(STOP, CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Transaction log writer is stuck; {} records not written", queue.size());
+                return;
+            }
+            writer.join(CLOSE_TIMEOUT.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<TransactionRecord> batch = new ArrayList<>();
+        try {
+            boolean stop = false;
+            while (!stop) {
+                TransactionRecord first = dirty
+                        ? queue.poll(Math.max(0, lastSync + SYNC_INTERVAL.toNanos() - System.nanoTime()), TimeUnit.NANOSECONDS)
+                        : queue.take();
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    stop = batch.removeIf(r -> r == STOP);
+                    write(batch);
+                    batch.clear();
+                }
+                if (dirty && (stop || System.nanoTime() - lastSync >= SYNC_INTERVAL.toNanos())) sync();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Records that raced with close() are still written
+            queue.drainTo(batch);
+            batch.removeIf(r -> r == STOP);
+            write(batch);
+            sync();
+            closeChannel();
+        }
+    }
+
+    private void write(List<TransactionRecord> records) {
+        if (records.isEmpty()) return;
+        ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        try {
+            for (TransactionRecord record : records) {
+                byte[] line = (gson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8);
+                LocalDate today = LocalDate.now(clock);
+                if (channel == null || !today.equals(day)) {
+                    flush(pending);
+                    open(today);
+                }
+                if (size + pending.size() > 0 && size + pending.size() + line.length > maxBytes) {
+                    flush(pending);
+                    rotate();
+                }
+                pending.write(line);
+            }
+            flush(pending);
+        } catch (IOException e) {
+            log.warn("Transaction log write to {} failed, {} records lost: {}", dir, records.size(), e.getMessage());
+            closeChannel();
+        }
+    }
+
+    private void flush(ByteArrayOutputStream pending) throws IOException {
+        if (pending.size() == 0) return;
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+        while (buffer.hasRemaining()) size += channel.write(buffer);
+        pending.reset();
+        dirty = true;
+    }
+
+    private void open(LocalDate date) throws IOException {
+        if (channel != null) {
+            sync();
+            closeChannel();
+        }
+        Files.createDirectories(dir);
+        channel = FileChannel.open(fileFor(dir, date),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        day = date;
+        size = channel.size();
+    }
+
+    private void rotate() throws IOException {
+        LocalDate date = day;
+        sync();
+        closeChannel();
+        Files.deleteIfExists(backupFor(dir, date, maxBackups));
+        for (int i = maxBackups - 1; i >= 1; i--) {
+            Path from = backupFor(dir, date, i);
+            if (Files.exists(from)) Files.move(from, backupFor(dir, date, i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(fileFor(dir, date), backupFor(dir, date, 1), StandardCopyOption.REPLACE_EXISTING);
+        open(date);
+    }
+
+    private void sync() {
+        if (channel != null && dirty && writer != null) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                log.warn("Transaction log fsync failed: {}", e.getMessage());
+            }
+        }
+        dirty = false;
+        lastSync = System.nanoTime();
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Closing transaction log: {}", e.getMessage());
+        }
+        channel = null;
+    }
+}
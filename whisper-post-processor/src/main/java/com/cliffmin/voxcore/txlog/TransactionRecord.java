@@ -0,0 +1,94 @@
+package com.cliffmin.voxcore.txlog;
+
+import com.cliffmin.voxcore.exception.ErrorCode;
+import com.google.gson.annotations.SerializedName;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One transcription in the transaction log.
+ *
+ * Field names match the Hammerspoon {@code tx-*.jsonl} records (ts, kind, model, duration_sec,
+ * tx_ms, transcript_chars), so {@code scripts/analysis/analyze_logs.py} reads both. Unset fields
+ * are left out of the JSON.
+ */
+public class TransactionRecord {
+    public static final String KIND_SUCCESS = "success";
+    public static final String KIND_ERROR = "error";
+    public static final String BY_DAEMON = "daemon";
+    public static final String BY_IN_PROCESS = "in-process";
+
+    @SerializedName("ts")
+    public String ts;
+
+    @SerializedName("kind")
+    public String kind;
+
+    @SerializedName("wav")
+    public String wav;
+
+    @SerializedName("model")
+    public String model;
+
+    @SerializedName("duration_sec")
+    public Double durationSec;
+
+    @SerializedName("tx_ms")
+    public Long txMs;
+
+    @SerializedName("transcript_chars")
+    public Integer transcriptChars;
+
+    // Where Whisper ran: the daemon or this process
+    @SerializedName("transcribed_by")
+    public String transcribedBy;
+
+    // Milliseconds per phase that ran (prompt, probe, normalize, model_select, whisper, post_process)
+    @SerializedName("phases_ms")
+    public Map<String, Double> phasesMs = new LinkedHashMap<>();
+
+    @SerializedName("error_code")
+    public String errorCode;
+
+    @SerializedName("error")
+    public String error;
+
+    @SerializedName("voxcore_version")
+    public String voxcoreVersion;
+
+    public TransactionRecord() {
+    }
+
+    public TransactionRecord(Path wav) {
+        this.ts = Instant.now().toString();
+        this.wav = wav != null ? wav.toAbsolutePath().toString() : null;
+        this.voxcoreVersion = TransactionRecord.class.getPackage().getImplementationVersion();
+    }
+
+    public void phase(String name, long nanos) {
+        phasesMs.merge(name, Math.round(nanos / 1e5) / 10.0, Double::sum);
+    }
+
+    public void succeeded(String text) {
+        this.kind = KIND_SUCCESS;
+        this.transcriptChars = text.length();
+    }
+
+    public void failed(ErrorCode code, String message) {
+        this.kind = KIND_ERROR;
+        this.errorCode = code.getCode();
+        this.error = message;
+    }
+
+    /**
+     * Stamp the end-to-end time; returns this record for appending.
+     */
+    public TransactionRecord finish(long elapsedNanos) {
+        this.txMs = elapsedNanos / 1_000_000;
+        if (phasesMs.isEmpty()) phasesMs = null;
+        return this;
+    }
+}
@@ -0,0 +1,330 @@
+package com.cliffmin.whisper.audio;
+
+/**
+ * Primitive audio-analysis kernels over decoded sample arrays.
+ *
+ * Format handling happens once in {@link #decodePcm}; the kernels themselves are plain
+ * counted loops over short[]/float[] with no per-sample branching, which C2 can unroll and
+ * vectorize. When the JVM is started with {@code --add-modules jdk.incubator.vector}, the
+ * float[] kernels switch to explicit Vector API implementations.
+ */
+public final class AudioKernels {
+
+    /** Full-scale magnitude for 16-bit PCM. */
+    public static final float FULL_SCALE = 32768f;
+
+    private static final boolean VECTOR_API = detectVectorApi();
+
+    private AudioKernels() {
+    }
+
+    /**
+     * Per-frame level and spectrum statistics.
+     */
+    public static class FrameStats {
+        public final double rms;             // 0..1, relative to full scale
+        public final double peak;            // 0..1, relative to full scale
+        public final double clippingRatio;   // fraction of samples at or above the clip level
+        public final double dcOffset;        // mean sample value, relative to full scale
+        public final double spectralFlatness; // 0 (tonal) .. 1 (noise-like)
+
+        public FrameStats(double rms, double peak, double clippingRatio, double dcOffset, double spectralFlatness) {
+            this.rms = rms;
+            this.peak = peak;
+            this.clippingRatio = clippingRatio;
+            this.dcOffset = dcOffset;
+            this.spectralFlatness = spectralFlatness;
+        }
+
+        public double rmsDb() {
+            return toDb(rms);
+        }
+    }
+
+    /**
+     * Whether the incubating Vector API path is active for float[] kernels.
+     */
+    public static boolean isVectorApiEnabled() {
+        return VECTOR_API;
+    }
+
+    // --- decoding -------------------------------------------------------
+
+    /**
+     * Decode raw PCM bytes into 16-bit samples, choosing the loop once per buffer.
+     * 8-bit input is centred around zero but not rescaled; other sample sizes decode as silence.
+     *
+     * @return Number of samples decoded into dest
+     */
+    public static int decodePcm(byte[] src, int length, int bytesPerSample, boolean bigEndian, short[] dest) {
+        int count = Math.min(length / Math.max(bytesPerSample, 1), dest.length);
+        if (bytesPerSample == 2) {
+            if (bigEndian) {
+                for (int i = 0; i < count; i++) {
+                    dest[i] = (short) ((src[2 * i] << 8) | (src[2 * i + 1] & 0xFF));
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    dest[i] = (short) ((src[2 * i + 1] << 8) | (src[2 * i] & 0xFF));
+                }
+            }
+        } else if (bytesPerSample == 1) {
+            for (int i = 0; i < count; i++) {
+                dest[i] = (short) (src[i] - 128);
+            }
+        } else {
+            java.util.Arrays.fill(dest, 0, count, (short) 0);
+        }
+        return count;
+    }
+
+    /**
+     * Convert 16-bit samples to floats in [-1, 1).
+     */
+    public static float[] toFloat(short[] src, int offset, int length, float[] dest) {
+        float scale = 1f / FULL_SCALE;
+        for (int i = 0; i < length; i++) {
+            dest[i] = src[offset + i] * scale;
+        }
+        return dest;
+    }
+
+    // --- short[] kernels ------------------------------------------------
+
+    /**
+     * Sum of squared samples. Four independent accumulators break the loop-carried dependency.
+     */
+    public static long sumSquares(short[] x, int offset, int length) {
+        long a0 = 0, a1 = 0, a2 = 0, a3 = 0;
+        int end = offset + length;
+        int i = offset;
+        for (; i + 3 < end; i += 4) {
+            int s0 = x[i], s1 = x[i + 1], s2 = x[i + 2], s3 = x[i + 3];
+            a0 += s0 * s0;
+            a1 += s1 * s1;
+            a2 += s2 * s2;
+            a3 += s3 * s3;
+        }
+        for (; i < end; i++) {
+            int s = x[i];
+            a0 += s * s;
+        }
+        return a0 + a1 + a2 + a3;
+    }
+
+    /**
+     * RMS level relative to full scale (0..1).
+     */
+    public static double rms(short[] x, int offset, int length) {
+        if (length <= 0) return 0;
+        return Math.sqrt(sumSquares(x, offset, length) / (double) length) / FULL_SCALE;
+    }
+
+    /**
+     * Peak absolute sample value relative to full scale (0..1).
+     */
+    public static double peak(short[] x, int offset, int length) {
+        int max = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            max = Math.max(max, Math.abs(x[i]));
+        }
+        return max / (double) FULL_SCALE;
+    }
+
+    /**
+     * Fraction of samples whose magnitude reaches clipLevel (e.g. 32767 for hard clipping).
+     */
+    public static double clippingRatio(short[] x, int offset, int length, int clipLevel) {
+        if (length <= 0) return 0;
+        int clipped = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            clipped += (Math.abs(x[i]) >= clipLevel) ? 1 : 0;
+        }
+        return clipped / (double) length;
+    }
+
+    /**
+     * Mean sample value relative to full scale.
+     */
+    public static double dcOffset(short[] x, int offset, int length) {
+        if (length <= 0) return 0;
+        long sum = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            sum += x[i];
+        }
+        return sum / (double) length / FULL_SCALE;
+    }
+
+    // --- float[] kernels ------------------------------------------------
+
+    public static double sumSquares(float[] x, int offset, int length) {
+        if (VECTOR_API) {
+            return VectorAudioKernels.sumSquares(x, offset, length);
+        }
+        // Double accumulators, as in the Vector API path; float sums drift over long buffers
+        double a0 = 0, a1 = 0, a2 = 0, a3 = 0;
+        int end = offset + length;
+        int i = offset;
+        for (; i + 3 < end; i += 4) {
+            a0 += (double) x[i] * x[i];
+            a1 += (double) x[i + 1] * x[i + 1];
+            a2 += (double) x[i + 2] * x[i + 2];
+            a3 += (double) x[i + 3] * x[i + 3];
+        }
+        for (; i < end; i++) {
+            a0 += (double) x[i] * x[i];
+        }
+        return a0 + a1 + a2 + a3;
+    }
+
+    public static double rms(float[] x, int offset, int length) {
+        if (length <= 0) return 0;
+        return Math.sqrt(sumSquares(x, offset, length) / length);
+    }
+
+    public static double peak(float[] x, int offset, int length) {
+        if (VECTOR_API) {
+            return VectorAudioKernels.peak(x, offset, length);
+        }
+        float max = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            max = Math.max(max, Math.abs(x[i]));
+        }
+        return max;
+    }
+
+    public static double dcOffset(float[] x, int offset, int length) {
+        if (length <= 0) return 0;
+        if (VECTOR_API) {
+            return VectorAudioKernels.sum(x, offset, length) / length;
+        }
+        double a0 = 0, a1 = 0, a2 = 0, a3 = 0;
+        int end = offset + length;
+        int i = offset;
+        for (; i + 3 < end; i += 4) {
+            a0 += x[i];
+            a1 += x[i + 1];
+            a2 += x[i + 2];
+            a3 += x[i + 3];
+        }
+        for (; i < end; i++) {
+            a0 += x[i];
+        }
+        return (a0 + a1 + a2 + a3) / length;
+    }
+
+    /**
+     * Spectral flatness (Wiener entropy) of one frame: geometric mean over arithmetic mean
+     * of the Hann-windowed power spectrum. Near 0 for tonal/voiced audio, near 1 for noise.
+     *
+     * @param n Frame length, must be a power of two
+     * @param re Scratch buffer of at least n floats
+     * @param im Scratch buffer of at least n floats
+     */
+    public static double spectralFlatness(float[] x, int offset, int n, float[] re, float[] im) {
+        if (n < 2 || Integer.bitCount(n) != 1) {
+            throw new IllegalArgumentException("Frame length must be a power of two: " + n);
+        }
+        for (int i = 0; i < n; i++) {
+            float w = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (n - 1)));
+            re[i] = x[offset + i] * w;
+            im[i] = 0f;
+        }
+        fft(re, im, n);
+
+        double logSum = 0;
+        double sum = 0;
+        int bins = n / 2;
+        for (int k = 1; k <= bins; k++) {
+            double p = (double) re[k] * re[k] + (double) im[k] * im[k] + 1e-12;
+            logSum += Math.log(p);
+            sum += p;
+        }
+        return Math.exp(logSum / bins) / (sum / bins);
+    }
+
+    // --- framing --------------------------------------------------------
+
+    /**
+     * Analyse consecutive frames of frameSize samples (trailing partial frame is dropped).
+     *
+     * @param frameSize Frame length, must be a power of two for the spectral measure
+     */
+    public static FrameStats[] analyzeFrames(short[] samples, int offset, int length, int frameSize) {
+        int frames = length / frameSize;
+        FrameStats[] stats = new FrameStats[frames];
+        float[] buf = new float[frameSize];
+        float[] re = new float[frameSize];
+        float[] im = new float[frameSize];
+        for (int f = 0; f < frames; f++) {
+            int start = offset + f * frameSize;
+            toFloat(samples, start, frameSize, buf);
+            stats[f] = new FrameStats(
+                rms(samples, start, frameSize),
+                peak(samples, start, frameSize),
+                clippingRatio(samples, start, frameSize, Short.MAX_VALUE),
+                dcOffset(samples, start, frameSize),
+                spectralFlatness(buf, 0, frameSize, re, im)
+            );
+        }
+        return stats;
+    }
+
+    /**
+     * Convert a 0..1 level to decibels relative to full scale.
+     */
+    public static double toDb(double level) {
+        return 20 * Math.log10(level + 1e-10);
+    }
+
+    // --- internals ------------------------------------------------------
+
+    /**
+     * In-place iterative radix-2 FFT.
+     */
+    private static void fft(float[] re, float[] im, int n) {
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                float t = re[i]; re[i] = re[j]; re[j] = t;
+                t = im[i]; im[i] = im[j]; im[j] = t;
+            }
+        }
+        for (int len = 2; len <= n; len <<= 1) {
+            double ang = -2 * Math.PI / len;
+            float wRe = (float) Math.cos(ang);
+            float wIm = (float) Math.sin(ang);
+            int half = len >> 1;
+            for (int i = 0; i < n; i += len) {
+                float curRe = 1f, curIm = 0f;
+                for (int k = 0; k < half; k++) {
+                    int a = i + k, b = a + half;
+                    float tRe = re[b] * curRe - im[b] * curIm;
+                    float tIm = re[b] * curIm + im[b] * curRe;
+                    re[b] = re[a] - tRe;
+                    im[b] = im[a] - tIm;
+                    re[a] += tRe;
+                    im[a] += tIm;
+                    float nRe = curRe * wRe - curIm * wIm;
+                    curIm = curRe * wIm + curIm * wRe;
+                    curRe = nRe;
+                }
+            }
+        }
+    }
+
+    private static boolean detectVectorApi() {
+        if (Boolean.getBoolean("voxcore.audio.disableVectorApi")) {
+            return false;
+        }
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+}
@@ -0,0 +1,45 @@
+package com.cliffmin.whisper.audio;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.file.Path;
+
+/**
+ * Everything a transcription request needs to know about its input, gathered in one streamed
+ * read by {@link AudioProcessor#probe}: format and duration come from the header, the hash from
+ * the bytes as they pass. No audio is held in memory, so duration limits can be checked before
+ * anything is decoded.
+ *
+ * When javax.sound cannot parse the file (e.g. compressed formats handled by FFmpeg),
+ * {@link #format} is null, {@link #duration} is -1 and only size and hash are known.
+ */
+public class AudioProbe {
+    public final Path path;
+    public final AudioFormat format;
+    public final double duration;                          // seconds, -1 if unknown
+    public final long fileSize;
+    public final String contentHash;                       // SHA-256 of the file bytes, hex
+
+    AudioProbe(Path path, AudioFormat format, double duration, long fileSize, String contentHash) {
+        this.path = path;
+        this.format = format;
+        this.duration = duration;
+        this.fileSize = fileSize;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * Whether the header was parsed (format is known).
+     */
+    public boolean isDecoded() {
+        return format != null;
+    }
+
+    /**
+     * Whether the file is already a 16kHz mono 16-bit WAV that Whisper can read as-is.
+     */
+    public boolean isWhisperReady() {
+        return format != null
+            && !FlacDecoder.isFlac(path)
+            && format.matches(AudioProcessor.whisperFormat());
+    }
+}
@@ -1,5 +1,6 @@
 package com.cliffmin.whisper.audio;
 
+import com.cliffmin.whisper.jfr.AudioNormalizeEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,13 +11,18 @@ import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Audio processing utilities for WAV files.
  * Handles validation, duration detection, normalization, and splitting.
+ * FLAC archives written by {@link RecordingArchiver} are decoded transparently.
  */
 public class AudioProcessor {
     private static final Logger log = LoggerFactory.getLogger(AudioProcessor.class);
@@ -24,6 +30,10 @@ public class AudioProcessor {
     private static final int WHISPER_SAMPLE_RATE = 16000;
     private static final int WHISPER_CHANNELS = 1;
     private static final int WHISPER_BITS = 16;
+    private static final double DEFAULT_SILENCE_THRESHOLD_DB = -40.0;
+    private static final double MAX_WHISPER_DURATION = 3600;
+    
+    private final FlacDecoder flacDecoder = new FlacDecoder();
     
     /**
      * Represents a time range in seconds.
@@ -61,11 +71,22 @@ public class AudioProcessor {
         }
     }
     
+    /**
+     * Resolve a recording path, falling back to its FLAC archive once the WAV has been archived.
+     */
+    public static Path resolveRecording(Path audioPath) {
+        if (Files.exists(audioPath)) {
+            return audioPath;
+        }
+        Path archived = FlacEncoder.archivePathFor(audioPath);
+        return Files.exists(archived) ? archived : audioPath;
+    }
+    
     /**
      * Get audio file information.
      */
     public AudioInfo getAudioInfo(Path audioPath) throws IOException {
-        try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioPath.toFile())) {
+        try (AudioInputStream audioStream = openAudioStream(audioPath)) {
             AudioFormat format = audioStream.getFormat();
             long frames = audioStream.getFrameLength();
             double duration = frames / (double) format.getFrameRate();
@@ -89,6 +110,53 @@ public class AudioProcessor {
         return getAudioInfo(audioPath).duration;
     }
     
+    /**
+     * Stream a file once and derive format, duration (from the header) and content hash,
+     * without decoding or buffering the audio.
+     */
+    public AudioProbe probe(Path audioPath) throws IOException {
+        MessageDigest sha256 = newSha256();
+        long size = Files.size(audioPath);
+        try (InputStream in = new BufferedInputStream(
+                new DigestInputStream(Files.newInputStream(audioPath), sha256), 64 * 1024)) {
+            AudioFormat format = null;
+            double duration = -1;
+            try {
+                if (FlacDecoder.isFlac(audioPath)) {
+                    FlacDecoder.StreamInfo info = FlacDecoder.readStreamInfo(in);
+                    format = FlacDecoder.pcmFormat(info);
+                    if (info.totalSamples > 0) duration = info.getDuration();
+                } else {
+                    // Only the header is parsed; the stream is not read through the AudioInputStream
+                    AudioInputStream header = AudioSystem.getAudioInputStream(in);
+                    format = header.getFormat();
+                    if (header.getFrameLength() != AudioSystem.NOT_SPECIFIED) {
+                        duration = header.getFrameLength() / (double) format.getFrameRate();
+                    }
+                }
+            } catch (UnsupportedAudioFileException e) {
+                log.debug("javax.sound cannot parse {}, leaving it to FFmpeg", audioPath);
+            }
+            // The rest of the file only feeds the hash
+            in.transferTo(OutputStream.nullOutputStream());
+            return new AudioProbe(audioPath, format, duration, size, HexFormat.of().formatHex(sha256.digest()));
+        }
+    }
+    
+    /**
+     * Validate a probed file without reading it again.
+     */
+    public boolean validateForWhisper(AudioProbe probe) {
+        if (probe.fileSize == 0) {
+            return false;
+        }
+        if (probe.duration > MAX_WHISPER_DURATION) {
+            log.warn("Audio duration out of range: {} seconds", probe.duration);
+            return false;
+        }
+        return true;
+    }
+    
     /**
      * Validate if audio file is suitable for Whisper.
      */
@@ -97,7 +165,7 @@ public class AudioProcessor {
             AudioInfo info = getAudioInfo(audioPath);
             
             // Check duration upper bound when duration is known
-            if (info.duration > 0 && info.duration > 3600) {
+            if (info.duration > 0 && info.duration > MAX_WHISPER_DURATION) {
                 log.warn("Audio duration out of range: {} seconds", info.duration);
                 return false;
             }
@@ -132,32 +200,99 @@ public class AudioProcessor {
      * Uses FFmpeg for conversion if available.
      */
     public Path normalizeForWhisper(Path inputPath, Path outputPath) throws IOException {
-        // First try Java's built-in audio conversion
+        AudioNormalizeEvent event = new AudioNormalizeEvent();
+        event.begin();
+        String method = "java";
+        boolean succeeded = false;
         try {
-            return normalizeWithJava(inputPath, outputPath);
-        } catch (Exception e) {
-            log.debug("Java audio conversion failed, trying FFmpeg", e);
-            // Fall back to FFmpeg
-            return normalizeWithFFmpeg(inputPath, outputPath);
+            // First try Java's built-in audio conversion
+            try {
+                normalizeWithJava(inputPath, outputPath);
+            } catch (Exception e) {
+                log.debug("Java audio conversion failed, trying FFmpeg", e);
+                // Fall back to FFmpeg
+                method = "ffmpeg";
+                normalizeWithFFmpeg(inputPath, outputPath);
+            }
+            succeeded = true;
+            return outputPath;
+        } finally {
+            commit(event, inputPath, method, succeeded);
+        }
+    }
+    
+    /**
+     * Normalize a probed file, reusing its format instead of parsing the header again.
+     */
+    public Path normalizeForWhisper(AudioProbe probe, Path outputPath) throws IOException {
+        AudioNormalizeEvent event = new AudioNormalizeEvent();
+        event.begin();
+        String method = probe.isDecoded() ? "java" : "ffmpeg";
+        boolean succeeded = false;
+        try {
+            if (!probe.isDecoded()) {
+                normalizeWithFFmpeg(probe.path, outputPath);
+            } else {
+                // Streamed from the file; the probe holds no audio
+                try (AudioInputStream stream = openAudioStream(probe.path)) {
+                    if (probe.format.matches(whisperFormat())) {
+                        AudioSystem.write(stream, AudioFileFormat.Type.WAVE, outputPath.toFile());
+                    } else {
+                        try (AudioInputStream convertedStream = AudioSystem.getAudioInputStream(whisperFormat(), stream)) {
+                            AudioSystem.write(convertedStream, AudioFileFormat.Type.WAVE, outputPath.toFile());
+                        }
+                    }
+                } catch (IllegalArgumentException | UnsupportedAudioFileException e) {
+                    log.debug("Java audio conversion not supported, trying FFmpeg", e);
+                    method = "ffmpeg";
+                    normalizeWithFFmpeg(probe.path, outputPath);
+                }
+            }
+            succeeded = true;
+            return outputPath;
+        } finally {
+            commit(event, probe.path, method, succeeded);
+        }
+    }
+    
+    private static void commit(AudioNormalizeEvent event, Path input, String method, boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.input = input.toString();
+            try {
+                event.inputBytes = Files.size(input);
+            } catch (IOException e) {
+                event.inputBytes = -1;
+            }
+            event.method = method;
+            event.succeeded = succeeded;
+            event.commit();
         }
     }
     
+    /**
+     * 16kHz mono signed 16-bit little-endian PCM.
+     */
+    static AudioFormat whisperFormat() {
+        return new AudioFormat(
+            AudioFormat.Encoding.PCM_SIGNED,
+            WHISPER_SAMPLE_RATE,
+            WHISPER_BITS,
+            WHISPER_CHANNELS,
+            WHISPER_CHANNELS * 2,  // frame size
+            WHISPER_SAMPLE_RATE,
+            false  // little endian
+        );
+    }
+    
     private Path normalizeWithJava(Path inputPath, Path outputPath) throws IOException {
-        try (AudioInputStream inputStream = AudioSystem.getAudioInputStream(inputPath.toFile())) {
+        try (AudioInputStream inputStream = openAudioStream(inputPath)) {
             
             AudioFormat sourceFormat = inputStream.getFormat();
-            AudioFormat targetFormat = new AudioFormat(
-                AudioFormat.Encoding.PCM_SIGNED,
-                WHISPER_SAMPLE_RATE,
-                WHISPER_BITS,
-                WHISPER_CHANNELS,
-                WHISPER_CHANNELS * 2,  // frame size
-                WHISPER_SAMPLE_RATE,
-                false  // little endian
-            );
+            AudioFormat targetFormat = whisperFormat();
             
-            // Check if conversion is needed
-            if (sourceFormat.matches(targetFormat)) {
+            // Check if conversion is needed (FLAC input always has to be re-encoded as WAV)
+            if (sourceFormat.matches(targetFormat) && !FlacDecoder.isFlac(inputPath)) {
                 // No conversion needed, just copy
                 Files.copy(inputPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
                 return outputPath;
@@ -214,6 +349,22 @@ public class AudioProcessor {
         }
     }
     
+    /**
+     * Write 16-bit mono PCM samples as a WAV file in Whisper's expected format.
+     */
+    public Path writeWhisperWav(short[] samples, int offset, int length, Path outputPath) throws IOException {
+        byte[] pcm = new byte[length * 2];
+        for (int i = 0; i < length; i++) {
+            short s = samples[offset + i];
+            pcm[i * 2] = (byte) s;
+            pcm[i * 2 + 1] = (byte) (s >> 8);
+        }
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(pcm), whisperFormat(), length)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, outputPath.toFile());
+        }
+        return outputPath;
+    }
+
     /**
      * Detect silence periods in audio.
      * Returns list of time ranges that contain speech.
@@ -221,57 +372,62 @@ public class AudioProcessor {
     public List<TimeRange> detectSpeechRanges(Path audioPath, double silenceThresholdDb) 
             throws IOException {
         
+        try (AudioInputStream audioStream = openAudioStream(audioPath)) {
+            return detectSpeechRanges(audioStream, silenceThresholdDb);
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException("Unsupported audio format", e);
+        }
+    }
+    
+    private List<TimeRange> detectSpeechRanges(AudioInputStream audioStream, double silenceThresholdDb) 
+            throws IOException {
+        
         List<TimeRange> speechRanges = new ArrayList<>();
+        AudioFormat format = audioStream.getFormat();
         
-        try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioPath.toFile())) {
-            AudioFormat format = audioStream.getFormat();
-            
-            // Read audio data
-            byte[] buffer = new byte[4096];
-            double sampleRate = format.getFrameRate();
-            int bytesPerFrame = format.getFrameSize();
-            double timePerBuffer = buffer.length / (double) (bytesPerFrame * sampleRate);
-            
-            double currentTime = 0;
-            double speechStartTime = -1;
-            int silentBuffers = 0;
-            int requiredSilentBuffers = (int) (0.5 / timePerBuffer); // 0.5 seconds of silence
-            
-            int bytesRead;
-            while ((bytesRead = audioStream.read(buffer)) != -1) {
-                double rms = calculateRMS(buffer, bytesRead, format);
-                double db = 20 * Math.log10(rms + 1e-10);
+        // Read audio data
+        byte[] buffer = new byte[4096];
+        short[] samples = new short[buffer.length];
+        double sampleRate = format.getFrameRate();
+        int bytesPerFrame = format.getFrameSize();
+        double timePerBuffer = buffer.length / (double) (bytesPerFrame * sampleRate);
+        
+        double currentTime = 0;
+        double speechStartTime = -1;
+        int silentBuffers = 0;
+        int requiredSilentBuffers = (int) (0.5 / timePerBuffer); // 0.5 seconds of silence
+        
+        int bytesRead;
+        while ((bytesRead = audioStream.read(buffer)) != -1) {
+            double rms = calculateRMS(buffer, bytesRead, format, samples);
+            double db = AudioKernels.toDb(rms);
+            
+            if (db > silenceThresholdDb) {
+                // Speech detected
+                if (speechStartTime < 0) {
+                    speechStartTime = currentTime;
+                }
+                silentBuffers = 0;
+            } else {
+                // Silence detected
+                silentBuffers++;
                 
-                if (db > silenceThresholdDb) {
-                    // Speech detected
-                    if (speechStartTime < 0) {
-                        speechStartTime = currentTime;
-                    }
-                    silentBuffers = 0;
-                } else {
-                    // Silence detected
-                    silentBuffers++;
-                    
-                    if (speechStartTime >= 0 && silentBuffers >= requiredSilentBuffers) {
-                        // End of speech segment
-                        double speechEndTime = currentTime - (silentBuffers * timePerBuffer);
-                        if (speechEndTime - speechStartTime > 0.1) { // Minimum 100ms
-                            speechRanges.add(new TimeRange(speechStartTime, speechEndTime));
-                        }
-                        speechStartTime = -1;
+                if (speechStartTime >= 0 && silentBuffers >= requiredSilentBuffers) {
+                    // End of speech segment
+                    double speechEndTime = currentTime - (silentBuffers * timePerBuffer);
+                    if (speechEndTime - speechStartTime > 0.1) { // Minimum 100ms
+                        speechRanges.add(new TimeRange(speechStartTime, speechEndTime));
                     }
+                    speechStartTime = -1;
                 }
-                
-                currentTime += timePerBuffer * (bytesRead / (double) buffer.length);
             }
             
-            // Handle final speech segment
-            if (speechStartTime >= 0) {
-                speechRanges.add(new TimeRange(speechStartTime, currentTime));
-            }
-            
-        } catch (UnsupportedAudioFileException e) {
-            throw new IOException("Unsupported audio format", e);
+            currentTime += timePerBuffer * (bytesRead / (double) buffer.length);
+        }
+        
+        // Handle final speech segment
+        if (speechStartTime >= 0) {
+            speechRanges.add(new TimeRange(speechStartTime, currentTime));
         }
         
         return speechRanges;
@@ -349,7 +505,7 @@ public class AudioProcessor {
     private void extractWithJava(Path inputPath, Path outputPath, TimeRange range) 
             throws IOException {
         
-        try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(inputPath.toFile())) {
+        try (AudioInputStream audioStream = openAudioStream(inputPath)) {
             AudioFormat format = audioStream.getFormat();
             
             int bytesPerSecond = (int) (format.getFrameRate() * format.getFrameSize());
@@ -387,37 +543,33 @@ public class AudioProcessor {
         }
     }
     
-    private double calculateRMS(byte[] buffer, int length, AudioFormat format) {
-        int bytesPerSample = format.getSampleSizeInBits() / 8;
-        boolean bigEndian = format.isBigEndian();
-        
-        double sum = 0;
-        int sampleCount = 0;
-        
-        for (int i = 0; i < length - bytesPerSample + 1; i += bytesPerSample) {
-            int sample = 0;
-            
-            if (bytesPerSample == 2) {
-                // 16-bit audio
-                if (bigEndian) {
-                    sample = (buffer[i] << 8) | (buffer[i + 1] & 0xFF);
-                } else {
-                    sample = (buffer[i + 1] << 8) | (buffer[i] & 0xFF);
-                }
-                if (sample > 32767) sample -= 65536; // Convert to signed
-            } else if (bytesPerSample == 1) {
-                // 8-bit audio
-                sample = buffer[i] - 128;
-            }
-            
-            sum += sample * sample;
-            sampleCount++;
+    private AudioInputStream openAudioStream(Path audioPath) throws IOException, UnsupportedAudioFileException {
+        if (FlacDecoder.isFlac(audioPath)) {
+            return flacDecoder.openAudioStream(audioPath);
         }
-        
-        if (sampleCount == 0) return 0;
-        
-        double mean = sum / sampleCount;
-        return Math.sqrt(mean) / 32768.0; // Normalize to 0-1 range
+        return AudioSystem.getAudioInputStream(audioPath.toFile());
+    }
+    
+    private double calculateRMS(byte[] buffer, int length, AudioFormat format, short[] samples) {
+        int count = AudioKernels.decodePcm(buffer, length, format.getSampleSizeInBits() / 8,
+                format.isBigEndian(), samples);
+        return AudioKernels.rms(samples, 0, count);
+    }
+    
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Whether ffmpeg is installed (used for formats javax.sound cannot decode).
+     * May spawn a process; call it off the request path.
+     */
+    public boolean isFFmpegAvailable() {
+        return findFFmpeg() != null;
     }
     
     private String findFFmpeg() {
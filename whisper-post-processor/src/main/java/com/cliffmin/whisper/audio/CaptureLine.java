@@ -0,0 +1,21 @@
+package com.cliffmin.whisper.audio;
+
+import java.io.IOException;
+
+/**
+ * Source of 16kHz mono 16-bit little-endian PCM for {@link CaptureService}.
+ * Implemented by the real microphone ({@link TargetDataLineCapture}) and by
+ * {@link FileCaptureLine} for tests and machines without audio hardware.
+ */
+public interface CaptureLine extends AutoCloseable {
+
+    /**
+     * Block until audio is available and read up to len bytes (a whole number of frames).
+     *
+     * @return Number of bytes read, or -1 when the line has ended
+     */
+    int read(byte[] buffer, int offset, int len) throws IOException;
+
+    @Override
+    void close();
+}
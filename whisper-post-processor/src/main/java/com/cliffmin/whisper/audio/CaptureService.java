@@ -0,0 +1,195 @@
+package com.cliffmin.whisper.audio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Always-on microphone capture with a pre-roll buffer.
+ *
+ * A capture thread keeps reading the line into a small ring buffer even when idle, so a
+ * recording started by the hotkey already contains the audio from just before the press and
+ * the first syllable is never clipped. Stopping hands the samples to the writer executor,
+ * which saves the WAV off the capture thread.
+ */
+public class CaptureService implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(CaptureService.class);
+
+    public static final int SAMPLE_RATE = 16000;
+    public static final int DEFAULT_PREROLL_MS = 500;
+    private static final int CHUNK_SAMPLES = SAMPLE_RATE / 50;   // 20ms reads
+
+    private final CaptureLine line;
+    private final AudioProcessor audio;
+    private final Executor writeExecutor;
+    private final int prerollSamples;
+    private final PcmRingBuffer preroll;
+    private final byte[] chunkBytes = new byte[CHUNK_SAMPLES * 2];
+    private final short[] chunk = new short[CHUNK_SAMPLES];
+    private final short[] scratch;
+
+    private Thread captureThread;
+    private volatile boolean running;
+    private volatile boolean lineEnded;
+
+    // Active recording, guarded by this
+    private Path output;
+    private short[] recording;
+    private int recordedSamples;
+
+    public CaptureService(CaptureLine line, AudioProcessor audio, Executor writeExecutor, int prerollMs) {
+        this.line = line;
+        this.audio = audio;
+        this.writeExecutor = writeExecutor;
+        this.prerollSamples = SAMPLE_RATE * prerollMs / 1000;
+        this.preroll = new PcmRingBuffer(Math.max(prerollSamples + CHUNK_SAMPLES, CHUNK_SAMPLES * 2));
+        this.scratch = new short[preroll.capacity()];
+    }
+
+    /**
+     * Start the background capture thread.
+     */
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        captureThread = new Thread(this::captureLoop, "ptt-capture");
+        captureThread.setDaemon(true);
+        captureThread.setPriority(Thread.MAX_PRIORITY);
+        captureThread.start();
+    }
+
+    /**
+     * Begin a recording that starts with the buffered pre-roll.
+     *
+     * @throws IllegalStateException if a recording is already in progress
+     */
+    public synchronized void startRecording(Path outputPath) {
+        if (output != null) {
+            throw new IllegalStateException("Already recording to " + output);
+        }
+        output = outputPath;
+        recording = new short[SAMPLE_RATE * 10];
+        recordedSamples = 0;
+        int buffered = preroll.available();
+        preroll.skip(Math.max(0, buffered - prerollSamples));
+        int n = preroll.read(scratch, 0, scratch.length);
+        append(scratch, n);
+    }
+
+    /**
+     * Finish the current recording. The WAV is written on the writer executor.
+     *
+     * @return Completes with the written path
+     * @throws IllegalStateException if nothing is being recorded
+     */
+    public CompletableFuture<Path> stopRecording() {
+        Path target;
+        short[] samples;
+        int length;
+        synchronized (this) {
+            if (output == null) {
+                throw new IllegalStateException("Not recording");
+            }
+            target = output;
+            samples = recording;
+            length = recordedSamples;
+            output = null;
+            recording = null;
+            recordedSamples = 0;
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Path parent = target.toAbsolutePath().getParent();
+                if (parent != null) Files.createDirectories(parent);
+                return audio.writeWhisperWav(samples, 0, length, target);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, writeExecutor);
+    }
+
+    public synchronized boolean isRecording() {
+        return output != null;
+    }
+
+    /**
+     * Length of the current recording in seconds, including pre-roll.
+     */
+    public synchronized double getRecordedSeconds() {
+        return recordedSamples / (double) SAMPLE_RATE;
+    }
+
+    /**
+     * Whether the line has stopped delivering audio (device closed or end of fake input).
+     */
+    public boolean isLineEnded() {
+        return lineEnded;
+    }
+
+    /**
+     * Read one chunk from the line into the pre-roll or the active recording.
+     *
+     * @return false once the line has ended
+     */
+    boolean pump() throws IOException {
+        int read = line.read(chunkBytes, 0, chunkBytes.length);
+        if (read < 0) {
+            lineEnded = true;
+            return false;
+        }
+        int n = AudioKernels.decodePcm(chunkBytes, read, 2, false, chunk);
+        synchronized (this) {
+            if (output != null) {
+                append(chunk, n);
+            } else {
+                int excess = preroll.available() + n - preroll.capacity();
+                if (excess > 0) preroll.skip(excess);
+                preroll.write(chunk, 0, n);
+            }
+        }
+        return true;
+    }
+
+    private void captureLoop() {
+        try {
+            while (running && pump()) {
+                // keep reading
+            }
+        } catch (IOException e) {
+            lineEnded = true;
+            log.warn("Audio capture stopped: {}", e.getMessage());
+        }
+    }
+
+    private void append(short[] src, int length) {
+        if (recordedSamples + length > recording.length) {
+            recording = Arrays.copyOf(recording, Math.max(recording.length * 2, recordedSamples + length));
+        }
+        System.arraycopy(src, 0, recording, recordedSamples, length);
+        recordedSamples += length;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        line.close();
+        Thread t;
+        synchronized (this) {
+            t = captureThread;
+        }
+        if (t != null) {
+            try {
+                t.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cliffmin.whisper.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Fake capture line that plays back an audio file, for tests and hardware-free runs.
+ * Optionally paced like a real device; ends (-1) when the file is exhausted.
+ */
+public class FileCaptureLine implements CaptureLine {
+    private final AudioInputStream stream;
+    private final double speed;
+    private final long startNanos = System.nanoTime();
+    private long bytesDelivered;
+
+    /**
+     * @param speed Playback rate relative to real time; 0 delivers the file as fast as it is read
+     */
+    public FileCaptureLine(Path audioFile, double speed) throws IOException {
+        AudioFormat target = AudioProcessor.whisperFormat();
+        try {
+            AudioInputStream source = AudioSystem.getAudioInputStream(audioFile.toFile());
+            this.stream = source.getFormat().matches(target) ? source : AudioSystem.getAudioInputStream(target, source);
+        } catch (UnsupportedAudioFileException | IllegalArgumentException e) {
+            throw new IOException("Cannot play back " + audioFile + " as capture input", e);
+        }
+        this.speed = speed;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int len) throws IOException {
+        int frameSize = stream.getFormat().getFrameSize();
+        int read = stream.read(buffer, offset, len - len % frameSize);
+        if (read <= 0) return -1;
+        bytesDelivered += read;
+        if (speed > 0) {
+            pace();
+        }
+        return read;
+    }
+
+    private void pace() throws IOException {
+        AudioFormat format = stream.getFormat();
+        double seconds = bytesDelivered / (double) (format.getFrameSize() * format.getFrameRate());
+        long dueNanos = startNanos + (long) (seconds / speed * 1e9);
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Capture interrupted", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
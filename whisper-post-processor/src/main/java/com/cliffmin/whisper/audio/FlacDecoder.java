@@ -0,0 +1,483 @@
+package com.cliffmin.whisper.audio;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Pure-Java FLAC decoder, so archived recordings can be fed back through {@link AudioProcessor}
+ * (javax.sound has no FLAC provider).
+ *
+ * Handles the full subframe set (constant, verbatim, fixed, LPC, wasted bits) and all stereo
+ * decorrelation modes. Frames are decoded lazily as the stream is read, and the MD5 from
+ * STREAMINFO is checked when the last frame has been decoded.
+ */
+public class FlacDecoder {
+
+    /**
+     * Contents of the STREAMINFO metadata block.
+     */
+    public static class StreamInfo {
+        public final int sampleRate;
+        public final int channels;
+        public final int bitsPerSample;
+        public final long totalSamples;   // per channel, 0 if unknown
+        public final byte[] md5;
+
+        public StreamInfo(int sampleRate, int channels, int bitsPerSample, long totalSamples, byte[] md5) {
+            this.sampleRate = sampleRate;
+            this.channels = channels;
+            this.bitsPerSample = bitsPerSample;
+            this.totalSamples = totalSamples;
+            this.md5 = md5;
+        }
+
+        public double getDuration() {
+            return sampleRate == 0 ? 0 : totalSamples / (double) sampleRate;
+        }
+    }
+
+    /**
+     * Whether the path names a FLAC file.
+     */
+    public static boolean isFlac(Path path) {
+        Path name = path.getFileName();
+        return name != null && name.toString().toLowerCase().endsWith(".flac");
+    }
+
+    public StreamInfo readStreamInfo(Path flac) throws IOException {
+        try (InputStream in = Files.newInputStream(flac)) {
+            return readStreamInfo(in);
+        }
+    }
+
+    /**
+     * Read STREAMINFO from the start of a FLAC stream, consuming only the first 42 bytes.
+     */
+    public static StreamInfo readStreamInfo(InputStream in) throws IOException {
+        byte[] head = in.readNBytes(42);
+        if (head.length < 4 || head[0] != 'f' || head[1] != 'L' || head[2] != 'a' || head[3] != 'C') {
+            throw new IOException("Not a FLAC stream");
+        }
+        // STREAMINFO is always the first metadata block
+        if (head.length < 42 || (head[4] & 0x7F) != 0) {
+            throw new IOException("FLAC stream has no STREAMINFO block");
+        }
+        BitReader bits = new BitReader(Arrays.copyOfRange(head, 8, 42));
+        bits.readBits(16);              // min block size
+        bits.readBits(16);              // max block size
+        bits.readBits(24);              // min frame size
+        bits.readBits(24);              // max frame size
+        int sampleRate = bits.readBits(20);
+        int channels = bits.readBits(3) + 1;
+        int bps = bits.readBits(5) + 1;
+        long total = ((long) bits.readBits(4) << 32) | (bits.readBits(32) & 0xFFFFFFFFL);
+        byte[] digest = new byte[16];
+        for (int i = 0; i < 16; i++) digest[i] = (byte) bits.readBits(8);
+        return new StreamInfo(sampleRate, channels, bps, total, digest);
+    }
+
+    /**
+     * PCM format the decoder produces for a stream (8-bit output is unsigned, as in WAV).
+     */
+    static AudioFormat pcmFormat(StreamInfo info) {
+        int bytesPerSample = (info.bitsPerSample + 7) / 8;
+        return new AudioFormat(
+            bytesPerSample == 1 ? AudioFormat.Encoding.PCM_UNSIGNED : AudioFormat.Encoding.PCM_SIGNED,
+            info.sampleRate,
+            bytesPerSample * 8,
+            info.channels,
+            bytesPerSample * info.channels,
+            info.sampleRate,
+            false
+        );
+    }
+
+    /**
+     * Open a FLAC file as little-endian PCM (8-bit output is unsigned, as in WAV).
+     */
+    public AudioInputStream openAudioStream(Path flac) throws IOException {
+        return openAudioStream(Files.readAllBytes(flac));
+    }
+
+    /**
+     * Open an in-memory FLAC stream as PCM.
+     */
+    public AudioInputStream openAudioStream(byte[] flac) throws IOException {
+        FrameStream frames = new FrameStream(flac);
+        StreamInfo info = frames.info;
+        AudioFormat format = pcmFormat(info);
+        long length = info.totalSamples > 0 ? info.totalSamples : AudioSystem.NOT_SPECIFIED;
+        return new AudioInputStream(frames, format, length);
+    }
+
+    /**
+     * Decode a FLAC file to WAV, verifying the stored MD5.
+     */
+    public Path decodeToWav(Path flac, Path wav) throws IOException {
+        try (AudioInputStream in = openAudioStream(flac)) {
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, wav.toFile());
+        }
+        return wav;
+    }
+
+    /**
+     * Decodes frames on demand and serves them as interleaved PCM bytes.
+     */
+    private static final class FrameStream extends InputStream {
+        private final BitReader in;
+        private final StreamInfo info;
+        private final int bytesPerSample;
+        private final MessageDigest md5 = FlacEncoder.newMd5();
+        private int[][] channels = new int[0][];
+        private final long[] lpcCoefs = new long[32];
+        private byte[] pcm = new byte[0];
+        private int pcmLength;
+        private int pcmPos;
+        private long decodedSamples;
+        private boolean done;
+
+        FrameStream(byte[] data) throws IOException {
+            this.in = new BitReader(data);
+            if (data.length < 4 || data[0] != 'f' || data[1] != 'L' || data[2] != 'a' || data[3] != 'C') {
+                throw new IOException("Not a FLAC stream");
+            }
+            in.skipBytes(4);
+            StreamInfo streamInfo = null;
+            boolean last;
+            do {
+                last = in.readBits(1) == 1;
+                int type = in.readBits(7);
+                int length = in.readBits(24);
+                if (type == 0) {
+                    in.readBits(16);            // min block size
+                    in.readBits(16);            // max block size
+                    in.readBits(24);            // min frame size
+                    in.readBits(24);            // max frame size
+                    int sampleRate = in.readBits(20);
+                    int channels = in.readBits(3) + 1;
+                    int bps = in.readBits(5) + 1;
+                    long total = ((long) in.readBits(4) << 32) | (in.readBits(32) & 0xFFFFFFFFL);
+                    byte[] digest = new byte[16];
+                    for (int i = 0; i < 16; i++) digest[i] = (byte) in.readBits(8);
+                    streamInfo = new StreamInfo(sampleRate, channels, bps, total, digest);
+                    in.skipBytes(length - 34);
+                } else {
+                    in.skipBytes(length);
+                }
+            } while (!last);
+            if (streamInfo == null) {
+                throw new IOException("FLAC stream has no STREAMINFO block");
+            }
+            this.info = streamInfo;
+            this.bytesPerSample = (streamInfo.bitsPerSample + 7) / 8;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pcmPos == pcmLength && !fill()) return -1;
+            return pcm[pcmPos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (pcmPos == pcmLength && !fill()) return -1;
+            int n = Math.min(len, pcmLength - pcmPos);
+            System.arraycopy(pcm, pcmPos, b, off, n);
+            pcmPos += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return pcmLength - pcmPos;
+        }
+
+        private boolean fill() throws IOException {
+            if (done) return false;
+            if (!in.hasMore()) {
+                done = true;
+                verifyMd5();
+                return false;
+            }
+            int n = decodeFrame();
+            decodedSamples += n;
+            interleave(n);
+            // Check before handing out the last frame: AudioInputStream stops reading at frameLength
+            if (info.totalSamples > 0 && decodedSamples >= info.totalSamples) {
+                done = true;
+                verifyMd5();
+            }
+            return true;
+        }
+
+        private void verifyMd5() throws IOException {
+            boolean unset = true;
+            for (byte b : info.md5) unset &= b == 0;
+            if (!unset && !Arrays.equals(md5.digest(), info.md5)) {
+                throw new IOException("FLAC MD5 mismatch: decoded audio differs from the original");
+            }
+        }
+
+        private int decodeFrame() throws IOException {
+            int sync = in.readBits(15);
+            if (sync != 0x7FFC) {
+                throw new IOException("Lost FLAC frame sync at byte " + in.bytePosition());
+            }
+            in.readBits(1);                     // blocking strategy
+            int blockSizeCode = in.readBits(4);
+            int sampleRateCode = in.readBits(4);
+            int assignment = in.readBits(4);
+            int sampleSizeCode = in.readBits(3);
+            in.readBits(1);
+            readUtf8();
+
+            int n;
+            if (blockSizeCode == 1) n = 192;
+            else if (blockSizeCode >= 2 && blockSizeCode <= 5) n = 576 << (blockSizeCode - 2);
+            else if (blockSizeCode == 6) n = in.readBits(8) + 1;
+            else if (blockSizeCode == 7) n = in.readBits(16) + 1;
+            else if (blockSizeCode >= 8) n = 256 << (blockSizeCode - 8);
+            else throw new IOException("Reserved FLAC block size code");
+
+            if (sampleRateCode == 12) in.readBits(8);
+            else if (sampleRateCode == 13 || sampleRateCode == 14) in.readBits(16);
+
+            int bps = switch (sampleSizeCode) {
+                case 0 -> info.bitsPerSample;
+                case 1 -> 8;
+                case 2 -> 12;
+                case 4 -> 16;
+                case 5 -> 20;
+                case 6 -> 24;
+                case 7 -> 32;
+                default -> throw new IOException("Reserved FLAC sample size code");
+            };
+            in.readBits(8);                     // header CRC-8
+
+            int channelCount = assignment < 8 ? assignment + 1 : 2;
+            if (channels.length != channelCount || channels[0].length < n) {
+                channels = new int[channelCount][n];
+            }
+            for (int c = 0; c < channelCount; c++) {
+                boolean side = (assignment == 8 && c == 1) || (assignment == 9 && c == 0) || (assignment == 10 && c == 1);
+                decodeSubframe(channels[c], n, side ? bps + 1 : bps);
+            }
+            in.alignToByte();
+            in.readBits(16);                    // frame CRC-16
+
+            int[] a = channelCount == 2 ? channels[0] : null;
+            int[] b = channelCount == 2 ? channels[1] : null;
+            if (assignment == 8) {
+                for (int i = 0; i < n; i++) b[i] = a[i] - b[i];
+            } else if (assignment == 9) {
+                for (int i = 0; i < n; i++) a[i] += b[i];
+            } else if (assignment == 10) {
+                for (int i = 0; i < n; i++) {
+                    int mid = (a[i] << 1) | (b[i] & 1);
+                    int side = b[i];
+                    a[i] = (mid + side) >> 1;
+                    b[i] = (mid - side) >> 1;
+                }
+            }
+            return n;
+        }
+
+        private void decodeSubframe(int[] x, int n, int bps) throws IOException {
+            in.readBits(1);
+            int type = in.readBits(6);
+            int wasted = 0;
+            if (in.readBits(1) == 1) {
+                wasted = in.readUnary() + 1;
+                bps -= wasted;
+            }
+
+            if (type == 0) {
+                Arrays.fill(x, 0, n, in.readSigned(bps));
+            } else if (type == 1) {
+                for (int i = 0; i < n; i++) x[i] = in.readSigned(bps);
+            } else if (type >= 8 && type <= 12) {
+                int order = type - 8;
+                for (int i = 0; i < order; i++) x[i] = in.readSigned(bps);
+                readResidual(x, n, order);
+                restoreFixed(x, n, order);
+            } else if (type >= 32) {
+                int order = type - 31;
+                for (int i = 0; i < order; i++) x[i] = in.readSigned(bps);
+                int precision = in.readBits(4) + 1;
+                int shift = in.readSigned(5);
+                for (int j = 0; j < order; j++) lpcCoefs[j] = in.readSigned(precision);
+                readResidual(x, n, order);
+                for (int i = order; i < n; i++) {
+                    long sum = 0;
+                    for (int j = 0; j < order; j++) sum += lpcCoefs[j] * x[i - j - 1];
+                    x[i] += (int) (sum >> shift);
+                }
+            } else {
+                throw new IOException("Reserved FLAC subframe type " + type);
+            }
+
+            if (wasted > 0) {
+                for (int i = 0; i < n; i++) x[i] <<= wasted;
+            }
+        }
+
+        private void readResidual(int[] x, int n, int order) throws IOException {
+            int method = in.readBits(2);
+            if (method > 1) throw new IOException("Reserved FLAC residual coding method");
+            int paramBits = method == 0 ? 4 : 5;
+            int escape = (1 << paramBits) - 1;
+            int partitionOrder = in.readBits(4);
+            int partitions = 1 << partitionOrder;
+            int partitionSize = n >> partitionOrder;
+            int i = order;
+            for (int p = 0; p < partitions; p++) {
+                int end = (p + 1) * partitionSize;
+                int k = in.readBits(paramBits);
+                if (k == escape) {
+                    int bits = in.readBits(5);
+                    for (; i < end; i++) x[i] = bits == 0 ? 0 : in.readSigned(bits);
+                } else {
+                    for (; i < end; i++) {
+                        int u = (in.readUnary() << k) | (k == 0 ? 0 : in.readBits(k));
+                        x[i] = (u >>> 1) ^ -(u & 1);
+                    }
+                }
+            }
+        }
+
+        private static void restoreFixed(int[] x, int n, int order) {
+            for (int i = order; i < n; i++) {
+                switch (order) {
+                    case 0: break;
+                    case 1: x[i] += x[i - 1]; break;
+                    case 2: x[i] += 2 * x[i - 1] - x[i - 2]; break;
+                    case 3: x[i] += 3 * x[i - 1] - 3 * x[i - 2] + x[i - 3]; break;
+                    default: x[i] += 4 * x[i - 1] - 6 * x[i - 2] + 4 * x[i - 3] - x[i - 4]; break;
+                }
+            }
+        }
+
+        private void readUtf8() throws IOException {
+            int lead = in.readBits(8);
+            int extra = Integer.numberOfLeadingZeros(~(lead << 24));
+            for (int i = 1; i < extra; i++) in.readBits(8);
+        }
+
+        private void interleave(int n) {
+            int channelCount = channels.length;
+            int needed = n * channelCount * bytesPerSample;
+            if (pcm.length < needed) pcm = new byte[needed];
+            // MD5 covers the signed, unshifted samples, so digest before adapting to the WAV layout
+            writeInterleaved(n, 0);
+            md5.update(pcm, 0, needed);
+            int shift = bytesPerSample * 8 - info.bitsPerSample;
+            if (bytesPerSample == 1) {
+                for (int i = 0; i < needed; i++) pcm[i] ^= (byte) 0x80;
+            } else if (shift > 0) {
+                writeInterleaved(n, shift);
+            }
+            pcmLength = needed;
+            pcmPos = 0;
+        }
+
+        private void writeInterleaved(int n, int shift) {
+            int p = 0;
+            for (int i = 0; i < n; i++) {
+                for (int[] channel : channels) {
+                    int v = channel[i] << shift;
+                    for (int b = 0; b < bytesPerSample; b++) {
+                        pcm[p++] = (byte) (v >> (8 * b));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * MSB-first bit reader over an in-memory stream.
+     */
+    private static final class BitReader {
+        private final byte[] data;
+        private int pos;
+        private int bit;
+
+        BitReader(byte[] data) {
+            this.data = data;
+        }
+
+        boolean hasMore() {
+            return pos < data.length;
+        }
+
+        int bytePosition() {
+            return pos;
+        }
+
+        void skipBytes(int n) throws IOException {
+            if (pos + n > data.length) throw new EOFException("Truncated FLAC stream");
+            pos += n;
+        }
+
+        void alignToByte() {
+            if (bit != 0) {
+                bit = 0;
+                pos++;
+            }
+        }
+
+        int readBits(int n) throws IOException {
+            long v = 0;
+            while (n > 0) {
+                if (pos >= data.length) throw new EOFException("Truncated FLAC stream");
+                int avail = 8 - bit;
+                int take = Math.min(avail, n);
+                int b = ((data[pos] & 0xFF) >>> (avail - take)) & ((1 << take) - 1);
+                v = (v << take) | b;
+                bit += take;
+                if (bit == 8) {
+                    bit = 0;
+                    pos++;
+                }
+                n -= take;
+            }
+            return (int) v;
+        }
+
+        int readSigned(int n) throws IOException {
+            int v = readBits(n);
+            return n == 32 ? v : (v << (32 - n)) >> (32 - n);
+        }
+
+        /** Count zero bits up to and including the terminating one bit. */
+        int readUnary() throws IOException {
+            int count = 0;
+            while (true) {
+                if (pos >= data.length) throw new EOFException("Truncated FLAC stream");
+                int cur = (data[pos] << bit) & 0xFF;
+                if (cur != 0) {
+                    int zeros = Integer.numberOfLeadingZeros(cur) - 24;
+                    count += zeros;
+                    bit += zeros + 1;
+                    if (bit == 8) {
+                        bit = 0;
+                        pos++;
+                    }
+                    return count;
+                }
+                count += 8 - bit;
+                bit = 0;
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.cliffmin.whisper.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Lossless FLAC encoder for archiving PCM recordings.
+ *
+ * Each block is encoded independently (constant, verbatim or fixed-predictor subframes with
+ * partitioned Rice residuals), so a batch of blocks is handed to the executor in parallel and
+ * the encoded frames are written back in order. The STREAMINFO header, including the MD5 of
+ * the source samples, is patched in once the whole stream has been written.
+ */
+public class FlacEncoder {
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    private static final int MAX_FIXED_ORDER = 4;
+    private static final int MAX_PARTITION_ORDER = 8;
+    private static final int MAX_RICE_PARAM = 14;
+    private static final int FRAMES_PER_BATCH = 64;
+    private static final int STREAMINFO_OFFSET = 8;  // "fLaC" + metadata block header
+
+    private final Executor executor;
+    private final int blockSize;
+
+    /**
+     * Outcome of encoding one file.
+     */
+    public static class EncodeResult {
+        public final long samples;       // per channel
+        public final long inputBytes;    // raw PCM bytes
+        public final long outputBytes;   // FLAC file size
+        public final byte[] md5;         // MD5 of the source samples, as stored in STREAMINFO
+
+        public EncodeResult(long samples, long inputBytes, long outputBytes, byte[] md5) {
+            this.samples = samples;
+            this.inputBytes = inputBytes;
+            this.outputBytes = outputBytes;
+            this.md5 = md5;
+        }
+
+        public double getCompressionRatio() {
+            return inputBytes == 0 ? 1.0 : outputBytes / (double) inputBytes;
+        }
+    }
+
+    public FlacEncoder() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BLOCK_SIZE);
+    }
+
+    public FlacEncoder(Executor executor, int blockSize) {
+        if (blockSize < 16 || blockSize > 65535) {
+            throw new IllegalArgumentException("Block size must be in [16, 65535]: " + blockSize);
+        }
+        this.executor = executor;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Archive path for a recording: same directory and base name with a .flac extension.
+     */
+    public static Path archivePathFor(Path audioPath) {
+        String name = audioPath.getFileName().toString().replaceFirst("\\.[^.]+$", "");
+        return audioPath.resolveSibling(name + ".flac");
+    }
+
+    /**
+     * Encode a WAV (or any PCM format javax.sound can read) to FLAC.
+     */
+    public EncodeResult encode(Path input, Path output) throws IOException {
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(input.toFile())) {
+            return encode(in, output);
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException("Unsupported audio format: " + input, e);
+        }
+    }
+
+    /**
+     * Encode 8/16/24-bit integer PCM from the given stream to FLAC.
+     */
+    public EncodeResult encode(AudioInputStream in, Path output) throws IOException {
+        AudioFormat format = in.getFormat();
+        int bps = format.getSampleSizeInBits();
+        int channels = format.getChannels();
+        boolean pcm = AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding())
+                || AudioFormat.Encoding.PCM_UNSIGNED.equals(format.getEncoding());
+        if (!pcm || (bps != 8 && bps != 16 && bps != 24) || channels < 1 || channels > 8) {
+            throw new IOException("Unsupported PCM format for FLAC: " + format);
+        }
+        int sampleRate = Math.round(format.getSampleRate());
+        if (sampleRate <= 0 || sampleRate >= (1 << 20)) {
+            throw new IOException("Unsupported sample rate for FLAC: " + format.getSampleRate());
+        }
+
+        MessageDigest md5 = newMd5();
+        StreamWriter writer = new StreamWriter(output, sampleRate, channels, bps);
+        int bytesPerSample = bps / 8;
+        int frameBytes = bytesPerSample * channels;
+        byte[] raw = new byte[blockSize * frameBytes * FRAMES_PER_BATCH];
+        byte[] md5Scratch = new byte[blockSize * frameBytes];
+        long inputBytes = 0;
+        long frameNumber = 0;
+
+        try (writer) {
+            int read;
+            while ((read = readFully(in, raw)) > 0) {
+                int filled = read - read % frameBytes;
+                inputBytes += filled;
+                List<CompletableFuture<byte[]>> batch = new ArrayList<>();
+                for (int off = 0; off < filled; off += blockSize * frameBytes) {
+                    int n = Math.min(blockSize, (filled - off) / frameBytes);
+                    int[][] samples = deinterleave(raw, off, n, channels, bytesPerSample, format);
+                    digest(md5, samples, n, bytesPerSample, md5Scratch);
+                    long number = frameNumber++;
+                    batch.add(CompletableFuture.supplyAsync(
+                            () -> new FrameEncoder(bps).encode(samples, n, number), executor));
+                }
+                for (CompletableFuture<byte[]> frame : batch) {
+                    writer.writeFrame(join(frame));
+                }
+                writer.addSamples((long) filled / frameBytes);
+                if (read < raw.length) break;
+            }
+            writer.finish(md5.digest());
+        }
+        return new EncodeResult(writer.totalSamples, inputBytes, writer.position, writer.md5);
+    }
+
+    private static byte[] join(CompletableFuture<byte[]> frame) throws IOException {
+        try {
+            return frame.join();
+        } catch (CompletionException e) {
+            throw new IOException("FLAC frame encoding failed", e.getCause());
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buf) throws IOException {
+        int total = 0;
+        while (total < buf.length) {
+            int read = in.read(buf, total, buf.length - total);
+            if (read < 0) break;
+            total += read;
+        }
+        return total;
+    }
+
+    private static int[][] deinterleave(byte[] raw, int offset, int n, int channels, int bytesPerSample, AudioFormat format) {
+        boolean bigEndian = format.isBigEndian();
+        boolean unsigned = AudioFormat.Encoding.PCM_UNSIGNED.equals(format.getEncoding());
+        int[][] out = new int[channels][n];
+        int p = offset;
+        for (int i = 0; i < n; i++) {
+            for (int c = 0; c < channels; c++) {
+                int v;
+                if (bytesPerSample == 1) {
+                    v = unsigned ? (raw[p] & 0xFF) - 128 : raw[p];
+                } else if (bytesPerSample == 2) {
+                    v = bigEndian ? (raw[p] << 8) | (raw[p + 1] & 0xFF)
+                                  : (raw[p + 1] << 8) | (raw[p] & 0xFF);
+                } else {
+                    v = bigEndian ? (raw[p] << 16) | ((raw[p + 1] & 0xFF) << 8) | (raw[p + 2] & 0xFF)
+                                  : (raw[p + 2] << 16) | ((raw[p + 1] & 0xFF) << 8) | (raw[p] & 0xFF);
+                }
+                out[c][i] = v;
+                p += bytesPerSample;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * FLAC's MD5 covers the signed samples, interleaved, little endian.
+     */
+    private static void digest(MessageDigest md5, int[][] samples, int n, int bytesPerSample, byte[] scratch) {
+        int p = 0;
+        for (int i = 0; i < n; i++) {
+            for (int[] channel : samples) {
+                int v = channel[i];
+                for (int b = 0; b < bytesPerSample; b++) {
+                    scratch[p++] = (byte) (v >> (8 * b));
+                }
+            }
+        }
+        md5.update(scratch, 0, p);
+    }
+
+    static MessageDigest newMd5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    /**
+     * Writes the stream sequentially and rewrites STREAMINFO at the end.
+     */
+    private final class StreamWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final int sampleRate;
+        private final int channels;
+        private final int bps;
+        private long position;
+        private long totalSamples;
+        private int minFrameSize = Integer.MAX_VALUE;
+        private int maxFrameSize;
+        private byte[] md5 = new byte[16];
+
+        StreamWriter(Path output, int sampleRate, int channels, int bps) throws IOException {
+            this.channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.sampleRate = sampleRate;
+            this.channels = channels;
+            this.bps = bps;
+            write(ByteBuffer.wrap(new byte[] {'f', 'L', 'a', 'C', (byte) 0x80, 0, 0, 34}));
+            write(ByteBuffer.wrap(streamInfo()));
+        }
+
+        void writeFrame(byte[] frame) throws IOException {
+            minFrameSize = Math.min(minFrameSize, frame.length);
+            maxFrameSize = Math.max(maxFrameSize, frame.length);
+            write(ByteBuffer.wrap(frame));
+        }
+
+        void addSamples(long samples) {
+            totalSamples += samples;
+        }
+
+        void finish(byte[] digest) throws IOException {
+            this.md5 = digest;
+            channel.write(ByteBuffer.wrap(streamInfo()), STREAMINFO_OFFSET);
+        }
+
+        private void write(ByteBuffer buf) throws IOException {
+            while (buf.hasRemaining()) {
+                position += channel.write(buf);
+            }
+        }
+
+        private byte[] streamInfo() {
+            BitWriter w = new BitWriter(34);
+            w.write(blockSize, 16);
+            w.write(blockSize, 16);
+            w.write(maxFrameSize == 0 ? 0 : minFrameSize, 24);
+            w.write(maxFrameSize, 24);
+            w.write(sampleRate, 20);
+            w.write(channels - 1, 3);
+            w.write(bps - 1, 5);
+            w.write(totalSamples >>> 32, 4);
+            w.write(totalSamples & 0xFFFFFFFFL, 32);
+            for (byte b : md5) {
+                w.write(b & 0xFF, 8);
+            }
+            return w.toByteArray();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes one block into a complete frame. Not thread-safe; one instance per task.
+     */
+    private static final class FrameEncoder {
+        private final int bps;
+        private int[] residual = new int[0];
+        private int[] bestResidual = new int[0];
+        private long[] partitionSums = new long[1 << MAX_PARTITION_ORDER];
+        private final int[] params = new int[1 << MAX_PARTITION_ORDER];
+        private final int[] bestParams = new int[1 << MAX_PARTITION_ORDER];
+        private final int[] candidate = new int[1 << MAX_PARTITION_ORDER];
+        private long ricePlanBits;
+
+        FrameEncoder(int bps) {
+            this.bps = bps;
+        }
+
+        byte[] encode(int[][] samples, int n, long frameNumber) {
+            BitWriter w = new BitWriter(n * samples.length * 2 + 32);
+            // Header: sync, fixed-blocksize stream, 16-bit block size at end, rate/depth from STREAMINFO
+            w.write(0xFFF8, 16);
+            w.write(0x7, 4);
+            w.write(0x0, 4);
+            w.write(samples.length - 1, 4);
+            w.write(0x0, 3);
+            w.write(0, 1);
+            writeUtf8(w, frameNumber);
+            w.write(n - 1, 16);
+            w.write(FlacCrc.crc8(w.buffer(), 0, w.length()), 8);
+
+            if (residual.length < n) {
+                residual = new int[n];
+                bestResidual = new int[n];
+            }
+            for (int[] channel : samples) {
+                writeSubframe(w, channel, n);
+            }
+            w.alignToByte();
+            w.write(FlacCrc.crc16(w.buffer(), 0, w.length()), 16);
+            return w.toByteArray();
+        }
+
+        private void writeSubframe(BitWriter w, int[] x, int n) {
+            boolean constant = true;
+            for (int i = 1; i < n && constant; i++) {
+                constant = x[i] == x[0];
+            }
+            if (constant) {
+                w.write(0, 8);  // zero pad, type CONSTANT, no wasted bits
+                w.writeSigned(x[0], bps);
+                return;
+            }
+
+            long bestBits = (long) n * bps;  // verbatim
+            int bestOrder = -1;
+            int bestPartitionOrder = 0;
+            for (int order = 0; order <= Math.min(MAX_FIXED_ORDER, n - 1); order++) {
+                fixedResidual(x, n, order, residual);
+                int partitionOrder = planRice(residual, n, order);
+                long bits = (long) order * bps + 6 + ricePlanBits;
+                if (bits < bestBits) {
+                    bestBits = bits;
+                    bestOrder = order;
+                    bestPartitionOrder = partitionOrder;
+                    int[] swap = bestResidual;
+                    bestResidual = residual;
+                    residual = swap;
+                    System.arraycopy(params, 0, bestParams, 0, 1 << partitionOrder);
+                }
+            }
+
+            if (bestOrder < 0) {
+                w.write(0x02, 8);  // VERBATIM
+                for (int i = 0; i < n; i++) {
+                    w.writeSigned(x[i], bps);
+                }
+                return;
+            }
+
+            w.write((0x08 | bestOrder) << 1, 8);  // FIXED, order in the low bits
+            for (int i = 0; i < bestOrder; i++) {
+                w.writeSigned(x[i], bps);
+            }
+            w.write(0, 2);  // Rice coding, 4-bit parameters
+            w.write(bestPartitionOrder, 4);
+            int partitions = 1 << bestPartitionOrder;
+            int partitionSize = n >> bestPartitionOrder;
+            int i = bestOrder;
+            for (int p = 0; p < partitions; p++) {
+                int k = bestParams[p];
+                w.write(k, 4);
+                int end = (p + 1) * partitionSize;
+                for (; i < end; i++) {
+                    int u = bestResidual[i];
+                    w.writeUnary(u >>> k);
+                    if (k > 0) w.write(u & ((1 << k) - 1), k);
+                }
+            }
+        }
+
+        /**
+         * Pick the partition order and per-partition Rice parameters with the smallest estimated size.
+         * Leaves the parameters in {@link #params} and the size in {@link #ricePlanBits}.
+         */
+        private int planRice(int[] u, int n, int order) {
+            int maxOrder = 0;
+            while (maxOrder < MAX_PARTITION_ORDER
+                    && (n & ((2 << maxOrder) - 1)) == 0
+                    && (n >> (maxOrder + 1)) > order) {
+                maxOrder++;
+            }
+
+            // Sums at the finest partitioning, then merged pairwise for coarser ones
+            int finest = 1 << maxOrder;
+            int size = n >> maxOrder;
+            for (int p = 0; p < finest; p++) {
+                long sum = 0;
+                for (int i = Math.max(p * size, order); i < (p + 1) * size; i++) {
+                    sum += u[i];
+                }
+                partitionSums[p] = sum;
+            }
+
+            long bestBits = Long.MAX_VALUE;
+            int bestOrder = 0;
+            for (int po = maxOrder; po >= 0; po--) {
+                int partitions = 1 << po;
+                int psize = n >> po;
+                long bits = 0;
+                for (int p = 0; p < partitions; p++) {
+                    int count = psize - (p == 0 ? order : 0);
+                    long sum = partitionSums[p];
+                    int k = riceParam(sum, count);
+                    candidate[p] = k;
+                    bits += 4 + (long) count * (k + 1) + (sum >>> k);
+                }
+                if (bits < bestBits) {
+                    bestBits = bits;
+                    bestOrder = po;
+                    System.arraycopy(candidate, 0, params, 0, partitions);
+                }
+                for (int p = 0; p < partitions / 2; p++) {
+                    partitionSums[p] = partitionSums[2 * p] + partitionSums[2 * p + 1];
+                }
+            }
+            ricePlanBits = bestBits;
+            return bestOrder;
+        }
+
+        private int riceParam(long sum, int count) {
+            if (count <= 0) return 0;
+            int k = 0;
+            long mean = sum / count;
+            while (k < MAX_RICE_PARAM && (1L << (k + 1)) <= mean) {
+                k++;
+            }
+            return k;
+        }
+    }
+
+    /**
+     * Fixed polynomial predictor residuals, zigzag-mapped to non-negative values.
+     */
+    static void fixedResidual(int[] x, int n, int order, int[] out) {
+        Arrays.fill(out, 0, order, 0);
+        for (int i = order; i < n; i++) {
+            int r;
+            switch (order) {
+                case 0: r = x[i]; break;
+                case 1: r = x[i] - x[i - 1]; break;
+                case 2: r = x[i] - 2 * x[i - 1] + x[i - 2]; break;
+                case 3: r = x[i] - 3 * x[i - 1] + 3 * x[i - 2] - x[i - 3]; break;
+                default: r = x[i] - 4 * x[i - 1] + 6 * x[i - 2] - 4 * x[i - 3] + x[i - 4]; break;
+            }
+            out[i] = (r << 1) ^ (r >> 31);
+        }
+    }
+
+    private static void writeUtf8(BitWriter w, long v) {
+        if (v < 0x80) {
+            w.write(v, 8);
+            return;
+        }
+        int extra = v < 0x800 ? 1 : v < 0x10000 ? 2 : v < 0x200000 ? 3 : v < 0x4000000 ? 4 : 5;
+        int lead = (0xFF00 >> (extra + 1)) & 0xFF;
+        w.write(lead | (v >>> (6 * extra)), 8);
+        for (int i = extra - 1; i >= 0; i--) {
+            w.write(0x80 | ((v >>> (6 * i)) & 0x3F), 8);
+        }
+    }
+
+    /**
+     * MSB-first bit packer backed by a growable byte array.
+     */
+    static final class BitWriter {
+        private byte[] buf;
+        private int length;
+        private long acc;
+        private int accBits;
+
+        BitWriter(int capacity) {
+            this.buf = new byte[Math.max(capacity, 16)];
+        }
+
+        void write(long value, int bits) {
+            acc = (acc << bits) | (value & ((1L << bits) - 1));
+            accBits += bits;
+            while (accBits >= 8) {
+                accBits -= 8;
+                put((byte) (acc >>> accBits));
+            }
+        }
+
+        void writeSigned(int value, int bits) {
+            write(value, bits);
+        }
+
+        void writeUnary(int zeros) {
+            while (zeros >= 32) {
+                write(0, 32);
+                zeros -= 32;
+            }
+            write(1, zeros + 1);
+        }
+
+        void alignToByte() {
+            if (accBits > 0) write(0, 8 - accBits);
+        }
+
+        /** Backing array; only the first {@link #length()} bytes are complete. */
+        byte[] buffer() {
+            return buf;
+        }
+
+        int length() {
+            return length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, length);
+        }
+
+        private void put(byte b) {
+            if (length == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            buf[length++] = b;
+        }
+    }
+}
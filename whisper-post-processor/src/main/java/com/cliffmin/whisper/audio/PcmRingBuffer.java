@@ -0,0 +1,196 @@
+package com.cliffmin.whisper.audio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer/single-consumer ring buffer for 16-bit PCM samples.
+ * The producer (typically an I/O thread) never blocks: when the buffer is full,
+ * excess samples are dropped and counted as overruns.
+ */
+public class PcmRingBuffer {
+    private final short[] samples;
+    private final int mask;
+
+    // Monotonic positions; index into the array with (position & mask)
+    private final AtomicLong writePosition = new AtomicLong();
+    private final AtomicLong readPosition = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+    // Low byte of a sample split across two PCM writes, or -1 (producer side only)
+    private int pendingByte = -1;
+
+    /**
+     * @param minCapacity Minimum number of samples to hold (rounded up to a power of two)
+     */
+    public PcmRingBuffer(int minCapacity) {
+        if (minCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + minCapacity);
+        }
+        int capacity = Integer.highestOneBit(minCapacity);
+        if (capacity < minCapacity) {
+            capacity <<= 1;
+        }
+        this.samples = new short[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Append little-endian 16-bit PCM bytes. Producer side only.
+     * A trailing odd byte is kept and completes the first sample of the next call, so samples
+     * may be split across writes.
+     *
+     * @return Number of samples written (less than available input on overrun)
+     */
+    public int writePcm16le(byte[] data, int offset, int length) {
+        long write = writePosition.get();
+        int free = samples.length - (int) (write - readPosition.get());
+        int written = 0;
+        int dropped = 0;
+        int pos = offset;
+        int end = offset + length;
+        if (pendingByte >= 0 && pos < end) {
+            short sample = (short) (pendingByte | (data[pos++] << 8));
+            pendingByte = -1;
+            if (free > 0) {
+                samples[(int) (write & mask)] = sample;
+                written = 1;
+            } else {
+                dropped = 1;
+            }
+        }
+        int count = (end - pos) / 2;
+        int toWrite = Math.min(count, free - written);
+        for (int i = 0; i < toWrite; i++) {
+            int b = pos + i * 2;
+            samples[(int) ((write + written + i) & mask)] = (short) ((data[b] & 0xFF) | (data[b + 1] << 8));
+        }
+        pos += count * 2;
+        if (pos < end) {
+            pendingByte = data[pos] & 0xFF;
+        }
+        written += toWrite;
+        dropped += count - toWrite;
+        writePosition.lazySet(write + written);
+        if (dropped > 0) {
+            overruns.addAndGet(dropped);
+        }
+        return written;
+    }
+
+    /**
+     * Append little-endian 16-bit PCM from a buffer without copying it to the heap first.
+     * Producer side only; every remaining byte is consumed, and a trailing odd byte is carried
+     * over to the next write as in {@link #writePcm16le(byte[], int, int)}.
+     *
+     * @return Number of samples written (less than available input on overrun)
+     */
+    public int writePcm16le(ByteBuffer data) {
+        ByteBuffer le = data.order() == ByteOrder.LITTLE_ENDIAN ? data : data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        long write = writePosition.get();
+        int free = samples.length - (int) (write - readPosition.get());
+        int written = 0;
+        int dropped = 0;
+        int pos = le.position();
+        int end = le.limit();
+        if (pendingByte >= 0 && pos < end) {
+            short sample = (short) (pendingByte | (le.get(pos++) << 8));
+            pendingByte = -1;
+            if (free > 0) {
+                samples[(int) (write & mask)] = sample;
+                written = 1;
+            } else {
+                dropped = 1;
+            }
+        }
+        int count = (end - pos) / 2;
+        int toWrite = Math.min(count, free - written);
+        for (int i = 0; i < toWrite; i++) {
+            samples[(int) ((write + written + i) & mask)] = le.getShort(pos + i * 2);
+        }
+        pos += count * 2;
+        if (pos < end) {
+            pendingByte = le.get(pos++) & 0xFF;
+        }
+        data.position(pos);
+        written += toWrite;
+        dropped += count - toWrite;
+        writePosition.lazySet(write + written);
+        if (dropped > 0) {
+            overruns.addAndGet(dropped);
+        }
+        return written;
+    }
+
+    /**
+     * Append samples. Producer side only.
+     *
+     * @return Number of samples written (less than length on overrun)
+     */
+    public int write(short[] data, int offset, int length) {
+        long write = writePosition.get();
+        int free = samples.length - (int) (write - readPosition.get());
+        int toWrite = Math.min(length, free);
+        for (int i = 0; i < toWrite; i++) {
+            samples[(int) ((write + i) & mask)] = data[offset + i];
+        }
+        writePosition.lazySet(write + toWrite);
+        if (toWrite < length) {
+            overruns.addAndGet(length - toWrite);
+        }
+        return toWrite;
+    }
+
+    /**
+     * Drain up to length samples into dest. Consumer side only.
+     *
+     * @return Number of samples read (0 when empty)
+     */
+    public int read(short[] dest, int offset, int length) {
+        long read = readPosition.get();
+        int available = (int) (writePosition.get() - read);
+        int toRead = Math.min(length, available);
+        for (int i = 0; i < toRead; i++) {
+            dest[offset + i] = samples[(int) ((read + i) & mask)];
+        }
+        readPosition.lazySet(read + toRead);
+        return toRead;
+    }
+
+    /**
+     * Discard up to length of the oldest samples. Consumer side only.
+     *
+     * @return Number of samples discarded
+     */
+    public int skip(int length) {
+        long read = readPosition.get();
+        int toSkip = Math.min(length, (int) (writePosition.get() - read));
+        readPosition.lazySet(read + toSkip);
+        return toSkip;
+    }
+
+    /**
+     * Number of samples currently buffered.
+     */
+    public int available() {
+        return (int) (writePosition.get() - readPosition.get());
+    }
+
+    public int capacity() {
+        return samples.length;
+    }
+
+    /**
+     * Total samples written since creation (including those already read).
+     */
+    public long totalWritten() {
+        return writePosition.get();
+    }
+
+    /**
+     * Samples dropped because the consumer fell behind.
+     */
+    public long overruns() {
+        return overruns.get();
+    }
+}
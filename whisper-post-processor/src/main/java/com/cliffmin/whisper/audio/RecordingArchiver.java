@@ -0,0 +1,138 @@
+package com.cliffmin.whisper.audio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sound.sampled.AudioInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compresses old WAV recordings to FLAC in place.
+ *
+ * Each archive is decoded back and checked against the source MD5 before the WAV is removed,
+ * so a failed or interrupted run never loses audio. The FLAC keeps the WAV's base name and
+ * modification time; {@link AudioProcessor#resolveRecording} maps old WAV paths to it.
+ */
+public class RecordingArchiver {
+    private static final Logger log = LoggerFactory.getLogger(RecordingArchiver.class);
+
+    private static final int MAX_DEPTH = 3;   // notes dir / session dir / recording
+
+    private final FlacEncoder encoder;
+    private final FlacDecoder decoder = new FlacDecoder();
+
+    /**
+     * Totals for one archival pass.
+     */
+    public static class Summary {
+        public final int archived;
+        public final int failed;
+        public final long bytesBefore;
+        public final long bytesAfter;
+
+        public Summary(int archived, int failed, long bytesBefore, long bytesAfter) {
+            this.archived = archived;
+            this.failed = failed;
+            this.bytesBefore = bytesBefore;
+            this.bytesAfter = bytesAfter;
+        }
+    }
+
+    public RecordingArchiver(FlacEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    /**
+     * Archive every WAV under root whose last modification is older than minAge.
+     */
+    public Summary archive(Path root, Duration minAge) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return new Summary(0, 0, 0, 0);
+        }
+        Instant cutoff = Instant.now().minus(minAge);
+        List<Path> candidates;
+        try (Stream<Path> files = Files.walk(root, MAX_DEPTH)) {
+            candidates = files
+                .filter(Files::isRegularFile)
+                .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".wav"))
+                .filter(p -> isOlderThan(p, cutoff))
+                .collect(Collectors.toList());
+        }
+
+        int archived = 0, failed = 0;
+        long before = 0, after = 0;
+        for (Path wav : candidates) {
+            if (Thread.currentThread().isInterrupted()) break;
+            long size = Files.size(wav);
+            try {
+                Path flac = archiveOne(wav);
+                archived++;
+                before += size;
+                after += Files.size(flac);
+            } catch (IOException e) {
+                failed++;
+                log.warn("Could not archive {}: {}", wav, e.getMessage());
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} recordings: {} -> {} bytes", archived, before, after);
+        }
+        return new Summary(archived, failed, before, after);
+    }
+
+    /**
+     * Encode one WAV to FLAC next to it, verify the round trip, then delete the WAV.
+     *
+     * @return Path of the FLAC archive
+     */
+    public Path archiveOne(Path wav) throws IOException {
+        Path flac = FlacEncoder.archivePathFor(wav);
+        Path tmp = flac.resolveSibling(flac.getFileName() + ".tmp");
+        try {
+            FlacEncoder.EncodeResult result = encoder.encode(wav, tmp);
+            verify(tmp, result);
+            Files.move(tmp, flac, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        FileTime modified = Files.getLastModifiedTime(wav);
+        Files.setLastModifiedTime(flac, modified);
+        Files.delete(wav);
+        return flac;
+    }
+
+    /**
+     * Decode the archive completely; the decoder fails on any MD5 mismatch.
+     */
+    private void verify(Path flac, FlacEncoder.EncodeResult result) throws IOException {
+        byte[] skip = new byte[64 * 1024];
+        long bytes = 0;
+        try (AudioInputStream in = decoder.openAudioStream(flac)) {
+            int read;
+            while ((read = in.read(skip)) > 0) {
+                bytes += read;
+            }
+        }
+        if (bytes != result.inputBytes) {
+            throw new IOException("Archive verification failed: decoded " + bytes
+                + " bytes, expected " + result.inputBytes);
+        }
+    }
+
+    private static boolean isOlderThan(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
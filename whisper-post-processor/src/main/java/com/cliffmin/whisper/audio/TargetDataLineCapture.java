@@ -0,0 +1,99 @@
+package com.cliffmin.whisper.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.TargetDataLine;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Microphone input through javax.sound, opened directly in Whisper's format
+ * (the platform mixer resamples when the device runs at another rate).
+ *
+ * Devices are chosen by name: javax.sound numbers its mixers differently from the avfoundation
+ * index in {@code audioDeviceIndex}, so that setting is not used here.
+ */
+public class TargetDataLineCapture implements CaptureLine {
+    private static final int LINE_BUFFER_MS = 100;
+
+    private final TargetDataLine line;
+
+    private TargetDataLineCapture(TargetDataLine line) {
+        this.line = line;
+    }
+
+    /**
+     * Open and start an input device.
+     *
+     * @param deviceName Part of an {@link #inputDevices()} name (case-insensitive), or null or
+     *                   blank for the system default line
+     */
+    public static TargetDataLineCapture open(String deviceName) throws IOException {
+        AudioFormat format = AudioProcessor.whisperFormat();
+        DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
+        try {
+            TargetDataLine line;
+            if (deviceName == null || deviceName.isBlank()) {
+                line = (TargetDataLine) AudioSystem.getLine(info);
+            } else {
+                List<Mixer.Info> devices = inputDevices();
+                Mixer.Info device = findDevice(devices, deviceName);
+                if (device == null) {
+                    throw new IOException("Audio input device '" + deviceName + "' not found (available: "
+                        + String.join(", ", devices.stream().map(Mixer.Info::getName).toList()) + ")");
+                }
+                line = (TargetDataLine) AudioSystem.getMixer(device).getLine(info);
+            }
+            line.open(format, (int) (format.getFrameRate() * format.getFrameSize() * LINE_BUFFER_MS / 1000));
+            line.start();
+            return new TargetDataLineCapture(line);
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            throw new IOException("Cannot open audio input: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The first device whose name is {@code name}, else the first containing it (ignoring case), else null.
+     */
+    static Mixer.Info findDevice(List<Mixer.Info> devices, String name) {
+        for (Mixer.Info device : devices) {
+            if (device.getName().equalsIgnoreCase(name)) return device;
+        }
+        String wanted = name.toLowerCase(Locale.ROOT);
+        for (Mixer.Info device : devices) {
+            if (device.getName().toLowerCase(Locale.ROOT).contains(wanted)) return device;
+        }
+        return null;
+    }
+
+    /**
+     * Mixers that can record in Whisper's format.
+     */
+    public static List<Mixer.Info> inputDevices() {
+        DataLine.Info info = new DataLine.Info(TargetDataLine.class, AudioProcessor.whisperFormat());
+        List<Mixer.Info> devices = new ArrayList<>();
+        for (Mixer.Info mixer : AudioSystem.getMixerInfo()) {
+            if (AudioSystem.getMixer(mixer).isLineSupported(info)) {
+                devices.add(mixer);
+            }
+        }
+        return devices;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int len) {
+        if (!line.isOpen()) return -1;
+        return line.read(buffer, offset, len);
+    }
+
+    @Override
+    public void close() {
+        line.stop();
+        line.close();
+    }
+}
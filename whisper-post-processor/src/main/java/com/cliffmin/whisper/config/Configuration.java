@@ -33,7 +33,13 @@ public class Configuration {
 
     // System
     private final String notesDir;          // where to write output notes
-    private final Integer audioDeviceIndex; // input device index
+    private final Integer audioDeviceIndex; // avfoundation input index, as recorded by ffmpeg
+    private final String recordingsDir;     // where raw WAV recordings are kept
+    private final int archiveAfterDays;     // compress recordings to FLAC after N days (0 = off, the default)
+    private final boolean captureEnabled;   // daemon records the microphone itself (always-on pre-roll)
+    private final String captureDevice;     // javax input mixer name (substring) for capture; null = system default
+    private final String socketPath;        // Unix domain socket for the local protocol (empty = off)
+    private final String txLogDir;          // transaction log (voxcore-YYYY-MM-DD.jsonl) for daemon runs (empty = off)
 
     private Configuration(Builder b) {
         this.language = b.language;
@@ -54,6 +60,12 @@ public class Configuration {
         this.enablePunctuationRestoration = b.enablePunctuationRestoration;
         this.notesDir = b.notesDir;
         this.audioDeviceIndex = b.audioDeviceIndex;
+        this.recordingsDir = b.recordingsDir;
+        this.archiveAfterDays = b.archiveAfterDays;
+        this.captureEnabled = b.captureEnabled;
+        this.captureDevice = b.captureDevice;
+        this.socketPath = b.socketPath;
+        this.txLogDir = b.txLogDir;
     }
 
     public static Builder defaults() {
@@ -75,7 +87,13 @@ public class Configuration {
             .enablePunctuationNormalization(true)
             .enablePunctuationRestoration(true)
             .notesDir(System.getProperty("user.home") + "/Notes/PTT")
-            .audioDeviceIndex(0);
+            .audioDeviceIndex(0)
+            .recordingsDir(System.getProperty("user.home") + "/Documents/VoiceNotes")
+            .archiveAfterDays(0)
+            .captureEnabled(false)
+            .socketPath(System.getProperty("user.home") + "/.config/ptt-dictation/daemon.sock")
+            // Same directory the CLI logs its in-process runs to (notes_dir/tx_logs)
+            .txLogDir(System.getProperty("user.home") + "/Documents/VoiceNotes/tx_logs");
     }
 
     public Builder toBuilder() {
@@ -97,7 +115,13 @@ public class Configuration {
             .enablePunctuationNormalization(enablePunctuationNormalization)
             .enablePunctuationRestoration(enablePunctuationRestoration)
             .notesDir(notesDir)
-            .audioDeviceIndex(audioDeviceIndex);
+            .audioDeviceIndex(audioDeviceIndex)
+            .recordingsDir(recordingsDir)
+            .archiveAfterDays(archiveAfterDays)
+            .captureEnabled(captureEnabled)
+            .captureDevice(captureDevice)
+            .socketPath(socketPath)
+            .txLogDir(txLogDir);
     }
 
     public static class Builder {
@@ -111,6 +135,12 @@ public class Configuration {
         private int cacheMaxSize;
         private String notesDir;
         private Integer audioDeviceIndex;
+        private String recordingsDir;
+        private int archiveAfterDays;
+        private boolean captureEnabled;
+        private String captureDevice;
+        private String socketPath;
+        private String txLogDir;
 
         // Pipeline toggles
         private boolean enableReflow;
@@ -134,6 +164,12 @@ public class Configuration {
         public Builder cacheMaxSize(int v) { this.cacheMaxSize = v; return this; }
         public Builder notesDir(String v) { this.notesDir = v; return this; }
         public Builder audioDeviceIndex(Integer v) { this.audioDeviceIndex = v; return this; }
+        public Builder recordingsDir(String v) { this.recordingsDir = v; return this; }
+        public Builder archiveAfterDays(int v) { this.archiveAfterDays = v; return this; }
+        public Builder captureEnabled(boolean v) { this.captureEnabled = v; return this; }
+        public Builder captureDevice(String v) { this.captureDevice = v; return this; }
+        public Builder socketPath(String v) { this.socketPath = v; return this; }
+        public Builder txLogDir(String v) { this.txLogDir = v; return this; }
         public Builder enableReflow(boolean v) { this.enableReflow = v; return this; }
         public Builder enableDisfluency(boolean v) { this.enableDisfluency = v; return this; }
         public Builder enableMergedWords(boolean v) { this.enableMergedWords = v; return this; }
@@ -155,6 +191,12 @@ public class Configuration {
     public int getCacheMaxSize() { return cacheMaxSize; }
     public String getNotesDir() { return notesDir; }
     public Integer getAudioDeviceIndex() { return audioDeviceIndex; }
+    public String getRecordingsDir() { return recordingsDir; }
+    public int getArchiveAfterDays() { return archiveAfterDays; }
+    public boolean isCaptureEnabled() { return captureEnabled; }
+    public String getCaptureDevice() { return captureDevice; }
+    public String getSocketPath() { return socketPath; }
+    public String getTxLogDir() { return txLogDir; }
     public boolean isEnableReflow() { return enableReflow; }
     public boolean isEnableDisfluency() { return enableDisfluency; }
     public boolean isEnableMergedWords() { return enableMergedWords; }
@@ -54,6 +54,12 @@ public class ConfigurationManager {
         if (json.has("enablePunctuationRestoration")) b.enablePunctuationRestoration(json.get("enablePunctuationRestoration").getAsBoolean());
         if (json.has("notesDir")) b.notesDir(json.get("notesDir").getAsString());
         if (json.has("audioDeviceIndex")) b.audioDeviceIndex(json.get("audioDeviceIndex").getAsInt());
+        if (json.has("recordingsDir")) b.recordingsDir(json.get("recordingsDir").getAsString());
+        if (json.has("archiveAfterDays")) b.archiveAfterDays(json.get("archiveAfterDays").getAsInt());
+        if (json.has("captureEnabled")) b.captureEnabled(json.get("captureEnabled").getAsBoolean());
+        if (json.has("captureDevice")) b.captureDevice(json.get("captureDevice").isJsonNull() ? null : json.get("captureDevice").getAsString());
+        if (json.has("socketPath")) b.socketPath(json.get("socketPath").getAsString());
+        if (json.has("txLogDir")) b.txLogDir(json.get("txLogDir").getAsString());
     }
 
     private void applyEnv(Configuration.Builder b) {
@@ -68,6 +74,12 @@ public class ConfigurationManager {
         v = getenv("VOX_CACHE_SIZE"); if (v != null) b.cacheMaxSize(Integer.parseInt(v));
         v = getenv("PTT_NOTES_DIR"); if (v != null) b.notesDir(v);
         v = getenv("PTT_AUDIO_DEVICE"); if (v != null) b.audioDeviceIndex(Integer.parseInt(v));
+        v = getenv("PTT_RECORDINGS_DIR"); if (v != null) b.recordingsDir(v);
+        v = getenv("PTT_ARCHIVE_AFTER_DAYS"); if (v != null) b.archiveAfterDays(Integer.parseInt(v));
+        v = getenv("PTT_CAPTURE_ENABLED"); if (v != null) b.captureEnabled(!isFalsey(v));
+        v = getenv("PTT_CAPTURE_DEVICE"); if (v != null) b.captureDevice(v.isBlank() ? null : v);
+        v = getenv("PTT_SOCKET_PATH"); if (v != null) b.socketPath(v);
+        v = getenv("PTT_TX_LOG_DIR"); if (v != null) b.txLogDir(v);
         // Pipeline toggles via env (1/0)
         v = getenv("PTT_ENABLE_REFLOW"); if (v != null) b.enableReflow(!isFalsey(v));
         v = getenv("PTT_ENABLE_DISFLUENCY"); if (v != null) b.enableDisfluency(!isFalsey(v));
@@ -0,0 +1,259 @@
+package com.cliffmin.whisper.daemon;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Re-transcribes many recordings in one request ({@code POST /transcribe/batch}).
+ *
+ * Files run on the batch worker pool, and a worker waits while an interactive transcription is
+ * in flight before starting its next file, so bulk work fills idle time without delaying dictation.
+ * The daemon runs each batch file's whisper at background priority on its share of the cores, so
+ * dictation that arrives mid-file is not competing with full-machine decodes.
+ * Every successful file is appended to a checkpoint (one NDJSON line) keyed by the batch's
+ * pattern and options; repeating the same batch after a restart or a dropped connection replays
+ * the checkpointed lines and only transcribes what is left. Failed files are not checkpointed.
+ */
+public class BatchTranscriber {
+    private static final Logger log = LoggerFactory.getLogger(BatchTranscriber.class);
+
+    private static final long BUSY_POLL_MS = 50;
+
+    /**
+     * Transcribes one file; a 200 reply body becomes the file's result line.
+     */
+    public interface FileTranscriber {
+        LocalSocketServer.Reply transcribe(Path file);
+    }
+
+    /**
+     * Counts for the final summary line.
+     */
+    public static final class Summary {
+        public final int total;
+        public final int transcribed;
+        public final int resumed;
+        public final int failed;
+
+        Summary(int total, int transcribed, int resumed, int failed) {
+            this.total = total;
+            this.transcribed = transcribed;
+            this.resumed = resumed;
+            this.failed = failed;
+        }
+    }
+
+    private static final class FileResult {
+        final boolean success;
+        final String line;
+
+        FileResult(boolean success, String line) {
+            this.success = success;
+            this.line = line;
+        }
+    }
+
+    private final Gson gson = new Gson();
+    private final Executor workers;
+    private final int parallelism;
+    private final Path checkpointDir;
+    private final BooleanSupplier interactiveBusy;
+
+    /**
+     * @param workers Batch worker pool (low priority threads)
+     * @param parallelism Files in flight per batch; at most the pool size
+     * @param checkpointDir Where batch checkpoints are kept
+     * @param interactiveBusy True while interactive transcriptions are running
+     */
+    public BatchTranscriber(Executor workers, int parallelism, Path checkpointDir, BooleanSupplier interactiveBusy) {
+        this.workers = workers;
+        this.parallelism = Math.max(1, parallelism);
+        this.checkpointDir = checkpointDir;
+        this.interactiveBusy = interactiveBusy;
+    }
+
+    /**
+     * Expand a directory (every .wav and .flac below it) or a glob such as
+     * {@code ~/Documents/VoiceNotes/2026-*}{@code /*.wav} into a sorted file list.
+     */
+    public static List<Path> resolve(String pattern) throws IOException {
+        String expanded = pattern.replaceFirst("^~", System.getProperty("user.home"));
+        if (!expanded.startsWith("/")) {
+            // Glob matching is done on absolute paths
+            expanded = Path.of("").toAbsolutePath() + "/" + expanded;
+        }
+        int glob = firstGlobChar(expanded);
+        Path root;
+        PathMatcher matcher;
+        if (glob < 0) {
+            root = Path.of(expanded).toAbsolutePath().normalize();
+            if (!Files.isDirectory(root)) {
+                throw new IOException("not a directory: " + pattern);
+            }
+            matcher = p -> {
+                String name = p.getFileName().toString().toLowerCase();
+                return name.endsWith(".wav") || name.endsWith(".flac");
+            };
+        } else {
+            int slash = expanded.lastIndexOf('/', glob);
+            root = Path.of(slash <= 0 ? "/" : expanded.substring(0, slash)).toAbsolutePath().normalize();
+            if (!Files.isDirectory(root)) return List.of();
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + expanded);
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(matcher::matches)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Checkpoint name for a batch: the same pattern and options resume the same checkpoint.
+     */
+    public static String checkpointKey(String pattern, String model, String language, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String id = pattern + "\n" + model + "\n" + language + "\n" + prompt;
+            return HexFormat.of().formatHex(digest.digest(id.getBytes(StandardCharsets.UTF_8))).substring(0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Transcribe the files, handing each NDJSON result line to {@code out} as it completes (in
+     * completion order, checkpointed lines first). If {@code out} throws, files not yet started are
+     * abandoned and the exception propagates; the checkpoint keeps what finished.
+     *
+     * @param resume False to discard any existing checkpoint and start over
+     */
+    public Summary run(List<Path> files, String key, boolean resume, FileTranscriber transcriber,
+                       Consumer<String> out) throws IOException, InterruptedException {
+        Path checkpoint = checkpointDir.resolve(key + ".ndjson");
+        if (!resume) Files.deleteIfExists(checkpoint);
+        Map<String, String> done = readCheckpoint(checkpoint);
+
+        List<Path> pending = new ArrayList<>();
+        int resumed = 0;
+        for (Path file : files) {
+            String line = done.get(file.toString());
+            if (line != null) {
+                out.accept(line);
+                resumed++;
+            } else {
+                pending.add(file);
+            }
+        }
+
+        BlockingQueue<Path> queue = new LinkedBlockingQueue<>(pending);
+        BlockingQueue<FileResult> results = new LinkedBlockingQueue<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        for (int i = 0; i < Math.min(parallelism, pending.size()); i++) {
+            workers.execute(() -> {
+                Path file;
+                while (!cancelled.get() && (file = queue.poll()) != null) {
+                    results.add(transcribeOne(file, transcriber, checkpoint, cancelled));
+                }
+            });
+        }
+
+        int transcribed = 0;
+        int failed = 0;
+        try {
+            for (int i = 0; i < pending.size(); i++) {
+                FileResult result = results.take();
+                if (result.success) transcribed++; else failed++;
+                out.accept(result.line);
+            }
+        } finally {
+            cancelled.set(true);
+            queue.clear();
+        }
+        return new Summary(files.size(), transcribed, resumed, failed);
+    }
+
+    private FileResult transcribeOne(Path file, FileTranscriber transcriber, Path checkpoint, AtomicBoolean cancelled) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("path", file.toString());
+        try {
+            // Dictation comes first: hold off between files while the user is waiting on a transcript
+            while (interactiveBusy.getAsBoolean() && !cancelled.get()) {
+                Thread.sleep(BUSY_POLL_MS);
+            }
+            LocalSocketServer.Reply reply = transcriber.transcribe(file);
+            Map<?,?> body = gson.fromJson(reply.body, Map.class);
+            if (reply.status == 200) {
+                if (body != null) body.forEach((k, v) -> line.put(String.valueOf(k), v));
+                String json = gson.toJson(line);
+                appendCheckpoint(checkpoint, json);
+                return new FileResult(true, json);
+            }
+            line.put("status", reply.status);
+            line.put("error", body != null ? body.get("error") : null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            line.put("error", "interrupted");
+        } catch (RuntimeException e) {
+            line.put("error", String.valueOf(e.getMessage()));
+        }
+        return new FileResult(false, gson.toJson(line));
+    }
+
+    private synchronized void appendCheckpoint(Path checkpoint, String json) {
+        try {
+            Files.createDirectories(checkpoint.getParent());
+            Files.writeString(checkpoint, json + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+        } catch (IOException e) {
+            // The result still reaches the client; only resumption loses this file
+            log.warn("Cannot write batch checkpoint {}: {}", checkpoint, e.getMessage());
+        }
+    }
+
+    private Map<String, String> readCheckpoint(Path checkpoint) throws IOException {
+        Map<String, String> done = new LinkedHashMap<>();
+        if (!Files.exists(checkpoint)) return done;
+        for (String line : Files.readAllLines(checkpoint, StandardCharsets.UTF_8)) {
+            try {
+                Map<?,?> entry = gson.fromJson(line, Map.class);
+                if (entry != null && entry.get("path") instanceof String path) done.put(path, line);
+            } catch (RuntimeException e) {
+                // A torn last line from a crash; that file is simply redone
+                log.debug("Skipping unreadable checkpoint line in {}", checkpoint);
+            }
+        }
+        return done;
+    }
+
+    private static int firstGlobChar(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,121 @@
+package com.cliffmin.whisper.daemon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Background probe of the daemon's external dependencies (whisper binary, model file, ffmpeg).
+ *
+ * Probes spawn processes and touch the filesystem, so they never run on the request path:
+ * the scheduler refreshes the snapshot every TTL, and {@link #invalidate()} (called when a
+ * transcription fails) schedules an early refresh. {@link #current()} only reads a field.
+ */
+public class CapabilityMonitor {
+    private static final Logger log = LoggerFactory.getLogger(CapabilityMonitor.class);
+
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+
+    /**
+     * Result of one probe round. checkedAtMillis is 0 until the first round completes.
+     */
+    public static final class Snapshot {
+        public final boolean whisperAvailable;
+        public final boolean modelAvailable;
+        public final boolean ffmpegAvailable;
+        public final long checkedAtMillis;
+
+        Snapshot(boolean whisperAvailable, boolean modelAvailable, boolean ffmpegAvailable, long checkedAtMillis) {
+            this.whisperAvailable = whisperAvailable;
+            this.modelAvailable = modelAvailable;
+            this.ffmpegAvailable = ffmpegAvailable;
+            this.checkedAtMillis = checkedAtMillis;
+        }
+
+        public boolean isProbed() {
+            return checkedAtMillis > 0;
+        }
+    }
+
+    private final BooleanSupplier whisperCheck;
+    private final BooleanSupplier modelCheck;
+    private final BooleanSupplier ffmpegCheck;
+    private final ScheduledExecutorService scheduler;
+    private final Duration ttl;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private volatile Snapshot snapshot = new Snapshot(false, false, false, 0);
+
+    public CapabilityMonitor(BooleanSupplier whisperCheck, BooleanSupplier modelCheck, BooleanSupplier ffmpegCheck,
+                             ScheduledExecutorService scheduler, Duration ttl) {
+        this.whisperCheck = whisperCheck;
+        this.modelCheck = modelCheck;
+        this.ffmpegCheck = ffmpegCheck;
+        this.scheduler = scheduler;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Probe now in the background, then every TTL.
+     */
+    public void start() {
+        refreshPending.set(true);
+        scheduler.scheduleWithFixedDelay(this::refreshIfDue, 0, ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Latest probe result; never blocks.
+     */
+    public Snapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Something failed that a dependency change could explain; re-probe soon instead of at the next TTL.
+     * Repeated signals while a refresh is queued collapse into that refresh.
+     */
+    public void invalidate() {
+        if (refreshPending.compareAndSet(false, true)) {
+            scheduler.execute(this::refreshIfDue);
+        }
+    }
+
+    private void refreshIfDue() {
+        boolean requested = refreshPending.getAndSet(false);
+        Snapshot last = snapshot;
+        if (!requested && System.currentTimeMillis() - last.checkedAtMillis < ttl.toMillis() / 2) {
+            return;  // an invalidation refreshed recently
+        }
+        refresh();
+    }
+
+    /**
+     * Run all probes on the calling thread and publish the result.
+     */
+    Snapshot refresh() {
+        Snapshot next = new Snapshot(check(whisperCheck, "whisper"), check(modelCheck, "model"),
+                check(ffmpegCheck, "ffmpeg"), System.currentTimeMillis());
+        Snapshot previous = snapshot;
+        if (previous.isProbed() && (previous.whisperAvailable != next.whisperAvailable
+                || previous.modelAvailable != next.modelAvailable
+                || previous.ffmpegAvailable != next.ffmpegAvailable)) {
+            log.info("Capabilities changed: whisper={} model={} ffmpeg={}",
+                    next.whisperAvailable, next.modelAvailable, next.ffmpegAvailable);
+        }
+        snapshot = next;
+        return next;
+    }
+
+    private static boolean check(BooleanSupplier probe, String name) {
+        try {
+            return probe.getAsBoolean();
+        } catch (RuntimeException e) {
+            log.debug("{} probe failed: {}", name, e.getMessage());
+            return false;
+        }
+    }
+}
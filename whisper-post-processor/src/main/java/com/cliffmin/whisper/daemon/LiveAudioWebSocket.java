@@ -0,0 +1,126 @@
+package com.cliffmin.whisper.daemon;
+
+import com.cliffmin.whisper.pipeline.ProcessingPipeline;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.undertow.websockets.WebSocketConnectionCallback;
+import io.undertow.websockets.core.AbstractReceiveListener;
+import io.undertow.websockets.core.BufferedBinaryMessage;
+import io.undertow.websockets.core.BufferedTextMessage;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
+import io.undertow.websockets.spi.WebSocketHttpExchange;
+import org.xnio.Pooled;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * WebSocket endpoint for live audio ingestion while the hotkey is still held.
+ * URL: ws://127.0.0.1:8765/live[?model=base.en&language=en]
+ * Protocol:
+ *  - binary frames: raw PCM, 16kHz mono signed 16-bit little endian
+ *  - server -> {"partial": "...", "region": n} as speculative regions finish
+ *  - text {"type":"end"} -> server decodes the tail and replies {"text": "...", "regions": n}
+ */
+public class LiveAudioWebSocket {
+    private final Gson gson = new Gson();
+    private final Map<WebSocketChannel, LiveTranscriptionSession> sessions = new ConcurrentHashMap<>();
+    private final ProcessingPipeline pipeline;
+    private final BiFunction<WebSocketHttpExchange, BiConsumer<Integer, String>, LiveTranscriptionSession> sessionFactory;
+    private volatile TranscriptionMetrics metrics;
+
+    public LiveAudioWebSocket(ProcessingPipeline pipeline,
+                              BiFunction<WebSocketHttpExchange, BiConsumer<Integer, String>, LiveTranscriptionSession> sessionFactory) {
+        this.pipeline = pipeline;
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Publish the session count, and the final text's post-processing and serialization phases.
+     */
+    public void bindTo(MeterRegistry registry, TranscriptionMetrics metrics) {
+        Gauge.builder("ptt_live_sessions", sessions, Map::size).register(registry);
+        this.metrics = metrics;
+    }
+
+    public WebSocketConnectionCallback handler() {
+        return (WebSocketHttpExchange exchange, WebSocketChannel channel) -> {
+            LiveTranscriptionSession session = sessionFactory.apply(exchange, (region, text) -> {
+                Map<String, Object> msg = new LinkedHashMap<>();
+                msg.put("partial", text);
+                msg.put("region", region);
+                if (channel.isOpen()) WebSockets.sendText(gson.toJson(msg), channel, null);
+            });
+            sessions.put(channel, session);
+            channel.addCloseTask(ch -> {
+                // Queued regions would otherwise still run on the shared whisper thread
+                LiveTranscriptionSession closed = sessions.remove(ch);
+                if (closed != null) closed.cancel();
+            });
+            channel.getReceiveSetter().set(new AbstractReceiveListener() {
+                @Override
+                protected void onFullBinaryMessage(WebSocketChannel channel, BufferedBinaryMessage message) {
+                    Pooled<ByteBuffer[]> data = message.getData();
+                    try {
+                        for (ByteBuffer buf : data.getResource()) {
+                            session.onPcm(buf);
+                        }
+                    } finally {
+                        data.free();
+                    }
+                }
+
+                @Override
+                protected void onFullTextMessage(WebSocketChannel channel, BufferedTextMessage message) {
+                    Map<?, ?> req;
+                    try {
+                        req = gson.fromJson(message.getData(), Map.class);
+                    } catch (JsonParseException e) {
+                        WebSockets.sendText("{\"error\":\"malformed control message\"}", channel, null);
+                        return;
+                    }
+                    if (req == null || !"end".equals(req.get("type"))) {
+                        WebSockets.sendText("{\"error\":\"unknown control message\"}", channel, null);
+                        return;
+                    }
+                    session.finish().whenComplete((raw, err) -> {
+                        TranscriptionMetrics m = metrics;
+                        TranscriptionMetrics.Timings timings = new TranscriptionMetrics.Timings();
+                        Map<String, Object> resp = new LinkedHashMap<>();
+                        if (err != null) {
+                            Throwable cause = err.getCause() != null ? err.getCause() : err;
+                            resp.put("error", String.valueOf(cause.getMessage()));
+                        } else {
+                            resp.put("text", raw.isEmpty() ? raw : pipeline.process(raw));
+                            timings.lap(TranscriptionMetrics.Phase.POST_PROCESS);
+                            resp.put("regions", session.getRegionCount());
+                            resp.put("audioSeconds", session.getReceivedSeconds());
+                            resp.put("overrunSamples", session.getOverruns());
+                            if (m != null) m.audio("live", session.getReceivedSeconds());
+                            timings.restart();
+                        }
+                        String json = gson.toJson(resp);
+                        if (err == null) timings.lap(TranscriptionMetrics.Phase.SERIALIZE);
+                        if (m != null) m.record(timings);
+                        if (channel.isOpen()) WebSockets.sendText(json, channel, null);
+                    });
+                }
+            });
+            channel.resumeReceives();
+        };
+    }
+
+    /**
+     * Number of clients currently streaming audio.
+     */
+    public int activeSessions() {
+        return sessions.size();
+    }
+}
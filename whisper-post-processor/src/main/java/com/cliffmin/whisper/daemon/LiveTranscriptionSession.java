@@ -0,0 +1,228 @@
+package com.cliffmin.whisper.daemon;
+
+import com.cliffmin.whisper.audio.AudioKernels;
+import com.cliffmin.whisper.audio.PcmRingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Speculative transcription of audio that is still being recorded.
+ *
+ * PCM frames (16kHz mono, 16-bit little endian) are pushed into a lock-free ring buffer
+ * by the I/O thread. A drain task segments the stream at pauses and transcribes each
+ * completed speech region in the background, so when recording ends only the trailing
+ * region is left to decode.
+ */
+class LiveTranscriptionSession {
+    private static final Logger log = LoggerFactory.getLogger(LiveTranscriptionSession.class);
+
+    static final int SAMPLE_RATE = 16000;
+    private static final int FRAME_SAMPLES = SAMPLE_RATE / 50;           // 20ms analysis frames
+    private static final double SILENCE_THRESHOLD_DB = -40.0;
+    private static final int PAUSE_FRAMES = 25;                          // 500ms pause closes a region
+    private static final int MIN_SEGMENT_SAMPLES = SAMPLE_RATE * 2;      // avoid decoding tiny fragments
+    private static final int MAX_SEGMENT_SAMPLES = SAMPLE_RATE * 28;     // stay inside Whisper's 30s window
+    private static final int PREROLL_SAMPLES = SAMPLE_RATE / 5;          // keep 200ms before speech onset
+    private static final int BUFFER_SECONDS = 30;
+
+    /**
+     * Transcribes one completed speech region.
+     */
+    @FunctionalInterface
+    interface SegmentTranscriber {
+        String transcribe(short[] samples, int length) throws Exception;
+    }
+
+    private final PcmRingBuffer ring = new PcmRingBuffer(SAMPLE_RATE * BUFFER_SECONDS);
+    private final SegmentTranscriber transcriber;
+    private final Executor drainExecutor;
+    private final Executor transcribeExecutor;
+    private final BiConsumer<Integer, String> onPartial;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    // Segmentation state, only touched while holding the session lock (consumer side)
+    private final short[] frame = new short[FRAME_SAMPLES];
+    private int frameFill;
+    private short[] segment = new short[SAMPLE_RATE * 4];
+    private int segmentLength;
+    private boolean segmentHasSpeech;
+    private int silentFrames;
+    private final List<CompletableFuture<String>> regions = new ArrayList<>();
+    private volatile boolean finished;
+    private volatile boolean cancelled;
+
+    LiveTranscriptionSession(SegmentTranscriber transcriber,
+                             Executor drainExecutor,
+                             Executor transcribeExecutor,
+                             BiConsumer<Integer, String> onPartial) {
+        this.transcriber = transcriber;
+        this.drainExecutor = drainExecutor;
+        this.transcribeExecutor = transcribeExecutor;
+        this.onPartial = onPartial;
+    }
+
+    /**
+     * Accept a PCM frame from the client. Never blocks; safe to call from an I/O thread.
+     */
+    void onPcm(ByteBuffer pcm) {
+        if (finished) return;
+        ring.writePcm16le(pcm);
+        scheduleDrain();
+    }
+
+    /**
+     * Stop accepting audio, decode whatever remains and return the joined raw transcript.
+     */
+    CompletableFuture<String> finish() {
+        finished = true;
+        return CompletableFuture.supplyAsync(() -> {
+            synchronized (this) {
+                drain();
+                flushTail();
+                return List.copyOf(regions);
+            }
+        }, drainExecutor).thenCompose(futures ->
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+                StringBuilder text = new StringBuilder();
+                for (CompletableFuture<String> f : futures) {
+                    String part = f.join();
+                    if (part == null || part.isBlank()) continue;
+                    if (text.length() > 0) text.append(' ');
+                    text.append(part.trim());
+                }
+                return text.toString();
+            })
+        );
+    }
+
+    /**
+     * Client went away: stop accepting audio and drop regions that have not started decoding,
+     * so they do not hold up other sessions on the shared transcribe executor.
+     */
+    void cancel() {
+        finished = true;
+        cancelled = true;
+        synchronized (this) {
+            for (CompletableFuture<String> region : regions) {
+                region.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Number of speech regions handed to the transcriber so far.
+     */
+    synchronized int getRegionCount() {
+        return regions.size();
+    }
+
+    long getOverruns() {
+        return ring.overruns();
+    }
+
+    double getReceivedSeconds() {
+        return ring.totalWritten() / (double) SAMPLE_RATE;
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            drainExecutor.execute(() -> {
+                drainScheduled.set(false);
+                synchronized (this) {
+                    drain();
+                }
+            });
+        }
+    }
+
+    private void drain() {
+        int read;
+        while ((read = ring.read(frame, frameFill, FRAME_SAMPLES - frameFill)) > 0) {
+            frameFill += read;
+            if (frameFill == FRAME_SAMPLES) {
+                onFrame();
+                frameFill = 0;
+            }
+        }
+    }
+
+    private void onFrame() {
+        append(frame, FRAME_SAMPLES);
+        if (AudioKernels.toDb(AudioKernels.rms(frame, 0, FRAME_SAMPLES)) > SILENCE_THRESHOLD_DB) {
+            segmentHasSpeech = true;
+            silentFrames = 0;
+        } else {
+            silentFrames++;
+        }
+
+        if (!segmentHasSpeech) {
+            // Leading silence: keep only a short pre-roll so the next region starts cleanly
+            if (segmentLength >= PREROLL_SAMPLES * 2) {
+                System.arraycopy(segment, segmentLength - PREROLL_SAMPLES, segment, 0, PREROLL_SAMPLES);
+                segmentLength = PREROLL_SAMPLES;
+            }
+            return;
+        }
+
+        boolean paused = silentFrames >= PAUSE_FRAMES && segmentLength >= MIN_SEGMENT_SAMPLES;
+        if (paused || segmentLength >= MAX_SEGMENT_SAMPLES) {
+            commitRegion();
+        }
+    }
+
+    private void flushTail() {
+        if (frameFill > 0) {
+            append(frame, frameFill);
+            frameFill = 0;
+        }
+        if (segmentHasSpeech) {
+            commitRegion();
+        }
+    }
+
+    private void append(short[] src, int length) {
+        if (segmentLength + length > segment.length) {
+            segment = Arrays.copyOf(segment, Math.max(segment.length * 2, segmentLength + length));
+        }
+        System.arraycopy(src, 0, segment, segmentLength, length);
+        segmentLength += length;
+    }
+
+    private void commitRegion() {
+        if (cancelled) {
+            segmentLength = 0;
+            segmentHasSpeech = false;
+            silentFrames = 0;
+            return;
+        }
+        short[] samples = Arrays.copyOf(segment, segmentLength);
+        int index = regions.size();
+        log.debug("Live region {} committed ({} ms)", index, samples.length * 1000L / SAMPLE_RATE);
+
+        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return transcriber.transcribe(samples, samples.length);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, transcribeExecutor);
+        if (onPartial != null) {
+            future.thenAccept(text -> onPartial.accept(index, text));
+        }
+        regions.add(future);
+
+        segmentLength = 0;
+        segmentHasSpeech = false;
+        silentFrames = 0;
+    }
+}
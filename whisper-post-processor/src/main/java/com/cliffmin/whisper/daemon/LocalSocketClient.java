@@ -0,0 +1,45 @@
+package com.cliffmin.whisper.daemon;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Client for {@link LocalSocketServer}. Keeps one connection open; calls are serialized.
+ */
+public class LocalSocketClient implements AutoCloseable {
+    private final SocketChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(6);
+
+    public LocalSocketClient(Path socketPath) throws IOException {
+        this.channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Send one request and wait for its reply.
+     *
+     * @param op One of the LocalSocketServer.OP_* codes
+     * @param body JSON request body (may be empty)
+     */
+    public synchronized LocalSocketServer.Reply call(byte op, String body) throws IOException {
+        LocalSocketServer.writeRequest(channel, op, body);
+        header.clear();
+        LocalSocketServer.readFully(channel, header, false);
+        int status = header.getShort(0) & 0xFFFF;
+        return new LocalSocketServer.Reply(status, LocalSocketServer.readBody(channel, header.getInt(2)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
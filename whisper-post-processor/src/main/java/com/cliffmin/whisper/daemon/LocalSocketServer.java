@@ -0,0 +1,197 @@
+package com.cliffmin.whisper.daemon;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Unix domain socket listener for local clients, beside the HTTP API.
+ *
+ * Frames are length-prefixed so a request costs one small write and no header parsing:
+ * <pre>
+ *   request:  [op: u8][length: u32][JSON body, UTF-8]
+ *   response: [status: u16][length: u32][JSON body, UTF-8]
+ * </pre>
+ * Status codes mirror the HTTP endpoints. A connection may carry any number of requests.
+ */
+public class LocalSocketServer implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(LocalSocketServer.class);
+
+    public static final byte OP_HEALTH = 1;
+    public static final byte OP_TRANSCRIBE = 2;
+    public static final byte OP_PREWARM = 3;
+
+    static final int MAX_FRAME_BYTES = 1 << 20;
+
+    /**
+     * Response to one request: HTTP-style status and JSON body.
+     */
+    public static final class Reply {
+        public final int status;
+        public final String body;
+
+        public Reply(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        Reply handle(byte op, String body) throws Exception;
+    }
+
+    private final Gson gson = new Gson();
+    private final Path socketPath;
+    private final Handler handler;
+    private final ExecutorService connectionExecutor;
+    private ServerSocketChannel server;
+    private Thread acceptThread;
+
+    public LocalSocketServer(Path socketPath, Handler handler, ExecutorService connectionExecutor) {
+        this.socketPath = socketPath;
+        this.handler = handler;
+        this.connectionExecutor = connectionExecutor;
+    }
+
+    /**
+     * Bind the socket (replacing a stale file from a previous run) and start accepting.
+     *
+     * @throws IOException if another process is still listening on the socket
+     */
+    public synchronized void start() throws IOException {
+        Path parent = socketPath.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        if (Files.exists(socketPath)) {
+            try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+                probe.connect(UnixDomainSocketAddress.of(socketPath));
+                throw new IOException("Socket already in use: " + socketPath);
+            } catch (ConnectException e) {
+                Files.deleteIfExists(socketPath);
+            }
+        }
+
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+        try {
+            Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            log.debug("Could not restrict socket permissions: {}", e.getMessage());
+        }
+
+        acceptThread = new Thread(this::acceptLoop, "ptt-socket-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    public Path getSocketPath() {
+        return socketPath;
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel client = server.accept();
+                connectionExecutor.execute(() -> serve(client));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Socket accept failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try (client) {
+            ByteBuffer header = ByteBuffer.allocate(5);
+            while (true) {
+                header.clear();
+                if (!readFully(client, header, true)) return;
+                byte op = header.get(0);
+                String body = readBody(client, header.getInt(1));
+
+                Reply reply;
+                try {
+                    reply = handler.handle(op, body);
+                } catch (Exception e) {
+                    reply = new Reply(500, gson.toJson(Map.of("error", String.valueOf(e.getMessage()))));
+                }
+                writeResponse(client, (short) reply.status, reply.body);
+            }
+        } catch (IOException e) {
+            log.debug("Socket connection closed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (server != null) server.close();
+            Files.deleteIfExists(socketPath);
+        } catch (IOException e) {
+            log.debug("Socket close failed: {}", e.getMessage());
+        }
+    }
+
+    // Framing shared with LocalSocketClient
+
+    static void writeRequest(WritableByteChannel channel, byte op, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(5 + bytes.length);
+        frame.put(op).putInt(bytes.length).put(bytes).flip();
+        writeFully(channel, frame);
+    }
+
+    static void writeResponse(WritableByteChannel channel, short status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(6 + bytes.length);
+        frame.putShort(status).putInt(bytes.length).put(bytes).flip();
+        writeFully(channel, frame);
+    }
+
+    static String readBody(ReadableByteChannel channel, int length) throws IOException {
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Frame length out of range: " + length);
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(channel, body, false);
+        return new String(body.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return false on a clean end of stream before the first byte (only when allowEof)
+     */
+    static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer, boolean allowEof) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (allowEof && buffer.position() == 0) return false;
+                throw new EOFException("Connection closed mid-frame");
+            }
+        }
+        return true;
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -1,13 +1,31 @@
 package com.cliffmin.whisper.daemon;
 
+import com.cliffmin.voxcore.exception.ErrorCode;
+import com.cliffmin.voxcore.txlog.TransactionLog;
+import com.cliffmin.voxcore.txlog.TransactionRecord;
 import com.cliffmin.whisper.service.WhisperService;
 import com.cliffmin.whisper.service.WhisperCppAdapter;
+import com.cliffmin.whisper.service.ModelManager;
+import com.cliffmin.whisper.audio.AudioProbe;
 import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.audio.CaptureLine;
+import com.cliffmin.whisper.audio.CaptureService;
+import com.cliffmin.whisper.audio.FlacEncoder;
+import com.cliffmin.whisper.audio.RecordingArchiver;
+import com.cliffmin.whisper.audio.TargetDataLineCapture;
 import com.cliffmin.whisper.config.Configuration;
 import com.cliffmin.whisper.config.ConfigurationManager;
 import com.google.gson.Gson;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.core.instrument.binder.system.UptimeMetrics;
 import io.micrometer.prometheus.PrometheusConfig;
 import io.micrometer.prometheus.PrometheusMeterRegistry;
 import io.undertow.Undertow;
@@ -15,22 +33,64 @@ import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.BlockingHandler;
 import io.undertow.server.handlers.PathHandler;
+import io.undertow.server.handlers.sse.ServerSentEventConnection;
+import io.undertow.util.PathTemplateMatch;
 import io.undertow.util.Headers;
 import io.undertow.Handlers;
+import io.undertow.websockets.spi.WebSocketHttpExchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Minimal HTTP daemon to expose transcription to Hammerspoon.
  * Endpoints:
  *  - GET /health -> { status: "ok" }
  *  - POST /transcribe (multipart/form-data or JSON with path)
+ *  - POST /transcribe/batch (directory or glob; NDJSON line per file, resumable)
+ *  - POST /jobs (same body as /transcribe, answers with a job id), GET /jobs/{id} (state),
+ *    GET /jobs/{id}/events (server-sent progress, segments and the result)
+ *  - POST /prewarm (hotkey-down: page in the model and JIT-warm the processors while the user speaks)
+ *  - GET /models (model files and page-cache residency)
+ *  - POST /capture/start, POST /capture/stop (in-process microphone recording with pre-roll)
+ *  - WS /ws (streaming text refinement), WS /live (PCM ingestion with speculative transcription)
+ * Health, transcribe and prewarm are also served over a Unix domain socket ({@link LocalSocketServer}).
  */
 public class PTTServiceDaemon {
+    private static final Logger log = LoggerFactory.getLogger(PTTServiceDaemon.class);
+    private static final Duration MODEL_CHECK_INTERVAL = Duration.ofMinutes(5);
+    // Two whisper runs in flight keep the cores busy across process start-up and model loading
+    private static final int BATCH_WORKERS = 2;
+    // Batch runs split the cores between them (and run at background priority) instead of each taking all
+    private static final int BATCH_WHISPER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / BATCH_WORKERS);
+    // At most one queued /ws pipeline run per connection, so this bounds connections with work pending
+    private static final int WS_QUEUE_CAPACITY = 256;
     private final Gson gson = new Gson();
     private final WhisperService whisper;
     private final AudioProcessor audio;
@@ -39,6 +99,54 @@ public class PTTServiceDaemon {
     private Undertow server;
     private PrometheusMeterRegistry registry;
     private Timer transcribeTimer;
+    private TranscriptionMetrics transcriptionMetrics;
+    // Holds GC notification listeners, removed on stop
+    private JvmGcMetrics gcMetrics;
+    // Live ingestion: cheap segmentation work vs. whisper decodes (serialized so they don't fight for cores)
+    private ExecutorService liveDrainExecutor;
+    private ExecutorService liveTranscribeExecutor;
+    // Recording archival: low-priority background work, off the request path
+    private ScheduledExecutorService archiveScheduler;
+    private ExecutorService archiveEncodeExecutor;
+    // In-process capture (captureEnabled); WAVs are written off the capture thread
+    private CaptureLine captureLine;
+    private CaptureService capture;
+    private ExecutorService captureWriteExecutor;
+    // Dependency availability for /health, probed in the background
+    private CapabilityMonitor capabilities;
+    private ScheduledExecutorService capabilityScheduler;
+    // Local clients: length-prefixed protocol over a Unix domain socket (socketPath)
+    private LocalSocketServer socketServer;
+    private ExecutorService socketExecutor;
+    private com.cliffmin.whisper.pipeline.ProcessingPipeline pipeline;
+    // /ws refinement runs here instead of on the XNIO I/O threads
+    private ThreadPoolExecutor wsExecutor;
+    // Model files kept in the page cache; re-checked periodically so the first run after idle is warm
+    private ModelManager models;
+    private ScheduledExecutorService modelScheduler;
+    // Hotkey-down warm-up (model pages, processor JIT), low priority so it never competes with capture
+    private Prewarmer prewarmer;
+    private ExecutorService prewarmExecutor;
+    // Asynchronous transcriptions (POST /jobs); one at a time, whisper already uses every core
+    private TranscriptionJobs jobs;
+    private ExecutorService jobsExecutor;
+    // Bulk re-transcription (POST /transcribe/batch) yields to interactive requests
+    private BatchTranscriber batch;
+    private ExecutorService batchExecutor;
+    // One record per transcription served here (txLogDir), written off the request thread
+    private TransactionLog txLog;
+    private final AtomicInteger interactiveTranscriptions = new AtomicInteger();
+    // Identical transcriptions already running (retries, double presses) are joined, not repeated
+    private final SingleFlight<String, WhisperService.TranscriptionResult> whisperFlights = new SingleFlight<>();
+    private Counter coalescedCounter;
+    // Transcripts keyed by content hash + model + language (only used when cacheEnabled)
+    private final Map<String, WhisperService.TranscriptionResult> transcriptCache =
+            Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, WhisperService.TranscriptionResult> eldest) {
+                    return size() > (config != null ? config.getCacheMaxSize() : 0);
+                }
+            });
 
     public PTTServiceDaemon() {
         this.whisper = new WhisperCppAdapter();
@@ -52,121 +160,771 @@ public class PTTServiceDaemon {
         this.config = config;
     }
 
+    // For testing/injection: capture from the given line instead of the microphone
+    public PTTServiceDaemon(WhisperService whisper, AudioProcessor audio, Configuration config, CaptureLine captureLine) {
+        this(whisper, audio, config);
+        this.captureLine = captureLine;
+    }
+
     public void start(int port) {
-        // Load configuration (env > file > defaults)
-        this.config = loadConfiguration();
+        start(port, null);
+    }
+
+    /**
+     * @param socketPath Unix socket to listen on, or null to use the configured socketPath
+     */
+    public void start(int port, Path socketPath) {
+        // Load configuration (env > file > defaults) unless one was injected
+        if (config == null) this.config = loadConfiguration();
         // Init metrics
         this.registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
         this.transcribeTimer = Timer.builder("ptt_transcribe_seconds").publishPercentiles(0.5, 0.95).register(registry);
+        this.coalescedCounter = Counter.builder("ptt_transcribe_coalesced_total").register(registry);
+        Gauge.builder("ptt_transcribe_in_flight", whisperFlights, SingleFlight::inFlight)
+                .register(registry);
+        Gauge.builder("ptt_transcribe_interactive", interactiveTranscriptions, AtomicInteger::get).register(registry);
+        this.transcriptionMetrics = new TranscriptionMetrics(registry);
+        bindJvmMetrics();
+        this.liveDrainExecutor = Executors.newSingleThreadExecutor(daemonThreads("ptt-live-drain"));
+        this.liveTranscribeExecutor = Executors.newSingleThreadExecutor(daemonThreads("ptt-live-whisper"));
+        this.pipeline = buildPipeline();
+        int wsWorkers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.wsExecutor = new ThreadPoolExecutor(wsWorkers, wsWorkers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(WS_QUEUE_CAPACITY), daemonThreads("ptt-ws"));
+        this.prewarmExecutor = Executors.newSingleThreadExecutor(lowPriorityThreads("ptt-prewarm"));
+        startModelManager();
+        this.prewarmer = new Prewarmer(models, pipeline, prewarmExecutor);
+        this.jobsExecutor = Executors.newSingleThreadExecutor(daemonThreads("ptt-jobs"));
+        this.jobs = new TranscriptionJobs(jobsExecutor, TranscriptionJobs.DEFAULT_MAX_RETAINED);
+        for (TranscriptionJobs.State state : List.of(TranscriptionJobs.State.QUEUED, TranscriptionJobs.State.RUNNING)) {
+            Gauge.builder("ptt_jobs", jobs, j -> j.count(state))
+                    .tag("state", state.name().toLowerCase()).register(registry);
+        }
+        this.batchExecutor = Executors.newFixedThreadPool(BATCH_WORKERS, lowPriorityThreads("ptt-batch"));
+        this.batch = new BatchTranscriber(batchExecutor, BATCH_WORKERS,
+                Path.of(System.getProperty("user.home"), ".config", "ptt-dictation", "batches"),
+                () -> interactiveTranscriptions.get() > 0);
+        startTransactionLog();
+        startCapabilityMonitor();
+        scheduleArchival();
+        startCapture();
 
         server = Undertow.builder()
                 .addHttpListener(port, "127.0.0.1")
                 .setHandler(buildHandler())
                 .build();
         server.start();
+        startSocket(socketPath != null ? socketPath : configuredSocketPath());
     }
 
     public void stop() {
         if (server != null) server.stop();
+        if (socketServer != null) socketServer.close();
+        if (socketExecutor != null) socketExecutor.shutdownNow();
+        if (wsExecutor != null) wsExecutor.shutdownNow();
+        if (liveDrainExecutor != null) liveDrainExecutor.shutdownNow();
+        if (liveTranscribeExecutor != null) liveTranscribeExecutor.shutdownNow();
+        if (prewarmExecutor != null) prewarmExecutor.shutdownNow();
+        if (jobsExecutor != null) jobsExecutor.shutdownNow();
+        if (batchExecutor != null) batchExecutor.shutdownNow();
+        if (modelScheduler != null) modelScheduler.shutdownNow();
+        if (archiveScheduler != null) archiveScheduler.shutdownNow();
+        if (capabilityScheduler != null) capabilityScheduler.shutdownNow();
+        if (archiveEncodeExecutor != null) archiveEncodeExecutor.shutdownNow();
+        if (capture != null) capture.close();
+        if (captureWriteExecutor != null) captureWriteExecutor.shutdown();
+        if (gcMetrics != null) gcMetrics.close();
+        if (txLog != null) txLog.close();
+    }
+
+    /**
+     * Heap, GC pauses, threads, class loading, CPU and uptime, so a slow transcription can be
+     * checked against what the JVM was doing at the time.
+     */
+    private void bindJvmMetrics() {
+        new ClassLoaderMetrics().bindTo(registry);
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+        new ProcessorMetrics().bindTo(registry);
+        new UptimeMetrics().bindTo(registry);
+        this.gcMetrics = new JvmGcMetrics();
+        gcMetrics.bindTo(registry);
+    }
+
+    private void startCapture() {
+        CaptureLine line = captureLine;
+        if (line == null && config != null && config.isCaptureEnabled()) {
+            try {
+                line = TargetDataLineCapture.open(config.getCaptureDevice());
+            } catch (IOException e) {
+                log.warn("Audio capture disabled: {}", e.getMessage());
+            }
+        }
+        if (line == null) return;
+        this.captureWriteExecutor = Executors.newSingleThreadExecutor(daemonThreads("ptt-capture-write"));
+        this.capture = new CaptureService(line, audio, captureWriteExecutor, CaptureService.DEFAULT_PREROLL_MS);
+        capture.start();
+    }
+
+    private void startSocket(Path socketPath) {
+        if (socketPath == null) return;
+        this.socketExecutor = Executors.newCachedThreadPool(daemonThreads("ptt-socket"));
+        this.socketServer = new LocalSocketServer(socketPath, this::handleSocketRequest, socketExecutor);
+        try {
+            socketServer.start();
+        } catch (IOException e) {
+            log.warn("Unix socket listener disabled ({}): {}", socketPath, e.getMessage());
+            socketServer = null;
+        }
+    }
+
+    private void startTransactionLog() {
+        if (config == null || config.getTxLogDir() == null || config.getTxLogDir().isBlank()) return;
+        String dir = config.getTxLogDir().replaceFirst("^~", System.getProperty("user.home"));
+        this.txLog = new TransactionLog(Path.of(dir));
+    }
+
+    private Path configuredSocketPath() {
+        if (config == null || config.getSocketPath() == null || config.getSocketPath().isBlank()) return null;
+        return Path.of(config.getSocketPath().replaceFirst("^~", System.getProperty("user.home")));
+    }
+
+    private void startModelManager() {
+        Path modelsPath = whisper.getModelsPath();
+        if (modelsPath == null) return;
+        this.models = new ModelManager(modelsPath);
+        models.bindTo(registry);
+        models.markActive(defaultModel(0));
+        this.modelScheduler = Executors.newSingleThreadScheduledExecutor(lowPriorityThreads("ptt-models"));
+        modelScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                models.refreshActive();
+            } catch (Exception e) {
+                log.warn("Model residency check failed: {}", e.getMessage());
+            }
+        }, 0, MODEL_CHECK_INTERVAL.toMinutes(), TimeUnit.MINUTES);
+    }
+
+    private void startCapabilityMonitor() {
+        this.capabilityScheduler = Executors.newSingleThreadScheduledExecutor(lowPriorityThreads("ptt-capabilities"));
+        this.capabilities = new CapabilityMonitor(
+                whisper::isAvailable,
+                () -> whisper.hasModel(defaultModel(0)),
+                audio::isFFmpegAvailable,
+                capabilityScheduler,
+                CapabilityMonitor.DEFAULT_TTL);
+        capabilities.start();
+    }
+
+    private void scheduleArchival() {
+        if (config == null || config.getArchiveAfterDays() <= 0 || config.getRecordingsDir() == null) return;
+        Path root = recordingsRoot();
+        Duration minAge = Duration.ofDays(config.getArchiveAfterDays());
+        int encoders = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.archiveEncodeExecutor = Executors.newFixedThreadPool(encoders, lowPriorityThreads("ptt-archive-encode"));
+        this.archiveScheduler = Executors.newSingleThreadScheduledExecutor(lowPriorityThreads("ptt-archive"));
+        RecordingArchiver archiver = new RecordingArchiver(
+                new FlacEncoder(archiveEncodeExecutor, FlacEncoder.DEFAULT_BLOCK_SIZE));
+        archiveScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                archiver.archive(root, minAge);
+            } catch (Exception e) {
+                log.warn("Recording archival failed: {}", e.getMessage());
+            }
+        }, 10, 24 * 60, TimeUnit.MINUTES);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static ThreadFactory lowPriorityThreads(String name) {
+        ThreadFactory base = daemonThreads(name);
+        return r -> {
+            Thread t = base.newThread(r);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        };
     }
 
     private HttpHandler buildHandler() {
         PathHandler root = new PathHandler();
         root.addExactPath("/health", this::handleHealth);
         root.addExactPath("/transcribe", new BlockingHandler(this::handleTranscribe));
+        root.addExactPath("/transcribe/batch", new BlockingHandler(this::handleBatch));
+        root.addExactPath("/jobs", new BlockingHandler(this::handleJobSubmit));
+        root.addPrefixPath("/jobs", Handlers.pathTemplate()
+                .add("/{id}", this::handleJobStatus)
+                .add("/{id}/events", knownJob(Handlers.serverSentEvents(this::onJobEventsConnected))));
+        root.addExactPath("/prewarm", new BlockingHandler(this::handlePrewarm));
+        root.addExactPath("/models", this::handleModels);
+        root.addExactPath("/capture/start", new BlockingHandler(this::handleCaptureStart));
+        root.addExactPath("/capture/stop", new BlockingHandler(this::handleCaptureStop));
         root.addExactPath("/metrics", exchange -> {
             exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain; version=0.0.4");
             exchange.getResponseSender().send(registry.scrape());
         });
-        // Streaming WS uses the same processing pipeline as CLI
-        var pipeline = new com.cliffmin.whisper.pipeline.ProcessingPipeline();
-        pipeline.addProcessor(new com.cliffmin.whisper.processors.ReflowProcessor());
-        pipeline.addProcessor(new com.cliffmin.whisper.processors.DisfluencyProcessor());
-        pipeline.addProcessor(new com.cliffmin.whisper.processors.ContractionNormalizer());
-        pipeline.addProcessor(new com.cliffmin.whisper.processors.ConjunctionFollowerSplitter());
-        pipeline.addProcessor(new com.cliffmin.whisper.processors.MergedWordProcessor());
-        pipeline.addProcessor(new com.cliffmin.whisper.processors.SentenceBoundaryProcessor());
-        pipeline.addProcessor(new com.cliffmin.whisper.processors.CapitalizationProcessor());
-        pipeline.addProcessor(new com.cliffmin.whisper.processors.PunctuationProcessor());
-        pipeline.addProcessor(new com.cliffmin.whisper.processors.DictionaryProcessor());
-        pipeline.addProcessor(new com.cliffmin.whisper.processors.PunctuationNormalizer());
-        var wsHandler = Handlers.websocket(new StreamingWebSocket(pipeline, v -> {}).handler());
+        StreamingWebSocket streaming = new StreamingWebSocket(pipeline, wsExecutor, v -> {});
+        streaming.bindTo(registry);
+        var wsHandler = Handlers.websocket(streaming.handler());
         root.addPrefixPath("/ws", wsHandler);
+        LiveAudioWebSocket live = new LiveAudioWebSocket(pipeline, this::newLiveSession);
+        live.bindTo(registry, transcriptionMetrics);
+        var liveHandler = Handlers.websocket(live.handler());
+        root.addPrefixPath("/live", liveHandler);
         return root;
     }
 
+    /**
+     * Text pipeline shared by the WebSockets and prewarm (same processors as the CLI).
+     */
+    private static com.cliffmin.whisper.pipeline.ProcessingPipeline buildPipeline() {
+        return com.cliffmin.whisper.processors.DefaultProcessors.pipeline();
+    }
+
+    /**
+     * Model for a request that names none: the device profile's tier when this machine was
+     * calibrated, else the configured model, else the built-in choice by duration.
+     */
+    private String defaultModel(double durationSeconds) {
+        String calibrated = whisper.calibratedModel(durationSeconds);
+        if (calibrated != null) return calibrated;
+        if (config != null && config.getWhisperModel() != null) return config.getWhisperModel();
+        return whisper.detectModel(durationSeconds);
+    }
+
+    private LiveTranscriptionSession newLiveSession(WebSocketHttpExchange exchange, BiConsumer<Integer, String> onPartial) {
+        Map<String, List<String>> params = exchange.getRequestParameters();
+        String model = firstParam(params, "model");
+        String language = firstParam(params, "language");
+        if (model == null) {
+            model = defaultModel(0);
+        }
+        if (language == null) {
+            language = config != null && config.getLanguage() != null ? config.getLanguage() : "en";
+        }
+        WhisperService.TranscriptionOptions options = new WhisperService.TranscriptionOptions.Builder()
+                .model(model)
+                .language(language)
+                .timestamps(false)
+                .build();
+
+        return new LiveTranscriptionSession((samples, length) -> {
+            Path wav = Files.createTempFile("ptt_live_", ".wav");
+            try {
+                audio.writeWhisperWav(samples, 0, length, wav);
+                return whisper.transcribe(wav, options).getText();
+            } finally {
+                Files.deleteIfExists(wav);
+            }
+        }, liveDrainExecutor, liveTranscribeExecutor, onPartial);
+    }
+
+    private boolean cacheEnabled() {
+        return config != null && config.isCacheEnabled();
+    }
+
+    /**
+     * Cache and single-flight key for one transcription. The prompt goes in as its SHA-256, so
+     * prompts that differ never share a transcript however long they are.
+     */
+    static String cacheKey(String contentHash, String model, String language, String prompt) {
+        String key = contentHash + "|" + model + "|" + language;
+        if (prompt == null) return key;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return key + "|" + HexFormat.of().formatHex(digest.digest(prompt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String firstParam(Map<String, List<String>> params, String name) {
+        if (params == null) return null;
+        List<String> values = params.get(name);
+        if (values == null || values.isEmpty() || values.get(0).isBlank()) return null;
+        return values.get(0);
+    }
+
     private void handleHealth(HttpServerExchange exchange) {
+        exchange.getResponseSender().send(health());
+    }
+
+    private String health() {
         Map<String, Object> resp = new HashMap<>();
         resp.put("status", "ok");
-        resp.put("whisperAvailable", whisper.isAvailable());
+        // Cached: probing spawns processes, and clients poll /health before every transcription
+        CapabilityMonitor.Snapshot caps = capabilities.current();
+        resp.put("whisperAvailable", caps.whisperAvailable);
+        resp.put("modelAvailable", caps.modelAvailable);
+        resp.put("ffmpegAvailable", caps.ffmpegAvailable);
+        resp.put("capabilitiesAgeMs", caps.isProbed() ? System.currentTimeMillis() - caps.checkedAtMillis : -1);
         if (config != null) {
             resp.put("language", config.getLanguage());
             resp.put("whisperModel", config.getWhisperModel());
         }
-        exchange.getResponseSender().send(gson.toJson(resp));
+        return gson.toJson(resp);
+    }
+
+    private void handleModels(HttpServerExchange exchange) {
+        List<Map<String, Object>> list = new java.util.ArrayList<>();
+        if (models != null) {
+            for (ModelManager.ModelInfo info : models.models()) {
+                Map<String, Object> m = new HashMap<>();
+                m.put("name", info.name);
+                m.put("sizeBytes", info.sizeBytes);
+                m.put("active", info.active);
+                m.put("resident", info.resident);
+                m.put("lastLoadSeconds", info.lastLoadSeconds);
+                list.add(m);
+            }
+        }
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.getResponseSender().send(gson.toJson(Map.of("models", list)));
+    }
+
+    private void handlePrewarm(HttpServerExchange exchange) {
+        exchange.startBlocking();
+        LocalSocketServer.Reply reply;
+        try {
+            reply = prewarm(new String(exchange.getInputStream().readAllBytes()));
+        } catch (IOException e) {
+            reply = new LocalSocketServer.Reply(500, gson.toJson(Map.of("error", String.valueOf(e.getMessage()))));
+        }
+        exchange.setStatusCode(reply.status);
+        exchange.getResponseSender().send(reply.body);
+    }
+
+    /**
+     * Called at hotkey-down. Starts warming in the background and answers at once:
+     * 202 when work was started, 200 when already warm or warming.
+     * Optional body: { "model": "base.en" }
+     */
+    private LocalSocketServer.Reply prewarm(String body) {
+        Map<?,?> req = body == null || body.isBlank() ? null : gson.fromJson(body, Map.class);
+        String model;
+        if (req != null && req.get("model") instanceof String m && !m.isBlank()) {
+            model = m;
+        } else {
+            // Duration is unknown at key-down; most recordings are short
+            model = defaultModel(0);
+        }
+        Prewarmer.Status status = prewarmer.prewarm(model);
+
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("status", status.modelResident && status.pipelineWarm ? "warm" : "warming");
+        resp.put("model", model);
+        resp.put("modelResident", status.modelResident);
+        resp.put("pipelineWarm", status.pipelineWarm);
+        return new LocalSocketServer.Reply(status.started ? 202 : 200, gson.toJson(resp));
+    }
+
+    private LocalSocketServer.Reply handleSocketRequest(byte op, String body) {
+        return switch (op) {
+            case LocalSocketServer.OP_HEALTH -> new LocalSocketServer.Reply(200, health());
+            case LocalSocketServer.OP_TRANSCRIBE -> transcribe(body);
+            case LocalSocketServer.OP_PREWARM -> prewarm(body);
+            default -> new LocalSocketServer.Reply(400, "{\"error\":\"unknown op " + op + "\"}");
+        };
+    }
+
+    private void handleCaptureStart(HttpServerExchange exchange) {
+        if (capture == null) {
+            exchange.setStatusCode(503);
+            exchange.getResponseSender().send("{\"error\":\"capture not enabled\"}");
+            return;
+        }
+        try {
+            // Optional JSON body: { "path": "/abs/path.wav" }
+            String body = new String(exchange.getInputStream().readAllBytes());
+            Map<?,?> req = body.isBlank() ? null : gson.fromJson(body, Map.class);
+            Path output = (req != null && req.get("path") instanceof String p && !p.isBlank())
+                    ? Path.of(p)
+                    : defaultRecordingPath();
+            capture.startRecording(output);
+
+            Map<String, Object> resp = new HashMap<>();
+            resp.put("recording", true);
+            resp.put("path", output.toString());
+            exchange.getResponseSender().send(gson.toJson(resp));
+        } catch (IllegalStateException e) {
+            exchange.setStatusCode(409);
+            exchange.getResponseSender().send(gson.toJson(Map.of("error", e.getMessage())));
+        } catch (Exception e) {
+            exchange.setStatusCode(500);
+            exchange.getResponseSender().send(gson.toJson(Map.of("error", String.valueOf(e.getMessage()))));
+        }
+    }
+
+    private void handleCaptureStop(HttpServerExchange exchange) {
+        if (capture == null) {
+            exchange.setStatusCode(503);
+            exchange.getResponseSender().send("{\"error\":\"capture not enabled\"}");
+            return;
+        }
+        try {
+            double seconds = capture.getRecordedSeconds();
+            Path written = capture.stopRecording().get(30, TimeUnit.SECONDS);
+
+            Map<String, Object> resp = new HashMap<>();
+            resp.put("path", written.toString());
+            resp.put("duration", seconds);
+            exchange.getResponseSender().send(gson.toJson(resp));
+        } catch (IllegalStateException e) {
+            exchange.setStatusCode(409);
+            exchange.getResponseSender().send(gson.toJson(Map.of("error", e.getMessage())));
+        } catch (TimeoutException e) {
+            exchange.setStatusCode(504);
+            exchange.getResponseSender().send("{\"error\":\"recording write timed out\"}");
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            exchange.setStatusCode(500);
+            exchange.getResponseSender().send(gson.toJson(Map.of("error", String.valueOf(cause.getMessage()))));
+        }
+    }
+
+    /**
+     * Same layout as the Hammerspoon recorder: recordingsDir/<timestamp>/<timestamp>.wav
+     */
+    private Path defaultRecordingPath() {
+        String name = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
+        return recordingsRoot().resolve(name).resolve(name + ".wav");
+    }
+
+    private Path recordingsRoot() {
+        String home = System.getProperty("user.home");
+        String dir = config != null && config.getRecordingsDir() != null
+                ? config.getRecordingsDir()
+                : home + "/Documents/VoiceNotes";
+        return Path.of(dir.replaceFirst("^~", home));
     }
 
     private void handleTranscribe(HttpServerExchange exchange) {
         exchange.startBlocking();
+        LocalSocketServer.Reply reply;
+        try {
+            reply = transcribe(new String(exchange.getInputStream().readAllBytes()));
+        } catch (IOException e) {
+            reply = new LocalSocketServer.Reply(500, gson.toJson(Map.of("error", String.valueOf(e.getMessage()))));
+        }
+        exchange.setStatusCode(reply.status);
+        exchange.getResponseSender().send(reply.body);
+    }
+
+    private void handleJobSubmit(HttpServerExchange exchange) {
+        exchange.startBlocking();
+        String body;
+        try {
+            body = new String(exchange.getInputStream().readAllBytes());
+        } catch (IOException e) {
+            exchange.setStatusCode(500);
+            exchange.getResponseSender().send(gson.toJson(Map.of("error", String.valueOf(e.getMessage()))));
+            return;
+        }
+        TranscriptionJobs.Job job = jobs.submit(progress -> interactive(() -> transcribe(body, progress, false)));
+
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("id", job.id);
+        resp.put("events", "/jobs/" + job.id + "/events");
+        exchange.setStatusCode(202);
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.getResponseSender().send(gson.toJson(resp));
+    }
+
+    private void handleJobStatus(HttpServerExchange exchange) {
+        TranscriptionJobs.Job job = jobs.get(pathId(exchange));
+        if (job == null) {
+            exchange.setStatusCode(404);
+            exchange.getResponseSender().send("{\"error\":\"job not found\"}");
+            return;
+        }
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("id", job.id);
+        resp.put("state", job.state().name().toLowerCase());
+        resp.put("lastEventId", job.lastEventId());
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.getResponseSender().send(gson.toJson(resp));
+    }
+
+    /**
+     * 404 before opening an event stream for a job that does not exist (or was evicted).
+     */
+    private HttpHandler knownJob(HttpHandler next) {
+        return exchange -> {
+            if (jobs.get(pathId(exchange)) == null) {
+                exchange.setStatusCode(404);
+                exchange.getResponseSender().send("{\"error\":\"job not found\"}");
+                return;
+            }
+            next.handleRequest(exchange);
+        };
+    }
+
+    private static String pathId(HttpServerExchange exchange) {
+        PathTemplateMatch match = exchange.getAttachment(PathTemplateMatch.ATTACHMENT_KEY);
+        return match != null ? match.getParameters().get("id") : null;
+    }
+
+    /**
+     * Replays the job's events after Last-Event-ID, streams the rest, and closes after the result or error.
+     */
+    private void onJobEventsConnected(ServerSentEventConnection connection, String lastEventId) {
+        TranscriptionJobs.Job job = jobs.get(connection.getParameter("id"));
+        if (job == null) {
+            connection.shutdown();
+            return;
+        }
+        long after = 0;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                after = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException ignored) {
+                // Not one of ours; replay everything
+            }
+        }
+        Consumer<TranscriptionJobs.Event> sender = event -> {
+            connection.send(event.data, event.type, String.valueOf(event.id), null);
+            if (event.isTerminal()) connection.shutdown();
+        };
+        connection.addCloseTask(c -> job.unsubscribe(sender));
+        job.subscribe(after, sender);
+    }
+
+    private LocalSocketServer.Reply transcribe(String body) {
+        return interactive(() -> transcribe(body, null, false));
+    }
+
+    /**
+     * Marks a user-facing transcription as running, so batch workers hold off starting new files.
+     */
+    private LocalSocketServer.Reply interactive(java.util.function.Supplier<LocalSocketServer.Reply> work) {
+        interactiveTranscriptions.incrementAndGet();
+        try {
+            return work.get();
+        } finally {
+            interactiveTranscriptions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Body: { "path": "/dir" or "/dir/2026-*{@literal /}*.wav", "model", "language", "prompt", "resume": true }
+     * Streams one NDJSON line per file ({ path, text, ... } or { path, status, error }) and a final
+     * { done, total, transcribed, resumed, failed } line.
+     */
+    private void handleBatch(HttpServerExchange exchange) {
+        exchange.startBlocking();
+        Map<?,?> req;
+        List<Path> files;
+        try {
+            req = gson.fromJson(new String(exchange.getInputStream().readAllBytes()), Map.class);
+            if (req == null || !(req.get("path") instanceof String p) || p.isBlank()) {
+                exchange.setStatusCode(400);
+                exchange.getResponseSender().send("{\"error\":\"path is required\"}");
+                return;
+            }
+            files = BatchTranscriber.resolve(p);
+        } catch (Exception e) {
+            exchange.setStatusCode(400);
+            exchange.getResponseSender().send(gson.toJson(Map.of("error", String.valueOf(e.getMessage()))));
+            return;
+        }
+        String pattern = (String) req.get("path");
+        String model = req.get("model") instanceof String m && !m.isBlank() ? m : null;
+        String language = req.get("language") instanceof String l && !l.isBlank() ? l : null;
+        String prompt = req.get("prompt") instanceof String p && !p.isBlank() ? p : null;
+        boolean resume = !(req.get("resume") instanceof Boolean b) || b;
+
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/x-ndjson");
+        java.io.OutputStream out = exchange.getOutputStream();
+        Consumer<String> writeLine = line -> {
+            try {
+                out.write((line + "\n").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        };
+        try {
+            BatchTranscriber.Summary summary = batch.run(files,
+                    BatchTranscriber.checkpointKey(pattern, model, language, prompt), resume,
+                    file -> {
+                        Map<String, Object> body = new HashMap<>();
+                        body.put("path", file.toString());
+                        if (model != null) body.put("model", model);
+                        if (language != null) body.put("language", language);
+                        if (prompt != null) body.put("prompt", prompt);
+                        return transcribe(gson.toJson(body), null, true);
+                    }, writeLine);
+
+            Map<String, Object> done = new LinkedHashMap<>();
+            done.put("done", true);
+            done.put("total", summary.total);
+            done.put("transcribed", summary.transcribed);
+            done.put("resumed", summary.resumed);
+            done.put("failed", summary.failed);
+            writeLine.accept(gson.toJson(done));
+        } catch (java.io.UncheckedIOException e) {
+            // Client went away; re-posting the same batch resumes from the checkpoint
+            log.info("Batch {} abandoned by client: {}", pattern, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Batch {} failed: {}", pattern, e.getMessage());
+            writeLine.accept(gson.toJson(Map.of("error", String.valueOf(e.getMessage()))));
+        }
+    }
+
+    /**
+     * Transcription shared by the HTTP and socket transports and by jobs.
+     * Body: { "path": "/abs/path.wav", "model":"base.en", "language":"en", "prompt":"..." }
+     *
+     * @param progress Receives stages and segments for a job, or null
+     * @param background Batch work: whisper runs at background priority on a share of the cores
+     */
+    private LocalSocketServer.Reply transcribe(String body, TranscriptionJobs.Progress progress, boolean background) {
         Timer.Sample sample = Timer.start();
+        long started = System.nanoTime();
+        TranscriptionMetrics.Timings timings = new TranscriptionMetrics.Timings();
+        TransactionRecord record = new TransactionRecord(null);
+        record.transcribedBy = TransactionRecord.BY_DAEMON;
         try {
-            // For simplicity, accept a JSON body: { "path": "/abs/path.wav", "model":"base.en" }
-            String body = new String(exchange.getInputStream().readAllBytes());
             Map<?,?> req = gson.fromJson(body, Map.class);
-            String audioPathStr = (String) req.get("path");
+            String audioPathStr = req != null && req.get("path") instanceof String p ? p : null;
+            if (audioPathStr == null) {
+                return new LocalSocketServer.Reply(400, "{\"error\":\"path is required\"}");
+            }
             String model = (String) req.get("model");
+            String prompt = req.get("prompt") instanceof String p && !p.isBlank() ? p : null;
 
-            Path audioPath = Path.of(audioPathStr);
+            // Retries may reference a WAV that has since been archived to FLAC
+            Path audioPath = AudioProcessor.resolveRecording(Path.of(audioPathStr));
+            record.wav = audioPath.toAbsolutePath().toString();
             if (!Files.exists(audioPath)) {
-                exchange.setStatusCode(400);
-                exchange.getResponseSender().send("{\"error\":\"audio file not found\"}");
-                return;
+                return failure(record, 400, ErrorCode.ERR_AUDIO_NOT_FOUND, "audio file not found");
             }
 
-            // Normalize to Whisper format
-            Path normalized = Files.createTempFile("ptt_norm_", ".wav");
-            audio.normalizeForWhisper(audioPath, normalized);
-
-            // Determine language and model (request > config > auto by duration)
-            double duration = audio.getDuration(normalized);
-            String selectedModel;
-            if (model != null && !model.isBlank()) {
-                selectedModel = model;
-            } else if (config != null && config.getWhisperModel() != null) {
-                selectedModel = config.getWhisperModel();
-            } else {
-                selectedModel = whisper.detectModel(duration);
+            // Read the file once; validation, normalization, model selection and caching all use the probe
+            if (progress != null) progress.stage("probing");
+            timings.restart();
+            AudioProbe probe = audio.probe(audioPath);
+            if (!audio.validateForWhisper(probe)) {
+                return failure(record, 400, ErrorCode.ERR_WHISPER_FAILED, "audio file not valid for whisper");
             }
+            timings.lap(TranscriptionMetrics.Phase.PROBE);
 
-            String language = (req.get("language") instanceof String s && !s.isBlank())
-                    ? s
-                    : (config != null && config.getLanguage() != null ? config.getLanguage() : "en");
+            // Whisper reads 16kHz mono WAV as-is; anything else is normalized from the decoded audio
+            Path normalized = audioPath;
+            if (!probe.isWhisperReady()) {
+                if (progress != null) progress.stage("normalizing");
+                normalized = Files.createTempFile("ptt_norm_", ".wav");
+                audio.normalizeForWhisper(probe, normalized);
+                timings.lap(TranscriptionMetrics.Phase.NORMALIZE);
+            }
+            try {
+                // Determine language and model (request > calibration > config > auto by duration)
+                double duration = probe.duration >= 0 ? probe.duration : audio.getDuration(normalized);
+                String selectedModel = model != null && !model.isBlank() ? model : defaultModel(duration);
+                // Keep whichever models are actually used in the page cache
+                if (models != null) models.markActive(selectedModel);
 
-            WhisperService.TranscriptionOptions options = new WhisperService.TranscriptionOptions.Builder()
-                    .model(selectedModel)
-                    .language(language)
-                    .timestamps(true)
-                    .build();
+                String language = (req.get("language") instanceof String s && !s.isBlank())
+                        ? s
+                        : (config != null && config.getLanguage() != null ? config.getLanguage() : "en");
 
-            WhisperService.TranscriptionResult result = whisper.transcribe(normalized, options);
+                String cacheKey = cacheKey(probe.contentHash, selectedModel, language, prompt);
+                WhisperService.TranscriptionResult result = cacheEnabled() ? transcriptCache.get(cacheKey) : null;
+                boolean cached = result != null;
+                boolean coalesced = false;
+                timings.lap(TranscriptionMetrics.Phase.MODEL_SELECT);
+                if (transcriptionMetrics != null) transcriptionMetrics.audio("file", duration);
+                if (!cached) {
+                    WhisperService.TranscriptionOptions options = new WhisperService.TranscriptionOptions.Builder()
+                            .model(selectedModel)
+                            .language(language)
+                            .timestamps(true)
+                            .prompt(prompt)
+                            .threads(background ? BATCH_WHISPER_THREADS : 0)
+                            .background(background)
+                            .build();
+                    if (progress != null) progress.stage("transcribing");
+                    Path input = normalized;
+                    // An interactive request must not end up waiting on a throttled batch run
+                    String flightKey = background ? cacheKey + "|background" : cacheKey;
+                    SingleFlight.Outcome<WhisperService.TranscriptionResult> outcome = whisperFlights.run(flightKey, () -> {
+                        WhisperService.TranscriptionResult r = progress != null
+                                ? whisper.transcribe(input, options, segment -> progress.segment(segment, duration))
+                                : whisper.transcribe(input, options);
+                        if (cacheEnabled()) transcriptCache.put(cacheKey, r);
+                        return r;
+                    });
+                    result = outcome.value;
+                    coalesced = outcome.shared;
+                    if (coalesced && coalescedCounter != null) coalescedCounter.increment();
+                    timings.lap(TranscriptionMetrics.Phase.WHISPER);
+                    if (!coalesced && transcriptionMetrics != null) {
+                        transcriptionMetrics.decoded(selectedModel, duration, timings.nanos(TranscriptionMetrics.Phase.WHISPER));
+                    }
+                }
+                if ((cached || coalesced) && progress != null && result.getSegments() != null) {
+                    result.getSegments().forEach(segment -> progress.segment(segment, duration));
+                }
 
-            Map<String, Object> resp = new HashMap<>();
-            resp.put("text", result.getText());
-            resp.put("language", result.getLanguage());
-            resp.put("duration", result.getDuration());
-            resp.put("segments", result.getSegments());
-            resp.put("metadata", result.getMetadata());
+                timings.restart();
+                Map<String, Object> resp = new HashMap<>();
+                resp.put("text", result.getText());
+                resp.put("language", result.getLanguage());
+                resp.put("duration", result.getDuration());
+                resp.put("segments", result.getSegments());
+                resp.put("metadata", result.getMetadata());
+                resp.put("model", selectedModel);
+                resp.put("audioSeconds", duration);
+                // Phases so far, for the caller's transaction log
+                resp.put("timingsMs", timings.millis());
+                if (cached) resp.put("cached", true);
+                if (coalesced) resp.put("coalesced", true);
+                String json = gson.toJson(resp);
+                timings.lap(TranscriptionMetrics.Phase.SERIALIZE);
+                record.model = selectedModel;
+                record.durationSec = duration;
+                record.succeeded(result.getText() != null ? result.getText() : "");
 
-            exchange.getResponseSender().send(gson.toJson(resp));
-            Files.deleteIfExists(normalized);
-            sample.stop(transcribeTimer);
+                return new LocalSocketServer.Reply(200, json);
+            } finally {
+                if (!normalized.equals(audioPath)) Files.deleteIfExists(normalized);
+            }
         } catch (Exception e) {
-            exchange.setStatusCode(500);
-            exchange.getResponseSender().send(gson.toJson(Map.of("error", e.getMessage())));
-            sample.stop(transcribeTimer);
+            // Whisper failing may mean the binary or model went away; don't wait for the TTL to notice
+            if (e instanceof WhisperService.TranscriptionException && capabilities != null) {
+                capabilities.invalidate();
+            }
+            return failure(record, 500, e instanceof WhisperService.TranscriptionException
+                    ? ErrorCode.ERR_WHISPER_FAILED : ErrorCode.ERR_UNKNOWN, String.valueOf(e.getMessage()));
+        } finally {
+            if (transcribeTimer != null) sample.stop(transcribeTimer);
+            if (transcriptionMetrics != null) transcriptionMetrics.record(timings);
+            // Requests without a path aren't transcriptions; the append only queues the record
+            if (txLog != null && record.wav != null) {
+                record.phasesMs.putAll(timings.millis());
+                txLog.append(record.finish(System.nanoTime() - started));
+            }
         }
     }
 
+    /**
+     * An error reply carrying the CLI's error code, so a forwarding client reports what the daemon saw.
+     */
+    private LocalSocketServer.Reply failure(TransactionRecord record, int status, ErrorCode code, String message) {
+        record.failed(code, message);
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("error", message);
+        resp.put("code", code.getCode());
+        return new LocalSocketServer.Reply(status, gson.toJson(resp));
+    }
+
     public static void main(String[] args) {
         int port = 8765;
         new PTTServiceDaemon().start(port);
@@ -0,0 +1,125 @@
+package com.cliffmin.whisper.daemon;
+
+import com.cliffmin.whisper.pipeline.ProcessingPipeline;
+import com.cliffmin.whisper.service.ModelManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Warm-up work started at hotkey-down, so it overlaps with the user speaking.
+ *
+ * Two things go cold while the daemon idles: the model file drops out of the page cache,
+ * and the text processors have not been JIT-compiled yet. Each prewarm has the
+ * {@link ModelManager} reload any evicted model pages and runs the pipeline until it is
+ * compiled (once per process). Calls while a warm-up is running join it. Only models in the
+ * models directory are loaded or marked active; any other name has nothing to warm.
+ */
+public class Prewarmer {
+    private static final Logger log = LoggerFactory.getLogger(Prewarmer.class);
+
+    /** Pipeline runs over the sample text; enough for C2 to compile the hot processor paths. */
+    static final int PIPELINE_ITERATIONS = 200;
+
+    private static final String[] SAMPLE_TEXT = {
+        "um so i think we should uh move the meeting to tuesday you know because the api isnt ready",
+        "i dont know if its gonna work but lets try it and see what happens with the json parser",
+        "basically the thing is like we need to ship this by friday and then review it next week",
+    };
+
+    /**
+     * Outcome of a prewarm call.
+     */
+    public static final class Status {
+        public final boolean started;
+        public final boolean modelResident;
+        public final boolean pipelineWarm;
+
+        Status(boolean started, boolean modelResident, boolean pipelineWarm) {
+            this.started = started;
+            this.modelResident = modelResident;
+            this.pipelineWarm = pipelineWarm;
+        }
+    }
+
+    private final ModelManager models;
+    private final ProcessingPipeline pipeline;
+    private final Executor executor;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private volatile boolean pipelineWarm;
+
+    /**
+     * @param models Model page-cache manager, or null when the backend has no local model files
+     * @param executor Runs the warm-up work (should be low priority; it competes with capture)
+     */
+    public Prewarmer(ModelManager models, ProcessingPipeline pipeline, Executor executor) {
+        this.models = models;
+        this.pipeline = pipeline;
+        this.executor = executor;
+    }
+
+    /**
+     * Start warming for the given model unless a warm-up is already running. Returns immediately.
+     * When the model was last seen resident the background work only re-checks residency, and the
+     * status reports that nothing had to be started.
+     */
+    public Status prewarm(String model) {
+        boolean warm = isWarm(model);
+        CompletableFuture<Void> task = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(model, task) != null) {
+            return new Status(false, isModelResident(model), pipelineWarm);
+        }
+        executor.execute(() -> {
+            try {
+                warm(model);
+            } catch (RuntimeException e) {
+                log.warn("Prewarm for {} failed: {}", model, e.getMessage());
+            } finally {
+                inFlight.remove(model, task);
+                task.complete(null);
+            }
+        });
+        return new Status(!warm, isModelResident(model), pipelineWarm);
+    }
+
+    /**
+     * Wait for any warm-up in progress for the model (used by tests and benchmarks).
+     */
+    public void awaitWarm(String model) {
+        CompletableFuture<Void> pending = inFlight.get(model);
+        if (pending != null) pending.join();
+    }
+
+    public boolean isWarm(String model) {
+        return pipelineWarm && isModelResident(model);
+    }
+
+    // A model with no ggml file here (another backend's name, or a typo) has nothing to load
+    private boolean isModelResident(String model) {
+        return models == null || models.isResident(model) || !models.discover().contains(model);
+    }
+
+    private void warm(String model) {
+        long start = System.nanoTime();
+        if (models != null && models.discover().contains(model)) {
+            models.markActive(model);
+            try {
+                models.ensureResident(model);
+            } catch (IOException e) {
+                log.warn("Could not load model {}: {}", model, e.getMessage());
+            }
+        }
+        if (!pipelineWarm) {
+            for (int i = 0; i < PIPELINE_ITERATIONS; i++) {
+                pipeline.process(SAMPLE_TEXT[i % SAMPLE_TEXT.length]);
+            }
+            pipelineWarm = true;
+        }
+        log.debug("Prewarm for {} took {}ms", model, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,80 @@
+package com.cliffmin.whisper.daemon;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Runs at most one call per key at a time; callers that arrive while it runs wait for it and
+ * share its result or exception instead of repeating the work.
+ *
+ * Nothing is remembered after the call completes (caching is a separate concern), so a key can
+ * run again as soon as its previous call has finished.
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * The work for one key.
+     */
+    @FunctionalInterface
+    public interface Call<V> {
+        V call() throws Exception;
+    }
+
+    /**
+     * A call's value, and whether it came from another caller's call.
+     */
+    public static final class Outcome<V> {
+        public final V value;
+        public final boolean shared;
+
+        Outcome(V value, boolean shared) {
+            this.value = value;
+            this.shared = shared;
+        }
+    }
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Run {@code call} for {@code key}, or join the call already running for it.
+     *
+     * @throws Exception whatever the call threw, for the caller that ran it and every caller that joined
+     */
+    public Outcome<V> run(K key, Call<V> call) throws Exception {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return new Outcome<>(join(running), true);
+        }
+        try {
+            V value = call.call();
+            mine.complete(value);
+            return new Outcome<>(value, false);
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Keys with a call in progress.
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> running) throws Exception {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) throw ex;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.cliffmin.whisper.daemon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Text refinement for one {@code /ws} connection, off the I/O thread.
+ *
+ * Chunks are appended on the I/O thread (cheap) and the pipeline runs on a shared worker pool.
+ * At most one task per session is queued or running, which keeps a session's replies in order
+ * without a thread per connection. Chunks that arrive while a run is pending are folded into the
+ * next run over the whole buffer, so a fast sender gets fewer, fresher replies instead of a
+ * growing backlog. After each run the session re-queues behind other sessions rather than
+ * looping, so one busy client cannot hold a worker. If the pool rejects a submission, either for
+ * a new chunk or for that re-queue, the text stays buffered and {@code onRejected} tells the
+ * client, which gets it processed by sending again (an empty chunk will do).
+ */
+class StreamingTextSession {
+    private static final Logger log = LoggerFactory.getLogger(StreamingTextSession.class);
+
+    private final StringBuilder buffer = new StringBuilder();
+    private final UnaryOperator<String> process;
+    private final Executor executor;
+    private final Consumer<String> onProcessed;
+    private final LongConsumer onCoalesced;
+    private final Runnable onRejected;
+
+    // Guarded by this
+    private long received;
+    private long processedUpTo;
+    private boolean scheduled;
+
+    /**
+     * @param process Pipeline run over the whole buffer
+     * @param executor Shared, bounded worker pool
+     * @param onProcessed Receives each processed text, in order
+     * @param onCoalesced Receives the number of chunks folded into a newer run
+     */
+    StreamingTextSession(UnaryOperator<String> process, Executor executor,
+                         Consumer<String> onProcessed, LongConsumer onCoalesced) {
+        this(process, executor, onProcessed, onCoalesced, () -> { });
+    }
+
+    /**
+     * @param onRejected Called when the pool rejects a run; the buffered text waits for the next chunk
+     */
+    StreamingTextSession(UnaryOperator<String> process, Executor executor,
+                         Consumer<String> onProcessed, LongConsumer onCoalesced, Runnable onRejected) {
+        this.process = process;
+        this.executor = executor;
+        this.onProcessed = onProcessed;
+        this.onCoalesced = onCoalesced;
+        this.onRejected = onRejected;
+    }
+
+    /**
+     * Accept a chunk from the client. Never blocks; safe to call from an I/O thread.
+     *
+     * @return false if the worker pool is saturated (after {@code onRejected}); the chunk is kept and
+     *         processed with the next one
+     */
+    boolean onChunk(String chunk) {
+        synchronized (this) {
+            buffer.append(chunk);
+            received++;
+            if (scheduled) return true;
+            scheduled = true;
+        }
+        return submit();
+    }
+
+    private boolean submit() {
+        try {
+            executor.execute(this::run);
+            return true;
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                scheduled = false;
+            }
+            onRejected.run();
+            return false;
+        }
+    }
+
+    private void run() {
+        String text;
+        long upTo;
+        synchronized (this) {
+            text = buffer.toString();
+            upTo = received;
+        }
+        try {
+            onProcessed.accept(process.apply(text));
+        } catch (RuntimeException e) {
+            log.warn("Streaming refinement failed: {}", e.getMessage());
+        }
+        boolean again;
+        synchronized (this) {
+            long skipped = upTo - processedUpTo - 1;
+            processedUpTo = upTo;
+            if (skipped > 0) onCoalesced.accept(skipped);
+            again = received > upTo;
+            if (!again) scheduled = false;
+        }
+        // A rejected re-queue leaves the newer chunks buffered; onRejected asks the client to resend
+        if (again) submit();
+    }
+}
@@ -1,60 +1,136 @@
 package com.cliffmin.whisper.daemon;
 
-import io.undertow.Undertow;
-import io.undertow.server.handlers.PathHandler;
-import io.undertow.server.handlers.BlockingHandler;
-import io.undertow.server.handlers.resource.ClassPathResourceManager;
-import io.undertow.server.HttpServerExchange;
-import io.undertow.util.Headers;
 import io.undertow.websockets.core.WebSocketChannel;
 import io.undertow.websockets.core.WebSockets;
 import io.undertow.websockets.spi.WebSocketHttpExchange;
 import io.undertow.websockets.WebSocketConnectionCallback;
 import io.undertow.websockets.core.AbstractReceiveListener;
 import io.undertow.websockets.core.BufferedTextMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
-import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Minimal WebSocket endpoint for streaming partial text refinements.
- * URL: ws://127.0.0.1:8765/ws
- * Protocol: client sends text chunks; server echoes refined text (stub) for now.
+ * URL: ws://127.0.0.1:8765/ws[?protocol=2]
+ * Protocol: client sends text chunks; server replies {"processed": ...} for the accumulated text,
+ * or {"error":"busy"} when the worker pool is saturated: the text is kept, and the next message
+ * (an empty one will do) gets a reply covering it.
+ * With protocol=2 replies are deltas against the previous reply plus periodic snapshots ({@link TextDeltaEncoder}).
+ * The pipeline runs on a bounded worker pool, never on the I/O thread ({@link StreamingTextSession}).
  */
 import com.cliffmin.whisper.pipeline.ProcessingPipeline;
 
 public class StreamingWebSocket {
-    private final Map<WebSocketChannel, StringBuilder> buffers = new ConcurrentHashMap<>();
+    private final Map<WebSocketChannel, StreamingTextSession> sessions = new ConcurrentHashMap<>();
     private final ProcessingPipeline pipeline;
+    private final Executor executor;
     private final java.util.function.Consumer<Void> onMessageHook;
+    // Sessions with a pipeline run submitted but not yet started
+    private final AtomicInteger queued = new AtomicInteger();
+    private volatile Counter coalescedCounter;
+    private volatile Counter rejectedCounter;
+    private volatile Timer processTimer;
 
+    /**
+     * Runs the pipeline on the calling (I/O) thread; prefer the executor variant.
+     */
     public StreamingWebSocket(ProcessingPipeline pipeline, java.util.function.Consumer<Void> onMessageHook) {
+        this(pipeline, Runnable::run, onMessageHook);
+    }
+
+    /**
+     * @param executor Bounded worker pool for pipeline runs (rejects when full)
+     */
+    public StreamingWebSocket(ProcessingPipeline pipeline, Executor executor, java.util.function.Consumer<Void> onMessageHook) {
         this.pipeline = pipeline;
+        this.executor = executor;
         this.onMessageHook = onMessageHook;
     }
 
+    /**
+     * Publish queue depth, coalescing, rejection and processing-time metrics.
+     */
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ptt_ws_queue_depth", queued, AtomicInteger::get).register(registry);
+        Gauge.builder("ptt_ws_sessions", sessions, Map::size).register(registry);
+        this.coalescedCounter = Counter.builder("ptt_ws_coalesced_total").register(registry);
+        this.rejectedCounter = Counter.builder("ptt_ws_rejected_total").register(registry);
+        this.processTimer = Timer.builder("ptt_ws_process_seconds").publishPercentiles(0.5, 0.95, 0.99).register(registry);
+    }
+
     public WebSocketConnectionCallback handler() {
         return (WebSocketHttpExchange exchange, WebSocketChannel channel) -> {
-            buffers.put(channel, new StringBuilder());
-            channel.addCloseTask(ch -> buffers.remove(ch));
+            // Only touched from the session's runs, which never overlap
+            TextDeltaEncoder deltas = isProtocol2(exchange.getRequestParameters())
+                    ? new TextDeltaEncoder(TextDeltaEncoder.DEFAULT_SNAPSHOT_INTERVAL) : null;
+            StreamingTextSession session = new StreamingTextSession(this::process, this::execute, processed -> {
+                // Return JSON with processed text
+                String json = deltas != null
+                        ? deltas.encode(processed)
+                        : "{\"processed\":" + com.google.gson.internal.bind.TypeAdapters.STRING.toJsonTree(processed).toString() + "}";
+                if (channel.isOpen()) WebSockets.sendText(json, channel, null);
+                if (onMessageHook != null) onMessageHook.accept(null);
+            }, skipped -> {
+                Counter c = coalescedCounter;
+                if (c != null) c.increment(skipped);
+            }, () -> {
+                Counter c = rejectedCounter;
+                if (c != null) c.increment();
+                if (channel.isOpen()) WebSockets.sendText("{\"error\":\"busy\"}", channel, null);
+            });
+            sessions.put(channel, session);
+            channel.addCloseTask(ch -> sessions.remove(ch));
             channel.getReceiveSetter().set(new AbstractReceiveListener() {
                 @Override
                 protected void onFullTextMessage(WebSocketChannel channel, BufferedTextMessage message) {
-                    String chunk = message.getData();
-                    StringBuilder buf = buffers.getOrDefault(channel, new StringBuilder());
-                    buf.append(chunk);
-                    buffers.put(channel, buf);
-
-                    // Process accumulated buffer through pipeline
-                    String processed = pipeline.process(buf.toString());
-                    // Return JSON with processed text
-                    String json = "{\"processed\":" + com.google.gson.internal.bind.TypeAdapters.STRING.toJsonTree(processed).toString() + "}";
-                    WebSockets.sendText(json, channel, null);
-                    if (onMessageHook != null) onMessageHook.accept(null);
+                    // A rejection is reported through the session's onRejected
+                    session.onChunk(message.getData());
                 }
             });
             channel.resumeReceives();
         };
     }
+
+    /**
+     * Number of connected clients.
+     */
+    public int activeSessions() {
+        return sessions.size();
+    }
+
+    private static boolean isProtocol2(Map<String, List<String>> params) {
+        List<String> values = params != null ? params.get("protocol") : null;
+        return values != null && !values.isEmpty() && String.valueOf(TextDeltaEncoder.VERSION).equals(values.get(0));
+    }
+
+    private String process(String text) {
+        long start = System.nanoTime();
+        String processed = pipeline.process(text);
+        Timer t = processTimer;
+        if (t != null) t.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return processed;
+    }
+
+    private void execute(Runnable task) {
+        queued.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                queued.decrementAndGet();
+                task.run();
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,96 @@
+package com.cliffmin.whisper.daemon;
+
+import com.google.gson.Gson;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Protocol 2 for {@code /ws} ({@code ?protocol=2}): replies describe how the processed text changed
+ * instead of repeating it.
+ *
+ * Every reply carries {@code "v":2} and a {@code seq} that increases by one. A delta
+ * {@code {"at": o, "del": d, "ins": "..."}} replaces {@code d} characters at offset {@code o} of the
+ * text from reply {@code seq - 1}; offsets count UTF-16 code units, like JavaScript strings. A
+ * snapshot {@code {"snapshot": "..."}} carries the whole text and is sent first, every
+ * {@code snapshotInterval} replies so a client that missed a message can resynchronize, and whenever
+ * nothing of the previous text survives. One instance per connection; not thread-safe.
+ */
+class TextDeltaEncoder {
+    static final int VERSION = 2;
+    static final int DEFAULT_SNAPSHOT_INTERVAL = 50;
+
+    /**
+     * The span that differs between two texts: {@code deleted} chars at {@code offset} become {@code inserted}.
+     */
+    static final class Delta {
+        final int offset;
+        final int deleted;
+        final String inserted;
+
+        Delta(int offset, int deleted, String inserted) {
+            this.offset = offset;
+            this.deleted = deleted;
+            this.inserted = inserted;
+        }
+
+        /**
+         * Smallest single replacement turning {@code from} into {@code to} (common prefix and suffix
+         * removed), never splitting a surrogate pair.
+         */
+        static Delta between(String from, String to) {
+            int max = Math.min(from.length(), to.length());
+            int prefix = 0;
+            while (prefix < max && from.charAt(prefix) == to.charAt(prefix)) prefix++;
+            if (prefix > 0 && Character.isHighSurrogate(from.charAt(prefix - 1))) prefix--;
+
+            int suffix = 0;
+            while (suffix < max - prefix
+                    && from.charAt(from.length() - 1 - suffix) == to.charAt(to.length() - 1 - suffix)) {
+                suffix++;
+            }
+            if (suffix > 0 && Character.isLowSurrogate(from.charAt(from.length() - suffix))) suffix--;
+
+            return new Delta(prefix, from.length() - prefix - suffix, to.substring(prefix, to.length() - suffix));
+        }
+
+        String applyTo(String text) {
+            return text.substring(0, offset) + inserted + text.substring(offset + deleted);
+        }
+    }
+
+    private final Gson gson = new Gson();
+    private final int snapshotInterval;
+    private String last;
+    private long seq;
+
+    TextDeltaEncoder(int snapshotInterval) {
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+    }
+
+    /**
+     * Encode the next processed text as a protocol 2 message.
+     */
+    String encode(String text) {
+        seq++;
+        Map<String, Object> msg = message();
+        Delta delta = last == null || (seq - 1) % snapshotInterval == 0 ? null : Delta.between(last, text);
+        if (delta == null || delta.inserted.length() == text.length()) {
+            // First, periodic, or a rewrite that kept nothing: the whole text is no larger than a delta
+            msg.put("snapshot", text);
+        } else {
+            msg.put("at", delta.offset);
+            msg.put("del", delta.deleted);
+            msg.put("ins", delta.inserted);
+        }
+        last = text;
+        return gson.toJson(msg);
+    }
+
+    private Map<String, Object> message() {
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("v", VERSION);
+        msg.put("seq", seq);
+        return msg;
+    }
+}
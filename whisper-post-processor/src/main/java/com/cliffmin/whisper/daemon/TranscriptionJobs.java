@@ -0,0 +1,240 @@
+package com.cliffmin.whisper.daemon;
+
+import com.cliffmin.whisper.service.WhisperService;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Background transcription jobs behind {@code POST /jobs}.
+ *
+ * A job runs on the jobs executor rather than an HTTP worker and records everything it reports
+ * as numbered events: progress stages, segments as whisper decodes them, then exactly one
+ * {@code result} or {@code error}. Subscribers first receive the events after the last id they
+ * saw, then live ones, so a client that connects late or reconnects with Last-Event-ID misses
+ * nothing. Finished jobs are retained (bounded, oldest dropped first) so their events stay readable.
+ */
+public class TranscriptionJobs {
+    private static final Logger log = LoggerFactory.getLogger(TranscriptionJobs.class);
+
+    public static final int DEFAULT_MAX_RETAINED = 64;
+
+    public static final String EVENT_PROGRESS = "progress";
+    public static final String EVENT_SEGMENT = "segment";
+    public static final String EVENT_RESULT = "result";
+    public static final String EVENT_ERROR = "error";
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED }
+
+    /**
+     * Receives a job's progress while it runs.
+     */
+    public interface Progress {
+        void stage(String stage);
+
+        /**
+         * @param duration Audio duration in seconds, used to report percent complete (0 if unknown)
+         */
+        void segment(WhisperService.Segment segment, double duration);
+    }
+
+    /**
+     * The work behind a job. A 200 reply becomes the {@code result} event; anything else an {@code error}.
+     */
+    public interface Task {
+        LocalSocketServer.Reply run(Progress progress);
+    }
+
+    /**
+     * One server-sent event. Ids start at 1 and increase within a job.
+     */
+    public static final class Event {
+        public final long id;
+        public final String type;
+        public final String data;
+
+        Event(long id, String type, String data) {
+            this.id = id;
+            this.type = type;
+            this.data = data;
+        }
+
+        public boolean isTerminal() {
+            return EVENT_RESULT.equals(type) || EVENT_ERROR.equals(type);
+        }
+    }
+
+    /**
+     * A submitted job and its event history.
+     */
+    public static final class Job {
+        public final String id;
+        private final List<Event> events = new ArrayList<>();
+        private final List<Consumer<Event>> subscribers = new ArrayList<>();
+        private State state = State.QUEUED;
+
+        Job(String id) {
+            this.id = id;
+        }
+
+        public synchronized State state() {
+            return state;
+        }
+
+        public synchronized boolean isFinished() {
+            return state == State.DONE || state == State.FAILED;
+        }
+
+        public synchronized long lastEventId() {
+            return events.size();
+        }
+
+        public synchronized List<Event> events() {
+            return List.copyOf(events);
+        }
+
+        /**
+         * Deliver the events after {@code lastEventId}, then new events until the job finishes.
+         * Delivery happens under the job's lock, so subscribers see events in order and must not block.
+         */
+        public synchronized void subscribe(long lastEventId, Consumer<Event> subscriber) {
+            for (int i = (int) Math.max(0, Math.min(lastEventId, events.size())); i < events.size(); i++) {
+                subscriber.accept(events.get(i));
+            }
+            if (!isFinished()) subscribers.add(subscriber);
+        }
+
+        public synchronized void unsubscribe(Consumer<Event> subscriber) {
+            subscribers.remove(subscriber);
+        }
+
+        synchronized void running() {
+            state = State.RUNNING;
+        }
+
+        synchronized void emit(String type, String data) {
+            Event event = new Event(events.size() + 1, type, data);
+            events.add(event);
+            if (event.isTerminal()) {
+                state = EVENT_RESULT.equals(type) ? State.DONE : State.FAILED;
+            }
+            for (Iterator<Consumer<Event>> it = subscribers.iterator(); it.hasNext(); ) {
+                try {
+                    it.next().accept(event);
+                } catch (RuntimeException e) {
+                    // A broken connection must not stop the job or the other subscribers
+                    log.debug("Dropping job {} subscriber: {}", id, e.getMessage());
+                    it.remove();
+                }
+            }
+            if (event.isTerminal()) subscribers.clear();
+        }
+    }
+
+    private final Gson gson = new Gson();
+    private final Executor executor;
+    private final int maxRetained;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    /**
+     * @param executor Runs the jobs (whisper already uses every core, so one thread is enough)
+     * @param maxRetained Jobs kept for status and event replay; finished ones are dropped first
+     */
+    public TranscriptionJobs(Executor executor, int maxRetained) {
+        this.executor = executor;
+        this.maxRetained = maxRetained;
+    }
+
+    /**
+     * Queue a job and return it at once.
+     */
+    public Job submit(Task task) {
+        Job job = new Job(UUID.randomUUID().toString());
+        job.emit(EVENT_PROGRESS, gson.toJson(Map.of("stage", "queued")));
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            evict();
+        }
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            job.emit(EVENT_ERROR, gson.toJson(Map.of("status", 503, "error", "job queue unavailable")));
+        }
+        return job;
+    }
+
+    public Job get(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    /**
+     * Retained jobs in {@code state}; finished ones only until they are evicted.
+     */
+    public int count(State state) {
+        synchronized (jobs) {
+            int n = 0;
+            for (Job job : jobs.values()) {
+                if (job.state() == state) n++;
+            }
+            return n;
+        }
+    }
+
+    private void evict() {
+        Iterator<Job> it = jobs.values().iterator();
+        while (jobs.size() > maxRetained && it.hasNext()) {
+            if (it.next().isFinished()) it.remove();
+        }
+    }
+
+    private void run(Job job, Task task) {
+        job.running();
+        Progress progress = new Progress() {
+            @Override
+            public void stage(String stage) {
+                job.emit(EVENT_PROGRESS, gson.toJson(Map.of("stage", stage)));
+            }
+
+            @Override
+            public void segment(WhisperService.Segment segment, double duration) {
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("id", segment.getId());
+                data.put("start", segment.getStart());
+                data.put("end", segment.getEnd());
+                data.put("text", segment.getText());
+                if (duration > 0) {
+                    data.put("percent", Math.min(100, (int) Math.round(100 * segment.getEnd() / duration)));
+                }
+                job.emit(EVENT_SEGMENT, gson.toJson(data));
+            }
+        };
+        LocalSocketServer.Reply reply;
+        try {
+            reply = task.run(progress);
+        } catch (RuntimeException e) {
+            log.warn("Job {} failed: {}", job.id, e.getMessage());
+            reply = new LocalSocketServer.Reply(500, gson.toJson(Map.of("error", String.valueOf(e.getMessage()))));
+        }
+        if (reply.status == 200) {
+            job.emit(EVENT_RESULT, reply.body);
+        } else {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("status", reply.status);
+            Map<?,?> body = gson.fromJson(reply.body, Map.class);
+            error.put("error", body != null ? body.get("error") : null);
+            job.emit(EVENT_ERROR, gson.toJson(error));
+        }
+    }
+}
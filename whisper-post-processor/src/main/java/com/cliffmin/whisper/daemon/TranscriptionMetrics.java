@@ -0,0 +1,157 @@
+package com.cliffmin.whisper.daemon;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where a transcription's time goes, so a latency regression can be pinned on the audio
+ * handling, the decoder or the Java processing rather than on the end-to-end timer alone.
+ *
+ * Meters:
+ *  - ptt_transcribe_phase_seconds{phase}: one timer per {@link Phase}
+ *  - ptt_transcribe_rtf{model}: whisper time / audio time for runs this request performed
+ *    (cache hits and coalesced requests did not decode, so they are left out)
+ *  - ptt_audio_duration_seconds{source}: length of the audio transcribed, "file" or "live"
+ */
+public class TranscriptionMetrics {
+
+    /**
+     * Transcription phases, in the order a request passes through them.
+     */
+    public enum Phase {
+        PROBE("probe"),
+        NORMALIZE("normalize"),
+        MODEL_SELECT("model_select"),
+        WHISPER("whisper"),
+        POST_PROCESS("post_process"),
+        SERIALIZE("serialize");
+
+        public final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Per-request stopwatch: each {@link #lap(Phase)} bills the time since the previous lap (or
+     * construction) to a phase. Phases that never lap did not run and are not recorded.
+     * Confined to the request's thread.
+     */
+    public static final class Timings {
+        private final long[] nanos = new long[Phase.values().length];
+        private long mark = System.nanoTime();
+
+        public Timings() {
+            Arrays.fill(nanos, -1);
+        }
+
+        /**
+         * Bill the time since the last mark to {@code phase} and start the next one.
+         */
+        public void lap(Phase phase) {
+            long now = System.nanoTime();
+            int i = phase.ordinal();
+            nanos[i] = Math.max(0, nanos[i]) + (now - mark);
+            mark = now;
+        }
+
+        /**
+         * Start the next phase now, leaving the time since the last mark unbilled.
+         */
+        public void restart() {
+            mark = System.nanoTime();
+        }
+
+        public boolean ran(Phase phase) {
+            return nanos[phase.ordinal()] >= 0;
+        }
+
+        /**
+         * Time billed to {@code phase}, or -1 when it did not run.
+         */
+        public long nanos(Phase phase) {
+            return nanos[phase.ordinal()];
+        }
+
+        /**
+         * Milliseconds per phase that ran, to 0.1 ms, keyed by {@link Phase#tag}.
+         */
+        public Map<String, Double> millis() {
+            Map<String, Double> millis = new LinkedHashMap<>();
+            for (Phase phase : Phase.values()) {
+                if (ran(phase)) millis.put(phase.tag, Math.round(nanos(phase) / 1e5) / 10.0);
+            }
+            return millis;
+        }
+    }
+
+    // Buckets for the Prometheus histograms, so quantiles can be aggregated across scrapes
+    private static final double[] RTF_BUCKETS = {0.05, 0.1, 0.25, 0.5, 1.0, 2.0};
+    private static final double[] AUDIO_SECONDS_BUCKETS = {5, 10, 30, 60, 120, 300, 600};
+
+    private final MeterRegistry registry;
+    private final Map<Phase, Timer> phases = new EnumMap<>(Phase.class);
+    private final Map<String, DistributionSummary> rtf = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> audioSeconds = new ConcurrentHashMap<>();
+
+    public TranscriptionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, Timer.builder("ptt_transcribe_phase_seconds")
+                    .tag("phase", phase.tag)
+                    .publishPercentiles(0.5, 0.95)
+                    .serviceLevelObjectives(Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofMillis(500),
+                            Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(30))
+                    .register(registry));
+        }
+    }
+
+    public void record(Phase phase, long nanos) {
+        phases.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record every phase that ran.
+     */
+    public void record(Timings timings) {
+        for (Phase phase : Phase.values()) {
+            if (timings.ran(phase)) record(phase, timings.nanos(phase));
+        }
+    }
+
+    /**
+     * A whisper run of {@code audioSeconds} of audio that took {@code whisperNanos}.
+     */
+    public void decoded(String model, double audioSeconds, long whisperNanos) {
+        if (audioSeconds <= 0) return;
+        rtf.computeIfAbsent(model == null ? "unknown" : model, m -> DistributionSummary.builder("ptt_transcribe_rtf")
+                        .tag("model", m)
+                        .publishPercentiles(0.5, 0.95)
+                        .serviceLevelObjectives(RTF_BUCKETS)
+                        .register(registry))
+                .record(whisperNanos / 1e9 / audioSeconds);
+    }
+
+    /**
+     * Audio accepted for transcription from {@code source} ("file" or "live").
+     */
+    public void audio(String source, double seconds) {
+        if (seconds <= 0) return;
+        audioSeconds.computeIfAbsent(source, s -> DistributionSummary.builder("ptt_audio_duration_seconds")
+                        .tag("source", s)
+                        .baseUnit("seconds")
+                        .serviceLevelObjectives(AUDIO_SECONDS_BUCKETS)
+                        .register(registry))
+                .record(seconds);
+    }
+}
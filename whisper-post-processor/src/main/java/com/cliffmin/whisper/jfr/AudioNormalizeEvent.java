@@ -0,0 +1,34 @@
+package com.cliffmin.whisper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One conversion of a recording to Whisper's 16kHz mono 16-bit WAV by
+ * {@link com.cliffmin.whisper.audio.AudioProcessor}.
+ */
+@Name("com.cliffmin.whisper.AudioNormalize")
+@Label("Audio Normalize")
+@Category({"VoxCore", "Audio"})
+@Description("A recording converted to Whisper's input format")
+@StackTrace(false)
+public class AudioNormalizeEvent extends jdk.jfr.Event {
+
+    @Label("Input")
+    public String input;
+
+    @Label("Input Size")
+    @DataAmount
+    public long inputBytes;
+
+    @Label("Method")
+    @Description("java (javax.sound) or ffmpeg")
+    public String method;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,34 @@
+package com.cliffmin.whisper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One text processor run by {@link com.cliffmin.whisper.pipeline.ProcessingPipeline}.
+ *
+ * Stages usually take microseconds, so by default only those of 1 ms or more are recorded;
+ * {@code jfr configure} or a {@code .jfc} file can lower the threshold to see every run.
+ */
+@Name("com.cliffmin.whisper.PipelineStage")
+@Label("Pipeline Stage")
+@Category({"VoxCore", "Post-processing"})
+@Description("A text processor applied to a transcript")
+@StackTrace(false)
+@Threshold("1 ms")
+public class PipelineStageEvent extends jdk.jfr.Event {
+
+    @Label("Processor")
+    public String processor;
+
+    @Label("Input Length")
+    @Description("Characters before the processor ran")
+    public int inputLength;
+
+    @Label("Output Length")
+    @Description("Characters after the processor ran")
+    public int outputLength;
+}
@@ -0,0 +1,38 @@
+package com.cliffmin.whisper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One whisper.cpp process, from start to exit, run by {@code WhisperCppAdapter} or
+ * {@code WhisperInvoker}.
+ */
+@Name("com.cliffmin.whisper.WhisperInvocation")
+@Label("Whisper Invocation")
+@Category({"VoxCore", "Transcription"})
+@Description("A whisper.cpp process transcribing one audio file")
+@StackTrace(false)
+public class WhisperInvocationEvent extends jdk.jfr.Event {
+
+    @Label("Model")
+    public String model;
+
+    @Label("Threads")
+    @Description("--threads passed to whisper.cpp, 0 for its default")
+    public int threads;
+
+    @Label("Beam Size")
+    @Description("--beam-size passed to whisper.cpp, 0 for its default")
+    public int beamSize;
+
+    @Label("Audio Seconds")
+    @Description("Length of the audio, 0 if unknown")
+    public double audioSeconds;
+
+    @Label("Exit Code")
+    @Description("Process exit code, -1 if it did not start or timed out")
+    public int exitCode;
+}
@@ -1,5 +1,6 @@
 package com.cliffmin.whisper.pipeline;
 
+import com.cliffmin.whisper.jfr.PipelineStageEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,9 +43,18 @@ public class ProcessingPipeline {
         for (TextProcessor processor : sortedProcessors) {
             String before = result;
             long startTime = System.nanoTime();
+            PipelineStageEvent event = new PipelineStageEvent();
+            event.begin();
             
             result = processor.process(result);
             
+            event.end();
+            if (event.shouldCommit()) {
+                event.processor = processor.getName();
+                event.inputLength = before.length();
+                event.outputLength = result != null ? result.length() : 0;
+                event.commit();
+            }
             if (debugMode) {
                 long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
                 logger.debug("{} took {}ms", processor.getName(), elapsedMs);
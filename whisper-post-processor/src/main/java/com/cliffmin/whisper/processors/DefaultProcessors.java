@@ -0,0 +1,40 @@
+package com.cliffmin.whisper.processors;
+
+import com.cliffmin.whisper.pipeline.ProcessingPipeline;
+import com.cliffmin.whisper.pipeline.TextProcessor;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The daemon's post-processing chain: every text processor, none disabled. The scalability and
+ * allocation tests and the JMH benchmark measure this same list.
+ */
+public final class DefaultProcessors {
+
+    private DefaultProcessors() {
+    }
+
+    /**
+     * New instances of every processor, in priority order.
+     */
+    public static List<TextProcessor> create() {
+        return Stream.<TextProcessor>of(
+                        new ReflowProcessor(), new DisfluencyProcessor(), new ContractionNormalizer(),
+                        new ConjunctionFollowerSplitter(), new MergedWordProcessor(), new SentenceBoundaryProcessor(),
+                        new CapitalizationProcessor(), new PunctuationProcessor(), new DictionaryProcessor(),
+                        new PunctuationNormalizer())
+                .sorted(Comparator.comparingInt(TextProcessor::getPriority))
+                .toList();
+    }
+
+    /**
+     * A pipeline running {@link #create()}.
+     */
+    public static ProcessingPipeline pipeline() {
+        ProcessingPipeline pipeline = new ProcessingPipeline();
+        create().forEach(pipeline::addProcessor);
+        return pipeline;
+    }
+}
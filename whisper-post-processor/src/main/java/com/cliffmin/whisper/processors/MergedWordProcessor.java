@@ -330,7 +330,8 @@ public class MergedWordProcessor implements TextProcessor {
     
     private String fixApostropheContractions(String text) {
         // Fix patterns like "that'slike" -> "that's like"
-        Pattern pattern = Pattern.compile("(\\w+)'s(like|just|been|going|the|all|really|very)\\b", 
+        // (\b anchors the word start: without it every position of a long word is retried, quadratic)
+        Pattern pattern = Pattern.compile("\\b(\\w+)'s(like|just|been|going|the|all|really|very)\\b", 
             Pattern.CASE_INSENSITIVE);
         
         Matcher matcher = pattern.matcher(text);
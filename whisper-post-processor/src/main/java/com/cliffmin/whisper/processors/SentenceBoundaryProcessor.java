@@ -13,8 +13,8 @@ public class SentenceBoundaryProcessor implements TextProcessor {
     // If there's already a space, don't add a period
     private static final Pattern MERGED_SENTENCE_BOUNDARY = Pattern.compile("([a-z])([A-Z])");
     
-    // Pattern to detect very long sentences that could be split
-    private static final Pattern LONG_SENTENCE = Pattern.compile("[^.!?]{200,}");
+    // Text required on each side of a conjunction before a run-on sentence is split there
+    private static final int MIN_SPLIT_PART = 40;
     
     @Override
     public String process(String input) {
@@ -132,23 +132,35 @@ public class SentenceBoundaryProcessor implements TextProcessor {
     
     private String splitAtConjunctions(String sentence) {
         // Split at ", and" or ", so" if both parts are substantial
-        String result = sentence;
-        
-        // Pattern for ", and" with substantial text on both sides
-        Pattern andPattern = Pattern.compile("(.{40,}), and (.{40,})");
-        Matcher andMatcher = andPattern.matcher(result);
-        if (andMatcher.find()) {
-            result = andMatcher.replaceFirst("$1. And $2");
-        }
-        
-        // Pattern for ", so" with substantial text on both sides
-        Pattern soPattern = Pattern.compile("(.{40,}), so (.{40,})");
-        Matcher soMatcher = soPattern.matcher(result);
-        if (soMatcher.find()) {
-            result = soMatcher.replaceFirst("$1. So $2");
+        String result = splitAt(sentence, ", and ", ". And ");
+        return splitAt(result, ", so ", ". So ");
+    }
+    
+    /**
+     * Replace the last {@code separator} that has at least {@link #MIN_SPLIT_PART} chars before and
+     * after it on its line, in the first line that has one. Same result as {@code (.{40,}), and (.{40,})}
+     * with {@code replaceFirst}, but in one pass: the regex retries from every position and is
+     * quadratic on long unpunctuated dictation.
+     */
+    private static String splitAt(String text, String separator, String replacement) {
+        int lineStart = 0;
+        while (lineStart <= text.length()) {
+            int lineEnd = lineStart;
+            while (lineEnd < text.length() && !isLineTerminator(text.charAt(lineEnd))) lineEnd++;
+            int min = lineStart + MIN_SPLIT_PART;
+            for (int at = lineEnd - MIN_SPLIT_PART - separator.length(); at >= min; at--) {
+                if (text.startsWith(separator, at)) {
+                    return text.substring(0, at) + replacement + text.substring(at + separator.length());
+                }
+            }
+            lineStart = lineEnd + 1;
         }
-        
-        return result;
+        return text;
+    }
+    
+    // The characters regex '.' does not match
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
     
     private String ensureSentenceEndings(String text) {
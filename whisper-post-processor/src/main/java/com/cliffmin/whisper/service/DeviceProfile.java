@@ -0,0 +1,173 @@
+package com.cliffmin.whisper.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Whisper settings measured on this machine by {@code voxcore calibrate}.
+ *
+ * {@link WhisperCppAdapter} uses it for the defaults a request does not set: thread count, beam
+ * size per model, and the model for a given recording length ({@link #modelFor}). Stored as JSON
+ * at {@code ~/.config/ptt-dictation/device-profile.json} ({@code PTT_DEVICE_PROFILE} overrides).
+ */
+public class DeviceProfile {
+    private static final Logger log = LoggerFactory.getLogger(DeviceProfile.class);
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    /**
+     * Measured cost and accuracy of one model at its chosen beam size.
+     */
+    public static class ModelProfile {
+        @SerializedName("model")
+        public String model;
+
+        @SerializedName("beam_size")
+        public int beamSize;
+
+        // Decode time ≈ overhead + rtf × audio length
+        @SerializedName("rtf")
+        public double rtf;
+
+        @SerializedName("overhead_ms")
+        public double overheadMs;
+
+        @SerializedName("accuracy_pct")
+        public int accuracyPct;
+
+        public ModelProfile() {
+        }
+
+        public ModelProfile(String model, int beamSize, double rtf, double overheadMs, int accuracyPct) {
+            this.model = model;
+            this.beamSize = beamSize;
+            this.rtf = rtf;
+            this.overheadMs = overheadMs;
+            this.accuracyPct = accuracyPct;
+        }
+
+        public double predictMillis(double audioSeconds) {
+            return overheadMs + rtf * audioSeconds * 1000;
+        }
+    }
+
+    /**
+     * Recordings up to {@code maxSeconds} use {@code model}; the last tier has no limit (0).
+     */
+    public static class Tier {
+        @SerializedName("max_seconds")
+        public double maxSeconds;
+
+        @SerializedName("model")
+        public String model;
+
+        public Tier() {
+        }
+
+        public Tier(double maxSeconds, String model) {
+            this.maxSeconds = maxSeconds;
+            this.model = model;
+        }
+    }
+
+    @SerializedName("created")
+    private String created;
+
+    @SerializedName("processors")
+    private int processors;
+
+    @SerializedName("threads")
+    private int threads;
+
+    @SerializedName("models")
+    private List<ModelProfile> models = new ArrayList<>();
+
+    @SerializedName("tiers")
+    private List<Tier> tiers = new ArrayList<>();
+
+    public DeviceProfile() {
+    }
+
+    public DeviceProfile(String created, int processors, int threads, List<ModelProfile> models, List<Tier> tiers) {
+        this.created = created;
+        this.processors = processors;
+        this.threads = threads;
+        this.models = new ArrayList<>(models);
+        this.tiers = new ArrayList<>(tiers);
+    }
+
+    public static Path defaultPath() {
+        String override = System.getenv("PTT_DEVICE_PROFILE");
+        if (override != null && !override.isBlank()) return Paths.get(override);
+        return Paths.get(System.getProperty("user.home"), ".config", "ptt-dictation", "device-profile.json");
+    }
+
+    /**
+     * The profile at {@link #defaultPath()}, or null if there is none or it cannot be read.
+     */
+    public static DeviceProfile loadDefault() {
+        Path path = defaultPath();
+        if (!Files.isRegularFile(path)) return null;
+        try {
+            DeviceProfile profile = load(path);
+            log.info("Loaded device profile from {} (threads={}, {} models)", path, profile.threads, profile.models.size());
+            return profile;
+        } catch (IOException | JsonParseException e) {
+            log.warn("Ignoring device profile {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    public static DeviceProfile load(Path path) throws IOException {
+        DeviceProfile profile = gson.fromJson(Files.readString(path), DeviceProfile.class);
+        if (profile == null) throw new IOException("empty device profile");
+        if (profile.models == null) profile.models = new ArrayList<>();
+        if (profile.tiers == null) profile.tiers = new ArrayList<>();
+        return profile;
+    }
+
+    public void save(Path path) throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        Files.writeString(path, toJson() + "\n");
+    }
+
+    public String toJson() {
+        return gson.toJson(this);
+    }
+
+    /**
+     * Model for a recording of this length, or null if the profile has no tiers.
+     */
+    public String modelFor(double durationSeconds) {
+        for (Tier tier : tiers) {
+            if (tier.maxSeconds <= 0 || durationSeconds < tier.maxSeconds) return tier.model;
+        }
+        return tiers.isEmpty() ? null : tiers.get(tiers.size() - 1).model;
+    }
+
+    /**
+     * Calibrated beam size for {@code model}, or 0 if it was not calibrated.
+     */
+    public int beamSizeFor(String model) {
+        for (ModelProfile m : models) {
+            if (m.model.equals(model)) return m.beamSize;
+        }
+        return 0;
+    }
+
+    public String getCreated() { return created; }
+    public int getProcessors() { return processors; }
+    public int getThreads() { return threads; }
+    public List<ModelProfile> getModels() { return models; }
+    public List<Tier> getTiers() { return tiers; }
+}
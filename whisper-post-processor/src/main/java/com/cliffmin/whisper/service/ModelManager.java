@@ -0,0 +1,242 @@
+package com.cliffmin.whisper.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps whisper.cpp model files in the OS page cache.
+ *
+ * whisper.cpp reads the ggml file on every run, so a model evicted during idle (or after a
+ * reboot) makes the next transcription pay for hundreds of MB of disk reads. The manager maps
+ * the active models read-only, loads them with {@link MappedByteBuffer#load()}, and keeps the
+ * mappings so residency can be re-checked cheaply ({@link MappedByteBuffer#isLoaded()}) and
+ * restored after eviction. Java cannot mlock, so this keeps pages warm rather than pinned.
+ */
+public class ModelManager {
+    private static final Logger log = LoggerFactory.getLogger(ModelManager.class);
+
+    private static final String PREFIX = "ggml-";
+    private static final String SUFFIX = ".bin";
+    // A single MappedByteBuffer is limited to 2GB; larger models are mapped in chunks
+    private static final long CHUNK_BYTES = 1L << 30;
+
+    /**
+     * Residency state of one model file.
+     */
+    public static final class ModelInfo {
+        public final String name;
+        public final Path path;
+        public final long sizeBytes;
+        public final boolean active;
+        public final boolean resident;
+        public final double lastLoadSeconds;   // -1 if never loaded
+        public final long loadedAtMillis;      // 0 if never loaded
+
+        ModelInfo(String name, Path path, long sizeBytes, boolean active, boolean resident,
+                  double lastLoadSeconds, long loadedAtMillis) {
+            this.name = name;
+            this.path = path;
+            this.sizeBytes = sizeBytes;
+            this.active = active;
+            this.resident = resident;
+            this.lastLoadSeconds = lastLoadSeconds;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+
+    private static final class Mapping {
+        final long size;
+        final long lastModified;
+        final List<MappedByteBuffer> chunks;
+        volatile boolean resident;
+        volatile double lastLoadSeconds = -1;
+        volatile long loadedAtMillis;
+        Timer loadTimer;
+
+        Mapping(long size, long lastModified, List<MappedByteBuffer> chunks) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.chunks = chunks;
+        }
+
+        boolean isLoaded() {
+            for (MappedByteBuffer chunk : chunks) {
+                if (!chunk.isLoaded()) return false;
+            }
+            return true;
+        }
+    }
+
+    private final Path modelsPath;
+    private final Map<String, Mapping> mappings = new ConcurrentHashMap<>();
+    private final Set<String> active = ConcurrentHashMap.newKeySet();
+    private volatile MeterRegistry registry;
+
+    public ModelManager(Path modelsPath) {
+        this.modelsPath = modelsPath;
+    }
+
+    /**
+     * Publish per-model residency, size and load-time metrics.
+     */
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        mappings.forEach(this::register);
+    }
+
+    /**
+     * Model names with a ggml file in the models directory, sorted.
+     */
+    public List<String> discover() {
+        if (!Files.isDirectory(modelsPath)) return List.of();
+        try (Stream<Path> files = Files.list(modelsPath)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(PREFIX) && n.endsWith(SUFFIX))
+                    .map(n -> n.substring(PREFIX.length(), n.length() - SUFFIX.length()))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Cannot list models in {}: {}", modelsPath, e.getMessage());
+            return List.of();
+        }
+    }
+
+    public Path modelPath(String model) {
+        return modelsPath.resolve(PREFIX + model + SUFFIX);
+    }
+
+    /**
+     * Include a model in {@link #refreshActive()}. Cheap; called on every transcription.
+     */
+    public void markActive(String model) {
+        active.add(model);
+    }
+
+    public Set<String> activeModels() {
+        return Set.copyOf(active);
+    }
+
+    /**
+     * Last known residency; does not touch the file.
+     */
+    public boolean isResident(String model) {
+        Mapping m = mappings.get(model);
+        return m != null && m.resident;
+    }
+
+    /**
+     * Map the model if needed and load any pages that are not in memory.
+     *
+     * @return true if pages had to be loaded, false if the model was already resident or has no file
+     */
+    public boolean ensureResident(String model) throws IOException {
+        Path file = modelPath(model);
+        if (!Files.isRegularFile(file)) {
+            mappings.remove(model);
+            return false;
+        }
+        Mapping m = mapping(model, file);
+        if (m.isLoaded()) {
+            m.resident = true;
+            return false;
+        }
+        m.resident = false;
+        long start = System.nanoTime();
+        for (MappedByteBuffer chunk : m.chunks) {
+            chunk.load();
+        }
+        long elapsed = System.nanoTime() - start;
+        m.lastLoadSeconds = elapsed / 1e9;
+        m.loadedAtMillis = System.currentTimeMillis();
+        m.resident = true;
+        if (m.loadTimer != null) m.loadTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Loaded model {} ({} MB) in {}ms", model, m.size >> 20, elapsed / 1_000_000);
+        return true;
+    }
+
+    /**
+     * Re-check every active model and reload any that were evicted. Run periodically off the request path.
+     *
+     * @return Number of models that had to be loaded
+     */
+    public int refreshActive() {
+        int loaded = 0;
+        for (String model : active) {
+            try {
+                if (ensureResident(model)) loaded++;
+            } catch (IOException e) {
+                log.warn("Cannot load model {}: {}", model, e.getMessage());
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * State of every model in the models directory, from cached residency.
+     */
+    public List<ModelInfo> models() {
+        List<ModelInfo> infos = new ArrayList<>();
+        for (String name : discover()) {
+            Mapping m = mappings.get(name);
+            Path path = modelPath(name);
+            long size = m != null ? m.size : sizeOf(path);
+            infos.add(new ModelInfo(name, path, size, active.contains(name), m != null && m.resident,
+                    m != null ? m.lastLoadSeconds : -1, m != null ? m.loadedAtMillis : 0));
+        }
+        return infos;
+    }
+
+    private Mapping mapping(String model, Path file) throws IOException {
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        Mapping current = mappings.get(model);
+        if (current != null && current.size == size && current.lastModified == lastModified) {
+            return current;
+        }
+        // New or replaced file (e.g. a re-downloaded model): map it afresh
+        List<MappedByteBuffer> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long pos = 0; pos < size; pos += CHUNK_BYTES) {
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(CHUNK_BYTES, size - pos)));
+            }
+        }
+        Mapping m = new Mapping(size, lastModified, chunks);
+        mappings.put(model, m);
+        register(model, m);
+        return m;
+    }
+
+    private void register(String model, Mapping m) {
+        MeterRegistry r = registry;
+        if (r == null || m.loadTimer != null) return;
+        m.loadTimer = Timer.builder("ptt_model_load_seconds").tag("model", model).register(r);
+        Gauge.builder("ptt_model_resident", this, mgr -> mgr.isResident(model) ? 1 : 0).tag("model", model).register(r);
+        Gauge.builder("ptt_model_bytes", mappings, all -> all.containsKey(model) ? all.get(model).size : 0)
+                .tag("model", model).register(r);
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
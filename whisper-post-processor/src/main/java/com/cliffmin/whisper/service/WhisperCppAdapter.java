@@ -1,5 +1,6 @@
 package com.cliffmin.whisper.service;
 
+import com.cliffmin.whisper.jfr.WhisperInvocationEvent;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
@@ -16,6 +17,9 @@ import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -24,20 +28,37 @@ import java.util.stream.Collectors;
  */
 public class WhisperCppAdapter implements WhisperService {
     private static final Logger log = LoggerFactory.getLogger(WhisperCppAdapter.class);
+    // Segment lines whisper.cpp prints to stdout as it decodes: [00:00:01.000 --> 00:00:03.500]  text
+    private static final Pattern SEGMENT_LINE = Pattern.compile(
+        "^\\[(\\d+):(\\d{2}):(\\d{2}\\.\\d{3}) --> (\\d+):(\\d{2}):(\\d{2}\\.\\d{3})\\]\\s*(.*)$");
+    
+    // whisper-cli's own default
+    static final int DEFAULT_BEAM_SIZE = 5;
+    // Prefix for background runs: taskpolicy -b puts macOS on efficiency cores and throttles I/O, nice elsewhere
+    static final List<String> BACKGROUND_LAUNCHER = backgroundLauncher();
     
     private final String whisperBinary;
     private final Path modelsPath;
     private final int timeout;
+    private final DeviceProfile profile;
     private final Gson gson = new Gson();
     
     public WhisperCppAdapter() {
-        this(findWhisperBinary(), getDefaultModelsPath(), 300);
+        this(findWhisperBinary(), getDefaultModelsPath(), 300, DeviceProfile.loadDefault());
     }
     
     public WhisperCppAdapter(String whisperBinary, Path modelsPath, int timeoutSeconds) {
+        this(whisperBinary, modelsPath, timeoutSeconds, null);
+    }
+    
+    /**
+     * @param profile Calibrated defaults for threads, beam size and model selection, or null
+     */
+    public WhisperCppAdapter(String whisperBinary, Path modelsPath, int timeoutSeconds, DeviceProfile profile) {
         this.whisperBinary = whisperBinary;
         this.modelsPath = modelsPath;
         this.timeout = timeoutSeconds;
+        this.profile = profile;
         
         if (!isAvailable()) {
             log.warn("whisper.cpp not available at: {}", whisperBinary);
@@ -47,23 +68,38 @@ public class WhisperCppAdapter implements WhisperService {
     @Override
     public TranscriptionResult transcribe(Path audioPath, TranscriptionOptions options) 
             throws TranscriptionException {
+        return transcribe(audioPath, options, null);
+    }
+    
+    @Override
+    public TranscriptionResult transcribe(Path audioPath, TranscriptionOptions options, Consumer<Segment> onSegment)
+            throws TranscriptionException {
         
         if (!validateAudioFile(audioPath)) {
             throw new TranscriptionException("Invalid audio file: " + audioPath);
         }
         
-        List<String> command = buildCommand(audioPath, options);
-        log.debug("Executing: {}", String.join(" ", command));
-        
+        WhisperInvocationEvent event = new WhisperInvocationEvent();
+        event.begin();
+        int exitCode = -1;
+        TranscriptionResult result = null;
+        Path outputDir = null;
         try {
+            // Whisper writes its JSON to a per-run directory, never next to the input: concurrent runs on
+            // the same recording (different model or prompt) must not share or delete each other's output
+            outputDir = Files.createTempDirectory("whisper_out_");
+            Path outputBase = outputDir.resolve("transcript");
+            List<String> command = buildCommand(audioPath, options, outputBase);
+            log.debug("Executing: {}", String.join(" ", command));
+            
             ProcessBuilder pb = new ProcessBuilder(command);
             pb.redirectErrorStream(false);
             
             Process process = pb.start();
             
             // Capture output
-            String jsonOutput = captureOutput(process.getInputStream());
-            String errors = captureOutput(process.getErrorStream());
+            String jsonOutput = captureOutput(process.getInputStream(), onSegment);
+            String errors = captureOutput(process.getErrorStream(), null);
             
             boolean completed = process.waitFor(timeout, TimeUnit.SECONDS);
             
@@ -72,18 +108,30 @@ public class WhisperCppAdapter implements WhisperService {
                 throw new TranscriptionException("Transcription timed out after " + timeout + " seconds");
             }
             
-            int exitCode = process.exitValue();
+            exitCode = process.exitValue();
             if (exitCode != 0) {
                 throw new TranscriptionException("Whisper.cpp failed with exit code " + exitCode + ": " + errors);
             }
             
-            return parseJsonOutput(jsonOutput, audioPath);
+            result = parseJsonOutput(jsonOutput, Paths.get(outputBase + ".json"));
+            return result;
             
         } catch (IOException e) {
             throw new TranscriptionException("Failed to execute whisper.cpp", e);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new TranscriptionException("Transcription interrupted", e);
+        } finally {
+            deleteOutput(outputDir);
+            event.end();
+            if (event.shouldCommit()) {
+                event.model = options.getModel();
+                event.threads = threadsFor(options);
+                event.beamSize = beamSizeFor(options);
+                event.audioSeconds = result != null ? result.getDuration() : 0;
+                event.exitCode = exitCode;
+                event.commit();
+            }
         }
     }
     
@@ -98,8 +146,19 @@ public class WhisperCppAdapter implements WhisperService {
         });
     }
     
+    @Override
+    public String calibratedModel(double durationSeconds) {
+        return profile != null ? profile.modelFor(durationSeconds) : null;
+    }
+    
     @Override
     public String detectModel(double durationSeconds) {
+        // Calibrated tiers for this machine, if any
+        String calibrated = calibratedModel(durationSeconds);
+        if (calibrated != null) {
+            return calibrated;
+        }
+        
         // Model selection based on duration and quality needs
         if (durationSeconds < 10) {
             return "tiny.en";  // Fast for short clips
@@ -154,19 +213,47 @@ public class WhisperCppAdapter implements WhisperService {
         }
     }
     
+    @Override
+    public Path getModelsPath() {
+        return modelsPath;
+    }
+    
+    @Override
+    public Path modelFile(String model) {
+        return modelsPath.resolve("ggml-" + model + ".bin");
+    }
+    
+    @Override
+    public boolean hasModel(String model) {
+        return Files.isRegularFile(modelFile(model));
+    }
+    
+    public DeviceProfile getProfile() {
+        return profile;
+    }
+    
     @Override
     public String getImplementationName() {
         return "whisper.cpp";
     }
     
-    private List<String> buildCommand(Path audioPath, TranscriptionOptions options) {
+    List<String> buildCommand(Path audioPath, TranscriptionOptions options) {
+        return buildCommand(audioPath, options, null);
+    }
+    
+    /**
+     * @param outputBase Where whisper writes its output files (without extension), or null for next to the input
+     */
+    List<String> buildCommand(Path audioPath, TranscriptionOptions options, Path outputBase) {
         List<String> command = new ArrayList<>();
+        if (options.isBackground()) {
+            command.addAll(BACKGROUND_LAUNCHER);
+        }
         command.add(whisperBinary);
         
         // Model selection
-        Path modelPath = modelsPath.resolve("ggml-" + options.getModel() + ".bin");
         command.add("--model");
-        command.add(modelPath.toString());
+        command.add(modelFile(options.getModel()).toString());
         
         // Language
         command.add("--language");
@@ -174,45 +261,103 @@ public class WhisperCppAdapter implements WhisperService {
         
         // Output format
         command.add("--output-json");
+        if (outputBase != null) {
+            command.add("--output-file");
+            command.add(outputBase.toString());
+        }
         
         // Performance options
         command.add("--threads");
-        command.add(String.valueOf(Runtime.getRuntime().availableProcessors()));
+        command.add(String.valueOf(threadsFor(options)));
         
         // Beam search
         command.add("--beam-size");
-        command.add(String.valueOf(options.getBeamSize()));
+        command.add(String.valueOf(beamSizeFor(options)));
         
         // No timestamps reduces overhead if not needed
         if (!options.hasTimestamps()) {
             command.add("--no-timestamps");
         }
         
+        // Vocabulary hints
+        if (options.getPrompt() != null && !options.getPrompt().isEmpty()) {
+            command.add("--prompt");
+            command.add(options.getPrompt());
+        }
+        
         // Input file must be last
         command.add(audioPath.toString());
         
         return command;
     }
     
-    private String captureOutput(java.io.InputStream stream) throws IOException {
+    // The request's, else calibrated, else one thread per core
+    private int threadsFor(TranscriptionOptions options) {
+        int threads = options.getThreads();
+        if (threads <= 0 && profile != null) threads = profile.getThreads();
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+    
+    private int beamSizeFor(TranscriptionOptions options) {
+        int beamSize = options.getBeamSize();
+        if (beamSize <= 0 && profile != null) beamSize = profile.beamSizeFor(options.getModel());
+        return beamSize > 0 ? beamSize : DEFAULT_BEAM_SIZE;
+    }
+    
+    private String captureOutput(java.io.InputStream stream, Consumer<Segment> onSegment) throws IOException {
         StringBuilder output = new StringBuilder();
+        int segmentId = 0;
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 output.append(line).append("\n");
+                if (onSegment != null) {
+                    Segment segment = parseSegmentLine(line, segmentId);
+                    if (segment != null) {
+                        segmentId++;
+                        onSegment.accept(segment);
+                    }
+                }
             }
         }
         return output.toString();
     }
     
-    private TranscriptionResult parseJsonOutput(String jsonOutput, Path audioPath) 
+    /**
+     * Parse a segment line from whisper.cpp's progressive stdout output.
+     * 
+     * @return The segment, or null if the line is not a timestamped segment
+     */
+    static Segment parseSegmentLine(String line, int id) {
+        Matcher m = SEGMENT_LINE.matcher(line);
+        if (!m.matches()) {
+            return null;
+        }
+        double start = Integer.parseInt(m.group(1)) * 3600 + Integer.parseInt(m.group(2)) * 60
+            + Double.parseDouble(m.group(3));
+        double end = Integer.parseInt(m.group(4)) * 3600 + Integer.parseInt(m.group(5)) * 60
+            + Double.parseDouble(m.group(6));
+        return new Segment(id, start, end, m.group(7).trim(), 1.0);
+    }
+    
+    private static void deleteOutput(Path outputDir) {
+        if (outputDir == null) return;
+        try (var files = Files.list(outputDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(outputDir);
+        } catch (IOException e) {
+            log.warn("Failed to remove whisper output {}: {}", outputDir, e.getMessage());
+        }
+    }
+    
+    private TranscriptionResult parseJsonOutput(String jsonOutput, Path jsonFile) 
             throws TranscriptionException {
         try {
-            // Find the JSON output file (whisper.cpp writes to audioPath + ".json")
-            Path jsonFile = Paths.get(audioPath.toString() + ".json");
+            // The JSON output file (--output-file + ".json"); removed with its directory by the caller
             if (Files.exists(jsonFile)) {
                 jsonOutput = Files.readString(jsonFile);
-                Files.deleteIfExists(jsonFile); // Clean up
             }
             
             JsonObject root = JsonParser.parseString(jsonOutput).getAsJsonObject();
@@ -283,7 +428,20 @@ public class WhisperCppAdapter implements WhisperService {
         }
     }
     
-    private static String findWhisperBinary() {
+    private static List<String> backgroundLauncher() {
+        if (System.getProperty("os.name", "").toLowerCase().contains("mac")
+                && Files.isExecutable(Paths.get("/usr/sbin/taskpolicy"))) {
+            return List.of("/usr/sbin/taskpolicy", "-b");
+        }
+        for (String nice : new String[] {"/usr/bin/nice", "/bin/nice"}) {
+            if (Files.isExecutable(Paths.get(nice))) {
+                return List.of(nice, "-n", "19");
+            }
+        }
+        return List.of();
+    }
+    
+    public static String findWhisperBinary() {
         // Common locations for whisper.cpp on macOS
         String[] paths = {
             "/usr/local/bin/whisper-cpp",
@@ -302,7 +460,7 @@ public class WhisperCppAdapter implements WhisperService {
         return "whisper-cpp";
     }
     
-    private static Path getDefaultModelsPath() {
+    public static Path getDefaultModelsPath() {
         // Common model locations
         String home = System.getenv("HOME");
         Path[] paths = {
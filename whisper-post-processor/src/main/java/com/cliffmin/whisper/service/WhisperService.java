@@ -4,6 +4,7 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Interface for Whisper transcription services.
@@ -70,9 +71,12 @@ public interface WhisperService {
         private String language = "en";
         private boolean timestamps = true;
         private String outputFormat = "json";
-        private int beamSize = 5;
+        private int beamSize = 0;       // 0: implementation default
+        private int threads = 0;        // 0: implementation default
         private double temperatureIncrement = 0.2;
         private boolean noSpeechThreshold = true;
+        private String prompt;
+        private boolean background = false;  // bulk work: run below interactive transcriptions
         
         // Builder pattern for easy configuration
         public static class Builder {
@@ -103,6 +107,25 @@ public interface WhisperService {
                 return this;
             }
             
+            public Builder threads(int threads) {
+                options.threads = threads;
+                return this;
+            }
+            
+            public Builder prompt(String prompt) {
+                options.prompt = prompt;
+                return this;
+            }
+            
+            /**
+             * Run at background CPU priority where the implementation supports it, so bulk
+             * re-transcription does not slow down interactive requests.
+             */
+            public Builder background(boolean background) {
+                options.background = background;
+                return this;
+            }
+            
             public TranscriptionOptions build() {
                 return options;
             }
@@ -114,8 +137,11 @@ public interface WhisperService {
         public boolean hasTimestamps() { return timestamps; }
         public String getOutputFormat() { return outputFormat; }
         public int getBeamSize() { return beamSize; }
+        public int getThreads() { return threads; }
         public double getTemperatureIncrement() { return temperatureIncrement; }
         public boolean hasNoSpeechThreshold() { return noSpeechThreshold; }
+        public String getPrompt() { return prompt; }
+        public boolean isBackground() { return background; }
     }
     
     /**
@@ -129,6 +155,25 @@ public interface WhisperService {
     TranscriptionResult transcribe(Path audioPath, TranscriptionOptions options) 
         throws TranscriptionException;
     
+    /**
+     * Transcribe an audio file synchronously, reporting segments as they are decoded.
+     * The default reports every segment once transcription has finished.
+     * 
+     * @param audioPath Path to the audio file
+     * @param options Transcription options
+     * @param onSegment Called with each segment, in order
+     * @return Transcription result
+     * @throws TranscriptionException if transcription fails
+     */
+    default TranscriptionResult transcribe(Path audioPath, TranscriptionOptions options, Consumer<Segment> onSegment)
+        throws TranscriptionException {
+        TranscriptionResult result = transcribe(audioPath, options);
+        if (result != null && result.getSegments() != null) {
+            result.getSegments().forEach(onSegment);
+        }
+        return result;
+    }
+    
     /**
      * Transcribe an audio file asynchronously.
      * 
@@ -146,6 +191,16 @@ public interface WhisperService {
      */
     String detectModel(double durationSeconds);
     
+    /**
+     * The model this machine's calibration picks for the duration, ahead of any configured default.
+     * 
+     * @param durationSeconds Audio duration in seconds
+     * @return Calibrated model name, or null when the service has no calibration
+     */
+    default String calibratedModel(double durationSeconds) {
+        return null;
+    }
+    
     /**
      * Validate if an audio file is suitable for transcription.
      * 
@@ -161,6 +216,35 @@ public interface WhisperService {
      */
     boolean isAvailable();
     
+    /**
+     * Check whether the files for a model are installed.
+     * 
+     * @param model Model name (e.g., "base.en")
+     * @return true if the model can be loaded; implementations without local models return true
+     */
+    default boolean hasModel(String model) {
+        return true;
+    }
+    
+    /**
+     * Locate the file backing a model, for page-cache warming.
+     * 
+     * @param model Model name (e.g., "base.en")
+     * @return Model file, or null if the implementation does not load models from local files
+     */
+    default Path modelFile(String model) {
+        return null;
+    }
+    
+    /**
+     * Directory holding the implementation's model files.
+     * 
+     * @return Models directory, or null if models are not local files
+     */
+    default Path getModelsPath() {
+        return null;
+    }
+    
     /**
      * Get the name of this Whisper implementation.
      * 
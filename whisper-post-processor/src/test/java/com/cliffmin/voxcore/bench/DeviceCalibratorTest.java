@@ -0,0 +1,114 @@
+package com.cliffmin.voxcore.bench;
+
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.service.DeviceProfile;
+import com.cliffmin.whisper.service.WhisperCppAdapter;
+import com.cliffmin.whisper.testing.FakeWhisperCli;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DeviceCalibrator's sweeps against the fake whisper-cli, and its tier and fit arithmetic.
+ */
+class DeviceCalibratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should measure every installed model and prefer the most accurate within budget")
+    void testCalibrate() throws Exception {
+        Path golden = Files.createDirectories(tempDir.resolve("golden"));
+        Path shortDir = Files.createDirectories(golden.resolve("short"));
+        Path longDir = Files.createDirectories(golden.resolve("long"));
+        writeWav(shortDir.resolve("a.wav"), 1.0, 220);
+        Files.writeString(shortDir.resolve("a.txt"), "please move the standup to ten tomorrow morning\n");
+        writeWav(shortDir.resolve("b.wav"), 1.0, 330);
+        Files.writeString(shortDir.resolve("b.txt"), "not part of the short set\n");
+        writeWav(longDir.resolve("c.wav"), 3.0, 440);
+        Files.writeString(longDir.resolve("c.txt"), "the parser release slips a week because the tokenizer "
+                + "still drops apostrophes and the tests for contractions are failing on every branch\n");
+
+        Path binary = FakeWhisperCli.install(tempDir.resolve("bin"), Map.of(
+                FakeWhisperCli.ENV_TRANSCRIPTS, golden.toString(),
+                FakeWhisperCli.ENV_WORD_ERROR_RATE, "0.3"));
+        Path models = FakeWhisperCli.createModels(tempDir.resolve("models"), "tiny.en", "small.en");
+        GoldenBenchmark benchmark = new GoldenBenchmark(new WhisperCppAdapter(binary.toString(), models, 30),
+                new AudioProcessor(), String::trim, null);
+        List<String> lines = new ArrayList<>();
+        DeviceCalibrator calibrator = new DeviceCalibrator(benchmark, 1e9, 1, 1, lines::add);
+
+        List<Path> fixtures = DeviceCalibrator.shortSet(GoldenBenchmark.fixtures(golden), 1);
+        DeviceProfile profile = calibrator.calibrate(fixtures, List.of("tiny.en", "small.en"), 2);
+
+        assertEquals(2, fixtures.size());
+        assertEquals(2, profile.getThreads());
+        assertEquals(List.of("tiny.en", "small.en"), profile.getModels().stream().map(m -> m.model).toList());
+        // The fake's accuracy does not depend on beam size, so greedy wins everywhere
+        assertEquals(1, profile.beamSizeFor("tiny.en"));
+        assertEquals(1, profile.beamSizeFor("small.en"));
+        DeviceProfile.ModelProfile tiny = profile.getModels().get(0);
+        DeviceProfile.ModelProfile small = profile.getModels().get(1);
+        assertTrue(small.accuracyPct > tiny.accuracyPct, small.accuracyPct + " vs " + tiny.accuracyPct);
+        assertTrue(small.rtf > tiny.rtf, small.rtf + " vs " + tiny.rtf);
+        assertEquals(1, profile.getTiers().size(), "unlimited budget: one model for every length");
+        assertEquals("small.en", profile.modelFor(5));
+        assertEquals(1 + 2 * 2, lines.size(), "one thread count, two beam sizes per model");
+    }
+
+    @Test
+    @DisplayName("Should give short recordings the accurate model only while it fits the latency budget")
+    void testTiers() {
+        DeviceCalibrator calibrator = new DeviceCalibrator(null, 2000, 0.1, 1, line -> { });
+        List<DeviceProfile.ModelProfile> profiles = List.of(
+                new DeviceProfile.ModelProfile("tiny.en", 1, 0.02, 200, 80),
+                new DeviceProfile.ModelProfile("base.en", 1, 0.05, 300, 88),
+                new DeviceProfile.ModelProfile("small.en", 1, 0.12, 500, 94));
+
+        List<DeviceProfile.Tier> tiers = calibrator.tiers(profiles);
+
+        // 10s: small 1700ms fits 2000ms; 30s: small 4100ms > 3000ms, base 1800ms fits;
+        // 300s and beyond: base 15.3s fits 30s
+        assertEquals(List.of("small.en", "base.en"), tiers.stream().map(t -> t.model).toList());
+        assertEquals(10.0, tiers.get(0).maxSeconds);
+        assertEquals(0.0, tiers.get(1).maxSeconds, "last tier is open");
+    }
+
+    @Test
+    @DisplayName("Should fall back to the fastest model when none fits")
+    void testTiersNothingFits() {
+        DeviceCalibrator calibrator = new DeviceCalibrator(null, 10, 0.001, 1, line -> { });
+        List<DeviceProfile.Tier> tiers = calibrator.tiers(List.of(
+                new DeviceProfile.ModelProfile("base.en", 1, 0.05, 300, 88),
+                new DeviceProfile.ModelProfile("tiny.en", 1, 0.02, 200, 80)));
+
+        assertEquals(1, tiers.size());
+        assertEquals("tiny.en", tiers.get(0).model);
+    }
+
+    @Test
+    @DisplayName("Should list powers of two up to the core count")
+    void testThreadCandidates() {
+        assertEquals(List.of(1), DeviceCalibrator.threadCandidates(1));
+        assertEquals(List.of(2, 4, 6), DeviceCalibrator.threadCandidates(6));
+        assertEquals(List.of(2, 4, 8), DeviceCalibrator.threadCandidates(8));
+    }
+
+    private static void writeWav(Path path, double seconds, double hz) throws IOException {
+        short[] samples = new short[(int) (16000 * seconds)];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (6000 * Math.sin(2 * Math.PI * hz * i / 16000.0));
+        }
+        new AudioProcessor().writeWhisperWav(samples, 0, samples.length, path);
+    }
+}
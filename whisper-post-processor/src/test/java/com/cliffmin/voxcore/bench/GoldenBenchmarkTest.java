@@ -0,0 +1,156 @@
+package com.cliffmin.voxcore.bench;
+
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.service.WhisperCppAdapter;
+import com.cliffmin.whisper.testing.FakeWhisperCli;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GoldenBenchmark and BenchmarkBaseline against the fake whisper-cli.
+ */
+class GoldenBenchmarkTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path golden;
+    private GoldenBenchmark benchmark;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        golden = Files.createDirectories(tempDir.resolve("golden"));
+        Path shortDir = Files.createDirectories(golden.resolve("short"));
+        writeWav(shortDir.resolve("deploy.wav"), 1.5, 220);
+        Files.writeString(shortDir.resolve("deploy.txt"), "Deploy the parser on Friday.\n");
+        writeWav(shortDir.resolve("review.wav"), 2.0, 330);
+        Files.writeString(shortDir.resolve("review.txt"), "Review the notes before the meeting.\n");
+        writeWav(shortDir.resolve("untranscribed.wav"), 1.0, 440);
+
+        Path binary = FakeWhisperCli.install(tempDir.resolve("bin"),
+                Map.of(FakeWhisperCli.ENV_TRANSCRIPTS, shortDir.toString()));
+        Path models = FakeWhisperCli.createModels(tempDir.resolve("models"), "base.en");
+        benchmark = new GoldenBenchmark(new WhisperCppAdapter(binary.toString(), models, 30),
+                new AudioProcessor(), String::trim, null);
+    }
+
+    @Test
+    @DisplayName("Should find only fixtures with a transcript")
+    void testFixtures() throws Exception {
+        List<Path> fixtures = GoldenBenchmark.fixtures(golden);
+
+        assertEquals(List.of("deploy.wav", "review.wav"),
+                fixtures.stream().map(p -> p.getFileName().toString()).toList());
+    }
+
+    @Test
+    @DisplayName("Should time each stage and score the fake's exact transcripts at 100%")
+    void testRun() throws Exception {
+        GoldenBenchmark.ModelResult result = benchmark.run(GoldenBenchmark.fixtures(golden), "base.en");
+
+        assertEquals(2, result.fixtures.size());
+        assertEquals(0, result.errors());
+        assertEquals(100, result.avgAccuracyPct());
+        assertEquals(2, result.exactMatches());
+        assertEquals(3.5, result.audioSeconds(), 0.01);
+        assertTrue(result.realTimeFactor() > 0);
+        for (GoldenBenchmark.FixtureResult f : result.fixtures) {
+            assertEquals("short", f.category);
+            assertTrue(f.probeMs > 0 && f.whisperMs > 0, f.name);
+            assertEquals(0.0, f.normalizeMs, "fixtures are already 16 kHz mono");
+        }
+    }
+
+    @Test
+    @DisplayName("Should record a failing model as an error, not abort the run")
+    void testMissingModel() throws Exception {
+        GoldenBenchmark.ModelResult result = benchmark.run(GoldenBenchmark.fixtures(golden), "large-v3");
+
+        assertEquals(2, result.errors());
+        assertEquals(0, result.avgAccuracyPct());
+    }
+
+    @Test
+    @DisplayName("Should score word accuracy like benchmark_cli.sh")
+    void testWordAccuracy() {
+        assertEquals(100, GoldenBenchmark.wordAccuracy("Hello, world!", "hello world"));
+        assertEquals(66, GoldenBenchmark.wordAccuracy("one two three", "one two four"));
+        assertEquals(0, GoldenBenchmark.wordAccuracy("one two three", "two three"), "words compared by position");
+        assertEquals(100, GoldenBenchmark.wordAccuracy("it's  fine", "its fine"));
+        assertEquals(0, GoldenBenchmark.wordAccuracy("", "anything"));
+    }
+
+    @Test
+    @DisplayName("Should write the benchmark_cli.sh fields plus per-model detail")
+    void testBaselineJson() throws Exception {
+        GoldenBenchmark.ModelResult result = benchmark.run(GoldenBenchmark.fixtures(golden), "base.en");
+        Path out = tempDir.resolve("baselines/bench.json");
+
+        BenchmarkBaseline.write(BenchmarkBaseline.toJson("0.7.0", golden.toString(), List.of(result), "test"), out);
+        JsonObject json = BenchmarkBaseline.read(out);
+
+        for (String field : List.of("version", "timestamp", "golden_dir", "total_tests", "exact_matches",
+                "exact_match_pct", "avg_accuracy_pct", "avg_time_ms", "total_time_ms", "notes")) {
+            assertTrue(json.has(field), field);
+        }
+        assertEquals(2, json.get("total_tests").getAsInt());
+        JsonObject model = json.getAsJsonObject("models").getAsJsonObject("base.en");
+        assertTrue(model.getAsJsonObject("stages_ms").get("whisper").getAsDouble() > 0);
+        assertEquals(2, model.getAsJsonArray("fixtures").size());
+    }
+
+    @Test
+    @DisplayName("Should flag slowdowns and accuracy drops beyond the thresholds")
+    void testCompare() {
+        JsonObject baseline = baseline("base.en", 1000, 90);
+
+        assertEquals(List.of(), BenchmarkBaseline.compare(baseline, baseline("base.en", 1150, 90), 20, 1));
+        assertEquals(1, BenchmarkBaseline.compare(baseline, baseline("base.en", 1300, 90), 20, 1).size());
+        assertEquals(1, BenchmarkBaseline.compare(baseline, baseline("base.en", 1000, 88), 20, 1).size());
+        assertEquals(List.of(), BenchmarkBaseline.compare(baseline, baseline("small.en", 5000, 50), 20, 1),
+                "different models are not compared");
+    }
+
+    @Test
+    @DisplayName("Should compare against a benchmark_cli.sh baseline by its top-level fields")
+    void testCompareLegacyBaseline() {
+        JsonObject legacy = new JsonObject();
+        legacy.addProperty("avg_time_ms", 1083);
+        legacy.addProperty("avg_accuracy_pct", 59);
+
+        assertEquals(List.of(), BenchmarkBaseline.compare(legacy, baseline("base.en", 900, 60), 20, 1));
+        assertEquals(1, BenchmarkBaseline.compare(legacy, baseline("base.en", 900, 50), 20, 1).size());
+    }
+
+    private static JsonObject baseline(String modelName, long avgTimeMs, int accuracy) {
+        JsonObject model = new JsonObject();
+        model.addProperty("avg_time_ms", avgTimeMs);
+        model.addProperty("avg_accuracy_pct", accuracy);
+        JsonObject models = new JsonObject();
+        models.add(modelName, model);
+        JsonObject root = new JsonObject();
+        root.addProperty("avg_time_ms", avgTimeMs);
+        root.addProperty("avg_accuracy_pct", accuracy);
+        root.add("models", models);
+        return root;
+    }
+
+    private static void writeWav(Path path, double seconds, double hz) throws IOException {
+        short[] samples = new short[(int) (16000 * seconds)];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (6000 * Math.sin(2 * Math.PI * hz * i / 16000.0));
+        }
+        new AudioProcessor().writeWhisperWav(samples, 0, samples.length, path);
+    }
+}
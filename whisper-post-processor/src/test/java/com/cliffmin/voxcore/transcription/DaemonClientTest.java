@@ -0,0 +1,121 @@
+package com.cliffmin.voxcore.transcription;
+
+import com.cliffmin.voxcore.exception.ErrorCode;
+import com.cliffmin.voxcore.exception.VoxCoreException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DaemonClientTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should forward path, model and prompt and return the daemon's text")
+    void testForwardsRequest() throws Exception {
+        AtomicReference<JsonObject> received = new AtomicReference<>();
+        String url = startDaemon(200, "{\"text\":\" hello world \",\"language\":\"en\"}", received);
+
+        Path audio = tempDir.resolve("note.wav");
+        Optional<String> text = new DaemonClient(url).transcribe(audio, "base.en", "en", "GitHub, JSON");
+
+        assertEquals(Optional.of("hello world"), text);
+        assertEquals(audio.toAbsolutePath().toString(), received.get().get("path").getAsString());
+        assertEquals("base.en", received.get().get("model").getAsString());
+        assertEquals("GitHub, JSON", received.get().get("prompt").getAsString());
+    }
+
+    @Test
+    @DisplayName("Should keep the daemon's model, audio length and phase timings")
+    void testReplyDetails() throws Exception {
+        String url = startDaemon(200, "{\"text\":\"hello\",\"model\":\"small.en\",\"audioSeconds\":6.5,"
+            + "\"timingsMs\":{\"probe\":1.2,\"whisper\":640.0}}", new AtomicReference<>());
+
+        DaemonClient.Reply reply = new DaemonClient(url).request(tempDir.resolve("a.wav"), null, null, null).orElseThrow();
+
+        assertEquals("hello", reply.text);
+        assertEquals("small.en", reply.model);
+        assertEquals(6.5, reply.audioSeconds, 1e-9);
+        assertEquals(Map.of("probe", 1.2, "whisper", 640.0), reply.timingsMs);
+    }
+
+    @Test
+    @DisplayName("Should report an empty daemon transcript with the CLI error code")
+    void testEmptyTranscript() throws Exception {
+        String url = startDaemon(200, "{\"text\":\"  \"}", new AtomicReference<>());
+
+        VoxCoreException e = assertThrows(VoxCoreException.class,
+            () -> new DaemonClient(url).transcribe(tempDir.resolve("a.wav"), null, null, null));
+        assertEquals(ErrorCode.ERR_EMPTY_TRANSCRIPT, e.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("Should report the daemon's error instead of falling back")
+    void testDaemonError() throws Exception {
+        String url = startDaemon(400, "{\"error\":\"audio file not found\",\"code\":\"ERR_AUDIO_NOT_FOUND\"}",
+            new AtomicReference<>());
+        VoxCoreException e = assertThrows(VoxCoreException.class,
+            () -> new DaemonClient(url).transcribe(tempDir.resolve("a.wav"), null, null, null));
+        assertEquals(ErrorCode.ERR_AUDIO_NOT_FOUND, e.getErrorCode());
+        assertTrue(e.getMessage().contains("audio file not found"), e.getMessage());
+
+        server.stop(0);
+        String failing = startDaemon(500, "{\"error\":\"whisper unavailable\"}", new AtomicReference<>());
+        e = assertThrows(VoxCoreException.class,
+            () -> new DaemonClient(failing).transcribe(tempDir.resolve("a.wav"), null, null, null));
+        assertEquals(ErrorCode.ERR_WHISPER_FAILED, e.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("Should fall back when the daemon is busy or not running")
+    void testFallback() throws Exception {
+        String url = startDaemon(503, "{\"error\":\"busy\"}", new AtomicReference<>());
+        assertTrue(new DaemonClient(url).transcribe(tempDir.resolve("a.wav"), null, null, null).isEmpty());
+
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        DaemonClient absent = new DaemonClient("http://127.0.0.1:" + closedPort);
+        assertTrue(absent.transcribe(tempDir.resolve("a.wav"), null, null, null).isEmpty());
+    }
+
+    private String startDaemon(int status, String body, AtomicReference<JsonObject> received) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/transcribe", exchange -> {
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            received.set(JsonParser.parseString(request).getAsJsonObject());
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+}
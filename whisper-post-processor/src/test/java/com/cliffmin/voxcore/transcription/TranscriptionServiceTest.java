@@ -0,0 +1,56 @@
+package com.cliffmin.voxcore.transcription;
+
+import com.cliffmin.voxcore.config.VoxCoreConfig;
+import com.cliffmin.voxcore.txlog.TransactionRecord;
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.audio.FlacEncoder;
+import com.cliffmin.whisper.testing.FakeWhisperCli;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should transcribe a recording archived to FLAC through a temporary WAV")
+    void testArchivedRecording() throws Exception {
+        Path recordings = Files.createDirectories(tempDir.resolve("recordings"));
+        Path wav = recordings.resolve("note.wav");
+        short[] samples = new short[16000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (6000 * Math.sin(2 * Math.PI * 220 * i / 16000.0));
+        }
+        AudioProcessor audio = new AudioProcessor();
+        audio.writeWhisperWav(samples, 0, samples.length, wav);
+        Path flac = FlacEncoder.archivePathFor(wav);
+        new FlacEncoder().encode(wav, flac);
+        Files.delete(wav);
+
+        // The fake matches transcripts by content, so key this one on the WAV decoded from the archive
+        Path transcripts = Files.createDirectories(tempDir.resolve("transcripts"));
+        audio.normalizeForWhisper(flac, transcripts.resolve("note.wav"));
+        Files.writeString(transcripts.resolve("note.txt"), "hello from the archive\n");
+        Path binary = FakeWhisperCli.install(tempDir.resolve("bin"),
+                Map.of(FakeWhisperCli.ENV_TRANSCRIPTS, transcripts.toString()));
+        Path model = FakeWhisperCli.createModels(tempDir.resolve("models"), "base.en").resolve("ggml-base.en.bin");
+        Path config = tempDir.resolve("config.json");
+        Files.writeString(config, "{\"whisper_cpp_path\":\"" + binary + "\",\"whisper_model\":\"" + model + "\"}");
+
+        TranscriptionService service = new TranscriptionService(VoxCoreConfig.load(config), null);
+
+        assertEquals("hello from the archive", service.transcribe(wav, false));
+        TransactionRecord record = service.lastRecord();
+        assertEquals(flac.toAbsolutePath().toString(), record.wav);
+        assertTrue(record.phasesMs.containsKey("normalize"), record.phasesMs.toString());
+        assertEquals(1.0, record.durationSec, 0.01);
+    }
+}
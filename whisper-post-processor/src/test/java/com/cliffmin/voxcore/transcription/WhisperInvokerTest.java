@@ -0,0 +1,93 @@
+package com.cliffmin.voxcore.transcription;
+
+import com.cliffmin.voxcore.config.VoxCoreConfig;
+import com.cliffmin.voxcore.exception.VoxCoreException;
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.service.DeviceProfile;
+import com.cliffmin.whisper.testing.FakeWhisperCli;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WhisperInvoker end to end against the fake whisper-cli ({@code -m}, {@code -f}, {@code --no-timestamps},
+ * and the device profile's {@code --threads} and {@code --beam-size}).
+ */
+class WhisperInvokerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should return whisper-cli's plain-text transcript")
+    void testTranscribe() throws Exception {
+        Path transcripts = Files.createDirectories(tempDir.resolve("transcripts"));
+        Path wav = writeWav(transcripts.resolve("hello.wav"));
+        Files.writeString(transcripts.resolve("hello.txt"), "hello from the fake whisper\n");
+        WhisperInvoker invoker = invoker(Map.of(FakeWhisperCli.ENV_TRANSCRIPTS, transcripts.toString()));
+
+        TranscriptionService.WhisperResult result = invoker.transcribe(wav, "VoxCore, Hammerspoon");
+
+        assertEquals("hello from the fake whisper", result.getText());
+    }
+
+    @Test
+    @DisplayName("Should report whisper-cli's failure with its exit code")
+    void testFailure() throws Exception {
+        WhisperInvoker invoker = invoker(Map.of());
+
+        VoxCoreException e = assertThrows(VoxCoreException.class,
+                () -> invoker.transcribe(tempDir.resolve("missing.wav"), null));
+        assertTrue(e.getMessage().contains("exit code"), e.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should take the model, threads and beam size from the device profile")
+    void testDeviceProfile() throws Exception {
+        Path wav = writeWav(tempDir.resolve("short.wav"));
+        DeviceProfile profile = new DeviceProfile("2026-01-01T00:00:00Z", 8, 2,
+                List.of(new DeviceProfile.ModelProfile("tiny.en", 3, 0.1, 50, 90)),
+                List.of(new DeviceProfile.Tier(10, "tiny.en"), new DeviceProfile.Tier(0, "base.en")));
+        WhisperInvoker calibrated = invoker(Map.of(), "base.en", profile);
+
+        assertEquals("tiny.en", calibrated.selectModel(wav, null), "1s falls in the first tier");
+        assertEquals("base.en", calibrated.selectModel(wav, "base.en"), "a named model wins");
+        List<String> command = calibrated.buildWhisperCommand(wav, null, "tiny.en");
+        assertTrue(command.get(command.indexOf("-m") + 1).endsWith("ggml-tiny.en.bin"), command.toString());
+        assertEquals("2", command.get(command.indexOf("--threads") + 1));
+        assertEquals("3", command.get(command.indexOf("--beam-size") + 1));
+
+        TranscriptionService.WhisperResult result = calibrated.transcribe(wav, null);
+        assertEquals("tiny.en", result.getMetadata().get("model").getAsString());
+        assertEquals(invoker(Map.of(), "tiny.en", null).transcribe(wav, null).getText(), result.getText());
+    }
+
+    private WhisperInvoker invoker(Map<String, String> env) throws IOException {
+        return invoker(env, "base.en", null);
+    }
+
+    private WhisperInvoker invoker(Map<String, String> env, String modelName, DeviceProfile profile) throws IOException {
+        Path binary = FakeWhisperCli.install(tempDir.resolve("bin"), env);
+        Path model = FakeWhisperCli.createModels(tempDir.resolve("models"), "tiny.en", "base.en")
+                .resolve("ggml-" + modelName + ".bin");
+        Path config = tempDir.resolve("config.json");
+        Files.writeString(config, "{\"whisper_cpp_path\":\"" + binary + "\",\"whisper_model\":\"" + model + "\"}");
+        return new WhisperInvoker(VoxCoreConfig.load(config), profile);
+    }
+
+    private static Path writeWav(Path path) throws IOException {
+        short[] samples = new short[16000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (6000 * Math.sin(2 * Math.PI * 220 * i / 16000.0));
+        }
+        return new AudioProcessor().writeWhisperWav(samples, 0, samples.length, path);
+    }
+}
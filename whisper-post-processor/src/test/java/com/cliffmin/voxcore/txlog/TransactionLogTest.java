@@ -0,0 +1,171 @@
+package com.cliffmin.voxcore.txlog;
+
+import com.cliffmin.voxcore.config.VoxCoreConfig;
+import com.cliffmin.voxcore.exception.ErrorCode;
+import com.cliffmin.voxcore.exception.VoxCoreException;
+import com.cliffmin.voxcore.transcription.TranscriptionService;
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.testing.FakeWhisperCli;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionLogTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-18T12:00:00Z"), ZoneOffset.UTC);
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should write one JSON line per record with the Hammerspoon field names")
+    void testAppend() throws Exception {
+        try (TransactionLog txLog = new TransactionLog(tempDir, TransactionLog.DEFAULT_MAX_BYTES, 2, CLOCK)) {
+            TransactionRecord ok = new TransactionRecord(tempDir.resolve("a.wav"));
+            ok.model = "base.en";
+            ok.durationSec = 6.1;
+            ok.phase("whisper", 412_345_678);
+            ok.succeeded("hello world");
+            assertTrue(txLog.append(ok.finish(580_000_000)));
+
+            TransactionRecord failed = new TransactionRecord(tempDir.resolve("b.wav"));
+            failed.failed(ErrorCode.ERR_WHISPER_FAILED, "Whisper failed with exit code 1");
+            assertTrue(txLog.append(failed.finish(90_000_000)));
+        }
+
+        List<JsonObject> lines = read(TransactionLog.fileFor(tempDir, DAY));
+        assertEquals(2, lines.size());
+        JsonObject first = lines.get(0);
+        assertEquals("success", first.get("kind").getAsString());
+        assertEquals("base.en", first.get("model").getAsString());
+        assertEquals(6.1, first.get("duration_sec").getAsDouble(), 1e-9);
+        assertEquals(580, first.get("tx_ms").getAsLong());
+        assertEquals(11, first.get("transcript_chars").getAsInt());
+        assertEquals(412.3, first.getAsJsonObject("phases_ms").get("whisper").getAsDouble(), 1e-9);
+        assertTrue(first.has("ts"));
+        assertFalse(first.has("error_code"), "unset fields are left out");
+        JsonObject second = lines.get(1);
+        assertEquals("error", second.get("kind").getAsString());
+        assertEquals("ERR_WHISPER_FAILED", second.get("error_code").getAsString());
+        assertFalse(second.has("phases_ms"));
+    }
+
+    @Test
+    @DisplayName("Should rotate at the size limit and keep only the configured backups")
+    void testRotation() throws Exception {
+        try (TransactionLog txLog = new TransactionLog(tempDir, 400, 2, CLOCK)) {
+            for (int i = 0; i < 20; i++) {
+                TransactionRecord record = new TransactionRecord(tempDir.resolve("note-" + i + ".wav"));
+                record.succeeded("transcript " + i);
+                txLog.append(record.finish(1_000_000));
+            }
+        }
+
+        Path current = TransactionLog.fileFor(tempDir, DAY);
+        List<Path> files = List.of(current, tempDir.resolve("voxcore-2026-10-18.1.jsonl"),
+                tempDir.resolve("voxcore-2026-10-18.2.jsonl"));
+        for (Path file : files) {
+            assertTrue(Files.exists(file), file.toString());
+            assertTrue(Files.size(file) <= 400, file + " is " + Files.size(file) + " bytes");
+        }
+        assertFalse(Files.exists(tempDir.resolve("voxcore-2026-10-18.3.jsonl")));
+        List<JsonObject> newest = read(current);
+        assertTrue(newest.get(newest.size() - 1).get("wav").getAsString().endsWith("note-19.wav"));
+        List<JsonObject> older = read(files.get(1));
+        assertTrue(older.get(older.size() - 1).get("wav").getAsString()
+                .endsWith("note-" + (19 - newest.size()) + ".wav"), "backups hold the records just before");
+    }
+
+    @Test
+    @DisplayName("Should write inline records before append returns")
+    void testInline() throws Exception {
+        Path file = TransactionLog.fileFor(tempDir, DAY);
+        TransactionLog txLog = new TransactionLog(tempDir, TransactionLog.DEFAULT_MAX_BYTES, 2, CLOCK, true);
+        TransactionRecord record = new TransactionRecord(tempDir.resolve("a.wav"));
+        record.succeeded("hello");
+        assertTrue(txLog.append(record.finish(1_000_000)));
+        assertEquals(1, read(file).size(), "on disk without waiting for close");
+
+        txLog.close();
+        assertFalse(txLog.append(new TransactionRecord(tempDir.resolve("late.wav")).finish(0)));
+        assertEquals(1, txLog.dropped());
+        assertEquals(1, read(file).size());
+    }
+
+    @Test
+    @DisplayName("Should drop records appended after close")
+    void testClosed() {
+        TransactionLog txLog = new TransactionLog(tempDir, TransactionLog.DEFAULT_MAX_BYTES, 2, CLOCK);
+        txLog.close();
+
+        assertFalse(txLog.append(new TransactionRecord(tempDir.resolve("late.wav")).finish(0)));
+        assertEquals(1, txLog.dropped());
+    }
+
+    @Test
+    @DisplayName("TranscriptionService should hand back in-process runs and failures with their phases")
+    void testServiceRecords() throws Exception {
+        Path transcripts = Files.createDirectories(tempDir.resolve("transcripts"));
+        Path wav = writeWav(transcripts.resolve("hello.wav"));
+        Files.writeString(transcripts.resolve("hello.txt"), "um hello from the fake whisper\n");
+        Path binary = FakeWhisperCli.install(tempDir.resolve("bin"),
+                Map.of(FakeWhisperCli.ENV_TRANSCRIPTS, transcripts.toString()));
+        Path model = FakeWhisperCli.createModels(tempDir.resolve("models"), "base.en").resolve("ggml-base.en.bin");
+        Path config = tempDir.resolve("config.json");
+        Files.writeString(config, "{\"whisper_cpp_path\":\"" + binary + "\",\"whisper_model\":\"" + model + "\"}");
+        Path logs = tempDir.resolve("tx_logs");
+
+        String text;
+        try (TransactionLog txLog = new TransactionLog(logs, TransactionLog.DEFAULT_MAX_BYTES, 2, CLOCK)) {
+            TranscriptionService service = new TranscriptionService(VoxCoreConfig.load(config), null);
+            text = service.transcribe(wav, true);
+            assertTrue(txLog.append(service.lastRecord()));
+            assertThrows(VoxCoreException.class, () -> service.transcribe(tempDir.resolve("missing.wav"), true));
+            assertTrue(txLog.append(service.lastRecord()));
+        }
+
+        List<JsonObject> lines = read(TransactionLog.fileFor(logs, DAY));
+        assertEquals(2, lines.size());
+        JsonObject ok = lines.get(0);
+        assertEquals("success", ok.get("kind").getAsString());
+        assertEquals("in-process", ok.get("transcribed_by").getAsString());
+        assertEquals(text.length(), ok.get("transcript_chars").getAsInt());
+        assertEquals(1.0, ok.get("duration_sec").getAsDouble(), 0.01);
+        JsonObject phases = ok.getAsJsonObject("phases_ms");
+        assertTrue(phases.has("prompt") && phases.has("whisper") && phases.has("post_process"), phases.toString());
+        assertEquals("ERR_AUDIO_NOT_FOUND", lines.get(1).get("error_code").getAsString());
+    }
+
+    private static List<JsonObject> read(Path file) throws IOException {
+        List<JsonObject> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            lines.add(JsonParser.parseString(line).getAsJsonObject());
+        }
+        return lines;
+    }
+
+    private static Path writeWav(Path path) throws IOException {
+        short[] samples = new short[16000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (6000 * Math.sin(2 * Math.PI * 220 * i / 16000.0));
+        }
+        new AudioProcessor().writeWhisperWav(samples, 0, samples.length, path);
+        return path;
+    }
+}
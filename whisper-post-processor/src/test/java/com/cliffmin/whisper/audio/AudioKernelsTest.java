@@ -0,0 +1,134 @@
+package com.cliffmin.whisper.audio;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioKernelsTest {
+
+    @Test
+    @DisplayName("Should decode 16-bit PCM in both byte orders and 8-bit PCM")
+    void testDecodePcm() {
+        short[] out = new short[2];
+        assertEquals(2, AudioKernels.decodePcm(new byte[]{0x34, 0x12, (byte) 0xFF, (byte) 0xFF}, 4, 2, false, out));
+        assertArrayEquals(new short[]{0x1234, -1}, out);
+
+        AudioKernels.decodePcm(new byte[]{0x12, 0x34, (byte) 0x80, 0x00}, 4, 2, true, out);
+        assertArrayEquals(new short[]{0x1234, Short.MIN_VALUE}, out);
+
+        assertEquals(2, AudioKernels.decodePcm(new byte[]{(byte) 128, 0}, 2, 1, false, out));
+        assertArrayEquals(new short[]{-256, -128}, out);
+    }
+
+    @Test
+    @DisplayName("Should match naive level computations for short and float input")
+    void testLevelsMatchReference() {
+        Random random = new Random(7);
+        short[] pcm = new short[1003]; // odd length exercises the unrolled tail
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) (random.nextInt(65536) - 32768);
+        }
+        float[] floats = AudioKernels.toFloat(pcm, 0, pcm.length, new float[pcm.length]);
+
+        double sumSq = 0, sum = 0;
+        int max = 0;
+        for (short s : pcm) {
+            sumSq += (double) s * s;
+            sum += s;
+            max = Math.max(max, Math.abs(s));
+        }
+        double rms = Math.sqrt(sumSq / pcm.length) / 32768.0;
+
+        assertEquals(rms, AudioKernels.rms(pcm, 0, pcm.length), 1e-12);
+        assertEquals(rms, AudioKernels.rms(floats, 0, floats.length), 1e-4);
+        assertEquals(max / 32768.0, AudioKernels.peak(pcm, 0, pcm.length), 1e-12);
+        assertEquals(max / 32768.0, AudioKernels.peak(floats, 0, floats.length), 1e-6);
+        assertEquals(sum / pcm.length / 32768.0, AudioKernels.dcOffset(pcm, 0, pcm.length), 1e-12);
+        assertEquals(sum / pcm.length / 32768.0, AudioKernels.dcOffset(floats, 0, floats.length), 1e-4);
+    }
+
+    @Test
+    @DisplayName("Float kernels should keep double precision over a 30-second buffer")
+    void testLongBufferPrecision() {
+        // Runs on the Vector API path under test and on the scalar loops under scalarKernelTest,
+        // so both are held to the same reference
+        Random random = new Random(11);
+        float[] x = new float[30 * 16000 + 7];
+        double sumSq = 0, sum = 0, max = 0;
+        for (int i = 0; i < x.length; i++) {
+            x[i] = (float) (0.25 + random.nextGaussian() * 0.1);
+            sumSq += (double) x[i] * x[i];
+            sum += x[i];
+            max = Math.max(max, Math.abs(x[i]));
+        }
+
+        assertEquals(sumSq, AudioKernels.sumSquares(x, 0, x.length), sumSq * 1e-12);
+        assertEquals(sum / x.length, AudioKernels.dcOffset(x, 0, x.length), 1e-12);
+        assertEquals(max, AudioKernels.peak(x, 0, x.length), 0.0);
+        assertEquals(sumSq - (double) x[0] * x[0], AudioKernels.sumSquares(x, 1, x.length - 1), sumSq * 1e-12);
+    }
+
+    @Test
+    @DisplayName("Should take the Vector API path only with the module present and not disabled")
+    void testKernelPath() {
+        boolean expected = !Boolean.getBoolean("voxcore.audio.disableVectorApi")
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        assertEquals(expected, AudioKernels.isVectorApiEnabled());
+    }
+
+    @Test
+    @DisplayName("Should honour offsets and empty ranges")
+    void testOffsets() {
+        short[] pcm = {30000, 100, -100, 30000};
+        assertEquals(100 / 32768.0, AudioKernels.rms(pcm, 1, 2), 1e-12);
+        assertEquals(0.0, AudioKernels.rms(pcm, 0, 0));
+        assertEquals(0.0, AudioKernels.dcOffset(pcm, 1, 2), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Should report clipping ratio")
+    void testClipping() {
+        short[] pcm = {Short.MAX_VALUE, Short.MIN_VALUE, 0, 1000};
+        assertEquals(0.5, AudioKernels.clippingRatio(pcm, 0, pcm.length, Short.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Should separate tonal audio from noise by spectral flatness")
+    void testSpectralFlatness() {
+        int n = 512;
+        float[] tone = new float[n];
+        float[] noise = new float[n];
+        Random random = new Random(1);
+        for (int i = 0; i < n; i++) {
+            tone[i] = (float) Math.sin(2 * Math.PI * 1000 * i / 16000.0);
+            noise[i] = (float) random.nextGaussian() * 0.3f;
+        }
+        float[] re = new float[n], im = new float[n];
+
+        double toneFlatness = AudioKernels.spectralFlatness(tone, 0, n, re, im);
+        double noiseFlatness = AudioKernels.spectralFlatness(noise, 0, n, re, im);
+
+        assertTrue(toneFlatness < 0.05, "tone flatness " + toneFlatness);
+        assertTrue(noiseFlatness > 0.3, "noise flatness " + noiseFlatness);
+        assertThrows(IllegalArgumentException.class, () -> AudioKernels.spectralFlatness(tone, 0, 500, re, im));
+    }
+
+    @Test
+    @DisplayName("Should analyse whole frames and drop the partial tail")
+    void testAnalyzeFrames() {
+        short[] pcm = new short[1024 + 100];
+        for (int i = 512; i < 1024; i++) {
+            pcm[i] = (short) (16000 * Math.sin(2 * Math.PI * 440 * i / 16000.0));
+        }
+        AudioKernels.FrameStats[] frames = AudioKernels.analyzeFrames(pcm, 0, pcm.length, 512);
+
+        assertEquals(2, frames.length);
+        assertEquals(0.0, frames[0].rms);
+        assertTrue(frames[0].rmsDb() < -150);
+        assertTrue(frames[1].rmsDb() > -10);
+        assertEquals(16000 / 32768.0, frames[1].peak, 0.01);
+    }
+}
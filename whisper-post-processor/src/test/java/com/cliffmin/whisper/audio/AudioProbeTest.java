@@ -0,0 +1,132 @@
+package com.cliffmin.whisper.audio;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioProbeTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AudioProcessor processor = new AudioProcessor();
+
+    @Test
+    @DisplayName("Should derive format, duration and hash from one read")
+    void testProbeWhisperReadyWav() throws Exception {
+        // 1s silence, 1s tone, 1s silence
+        Path wav = writeWav(toneWithSilence(16000, 1), new AudioFormat(16000, 16, 1, true, false), "a.wav");
+
+        AudioProbe probe = processor.probe(wav);
+
+        assertTrue(probe.isDecoded());
+        assertTrue(probe.isWhisperReady());
+        assertEquals(3.0, probe.duration, 1e-9);
+        assertEquals(Files.size(wav), probe.fileSize);
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(wav))),
+                probe.contentHash);
+        assertTrue(processor.validateForWhisper(probe));
+    }
+
+    @Test
+    @DisplayName("Should normalize other formats from the probe")
+    void testNormalizeFromProbe() throws Exception {
+        Path wav = writeWav(toneWithSilence(44100, 2), new AudioFormat(44100, 16, 2, true, false), "b.wav");
+        AudioProbe probe = processor.probe(wav);
+        assertFalse(probe.isWhisperReady());
+        assertEquals(3.0, probe.duration, 1e-9);
+
+        Path out = processor.normalizeForWhisper(probe, tempDir.resolve("norm.wav"));
+
+        AudioProcessor.AudioInfo info = processor.getAudioInfo(out);
+        assertEquals(16000, info.sampleRate);
+        assertEquals(1, info.channels);
+        assertEquals(3.0, info.duration, 0.01);
+    }
+
+    @Test
+    @DisplayName("Should treat FLAC archives as decodable but not Whisper-ready")
+    void testProbeFlac() throws Exception {
+        Path wav = writeWav(toneWithSilence(16000, 1), new AudioFormat(16000, 16, 1, true, false), "c.wav");
+        Path flac = tempDir.resolve("c.flac");
+        new FlacEncoder().encode(wav, flac);
+
+        AudioProbe probe = processor.probe(flac);
+
+        assertTrue(probe.isDecoded());
+        assertFalse(probe.isWhisperReady());
+        assertEquals(3.0, probe.duration, 1e-9);
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(flac))),
+                probe.contentHash);
+    }
+
+    @Test
+    @DisplayName("Should reject over-long audio from the header alone")
+    void testOverlongRejectedFromHeader() throws Exception {
+        // Header claims two hours of audio; only a few bytes of data follow
+        Path wav = tempDir.resolve("long.wav");
+        int dataBytes = 16000 * 2 * 7200;
+        java.nio.ByteBuffer header = java.nio.ByteBuffer.allocate(44 + 32).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes()).putInt(36 + dataBytes).put("WAVE".getBytes())
+                .put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(16000).putInt(32000).putShort((short) 2).putShort((short) 16)
+                .put("data".getBytes()).putInt(dataBytes);
+        Files.write(wav, header.array());
+
+        AudioProbe probe = processor.probe(wav);
+
+        assertEquals(7200.0, probe.duration, 1e-6);
+        assertFalse(processor.validateForWhisper(probe));
+    }
+
+    @Test
+    @DisplayName("Should fall back to size and hash only for formats javax.sound cannot parse")
+    void testProbeUndecodable() throws Exception {
+        Path file = tempDir.resolve("d.m4a");
+        Files.write(file, new byte[] {0, 0, 0, 32, 'f', 't', 'y', 'p', 'M', '4', 'A', ' '});
+
+        AudioProbe probe = processor.probe(file);
+
+        assertFalse(probe.isDecoded());
+        assertFalse(probe.isWhisperReady());
+        assertEquals(-1, probe.duration);
+        assertEquals(12, probe.fileSize);
+        assertEquals(64, probe.contentHash.length());
+    }
+
+    private Path writeWav(byte[] pcm, AudioFormat format, String name) throws IOException {
+        Path path = tempDir.resolve(name);
+        try (AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(pcm), format,
+                pcm.length / format.getFrameSize())) {
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, path.toFile());
+        }
+        return path;
+    }
+
+    private static byte[] toneWithSilence(int sampleRate, int channels) {
+        byte[] out = new byte[sampleRate * 3 * channels * 2];
+        int p = 0;
+        for (int i = 0; i < sampleRate * 3; i++) {
+            boolean tone = i >= sampleRate && i < sampleRate * 2;
+            short v = tone ? (short) (8000 * Math.sin(2 * Math.PI * 220 * i / sampleRate)) : 0;
+            for (int c = 0; c < channels; c++) {
+                out[p++] = (byte) v;
+                out[p++] = (byte) (v >> 8);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,122 @@
+package com.cliffmin.whisper.audio;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Mixer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptureServiceTest {
+    private static final int RATE = CaptureService.SAMPLE_RATE;
+    private static final int CHUNK = RATE / 50;
+    private static final Executor DIRECT = Runnable::run;
+
+    @TempDir
+    Path tempDir;
+
+    private final AudioProcessor audio = new AudioProcessor();
+
+    @Test
+    @DisplayName("Recording should start with the pre-roll captured before the press")
+    void testPrerollIncluded() throws Exception {
+        short[] source = counter(RATE * 3);
+        try (CaptureService capture = new CaptureService(fakeLine(source), audio, DIRECT, 500)) {
+            pump(capture, RATE * 2 / CHUNK);           // 2s idle
+            capture.startRecording(tempDir.resolve("rec/out.wav"));
+            pump(capture, RATE / CHUNK);               // 1s while the key is held
+            assertEquals(1.5, capture.getRecordedSeconds(), 1e-9);
+
+            Path wav = capture.stopRecording().get(5, TimeUnit.SECONDS);
+
+            short[] recorded = readWav(wav);
+            assertEquals(RATE * 3 / 2, recorded.length);
+            for (int i = 0; i < recorded.length; i++) {
+                assertEquals(source[RATE * 3 / 2 + i], recorded[i], "sample " + i);
+            }
+            assertFalse(capture.isRecording());
+        }
+    }
+
+    @Test
+    @DisplayName("Should pick the capture device by name, exact match first")
+    void testFindDeviceByName() {
+        List<Mixer.Info> devices = List.of(mixer("MacBook Pro Microphone"), mixer("USB Audio"), mixer("USB"));
+        assertEquals("USB", TargetDataLineCapture.findDevice(devices, "usb").getName());
+        assertEquals("MacBook Pro Microphone", TargetDataLineCapture.findDevice(devices, "macbook").getName());
+        assertNull(TargetDataLineCapture.findDevice(devices, "Scarlett"));
+    }
+
+    @Test
+    @DisplayName("Should reject overlapping starts and stops without a recording")
+    void testStateErrors() throws Exception {
+        try (CaptureService capture = new CaptureService(fakeLine(counter(RATE)), audio, DIRECT, 500)) {
+            assertThrows(IllegalStateException.class, capture::stopRecording);
+            capture.startRecording(tempDir.resolve("a.wav"));
+            assertThrows(IllegalStateException.class, () -> capture.startRecording(tempDir.resolve("b.wav")));
+            capture.stopRecording().get(5, TimeUnit.SECONDS);
+            assertTrue(Files.exists(tempDir.resolve("a.wav")));
+        }
+    }
+
+    @Test
+    @DisplayName("Background thread should keep only the most recent pre-roll while idle")
+    void testCaptureThread() throws Exception {
+        short[] source = counter(RATE * 2);
+        try (CaptureService capture = new CaptureService(fakeLine(source), audio, DIRECT, 250)) {
+            capture.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!capture.isLineEnded() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(capture.isLineEnded());
+
+            capture.startRecording(tempDir.resolve("tail.wav"));
+            short[] recorded = readWav(capture.stopRecording().get(5, TimeUnit.SECONDS));
+
+            assertEquals(RATE / 4, recorded.length);
+            assertEquals(source[source.length - 1], recorded[recorded.length - 1]);
+        }
+    }
+
+    private CaptureLine fakeLine(short[] samples) throws Exception {
+        Path wav = tempDir.resolve("source_" + System.nanoTime() + ".wav");
+        audio.writeWhisperWav(samples, 0, samples.length, wav);
+        return new FileCaptureLine(wav, 0);
+    }
+
+    private static void pump(CaptureService capture, int chunks) throws Exception {
+        for (int i = 0; i < chunks; i++) {
+            assertTrue(capture.pump());
+        }
+    }
+
+    private static short[] counter(int n) {
+        short[] s = new short[n];
+        for (int i = 0; i < n; i++) {
+            s[i] = (short) (i % 20000 - 10000);
+        }
+        return s;
+    }
+
+    private static short[] readWav(Path wav) throws Exception {
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(wav.toFile())) {
+            byte[] bytes = in.readAllBytes();
+            short[] out = new short[bytes.length / 2];
+            AudioKernels.decodePcm(bytes, bytes.length, 2, false, out);
+            return out;
+        }
+    }
+
+    private static Mixer.Info mixer(String name) {
+        return new Mixer.Info(name, "vendor", "description", "1.0") { };
+    }
+}
@@ -0,0 +1,171 @@
+package com.cliffmin.whisper.audio;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlacCodecTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should round-trip 16kHz mono speech-like audio losslessly at about half the size")
+    void testMonoRoundTrip() throws Exception {
+        byte[] pcm = speechLike(16000 * 5 + 123, 1, 2);
+        Path wav = writeWav(pcm, new AudioFormat(16000, 16, 1, true, false), "mono.wav");
+        Path flac = tempDir.resolve("mono.flac");
+
+        FlacEncoder.EncodeResult result = new FlacEncoder().encode(wav, flac);
+
+        assertEquals(pcm.length, result.inputBytes);
+        assertEquals(pcm.length / 2, result.samples);
+        assertTrue(result.getCompressionRatio() < 0.7, "ratio " + result.getCompressionRatio());
+        assertArrayEquals(pcm, decode(flac));
+    }
+
+    @Test
+    @DisplayName("Should round-trip stereo, 8-bit and 24-bit audio including silent blocks")
+    void testOtherFormatsRoundTrip() throws Exception {
+        AudioFormat[] formats = {
+            new AudioFormat(44100, 16, 2, true, false),
+            new AudioFormat(8000, 8, 1, false, false),
+            new AudioFormat(48000, 24, 1, true, false),
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            for (AudioFormat format : formats) {
+                int bytesPerSample = format.getSampleSizeInBits() / 8;
+                byte[] pcm = speechLike(10_000, format.getChannels(), bytesPerSample);
+                if (bytesPerSample == 1) {
+                    for (int i = 0; i < pcm.length; i++) pcm[i] ^= (byte) 0x80;  // unsigned
+                }
+                Path wav = writeWav(pcm, format, "fmt.wav");
+                Path flac = tempDir.resolve("fmt.flac");
+                new FlacEncoder(pool, 1024).encode(wav, flac);
+
+                FlacDecoder.StreamInfo info = new FlacDecoder().readStreamInfo(flac);
+                assertEquals((int) format.getSampleRate(), info.sampleRate);
+                assertEquals(format.getChannels(), info.channels);
+                assertEquals(format.getSampleSizeInBits(), info.bitsPerSample);
+                assertArrayEquals(pcm, decode(flac), "format " + format);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a corrupted archive instead of returning wrong audio")
+    void testCorruptionDetected() throws Exception {
+        byte[] pcm = speechLike(16000, 1, 2);
+        Path wav = writeWav(pcm, new AudioFormat(16000, 16, 1, true, false), "c.wav");
+        Path flac = tempDir.resolve("c.flac");
+        new FlacEncoder().encode(wav, flac);
+
+        byte[] bytes = Files.readAllBytes(flac);
+        bytes[bytes.length - 40] ^= 0x10;
+        Files.write(flac, bytes);
+
+        assertThrows(IOException.class, () -> decode(flac));
+    }
+
+    @Test
+    @DisplayName("AudioProcessor should read archives and resolve archived WAV paths")
+    void testAudioProcessorReadsFlac() throws Exception {
+        byte[] pcm = speechLike(16000 * 2, 1, 2);
+        Path wav = writeWav(pcm, new AudioFormat(16000, 16, 1, true, false), "note.wav");
+        Path flac = new RecordingArchiver(new FlacEncoder()).archiveOne(wav);
+
+        assertFalse(Files.exists(wav));
+        assertEquals(flac, AudioProcessor.resolveRecording(wav));
+
+        AudioProcessor processor = new AudioProcessor();
+        AudioProcessor.AudioInfo info = processor.getAudioInfo(flac);
+        assertEquals(2.0, info.duration, 1e-9);
+        assertEquals(16000, info.sampleRate);
+
+        Path normalized = processor.normalizeForWhisper(flac, tempDir.resolve("norm.wav"));
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(normalized.toFile())) {
+            assertArrayEquals(pcm, in.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Archiver should only compress recordings older than the cutoff")
+    void testArchiverHonoursAge() throws Exception {
+        AudioFormat format = new AudioFormat(16000, 16, 1, true, false);
+        Path session = Files.createDirectories(tempDir.resolve("2024-01-01_10-00-00"));
+        Path old = writeWav(speechLike(8000, 1, 2), format, "2024-01-01_10-00-00/old.wav");
+        Path recent = writeWav(speechLike(8000, 1, 2), format, "recent.wav");
+        FileTime oldTime = FileTime.from(Instant.now().minus(Duration.ofDays(40)));
+        Files.setLastModifiedTime(old, oldTime);
+
+        RecordingArchiver.Summary summary = new RecordingArchiver(new FlacEncoder()).archive(tempDir, Duration.ofDays(30));
+
+        assertEquals(1, summary.archived);
+        assertEquals(0, summary.failed);
+        assertTrue(summary.bytesAfter < summary.bytesBefore);
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(session.resolve("old.flac")));
+        assertEquals(oldTime.toMillis() / 1000, Files.getLastModifiedTime(session.resolve("old.flac")).toMillis() / 1000);
+        assertTrue(Files.exists(recent));
+    }
+
+    private Path writeWav(byte[] pcm, AudioFormat format, String name) throws IOException {
+        Path path = tempDir.resolve(name);
+        try (AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(pcm), format,
+                pcm.length / format.getFrameSize())) {
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, path.toFile());
+        }
+        return path;
+    }
+
+    private static byte[] decode(Path flac) throws IOException {
+        try (AudioInputStream in = new FlacDecoder().openAudioStream(flac)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Voiced-ish signal: a few harmonics with a slow envelope, light noise and a silent gap.
+     */
+    private static byte[] speechLike(int frames, int channels, int bytesPerSample) {
+        Random random = new Random(42);
+        int bits = bytesPerSample * 8;
+        double amplitude = (1 << (bits - 1)) * 0.3;
+        byte[] out = new byte[frames * channels * bytesPerSample];
+        int p = 0;
+        for (int i = 0; i < frames; i++) {
+            double t = i / 16000.0;
+            boolean gap = i > frames / 3 && i < frames / 2;
+            for (int c = 0; c < channels; c++) {
+                double env = 0.5 + 0.5 * Math.sin(2 * Math.PI * 3 * t + c);
+                double s = Math.sin(2 * Math.PI * 140 * t) + 0.5 * Math.sin(2 * Math.PI * 280 * t)
+                        + 0.25 * Math.sin(2 * Math.PI * 420 * t);
+                int v = gap ? 0 : (int) (amplitude * env * s / 1.75 + random.nextGaussian() * amplitude * 0.002);
+                for (int b = 0; b < bytesPerSample; b++) {
+                    out[p++] = (byte) (v >> (8 * b));
+                }
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,108 @@
+package com.cliffmin.whisper.audio;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PcmRingBufferTest {
+
+    @Test
+    @DisplayName("Should round capacity up to a power of two")
+    void testCapacity() {
+        assertEquals(1024, new PcmRingBuffer(1000).capacity());
+        assertEquals(1024, new PcmRingBuffer(1024).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new PcmRingBuffer(0));
+    }
+
+    @Test
+    @DisplayName("Should decode little-endian PCM and wrap around")
+    void testWrapAround() {
+        PcmRingBuffer ring = new PcmRingBuffer(4);
+        short[] out = new short[4];
+
+        ring.write(new short[]{1, 2, 3}, 0, 3);
+        assertEquals(2, ring.read(out, 0, 2));
+
+        ByteBuffer pcm = ByteBuffer.allocate(6).order(ByteOrder.LITTLE_ENDIAN);
+        pcm.putShort((short) -2).putShort((short) 300).putShort(Short.MIN_VALUE).flip();
+        assertEquals(3, ring.writePcm16le(pcm));
+        assertEquals(0, pcm.remaining());
+
+        assertEquals(4, ring.read(out, 0, 4));
+        assertArrayEquals(new short[]{3, -2, 300, Short.MIN_VALUE}, out);
+        assertEquals(0, ring.available());
+        assertEquals(6, ring.totalWritten());
+    }
+
+    @Test
+    @DisplayName("Should carry a sample split across buffers into the next write")
+    void testSplitSample() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        ByteBuffer pcm = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        pcm.putShort((short) 1000).putShort((short) -1234).putShort((short) 0x7F01).putShort((short) -2).flip();
+        byte[] bytes = new byte[8];
+        pcm.get(bytes);
+
+        assertEquals(1, ring.writePcm16le(ByteBuffer.wrap(bytes, 0, 3)));
+        assertEquals(1, ring.writePcm16le(bytes, 3, 2));
+        ByteBuffer tail = ByteBuffer.wrap(bytes, 5, 3);
+        assertEquals(2, ring.writePcm16le(tail));
+        assertEquals(0, tail.remaining());
+
+        short[] out = new short[4];
+        assertEquals(4, ring.read(out, 0, 4));
+        assertArrayEquals(new short[]{1000, -1234, 0x7F01, -2}, out);
+    }
+
+    @Test
+    @DisplayName("Should drop and count samples when the consumer falls behind")
+    void testOverrun() {
+        PcmRingBuffer ring = new PcmRingBuffer(4);
+        byte[] pcm = new byte[12];
+        pcm[0] = 0x01;
+        pcm[1] = (byte) 0x80;
+
+        assertEquals(4, ring.writePcm16le(pcm, 0, pcm.length));
+        assertEquals(2, ring.overruns());
+
+        short[] out = new short[1];
+        ring.read(out, 0, 1);
+        assertEquals((short) 0x8001, out[0]);
+    }
+
+    @Test
+    @DisplayName("Should hand samples across threads in order")
+    void testConcurrentProducerConsumer() throws Exception {
+        PcmRingBuffer ring = new PcmRingBuffer(256);
+        int total = 200_000;
+
+        Thread producer = new Thread(() -> {
+            short[] one = new short[1];
+            for (int i = 0; i < total; ) {
+                one[0] = (short) i;
+                if (ring.available() == ring.capacity()) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                ring.write(one, 0, 1);
+                i++;
+            }
+        });
+        producer.start();
+
+        short[] buf = new short[64];
+        int expected = 0;
+        while (expected < total) {
+            int n = ring.read(buf, 0, buf.length);
+            for (int i = 0; i < n; i++) {
+                assertEquals((short) expected++, buf[i]);
+            }
+        }
+        producer.join();
+        assertEquals(0, ring.overruns());
+    }
+}
@@ -20,15 +20,19 @@ class ConfigurationManagerTest {
         assertEquals("base.en", cfg.getWhisperModel());
         assertTrue(cfg.isLlmEnabled());
         assertEquals(30000, cfg.getLlmTimeoutMs());
+        assertNull(cfg.getCaptureDevice(), "capture uses the system default line");
+        assertTrue(cfg.getTxLogDir().endsWith("/Documents/VoiceNotes/tx_logs"));
     }
 
     @Test
     void loadsFromFile() throws Exception {
         Path file = tmp.resolve("config.json");
-        Files.writeString(file, "{\n  \"language\": \"de\", \n  \"llmEnabled\": false, \n  \"cacheEnabled\": true\n}\n");
+        Files.writeString(file, "{\n  \"language\": \"de\", \n  \"llmEnabled\": false, \n  \"cacheEnabled\": true, \n  \"captureDevice\": \"USB\", \n  \"txLogDir\": \"\"\n}\n");
         Configuration cfg = new ConfigurationManager().load(file);
         assertEquals("de", cfg.getLanguage());
         assertFalse(cfg.isLlmEnabled());
         assertTrue(cfg.isCacheEnabled());
+        assertEquals("USB", cfg.getCaptureDevice());
+        assertEquals("", cfg.getTxLogDir(), "empty turns the daemon's transaction log off");
     }
 }
@@ -0,0 +1,138 @@
+package com.cliffmin.whisper.daemon;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchTranscriberTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should expand a directory to its recordings and a glob to its matches")
+    void testResolve() throws Exception {
+        Path day1 = Files.createDirectories(tempDir.resolve("notes/2026-01-01"));
+        Path day2 = Files.createDirectories(tempDir.resolve("notes/2026-02-01"));
+        Files.write(day1.resolve("a.wav"), new byte[1]);
+        Files.write(day1.resolve("a.txt"), new byte[1]);
+        Files.write(day2.resolve("b.flac"), new byte[1]);
+        Files.write(day2.resolve("c.wav"), new byte[1]);
+
+        assertEquals(List.of(day1.resolve("a.wav"), day2.resolve("b.flac"), day2.resolve("c.wav")),
+            BatchTranscriber.resolve(tempDir.resolve("notes").toString()));
+        assertEquals(List.of(day2.resolve("c.wav")),
+            BatchTranscriber.resolve(tempDir.resolve("notes") + "/2026-02-*/*.wav"));
+        assertThrows(java.io.IOException.class, () -> BatchTranscriber.resolve(tempDir.resolve("missing").toString()));
+    }
+
+    @Test
+    @DisplayName("Re-running a batch should replay checkpointed files and retry only failures")
+    void testResume() throws Exception {
+        List<Path> files = List.of(tempDir.resolve("a.wav"), tempDir.resolve("b.wav"), tempDir.resolve("c.wav"));
+        BatchTranscriber batch = new BatchTranscriber(Runnable::run, 2, tempDir.resolve("checkpoints"), () -> false);
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean failB = new AtomicBoolean(true);
+        BatchTranscriber.FileTranscriber transcriber = file -> {
+            calls.incrementAndGet();
+            if (failB.get() && file.endsWith("b.wav")) {
+                return new LocalSocketServer.Reply(500, "{\"error\":\"whisper failed\"}");
+            }
+            return new LocalSocketServer.Reply(200, "{\"text\":\"" + file.getFileName() + "\"}");
+        };
+
+        List<String> first = new ArrayList<>();
+        BatchTranscriber.Summary summary = batch.run(files, "k", true, transcriber, first::add);
+        assertEquals(3, summary.total);
+        assertEquals(2, summary.transcribed);
+        assertEquals(1, summary.failed);
+        assertTrue(first.stream().anyMatch(l -> l.contains("whisper failed")));
+
+        failB.set(false);
+        List<String> second = new ArrayList<>();
+        summary = batch.run(files, "k", true, transcriber, second::add);
+        assertEquals(2, summary.resumed);
+        assertEquals(1, summary.transcribed);
+        assertEquals(4, calls.get());
+        assertEquals(3, second.size());
+        assertTrue(second.get(2).contains("\"text\":\"b.wav\""));
+
+        // resume=false starts over
+        summary = batch.run(files, "k", false, transcriber, l -> { });
+        assertEquals(0, summary.resumed);
+        assertEquals(7, calls.get());
+    }
+
+    @Test
+    @DisplayName("Workers should not start a file while an interactive transcription runs")
+    void testYieldsToInteractive() throws Exception {
+        AtomicBoolean busy = new AtomicBoolean(true);
+        AtomicInteger calls = new AtomicInteger();
+        BatchTranscriber batch = new BatchTranscriber(
+            r -> new Thread(r).start(), 1, tempDir, busy::get);
+        AtomicInteger callsWhileBusy = new AtomicInteger(-1);
+        Thread release = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ignored) {
+            }
+            callsWhileBusy.set(calls.get());
+            busy.set(false);
+        });
+        release.start();
+
+        BatchTranscriber.Summary summary = batch.run(List.of(tempDir.resolve("a.wav")), "y", true, file -> {
+            calls.incrementAndGet();
+            return new LocalSocketServer.Reply(200, "{}");
+        }, l -> { });
+        release.join();
+
+        assertEquals(0, callsWhileBusy.get());
+        assertEquals(1, summary.transcribed);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("A failing consumer should abandon files not yet started")
+    void testClientGone() throws Exception {
+        List<Path> files = List.of(tempDir.resolve("a.wav"), tempDir.resolve("b.wav"), tempDir.resolve("c.wav"));
+        List<Thread> workers = new ArrayList<>();
+        BatchTranscriber batch = new BatchTranscriber(r -> {
+            Thread t = new Thread(r);
+            workers.add(t);
+            t.start();
+        }, 1, tempDir, () -> false);
+        List<Path> started = java.util.Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch clientGone = new CountDownLatch(1);
+
+        assertThrows(IllegalStateException.class, () -> batch.run(files, "g", true, file -> {
+            started.add(file);
+            if (file.endsWith("b.wav")) {
+                try {
+                    clientGone.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new LocalSocketServer.Reply(200, "{}");
+        }, l -> {
+            throw new IllegalStateException("closed");
+        }));
+        clientGone.countDown();
+        workers.get(0).join(5000);
+
+        // a was delivered (and failed to send), b may have been in flight, c never started
+        assertEquals(files.get(0), started.get(0));
+        assertFalse(started.contains(files.get(2)));
+    }
+}
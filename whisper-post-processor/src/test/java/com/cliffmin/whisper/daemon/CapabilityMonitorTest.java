@@ -0,0 +1,99 @@
+package com.cliffmin.whisper.daemon;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapabilityMonitorTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Reading the snapshot should never run a probe")
+    void testCurrentDoesNotProbe() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        CapabilityMonitor monitor = new CapabilityMonitor(
+            () -> probes.incrementAndGet() > 0, () -> true, () -> false, scheduler, Duration.ofHours(1));
+
+        assertFalse(monitor.current().isProbed());
+        monitor.start();
+        awaitProbed(monitor);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(monitor.current().whisperAvailable);
+        }
+        assertEquals(1, probes.get());
+        assertTrue(monitor.current().modelAvailable);
+        assertFalse(monitor.current().ffmpegAvailable);
+    }
+
+    @Test
+    @DisplayName("Invalidation should refresh before the TTL and collapse repeated signals")
+    void testInvalidate() throws Exception {
+        AtomicBoolean whisperInstalled = new AtomicBoolean(true);
+        AtomicInteger probes = new AtomicInteger();
+        CapabilityMonitor monitor = new CapabilityMonitor(() -> {
+            probes.incrementAndGet();
+            return whisperInstalled.get();
+        }, () -> true, () -> true, scheduler, Duration.ofHours(1));
+        monitor.start();
+        awaitProbed(monitor);
+        assertTrue(monitor.current().whisperAvailable);
+
+        // Hold the scheduler so the signals queue up behind one refresh
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        whisperInstalled.set(false);
+        for (int i = 0; i < 5; i++) {
+            monitor.invalidate();
+        }
+        release.countDown();
+        scheduler.submit(() -> { }).get(5, TimeUnit.SECONDS);
+
+        assertFalse(monitor.current().whisperAvailable);
+        assertEquals(2, probes.get());
+    }
+
+    @Test
+    @DisplayName("A throwing probe should report the dependency as unavailable")
+    void testProbeFailure() {
+        CapabilityMonitor monitor = new CapabilityMonitor(
+            () -> { throw new IllegalStateException("boom"); }, () -> true, () -> true,
+            scheduler, Duration.ofHours(1));
+
+        CapabilityMonitor.Snapshot snapshot = monitor.refresh();
+
+        assertTrue(snapshot.isProbed());
+        assertFalse(snapshot.whisperAvailable);
+        assertTrue(snapshot.modelAvailable);
+    }
+
+    private static void awaitProbed(CapabilityMonitor monitor) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!monitor.current().isProbed() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(monitor.current().isProbed());
+    }
+}
@@ -0,0 +1,130 @@
+package com.cliffmin.whisper.daemon;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveTranscriptionSessionTest {
+
+    private static final int RATE = LiveTranscriptionSession.SAMPLE_RATE;
+    private final Executor direct = Runnable::run;
+
+    @Test
+    @DisplayName("Should transcribe completed regions before recording ends")
+    void testSpeculativeRegions() throws Exception {
+        List<Integer> decodedLengths = new CopyOnWriteArrayList<>();
+        List<String> partials = new CopyOnWriteArrayList<>();
+        LiveTranscriptionSession session = new LiveTranscriptionSession(
+            (samples, length) -> {
+                decodedLengths.add(length);
+                return "region" + decodedLengths.size();
+            },
+            direct, direct, (i, text) -> partials.add(text));
+
+        feed(session, tone(3.0));
+        feed(session, silence(1.0));
+        // First region is decoded while the user is still "speaking"
+        assertEquals(1, session.getRegionCount());
+        assertEquals(List.of("region1"), partials);
+
+        feed(session, tone(1.0));
+        String text = session.finish().get(5, TimeUnit.SECONDS);
+
+        assertEquals("region1 region2", text);
+        assertEquals(2, decodedLengths.size());
+        // Tail decode covers only the last phrase, not the whole recording
+        assertTrue(decodedLengths.get(1) < RATE * 2);
+    }
+
+    @Test
+    @DisplayName("Should not decode pure silence")
+    void testSilenceOnly() throws Exception {
+        List<Integer> calls = new CopyOnWriteArrayList<>();
+        LiveTranscriptionSession session = new LiveTranscriptionSession(
+            (samples, length) -> { calls.add(length); return "x"; }, direct, direct, null);
+
+        feed(session, silence(5.0));
+        assertEquals("", session.finish().get(5, TimeUnit.SECONDS));
+        assertTrue(calls.isEmpty());
+        assertEquals(5.0, session.getReceivedSeconds(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Should force a cut on long regions without pauses")
+    void testMaxRegionLength() throws Exception {
+        List<Integer> lengths = new CopyOnWriteArrayList<>();
+        LiveTranscriptionSession session = new LiveTranscriptionSession(
+            (samples, length) -> { lengths.add(length); return "t"; }, direct, direct, null);
+
+        for (int i = 0; i < 40; i++) {
+            feed(session, tone(1.0));
+        }
+        session.finish().get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, lengths.size());
+        assertTrue(lengths.get(0) <= RATE * 28);
+    }
+
+    @Test
+    @DisplayName("Should ignore audio after finish")
+    void testFinishStopsIngestion() throws Exception {
+        LiveTranscriptionSession session = new LiveTranscriptionSession(
+            (samples, length) -> "t", direct, direct, null);
+        session.finish().get(5, TimeUnit.SECONDS);
+        feed(session, tone(1.0));
+        assertEquals(0.0, session.getReceivedSeconds());
+    }
+
+    @Test
+    @DisplayName("Should drop queued regions when the client disconnects")
+    void testCancelDropsQueuedRegions() throws Exception {
+        List<Runnable> queued = new CopyOnWriteArrayList<>();
+        List<Integer> decoded = new CopyOnWriteArrayList<>();
+        LiveTranscriptionSession session = new LiveTranscriptionSession(
+            (samples, length) -> { decoded.add(length); return "t"; }, direct, queued::add, null);
+
+        feed(session, tone(3.0));
+        feed(session, silence(1.0));
+        assertEquals(1, queued.size(), "region waiting for the whisper thread");
+
+        session.cancel();
+        queued.forEach(Runnable::run);
+        feed(session, tone(3.0));
+        feed(session, silence(1.0));
+
+        assertTrue(decoded.isEmpty(), "cancelled region is not decoded");
+        assertEquals(1, queued.size(), "no new regions after cancel");
+    }
+
+    private static void feed(LiveTranscriptionSession session, short[] samples) {
+        // Deliver in 100ms websocket-sized frames
+        int frame = RATE / 10;
+        for (int off = 0; off < samples.length; off += frame) {
+            int n = Math.min(frame, samples.length - off);
+            ByteBuffer buf = ByteBuffer.allocate(n * 2).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < n; i++) buf.putShort(samples[off + i]);
+            buf.flip();
+            session.onPcm(buf);
+        }
+    }
+
+    private static short[] tone(double seconds) {
+        short[] s = new short[(int) (seconds * RATE)];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = (short) (8000 * Math.sin(2 * Math.PI * 440 * i / RATE));
+        }
+        return s;
+    }
+
+    private static short[] silence(double seconds) {
+        return new short[(int) (seconds * RATE)];
+    }
+}
@@ -0,0 +1,91 @@
+package com.cliffmin.whisper.daemon;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalSocketServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should answer several framed requests on one connection")
+    void testRoundTrips() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        Path socket = tempDir.resolve("d.sock");
+        try (LocalSocketServer server = new LocalSocketServer(socket, echo(), executor)) {
+            server.start();
+            try (LocalSocketClient client = new LocalSocketClient(socket)) {
+                LocalSocketServer.Reply health = client.call(LocalSocketServer.OP_HEALTH, "");
+                assertEquals(200, health.status);
+                assertEquals("{\"op\":1,\"body\":\"\"}", health.body);
+
+                LocalSocketServer.Reply transcribe = client.call(LocalSocketServer.OP_TRANSCRIBE, "héllo");
+                assertEquals("{\"op\":2,\"body\":\"héllo\"}", transcribe.body);
+
+                LocalSocketServer.Reply failed = client.call((byte) 9, "");
+                assertEquals(500, failed.status);
+                assertEquals("{\"error\":\"unknown op\"}", failed.body);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    @DisplayName("Should replace a stale socket file but not steal a live one")
+    void testStaleAndLiveSockets() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        Path socket = tempDir.resolve("d.sock");
+        Files.writeString(socket, "stale");
+        try (LocalSocketServer first = new LocalSocketServer(socket, echo(), executor)) {
+            first.start();
+            LocalSocketServer second = new LocalSocketServer(socket, echo(), executor);
+            assertThrows(IOException.class, second::start);
+
+            try (LocalSocketClient client = new LocalSocketClient(socket)) {
+                assertEquals(200, client.call(LocalSocketServer.OP_HEALTH, "").status);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should drop connections that announce an oversized frame")
+    void testOversizedFrame() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        Path socket = tempDir.resolve("d.sock");
+        try (LocalSocketServer server = new LocalSocketServer(socket, echo(), executor);
+             SocketChannel raw = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.start();
+            raw.connect(UnixDomainSocketAddress.of(socket));
+            raw.write(ByteBuffer.allocate(5).put(LocalSocketServer.OP_HEALTH)
+                .putInt(LocalSocketServer.MAX_FRAME_BYTES + 1).flip());
+            assertEquals(-1, raw.read(ByteBuffer.allocate(6)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static LocalSocketServer.Handler echo() {
+        return (op, body) -> {
+            if (op > LocalSocketServer.OP_PREWARM) throw new IllegalArgumentException("unknown op");
+            return new LocalSocketServer.Reply(200, "{\"op\":" + op + ",\"body\":\"" + body + "\"}");
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.cliffmin.whisper.daemon;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PTTServiceDaemonCacheKeyTest {
+
+    @Test
+    @DisplayName("Prompts with equal hash codes should get different cache keys")
+    void testPromptsWithEqualHashCodes() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(PTTServiceDaemon.cacheKey("abc", "base.en", "en", "Aa"),
+                PTTServiceDaemon.cacheKey("abc", "base.en", "en", "BB"));
+        assertEquals(PTTServiceDaemon.cacheKey("abc", "base.en", "en", "Aa"),
+                PTTServiceDaemon.cacheKey("abc", "base.en", "en", "Aa"));
+    }
+
+    @Test
+    @DisplayName("No prompt and an empty prompt should get different cache keys")
+    void testNullPrompt() {
+        assertNotEquals(PTTServiceDaemon.cacheKey("abc", "base.en", "en", null),
+                PTTServiceDaemon.cacheKey("abc", "base.en", "en", ""));
+    }
+}
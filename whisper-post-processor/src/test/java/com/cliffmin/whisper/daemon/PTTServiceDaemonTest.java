@@ -1,23 +1,37 @@
 package com.cliffmin.whisper.daemon;
 
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.config.Configuration;
+import com.cliffmin.whisper.service.WhisperCppAdapter;
+import com.google.gson.Gson;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @Tag("integration")
 class PTTServiceDaemonTest {
 
+    @TempDir
+    Path tempDir;
+
     private PTTServiceDaemon daemon;
+    private Path socket;
 
     @BeforeEach
     void setup() {
-        daemon = new PTTServiceDaemon();
-        daemon.start(8876);
+        socket = tempDir.resolve("ptt.sock");
+        // Defaults rather than the user's config file, with the transaction log kept in the temp dir
+        Configuration config = Configuration.defaults().txLogDir(tempDir.resolve("tx_logs").toString()).build();
+        daemon = new PTTServiceDaemon(new WhisperCppAdapter(), new AudioProcessor(), config);
+        daemon.start(8876, socket);
     }
 
     @AfterEach
@@ -44,4 +58,52 @@ class PTTServiceDaemonTest {
         conn.getOutputStream().write(body);
         assertEquals(400, conn.getResponseCode());
     }
+
+    @Test
+    void prewarmEndpoint_answersAtOnce() throws Exception {
+        // Whether work starts depends on the machine's models; repeat calls are covered by PrewarmerTest
+        int first = post("/prewarm", "{\"model\":\"base.en\"}");
+        assertTrue(first == 200 || first == 202);
+    }
+
+    @Test
+    void jobEvents_streamUntilError() throws Exception {
+        HttpURLConnection submit = (HttpURLConnection) new URL("http://127.0.0.1:8876/jobs").openConnection();
+        submit.setRequestMethod("POST");
+        submit.setDoOutput(true);
+        submit.setRequestProperty("Content-Type", "application/json");
+        submit.getOutputStream().write("{\"path\":\"/no/such/file.wav\"}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(202, submit.getResponseCode());
+        Map<?,?> job = new Gson().fromJson(new String(submit.getInputStream().readAllBytes(), StandardCharsets.UTF_8), Map.class);
+
+        HttpURLConnection events = (HttpURLConnection) new URL("http://127.0.0.1:8876" + job.get("events")).openConnection();
+        events.setReadTimeout(10_000);
+        assertEquals(200, events.getResponseCode());
+        // The stream closes after the terminal event
+        String stream = new String(events.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(stream.contains("event:progress") || stream.contains("event: progress"));
+        assertTrue(stream.contains("audio file not found"));
+
+        HttpURLConnection missing = (HttpURLConnection) new URL("http://127.0.0.1:8876/jobs/nope/events").openConnection();
+        assertEquals(404, missing.getResponseCode());
+    }
+
+    private static int post(String path, String json) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL("http://127.0.0.1:8876" + path).openConnection();
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        conn.setRequestProperty("Content-Type", "application/json");
+        conn.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
+        return conn.getResponseCode();
+    }
+
+    @Test
+    void socketTransport() throws Exception {
+        try (LocalSocketClient client = new LocalSocketClient(socket)) {
+            assertEquals(200, client.call(LocalSocketServer.OP_HEALTH, "").status);
+            assertEquals(400, client.call(LocalSocketServer.OP_TRANSCRIBE, "{\"path\":\"/no/such/file.wav\"}").status);
+            int prewarm = client.call(LocalSocketServer.OP_PREWARM, "").status;
+            assertTrue(prewarm == 200 || prewarm == 202);
+        }
+    }
 }
@@ -31,6 +31,8 @@ class PTTServiceDaemonWiredConfigTest {
         Configuration cfg = Configuration.defaults()
             .whisperModel("cfg-model")
             .language("de")
+            .socketPath("")
+            .txLogDir("")
             .build();
 
         PTTServiceDaemon daemon = new PTTServiceDaemon(mockWhisper, mockAudio, cfg);
@@ -0,0 +1,89 @@
+package com.cliffmin.whisper.daemon;
+
+import com.cliffmin.whisper.pipeline.ProcessingPipeline;
+import com.cliffmin.whisper.service.ModelManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrewarmerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should load the model and warm the pipeline once, then report warm")
+    void testIdempotent() throws Exception {
+        Files.write(tempDir.resolve("ggml-base.en.bin"), new byte[3 << 20]);
+        Files.write(tempDir.resolve("ggml-small.en.bin"), new byte[1 << 20]);
+        ModelManager models = new ModelManager(tempDir);
+        AtomicInteger pipelineRuns = new AtomicInteger();
+        Prewarmer prewarmer = new Prewarmer(models, countingPipeline(pipelineRuns), Runnable::run);
+
+        Prewarmer.Status first = prewarmer.prewarm("base.en");
+        assertTrue(first.started);
+        assertTrue(first.modelResident);
+        assertTrue(first.pipelineWarm);
+        assertEquals(Prewarmer.PIPELINE_ITERATIONS, pipelineRuns.get());
+        assertTrue(models.activeModels().contains("base.en"));
+
+        Prewarmer.Status second = prewarmer.prewarm("base.en");
+        assertFalse(second.started);
+        assertEquals(Prewarmer.PIPELINE_ITERATIONS, pipelineRuns.get());
+
+        // Another model only needs its own pages; the pipeline stays warm
+        assertTrue(prewarmer.prewarm("small.en").started);
+        assertTrue(models.isResident("small.en"));
+        assertEquals(Prewarmer.PIPELINE_ITERATIONS, pipelineRuns.get());
+    }
+
+    @Test
+    @DisplayName("Calls while warming should join the running warm-up")
+    void testCoalescesInFlight() {
+        List<Runnable> queued = new ArrayList<>();
+        AtomicInteger pipelineRuns = new AtomicInteger();
+        Prewarmer prewarmer = new Prewarmer(null, countingPipeline(pipelineRuns), queued::add);
+
+        assertTrue(prewarmer.prewarm("base.en").started);
+        Prewarmer.Status again = prewarmer.prewarm("base.en");
+        assertFalse(again.started);
+        assertFalse(again.pipelineWarm);
+        assertEquals(1, queued.size());
+
+        queued.get(0).run();
+        assertTrue(prewarmer.isWarm("base.en"));
+    }
+
+    @Test
+    @DisplayName("A model without a file should count as loaded and not be marked active")
+    void testUnknownModel() {
+        ModelManager models = new ModelManager(tempDir);
+        List<Runnable> queued = new ArrayList<>();
+        AtomicInteger pipelineRuns = new AtomicInteger();
+        Prewarmer prewarmer = new Prewarmer(models, countingPipeline(pipelineRuns), queued::add);
+
+        Prewarmer.Status first = prewarmer.prewarm("medium.en");
+        assertTrue(first.started);
+        assertTrue(first.modelResident);
+        queued.remove(0).run();
+
+        assertTrue(prewarmer.isWarm("medium.en"));
+        assertFalse(prewarmer.prewarm("medium.en").started);
+        assertTrue(models.activeModels().isEmpty());
+    }
+
+    private static ProcessingPipeline countingPipeline(AtomicInteger runs) {
+        return new ProcessingPipeline().addProcessor(input -> {
+            runs.incrementAndGet();
+            return input;
+        });
+    }
+}
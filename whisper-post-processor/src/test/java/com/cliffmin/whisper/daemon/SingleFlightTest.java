@@ -0,0 +1,103 @@
+package com.cliffmin.whisper.daemon;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("Concurrent calls for one key should run once and all receive the result")
+    void testCoalesces() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        try {
+            Future<SingleFlight.Outcome<String>> leader = pool.submit(() -> flights.run("a.wav|base.en", () -> {
+                runs.incrementAndGet();
+                entered.countDown();
+                release.await();
+                return "hello";
+            }));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            List<Future<SingleFlight.Outcome<String>>> followers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                followers.add(pool.submit(() -> flights.run("a.wav|base.en", () -> {
+                    runs.incrementAndGet();
+                    return "again";
+                })));
+            }
+            // Followers are parked on the leader's call
+            Thread.sleep(50);
+            assertEquals(1, flights.inFlight());
+            release.countDown();
+
+            assertFalse(leader.get(5, TimeUnit.SECONDS).shared);
+            for (Future<SingleFlight.Outcome<String>> f : followers) {
+                SingleFlight.Outcome<String> outcome = f.get(5, TimeUnit.SECONDS);
+                assertEquals("hello", outcome.value);
+                assertTrue(outcome.shared);
+            }
+            assertEquals(1, runs.get());
+            assertEquals(0, flights.inFlight());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Different keys and later calls should run independently")
+    void testIndependentKeys() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+
+        assertEquals(1, flights.run("base.en", runs::incrementAndGet).value.intValue());
+        assertEquals(2, flights.run("small.en", runs::incrementAndGet).value.intValue());
+        // Nothing is cached once a call completes
+        SingleFlight.Outcome<Integer> again = flights.run("base.en", runs::incrementAndGet);
+        assertEquals(3, again.value.intValue());
+        assertFalse(again.shared);
+    }
+
+    @Test
+    @DisplayName("A failure should reach the caller that ran it and every caller that joined")
+    void testSharesFailure() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> leader = pool.submit(() -> flights.run("k", () -> {
+                entered.countDown();
+                release.await();
+                throw new IOException("whisper failed");
+            }));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            Future<?> follower = pool.submit(() -> flights.run("k", () -> "unused"));
+            Thread.sleep(50);
+            release.countDown();
+
+            Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, leaderError.getCause());
+            assertInstanceOf(IOException.class, followerError.getCause());
+            assertEquals(0, flights.inFlight());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
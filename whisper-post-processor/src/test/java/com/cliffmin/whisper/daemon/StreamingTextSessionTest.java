@@ -0,0 +1,117 @@
+package com.cliffmin.whisper.daemon;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingTextSessionTest {
+
+    private final Deque<Runnable> queue = new ArrayDeque<>();
+    private final List<String> sent = new ArrayList<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    @Test
+    @DisplayName("Chunks arriving while a run is pending should fold into one run over the latest text")
+    void testCoalesces() {
+        StreamingTextSession session = new StreamingTextSession(String::toUpperCase, queue::add, sent::add, coalesced::addAndGet);
+
+        assertTrue(session.onChunk("a"));
+        assertTrue(session.onChunk("b"));
+        assertTrue(session.onChunk("c"));
+        assertEquals(1, queue.size());
+
+        queue.poll().run();
+
+        assertEquals(List.of("ABC"), sent);
+        assertEquals(2, coalesced.get());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @DisplayName("A chunk arriving during a run should requeue the session behind others, in order")
+    void testRequeuesAfterRun() {
+        StreamingTextSession[] self = new StreamingTextSession[1];
+        self[0] = new StreamingTextSession(text -> {
+            if (text.equals("a")) self[0].onChunk("b");   // arrives mid-run
+            return text;
+        }, queue::add, sent::add, coalesced::addAndGet);
+
+        self[0].onChunk("a");
+        queue.poll().run();
+        assertEquals(List.of("a"), sent);
+        assertEquals(1, queue.size());
+
+        queue.poll().run();
+        assertEquals(List.of("a", "ab"), sent);
+        assertEquals(0, coalesced.get());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @DisplayName("A saturated pool should report busy and keep the chunk for the next run")
+    void testRejected() {
+        boolean[] full = {true};
+        StreamingTextSession session = new StreamingTextSession(text -> text, task -> {
+            if (full[0]) throw new RejectedExecutionException("full");
+            queue.add(task);
+        }, sent::add, coalesced::addAndGet);
+
+        assertFalse(session.onChunk("hello "));
+        full[0] = false;
+        assertTrue(session.onChunk("world"));
+        queue.poll().run();
+
+        assertEquals(List.of("hello world"), sent);
+    }
+
+    @Test
+    @DisplayName("A rejected re-queue after a run should report busy and keep the text for the next chunk")
+    void testRejectedRequeue() {
+        boolean[] full = {false};
+        int[] busy = {0};
+        StreamingTextSession[] self = new StreamingTextSession[1];
+        self[0] = new StreamingTextSession(text -> {
+            if (text.equals("a")) {
+                self[0].onChunk("b");   // arrives mid-run, then the pool fills up
+                full[0] = true;
+            }
+            return text;
+        }, task -> {
+            if (full[0]) throw new RejectedExecutionException("full");
+            queue.add(task);
+        }, sent::add, coalesced::addAndGet, () -> busy[0]++);
+
+        self[0].onChunk("a");
+        queue.poll().run();
+        assertEquals(List.of("a"), sent);
+        assertEquals(1, busy[0], "the client is told to resend");
+        assertTrue(queue.isEmpty());
+
+        full[0] = false;
+        assertTrue(self[0].onChunk(""));
+        queue.poll().run();
+        assertEquals(List.of("a", "ab"), sent, "the buffered chunk is not lost");
+    }
+
+    @Test
+    @DisplayName("A failing pipeline run should not wedge the session")
+    void testFailureDoesNotWedge() {
+        StreamingTextSession session = new StreamingTextSession(text -> {
+            if (text.equals("x")) throw new IllegalStateException("boom");
+            return text;
+        }, Runnable::run, sent::add, coalesced::addAndGet);
+
+        session.onChunk("x");
+        session.onChunk("y");
+
+        assertEquals(List.of("xy"), sent);
+    }
+}
@@ -0,0 +1,70 @@
+package com.cliffmin.whisper.daemon;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextDeltaEncoderTest {
+
+    private final Gson gson = new Gson();
+
+    @Test
+    @DisplayName("Should find the single changed span and round-trip it")
+    void testDelta() {
+        TextDeltaEncoder.Delta append = TextDeltaEncoder.Delta.between("Hello", "Hello world.");
+        assertEquals(5, append.offset);
+        assertEquals(0, append.deleted);
+        assertEquals(" world.", append.inserted);
+
+        // Capitalization and punctuation rewrites touch the middle of the text
+        TextDeltaEncoder.Delta edit = TextDeltaEncoder.Delta.between("so i think its fine", "So I think it's fine");
+        assertEquals("So I think it's fine", edit.applyTo("so i think its fine"));
+        assertEquals(0, edit.offset);
+
+        TextDeltaEncoder.Delta repeat = TextDeltaEncoder.Delta.between("aaa", "aaaa");
+        assertEquals("aaaa", repeat.applyTo("aaa"));
+        assertEquals(1, repeat.inserted.length());
+    }
+
+    @Test
+    @DisplayName("Should not split a surrogate pair")
+    void testSurrogates() {
+        String from = "note 😀";
+        String to = "note 😁";   // same high surrogate
+        TextDeltaEncoder.Delta delta = TextDeltaEncoder.Delta.between(from, to);
+        assertEquals(5, delta.offset);
+        assertEquals("😁", delta.inserted);
+        assertEquals(to, delta.applyTo(from));
+    }
+
+    @Test
+    @DisplayName("A client applying the messages should track the server text, with periodic snapshots")
+    void testStream() {
+        TextDeltaEncoder encoder = new TextDeltaEncoder(3);
+        List<String> texts = List.of("Hello", "Hello world", "Hello, world.", "Hello, world. Next", "Bye");
+        String client = null;
+        int snapshots = 0;
+        long expectedSeq = 1;
+        for (String text : texts) {
+            Map<?,?> msg = gson.fromJson(encoder.encode(text), Map.class);
+            assertEquals(2.0, msg.get("v"));
+            assertEquals((double) expectedSeq++, msg.get("seq"));
+            if (msg.containsKey("snapshot")) {
+                snapshots++;
+                client = (String) msg.get("snapshot");
+            } else {
+                int at = ((Number) msg.get("at")).intValue();
+                int del = ((Number) msg.get("del")).intValue();
+                client = new TextDeltaEncoder.Delta(at, del, (String) msg.get("ins")).applyTo(client);
+            }
+            assertEquals(text, client);
+        }
+        // First, fourth (interval 3), and the full rewrite to "Bye"
+        assertEquals(3, snapshots);
+    }
+}
@@ -0,0 +1,100 @@
+package com.cliffmin.whisper.daemon;
+
+import com.cliffmin.whisper.service.WhisperService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptionJobsTest {
+
+    @Test
+    @DisplayName("Should return before the work runs and stream stages, segments and the result in order")
+    void testSubmitAndStream() {
+        List<Runnable> queued = new ArrayList<>();
+        TranscriptionJobs jobs = new TranscriptionJobs(queued::add, 8);
+
+        TranscriptionJobs.Job job = jobs.submit(progress -> {
+            progress.stage("transcribing");
+            progress.segment(new WhisperService.Segment(0, 0.0, 2.0, "Hello", 1.0), 4.0);
+            progress.segment(new WhisperService.Segment(1, 2.0, 4.0, "world", 1.0), 4.0);
+            return new LocalSocketServer.Reply(200, "{\"text\":\"Hello world\"}");
+        });
+        assertEquals(TranscriptionJobs.State.QUEUED, job.state());
+        assertSame(job, jobs.get(job.id));
+
+        List<TranscriptionJobs.Event> received = new ArrayList<>();
+        job.subscribe(0, received::add);
+        assertEquals(1, received.size());   // "queued", replayed
+
+        queued.get(0).run();
+
+        assertEquals(TranscriptionJobs.State.DONE, job.state());
+        assertEquals(List.of("progress", "progress", "segment", "segment", "result"),
+            received.stream().map(e -> e.type).toList());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), received.stream().map(e -> e.id).toList());
+        assertTrue(received.get(3).data.contains("\"percent\":100"));
+        assertEquals("{\"text\":\"Hello world\"}", received.get(4).data);
+    }
+
+    @Test
+    @DisplayName("A late subscriber should receive only the events after its Last-Event-ID")
+    void testReplayAfterLastEventId() {
+        TranscriptionJobs jobs = new TranscriptionJobs(Runnable::run, 8);
+        TranscriptionJobs.Job job = jobs.submit(progress -> {
+            progress.stage("probing");
+            return new LocalSocketServer.Reply(400, "{\"error\":\"audio file not found\"}");
+        });
+        assertEquals(TranscriptionJobs.State.FAILED, job.state());
+
+        List<TranscriptionJobs.Event> received = new ArrayList<>();
+        job.subscribe(2, received::add);
+
+        assertEquals(1, received.size());
+        TranscriptionJobs.Event error = received.get(0);
+        assertTrue(error.isTerminal());
+        assertEquals(3, error.id);
+        assertEquals("{\"status\":400,\"error\":\"audio file not found\"}", error.data);
+    }
+
+    @Test
+    @DisplayName("Should drop finished jobs beyond the retention limit but keep running ones")
+    void testRetention() {
+        List<Runnable> queued = new ArrayList<>();
+        TranscriptionJobs jobs = new TranscriptionJobs(queued::add, 2);
+        TranscriptionJobs.Job pending = jobs.submit(progress -> new LocalSocketServer.Reply(200, "{}"));
+        TranscriptionJobs.Job done = jobs.submit(progress -> new LocalSocketServer.Reply(200, "{}"));
+        queued.get(1).run();
+
+        TranscriptionJobs.Job latest = jobs.submit(progress -> new LocalSocketServer.Reply(200, "{}"));
+
+        assertSame(pending, jobs.get(pending.id));
+        assertNull(jobs.get(done.id));
+        assertSame(latest, jobs.get(latest.id));
+        assertEquals(2, jobs.count(TranscriptionJobs.State.QUEUED));
+        assertEquals(0, jobs.count(TranscriptionJobs.State.DONE));
+    }
+
+    @Test
+    @DisplayName("A failing subscriber should not stop the job")
+    void testBrokenSubscriber() {
+        List<Runnable> queued = new ArrayList<>();
+        TranscriptionJobs jobs = new TranscriptionJobs(queued::add, 8);
+        TranscriptionJobs.Job job = jobs.submit(progress -> new LocalSocketServer.Reply(200, "{}"));
+        Consumer<TranscriptionJobs.Event> broken = e -> {
+            if (e.id > 1) throw new IllegalStateException("closed");
+        };
+        List<TranscriptionJobs.Event> healthy = new ArrayList<>();
+        job.subscribe(0, broken);
+        job.subscribe(0, healthy::add);
+
+        queued.get(0).run();
+
+        assertEquals(TranscriptionJobs.State.DONE, job.state());
+        assertEquals("result", healthy.get(healthy.size() - 1).type);
+    }
+}
@@ -0,0 +1,38 @@
+package com.cliffmin.whisper.daemon;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptionMetricsTest {
+
+    @Test
+    @DisplayName("Laps should bill each phase the time since the previous mark")
+    void testLaps() throws Exception {
+        TranscriptionMetrics.Timings timings = new TranscriptionMetrics.Timings();
+        Thread.sleep(20);
+        timings.lap(TranscriptionMetrics.Phase.PROBE);
+        Thread.sleep(50);
+        timings.restart();
+        timings.lap(TranscriptionMetrics.Phase.MODEL_SELECT);
+
+        assertTrue(timings.nanos(TranscriptionMetrics.Phase.PROBE) >= 20_000_000L);
+        assertTrue(timings.nanos(TranscriptionMetrics.Phase.MODEL_SELECT) < 20_000_000L, "restart leaves the gap unbilled");
+        assertFalse(timings.ran(TranscriptionMetrics.Phase.NORMALIZE));
+        assertEquals(-1, timings.nanos(TranscriptionMetrics.Phase.NORMALIZE));
+    }
+
+    @Test
+    @DisplayName("A phase lapped twice should accumulate")
+    void testRepeatedPhase() throws Exception {
+        TranscriptionMetrics.Timings timings = new TranscriptionMetrics.Timings();
+        Thread.sleep(10);
+        timings.lap(TranscriptionMetrics.Phase.WHISPER);
+        long first = timings.nanos(TranscriptionMetrics.Phase.WHISPER);
+        Thread.sleep(10);
+        timings.lap(TranscriptionMetrics.Phase.WHISPER);
+
+        assertTrue(timings.nanos(TranscriptionMetrics.Phase.WHISPER) >= first + 10_000_000L);
+    }
+}
@@ -0,0 +1,136 @@
+package com.cliffmin.whisper.jfr;
+
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.pipeline.ProcessingPipeline;
+import com.cliffmin.whisper.processors.CapitalizationProcessor;
+import com.cliffmin.whisper.processors.DisfluencyProcessor;
+import com.cliffmin.whisper.service.WhisperCppAdapter;
+import com.cliffmin.whisper.service.WhisperService;
+import com.cliffmin.whisper.testing.FakeWhisperCli;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The custom JFR events, recorded in-process and read back from the dump.
+ */
+class FlightRecorderEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should record one PipelineStage per processor with lengths")
+    void testPipelineStage() throws Exception {
+        ProcessingPipeline pipeline = new ProcessingPipeline()
+                .addProcessor(new DisfluencyProcessor())
+                .addProcessor(new CapitalizationProcessor());
+
+        List<RecordedEvent> events = record("com.cliffmin.whisper.PipelineStage",
+                () -> pipeline.process("um so the parser is ready"));
+
+        assertEquals(2, events.size());
+        RecordedEvent disfluency = events.stream()
+                .filter(e -> e.getString("processor").equals("DisfluencyProcessor")).findFirst().orElseThrow();
+        assertEquals(25, disfluency.getInt("inputLength"));
+        assertTrue(disfluency.getInt("outputLength") < 25, "filler removed");
+    }
+
+    @Test
+    @DisplayName("Should record AudioNormalize with the input and method")
+    void testAudioNormalize() throws Exception {
+        Path input = writeStereo44k(tempDir.resolve("stereo.wav"));
+        AudioProcessor audio = new AudioProcessor();
+
+        List<RecordedEvent> events = record("com.cliffmin.whisper.AudioNormalize",
+                () -> audio.normalizeForWhisper(audio.probe(input), tempDir.resolve("out.wav")));
+
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals(input.toString(), event.getString("input"));
+        assertEquals("java", event.getString("method"));
+        assertTrue(event.getBoolean("succeeded"));
+        assertTrue(event.getLong("inputBytes") > 0);
+    }
+
+    @Test
+    @DisplayName("Should record WhisperInvocation with settings, audio length and exit code")
+    void testWhisperInvocation() throws Exception {
+        Path models = FakeWhisperCli.createModels(tempDir.resolve("models"), "base.en");
+        WhisperCppAdapter adapter = new WhisperCppAdapter(
+                FakeWhisperCli.install(tempDir.resolve("bin"), Map.of()).toString(), models, 30);
+        AudioProcessor audio = new AudioProcessor();
+        Path wav = audio.normalizeForWhisper(writeStereo44k(tempDir.resolve("clip.wav")), tempDir.resolve("clip16k.wav"));
+        WhisperService.TranscriptionOptions ok = new WhisperService.TranscriptionOptions.Builder()
+                .model("base.en").threads(2).beamSize(1).build();
+        WhisperService.TranscriptionOptions missing = new WhisperService.TranscriptionOptions.Builder()
+                .model("large-v3").build();
+
+        List<RecordedEvent> events = record("com.cliffmin.whisper.WhisperInvocation", () -> {
+            adapter.transcribe(wav, ok);
+            assertThrows(WhisperService.TranscriptionException.class, () -> adapter.transcribe(wav, missing));
+            return null;
+        });
+
+        assertEquals(2, events.size());
+        RecordedEvent first = events.get(0);
+        assertEquals("base.en", first.getString("model"));
+        assertEquals(2, first.getInt("threads"));
+        assertEquals(1, first.getInt("beamSize"));
+        assertEquals(1.0, first.getDouble("audioSeconds"), 0.01);
+        assertEquals(0, first.getInt("exitCode"));
+        assertTrue(first.getDuration().compareTo(Duration.ZERO) > 0);
+        assertNotEquals(0, events.get(1).getInt("exitCode"));
+    }
+
+    interface Action {
+        Object run() throws Exception;
+    }
+
+    private List<RecordedEvent> record(String eventName, Action action) throws Exception {
+        Path dump = tempDir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(dump);
+        }
+        return RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().equals(eventName))
+                .toList();
+    }
+
+    // One second of 44.1kHz stereo, which needs converting for Whisper
+    private static Path writeStereo44k(Path path) throws IOException {
+        AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+        byte[] pcm = new byte[44100 * 4];
+        for (int i = 0; i < 44100; i++) {
+            short s = (short) (6000 * Math.sin(2 * Math.PI * 220 * i / 44100.0));
+            for (int c = 0; c < 2; c++) {
+                pcm[i * 4 + c * 2] = (byte) s;
+                pcm[i * 4 + c * 2 + 1] = (byte) (s >> 8);
+            }
+        }
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(pcm), format, 44100)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, path.toFile());
+        }
+        return path;
+    }
+}
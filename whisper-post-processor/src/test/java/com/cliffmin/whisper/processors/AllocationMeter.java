@@ -0,0 +1,61 @@
+package com.cliffmin.whisper.processors;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bytes allocated on the calling thread per call, from HotSpot's per-thread allocation counter
+ * ({@link com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()}). The counter is exact
+ * for the thread and unaffected by GC or other threads, so budgets can be tight where timings
+ * cannot. Calls are warmed up first so the numbers reflect JIT-compiled code, where escape
+ * analysis removes some allocations the interpreter makes.
+ */
+final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * Whether this JVM counts per-thread allocation (HotSpot does; others may not).
+     */
+    static boolean isSupported() {
+        return THREADS != null && THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Mean bytes allocated by one {@code process.apply(input)}, after {@code warmup} unmeasured calls.
+     * The lowest of three rounds of {@code calls}, so a round that triggers a one-off allocation
+     * (a lazily built table, a resized cache) does not count against the steady state.
+     */
+    static long bytesPerCall(UnaryOperator<String> process, String input, int warmup, int calls) {
+        Object sink = null;
+        for (int i = 0; i < warmup; i++) sink = process.apply(input);
+        long fewest = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < calls; i++) sink = process.apply(input);
+            long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+            fewest = Math.min(fewest, allocated);
+        }
+        // Keep the result reachable so the calls cannot be optimized away
+        if (sink == null) throw new AssertionError("process returned null");
+        return Math.max(0, fewest - overhead(calls)) / calls;
+    }
+
+    // What reading the counter around an empty loop costs, so it is not billed to the processor
+    private static long overhead(int calls) {
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < calls; i++) Thread.onSpinWait();
+        return THREADS.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        try {
+            return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        } catch (ClassCastException e) {
+            return null;
+        }
+    }
+}
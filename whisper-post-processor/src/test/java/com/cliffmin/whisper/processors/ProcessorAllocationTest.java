@@ -0,0 +1,91 @@
+package com.cliffmin.whisper.processors;
+
+import com.cliffmin.whisper.pipeline.TextProcessor;
+import com.cliffmin.whisper.processors.TranscriptGenerator.Shape;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets for the post-processing hot path, in bytes allocated per input character for a
+ * 2 KB transcript (about a minute of dictation). Every byte here is garbage the daemon collects after
+ * each request, so a processor that starts copying the text once more per word shows up as GC
+ * pauses long before it shows up in timings.
+ *
+ * Budgets are about 1.5× what each processor allocated when they were set, which absorbs JDK and
+ * JIT differences. When a change legitimately needs more, raise the budget in the same change; when
+ * one allocates much less, lower it so the saving is kept.
+ */
+class ProcessorAllocationTest {
+
+    private static final int CHARS = 2048;
+    private static final int WARMUP_CALLS = 300;
+    private static final int MEASURED_CALLS = 20;
+
+    private static final Map<String, Double> BYTES_PER_CHAR = Map.ofEntries(
+            Map.entry("ReflowProcessor", 25.0),
+            Map.entry("MergedWordProcessor", 270.0),
+            Map.entry("ContractionNormalizer", 7.0),
+            Map.entry("ConjunctionFollowerSplitter", 11.0),
+            Map.entry("DisfluencyProcessor", 420.0),
+            Map.entry("SentenceBoundaryProcessor", 20.0),
+            Map.entry("PunctuationProcessor", 58.0),
+            Map.entry("CapitalizationProcessor", 21.0),
+            Map.entry("DictionaryProcessor", 104.0),
+            Map.entry("PunctuationNormalizer", 25.0),
+            Map.entry("Pipeline", 910.0));
+
+    @BeforeAll
+    static void requireAllocationCounter() {
+        assumeTrue(AllocationMeter.isSupported(), "JVM does not count per-thread allocation");
+    }
+
+    @Test
+    @DisplayName("Processors stay within their allocation budgets on punctuated speech")
+    void testNaturalSpeech() {
+        assertWithinBudget(Shape.NATURAL);
+    }
+
+    @Test
+    @DisplayName("Processors stay within their allocation budgets on unpunctuated speech")
+    void testNoPunctuation() {
+        assertWithinBudget(Shape.NO_PUNCTUATION);
+    }
+
+    @Test
+    @DisplayName("Every processor has a budget")
+    void testEveryProcessorBudgeted() {
+        for (TextProcessor processor : DefaultProcessors.create()) {
+            assertTrue(BYTES_PER_CHAR.containsKey(processor.getName()), processor.getName() + " has no budget");
+        }
+    }
+
+    private static void assertWithinBudget(Shape shape) {
+        String text = TranscriptGenerator.generate(shape, CHARS, 42);
+        List<String> failures = new ArrayList<>();
+        for (TextProcessor processor : DefaultProcessors.create()) {
+            check(processor.getName(), processor::process, text, failures);
+        }
+        check("Pipeline", DefaultProcessors.pipeline()::process, text, failures);
+        assertTrue(failures.isEmpty(), shape + " input allocates over budget:\n" + String.join("\n", failures));
+    }
+
+    private static void check(String name, UnaryOperator<String> process, String text, List<String> failures) {
+        Double budget = BYTES_PER_CHAR.get(name);
+        if (budget == null) return;
+        long bytes = AllocationMeter.bytesPerCall(process, text, WARMUP_CALLS, MEASURED_CALLS);
+        double perChar = (double) bytes / text.length();
+        if (perChar > budget) {
+            failures.add(String.format("  %s: %.1f bytes/char (%d bytes per call), budget %.0f",
+                    name, perChar, bytes, budget));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.cliffmin.whisper.processors;
+
+import com.cliffmin.whisper.pipeline.TextProcessor;
+import com.cliffmin.whisper.processors.TranscriptGenerator.Shape;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runtime of every processor, and of the whole pipeline, as synthetic transcripts grow from 1 KB to
+ * 1 MB (an hour of dictation is ~50 KB). Fails when runtime grows faster than linearly: a regex that
+ * backtracks over the whole input is invisible at dictation sizes and hangs the daemon at ten times
+ * them. Run with {@code ./gradlew scalabilityTest}; {@code -Pscalability.maxChars=...} caps the size.
+ */
+@Tag("scalability")
+class ProcessorScalabilityTest {
+
+    private static final int MIN_CHARS = 1 << 10;
+    private static final int MAX_CHARS = Integer.getInteger("scalability.maxChars", 1 << 20);
+    private static final int RUNS_PER_SIZE = 3;
+    // log-log slope of runtime against size: 1 is linear, 2 quadratic. Headroom for GC and JIT noise
+    private static final double MAX_GROWTH_EXPONENT = 1.5;
+    // Timings shorter than this are mostly noise and are left out of the fit
+    private static final double MIN_FITTED_MILLIS = 2.0;
+    // A single run this slow stops the sizes there; the fit still covers what was measured
+    private static final long SLOW_RUN_MILLIS = 5_000;
+    // A single run this slow is a hang
+    private static final Duration HANG = Duration.ofSeconds(60);
+
+    @Test
+    @DisplayName("Processors scale linearly on punctuated speech")
+    void testNaturalSpeech() {
+        assertLinear(Shape.NATURAL);
+    }
+
+    @Test
+    @DisplayName("Processors scale linearly on one unpunctuated run")
+    void testNoPunctuation() {
+        assertLinear(Shape.NO_PUNCTUATION);
+    }
+
+    @Test
+    @DisplayName("Processors scale linearly on conjunction-dense text")
+    void testConjunctions() {
+        assertLinear(Shape.CONJUNCTIONS);
+    }
+
+    @Test
+    @DisplayName("Processors scale linearly on one endless merged word")
+    void testMergedWords() {
+        assertLinear(Shape.MERGED);
+    }
+
+    private static void assertLinear(Shape shape) {
+        List<String> failures = new ArrayList<>();
+        for (TextProcessor processor : DefaultProcessors.create()) {
+            check(processor.getName(), processor::process, shape, failures);
+        }
+        check("Pipeline", DefaultProcessors.pipeline()::process, shape, failures);
+        assertTrue(failures.isEmpty(), shape + " input grows worse than linearly:\n" + String.join("\n", failures));
+    }
+
+
+    private static void check(String name, UnaryOperator<String> process, Shape shape, List<String> failures) {
+        // Warm up on the smallest input so the first size does not measure the interpreter
+        String warmup = TranscriptGenerator.generate(shape, MIN_CHARS, 7);
+        for (int i = 0; i < 20; i++) process.apply(warmup);
+
+        List<double[]> points = new ArrayList<>();
+        StringBuilder timings = new StringBuilder();
+        for (int chars = MIN_CHARS; chars <= MAX_CHARS; chars *= 4) {
+            String text = TranscriptGenerator.generate(shape, chars, 42);
+            double millis = fastestRun(process, text);
+            timings.append(String.format(" %dK=%.1fms", chars >> 10, millis));
+            if (millis >= MIN_FITTED_MILLIS) points.add(new double[] {Math.log(text.length()), Math.log(millis)});
+            if (millis >= SLOW_RUN_MILLIS) break;
+        }
+        if (points.size() >= 2) {
+            double exponent = slope(points);
+            if (exponent > MAX_GROWTH_EXPONENT) {
+                failures.add(String.format("  %s: exponent %.2f (%s)", name, exponent, timings.toString().trim()));
+            }
+        }
+    }
+
+    private static double fastestRun(UnaryOperator<String> process, String text) {
+        long[] fastest = {Long.MAX_VALUE};
+        assertTimeoutPreemptively(HANG, () -> {
+            for (int run = 0; run < RUNS_PER_SIZE; run++) {
+                long start = System.nanoTime();
+                process.apply(text);
+                long elapsed = System.nanoTime() - start;
+                fastest[0] = Math.min(fastest[0], elapsed);
+                if (elapsed >= SLOW_RUN_MILLIS * 1_000_000) break;
+            }
+        }, "processing " + text.length() + " chars did not finish");
+        return fastest[0] / 1e6;
+    }
+
+    // Least-squares slope of log(time) over log(size)
+    private static double slope(List<double[]> points) {
+        double meanX = points.stream().mapToDouble(p -> p[0]).average().orElse(0);
+        double meanY = points.stream().mapToDouble(p -> p[1]).average().orElse(0);
+        double num = 0;
+        double den = 0;
+        for (double[] p : points) {
+            num += (p[0] - meanX) * (p[1] - meanY);
+            den += (p[0] - meanX) * (p[0] - meanX);
+        }
+        return num / den;
+    }
+}
@@ -0,0 +1,55 @@
+package com.cliffmin.whisper.processors;
+
+import java.util.Random;
+
+/**
+ * Deterministic synthetic transcripts for scalability and allocation tests, in shapes that stress
+ * the processors' regular expressions: ordinary punctuated speech, one endless run of words with no
+ * punctuation (what a long dictation looks like when Whisper drops it), runs dense in conjunctions,
+ * and words merged into one endless token.
+ */
+final class TranscriptGenerator {
+
+    enum Shape { NATURAL, NO_PUNCTUATION, CONJUNCTIONS, MERGED }
+
+    private static final String[] WORDS = {
+        "so", "i", "think", "we", "should", "move", "the", "meeting", "to", "tuesday", "because", "api",
+        "isnt", "ready", "um", "uh", "you", "know", "basically", "like", "json", "parser", "github",
+        "dont", "cant", "its", "gonna", "wanna", "review", "ship", "friday", "code", "test", "deploy",
+        "the", "a", "of", "and", "but", "or", "then", "that", "this", "is", "was", "with", "for",
+    };
+    private static final String[] CONJUNCTIONS = {"and", "but", "so", "or", "because", "then"};
+
+    private TranscriptGenerator() {
+    }
+
+    /**
+     * Text of roughly {@code chars} characters (never fewer) in the given shape.
+     */
+    static String generate(Shape shape, int chars, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(chars + 32);
+        int wordsInSentence = 0;
+        int sentenceLength = 8 + random.nextInt(15);
+        while (sb.length() < chars) {
+            if (sb.length() > 0 && shape != Shape.MERGED) sb.append(' ');
+            switch (shape) {
+                case NATURAL -> {
+                    sb.append(WORDS[random.nextInt(WORDS.length)]);
+                    if (++wordsInSentence == sentenceLength) {
+                        sb.append(random.nextInt(4) == 0 ? '?' : '.');
+                        wordsInSentence = 0;
+                        sentenceLength = 8 + random.nextInt(15);
+                    } else if (random.nextInt(10) == 0) {
+                        sb.append(',');
+                    }
+                }
+                case NO_PUNCTUATION, MERGED -> sb.append(WORDS[random.nextInt(WORDS.length)]);
+                case CONJUNCTIONS -> sb.append(WORDS[random.nextInt(WORDS.length)])
+                        .append(' ').append(WORDS[random.nextInt(WORDS.length)])
+                        .append(' ').append(CONJUNCTIONS[random.nextInt(CONJUNCTIONS.length)]);
+            }
+        }
+        return sb.toString();
+    }
+}
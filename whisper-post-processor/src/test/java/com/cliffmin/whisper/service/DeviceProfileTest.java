@@ -0,0 +1,95 @@
+package com.cliffmin.whisper.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DeviceProfile persistence and the defaults WhisperCppAdapter takes from it.
+ */
+class DeviceProfileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static DeviceProfile profile() {
+        return new DeviceProfile("2026-10-18T12:00:00Z", 10, 6,
+                List.of(new DeviceProfile.ModelProfile("base.en", 1, 0.04, 250, 92),
+                        new DeviceProfile.ModelProfile("small.en", 5, 0.09, 600, 95)),
+                List.of(new DeviceProfile.Tier(30, "small.en"), new DeviceProfile.Tier(0, "base.en")));
+    }
+
+    @Test
+    @DisplayName("Should round-trip through its JSON file")
+    void testSaveAndLoad() throws Exception {
+        Path path = tempDir.resolve("nested/device-profile.json");
+        profile().save(path);
+
+        DeviceProfile loaded = DeviceProfile.load(path);
+
+        assertEquals(6, loaded.getThreads());
+        assertEquals(10, loaded.getProcessors());
+        assertEquals(2, loaded.getModels().size());
+        assertEquals(600, loaded.getModels().get(1).overheadMs);
+        assertTrue(Files.readString(path).contains("\"beam_size\""));
+    }
+
+    @Test
+    @DisplayName("Should pick the model by tier and the beam size by model")
+    void testLookups() {
+        DeviceProfile profile = profile();
+
+        assertEquals("small.en", profile.modelFor(0));
+        assertEquals("small.en", profile.modelFor(29.9));
+        assertEquals("base.en", profile.modelFor(30));
+        assertEquals("base.en", profile.modelFor(3600));
+        assertEquals(5, profile.beamSizeFor("small.en"));
+        assertEquals(0, profile.beamSizeFor("medium.en"));
+        assertNull(new DeviceProfile().modelFor(5));
+        assertEquals(850, profile.getModels().get(0).predictMillis(15), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should use the profile's threads, beam size and tiers for unset options")
+    void testAdapterDefaults() {
+        WhisperCppAdapter adapter = new WhisperCppAdapter("mock-whisper", tempDir, 10, profile());
+        Path audio = tempDir.resolve("clip.wav");
+
+        List<String> command = adapter.buildCommand(audio, options("small.en").build());
+        assertEquals("6", argument(command, "--threads"));
+        assertEquals("5", argument(command, "--beam-size"));
+
+        command = adapter.buildCommand(audio, options("small.en").threads(2).beamSize(3).build());
+        assertEquals("2", argument(command, "--threads"), "request wins");
+        assertEquals("3", argument(command, "--beam-size"));
+
+        assertEquals("small.en", adapter.detectModel(5));
+        assertEquals("base.en", adapter.detectModel(120));
+    }
+
+    @Test
+    @DisplayName("Should fall back to one thread per core and beam size 5 without a profile")
+    void testAdapterWithoutProfile() {
+        WhisperCppAdapter adapter = new WhisperCppAdapter("mock-whisper", tempDir, 10);
+
+        List<String> command = adapter.buildCommand(tempDir.resolve("clip.wav"), options("base.en").build());
+
+        assertEquals(String.valueOf(Runtime.getRuntime().availableProcessors()), argument(command, "--threads"));
+        assertEquals("5", argument(command, "--beam-size"));
+        assertEquals("tiny.en", adapter.detectModel(5));
+    }
+
+    private static WhisperService.TranscriptionOptions.Builder options(String model) {
+        return new WhisperService.TranscriptionOptions.Builder().model(model).language("en");
+    }
+
+    private static String argument(List<String> command, String flag) {
+        return command.get(command.indexOf(flag) + 1);
+    }
+}
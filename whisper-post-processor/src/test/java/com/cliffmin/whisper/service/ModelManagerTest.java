@@ -0,0 +1,71 @@
+package com.cliffmin.whisper.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelManagerTest {
+
+    @TempDir
+    Path modelsDir;
+
+    @Test
+    @DisplayName("Should discover ggml model files by name")
+    void testDiscover() throws Exception {
+        Files.write(modelsDir.resolve("ggml-base.en.bin"), new byte[16]);
+        Files.write(modelsDir.resolve("ggml-tiny.en.bin"), new byte[16]);
+        Files.write(modelsDir.resolve("README.md"), new byte[16]);
+
+        ModelManager manager = new ModelManager(modelsDir);
+
+        assertEquals(List.of("base.en", "tiny.en"), manager.discover());
+        assertEquals(List.of(), new ModelManager(modelsDir.resolve("missing")).discover());
+    }
+
+    @Test
+    @DisplayName("Should load an active model once and report it resident")
+    void testEnsureResident() throws Exception {
+        Files.write(modelsDir.resolve("ggml-base.en.bin"), new byte[4 << 20]);
+        ModelManager manager = new ModelManager(modelsDir);
+        assertFalse(manager.isResident("base.en"));
+
+        manager.markActive("base.en");
+        manager.markActive("small.en");   // no file: skipped
+        manager.refreshActive();
+
+        assertTrue(manager.isResident("base.en"));
+        assertFalse(manager.isResident("small.en"));
+        ModelManager.ModelInfo info = manager.models().get(0);
+        assertEquals("base.en", info.name);
+        assertEquals(4 << 20, info.sizeBytes);
+        assertTrue(info.active);
+        assertTrue(info.resident);
+    }
+
+    @Test
+    @DisplayName("Should remap a model file that was replaced")
+    void testReplacedFile() throws Exception {
+        Path file = modelsDir.resolve("ggml-base.en.bin");
+        Files.write(file, new byte[1 << 20]);
+        ModelManager manager = new ModelManager(modelsDir);
+        manager.ensureResident("base.en");
+
+        Files.write(file, new byte[2 << 20]);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        manager.ensureResident("base.en");
+
+        assertTrue(manager.isResident("base.en"));
+        assertEquals(2 << 20, manager.models().get(0).sizeBytes);
+
+        Files.delete(file);
+        assertFalse(manager.ensureResident("base.en"));
+        assertFalse(manager.isResident("base.en"));
+    }
+}
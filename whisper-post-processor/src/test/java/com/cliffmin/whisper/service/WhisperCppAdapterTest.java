@@ -0,0 +1,161 @@
+package com.cliffmin.whisper.service;
+
+import com.cliffmin.whisper.audio.AudioProcessor;
+import com.cliffmin.whisper.testing.FakeWhisperCli;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WhisperCppAdapter end to end against the fake whisper-cli: real process, arguments, stdout
+ * segments and JSON output file.
+ */
+class WhisperCppAdapterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path models;
+    private Path transcripts;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        models = FakeWhisperCli.createModels(tempDir.resolve("models"), "tiny.en", "base.en");
+        transcripts = Files.createDirectories(tempDir.resolve("transcripts"));
+    }
+
+    @Test
+    @DisplayName("Should return the canned transcript for known audio and stream its segments")
+    void testKnownAudio() throws Exception {
+        Path wav = writeWav(transcripts.resolve("meeting.wav"), 3.0, 220);
+        String expected = "move the meeting to tuesday because the api is not ready yet and we should "
+                + "review the parser on friday";
+        Files.writeString(transcripts.resolve("meeting.txt"), expected + "\n");
+        WhisperCppAdapter adapter = adapter(Map.of(FakeWhisperCli.ENV_TRANSCRIPTS, transcripts.toString()));
+
+        List<WhisperService.Segment> streamed = new ArrayList<>();
+        WhisperService.TranscriptionResult result = adapter.transcribe(wav, options("base.en"), streamed::add);
+
+        assertEquals(expected, result.getText());
+        assertEquals(2, result.getSegments().size(), "12 words per segment");
+        assertEquals(2, streamed.size());
+        assertEquals(3.0, result.getDuration(), 0.01);
+        assertEquals("base", result.getMetadata().get("model"));
+        assertFalse(Files.exists(Path.of(wav + ".json")), "whisper's JSON file is not written next to the input");
+    }
+
+    @Test
+    @DisplayName("Should keep concurrent runs on the same recording apart")
+    void testConcurrentRunsOnSameAudio() throws Exception {
+        Path wav = writeWav(tempDir.resolve("shared.wav"), 2.0, 220);
+        WhisperCppAdapter adapter = adapter(Map.of());
+        String tiny = adapter.transcribe(wav, options("tiny.en")).getText();
+        String base = adapter.transcribe(wav, options("base.en")).getText();
+
+        var pool = java.util.concurrent.Executors.newFixedThreadPool(4);
+        try {
+            List<java.util.concurrent.Future<String>> runs = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String model = i % 2 == 0 ? "tiny.en" : "base.en";
+                runs.add(pool.submit(() -> adapter.transcribe(wav, options(model)).getText()));
+            }
+            for (int i = 0; i < runs.size(); i++) {
+                assertEquals(i % 2 == 0 ? tiny : base, runs.get(i).get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        try (var files = Files.list(tempDir)) {
+            assertTrue(files.noneMatch(f -> f.toString().endsWith(".json")), "no side files left in the input's directory");
+        }
+    }
+
+    @Test
+    @DisplayName("Should launch background runs below normal priority")
+    void testBackgroundRun() throws Exception {
+        Path wav = writeWav(tempDir.resolve("batch.wav"), 1.0, 220);
+        WhisperCppAdapter adapter = adapter(Map.of());
+        WhisperService.TranscriptionOptions background = new WhisperService.TranscriptionOptions.Builder()
+                .model("tiny.en")
+                .threads(2)
+                .background(true)
+                .build();
+
+        List<String> command = adapter.buildCommand(wav, background);
+        assertEquals(WhisperCppAdapter.BACKGROUND_LAUNCHER, command.subList(0, WhisperCppAdapter.BACKGROUND_LAUNCHER.size()));
+        assertEquals("2", command.get(command.indexOf("--threads") + 1));
+        assertEquals(adapter.transcribe(wav, options("tiny.en")).getText(), adapter.transcribe(wav, background).getText());
+    }
+
+    @Test
+    @DisplayName("Should transcribe unknown audio deterministically")
+    void testUnknownAudioDeterministic() throws Exception {
+        Path wav = writeWav(tempDir.resolve("other.wav"), 2.0, 330);
+        WhisperCppAdapter adapter = adapter(Map.of());
+
+        String first = adapter.transcribe(wav, options("tiny.en")).getText();
+        String second = adapter.transcribe(wav, options("tiny.en")).getText();
+
+        assertFalse(first.isBlank());
+        assertEquals(first, second);
+    }
+
+    @Test
+    @DisplayName("Should take at least the simulated decode time")
+    void testDecodeDelayProportionalToDuration() throws Exception {
+        Path wav = writeWav(tempDir.resolve("long.wav"), 2.0, 440);
+        WhisperCppAdapter adapter = adapter(Map.of(FakeWhisperCli.ENV_RTF, "0.5"));
+        WhisperService.TranscriptionOptions options = options("base.en");
+        long expected = FakeWhisperCli.decodeMillis(2.0, 0.5, "base.en",
+                Runtime.getRuntime().availableProcessors(), WhisperCppAdapter.DEFAULT_BEAM_SIZE);
+
+        long start = System.nanoTime();
+        adapter.transcribe(wav, options);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs >= expected, "took " + elapsedMs + "ms, decode alone is " + expected + "ms");
+    }
+
+    @Test
+    @DisplayName("Should fail like whisper-cli when the model file is missing")
+    void testMissingModel() throws Exception {
+        Path wav = writeWav(tempDir.resolve("clip.wav"), 1.0, 220);
+        WhisperCppAdapter adapter = adapter(Map.of());
+
+        assertTrue(adapter.isAvailable(), "--help succeeds");
+        WhisperService.TranscriptionException e = assertThrows(WhisperService.TranscriptionException.class,
+                () -> adapter.transcribe(wav, options("large-v3")));
+        assertTrue(e.getMessage().contains("failed to initialize whisper context"), e.getMessage());
+    }
+
+    private WhisperCppAdapter adapter(Map<String, String> env) throws IOException {
+        Path binary = FakeWhisperCli.install(tempDir.resolve("bin"), env);
+        return new WhisperCppAdapter(binary.toString(), models, 30);
+    }
+
+    private static WhisperService.TranscriptionOptions options(String model) {
+        return new WhisperService.TranscriptionOptions.Builder()
+                .model(model)
+                .language("en")
+                .timestamps(true)
+                .build();
+    }
+
+    private static Path writeWav(Path path, double seconds, double hz) throws IOException {
+        short[] samples = new short[(int) (16000 * seconds)];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (6000 * Math.sin(2 * Math.PI * hz * i / 16000.0));
+        }
+        return new AudioProcessor().writeWhisperWav(samples, 0, samples.length, path);
+    }
+}
@@ -174,6 +174,21 @@ class WhisperServiceTest {
         assertEquals(cause, withCause.getCause());
     }
     
+    @Test
+    @DisplayName("Should parse progressive segment lines from whisper.cpp stdout")
+    void testParseSegmentLine() {
+        WhisperService.Segment segment = WhisperCppAdapter.parseSegmentLine(
+            "[00:01:02.500 --> 00:01:05.250]   Hello world.", 3);
+        assertNotNull(segment);
+        assertEquals(3, segment.getId());
+        assertEquals(62.5, segment.getStart(), 1e-9);
+        assertEquals(65.25, segment.getEnd(), 1e-9);
+        assertEquals("Hello world.", segment.getText());
+        
+        assertNull(WhisperCppAdapter.parseSegmentLine("whisper_init_from_file: loading model", 0));
+        assertNull(WhisperCppAdapter.parseSegmentLine("", 0));
+    }
+    
     @Test
     @DisplayName("Should check service availability")
     void testServiceAvailability() {
@@ -0,0 +1,418 @@
+package com.cliffmin.whisper.testing;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Stand-in for the whisper.cpp CLI ({@code whisper-cli}), so {@code WhisperCppAdapter},
+ * {@code WhisperInvoker} and the daemon can be exercised end to end without whisper.cpp or models.
+ *
+ * It parses whisper-cli's arguments, requires the model file to exist, and prints what whisper-cli
+ * prints: timestamped segment lines on stdout as they are "decoded" (plain lines with
+ * {@code --no-timestamps}), progress on stderr, and with {@code --output-json} a
+ * {@code <audio>.json} (or {@code <output-file>.json}) in whisper-cli's layout. The transcript is
+ * looked up by the SHA-256 of the audio file (the daemon's content hash); unknown audio gets filler
+ * words seeded by the hash, so every run is deterministic.
+ *
+ * Configured through the environment (see {@link #install}):
+ * <ul>
+ *   <li>{@value #ENV_TRANSCRIPTS}: a directory whose {@code name.wav}/{@code name.txt} pairs give
+ *       the transcripts (e.g. {@code tests/fixtures/golden-public}), or a JSON file of hash to text</li>
+ *   <li>{@value #ENV_RTF}: decode time per second of audio for base on 4 threads with beam size 1
+ *       (default {@value #DEFAULT_RTF}); scaled by model size, threads and beam size as in
+ *       {@link #decodeMillis}</li>
+ *   <li>{@value #ENV_LOAD_MS}: fixed model load time in ms (default 0)</li>
+ *   <li>{@value #ENV_WORD_ERROR_RATE}: fraction of words base gets wrong (default 0); halved for
+ *       each larger model and doubled for tiny</li>
+ * </ul>
+ */
+public final class FakeWhisperCli {
+    public static final String ENV_TRANSCRIPTS = "FAKE_WHISPER_TRANSCRIPTS";
+    public static final String ENV_RTF = "FAKE_WHISPER_RTF";
+    public static final String ENV_LOAD_MS = "FAKE_WHISPER_LOAD_MS";
+    public static final String ENV_WORD_ERROR_RATE = "FAKE_WHISPER_WORD_ERROR_RATE";
+    public static final double DEFAULT_RTF = 0.05;
+
+    // Bad arguments, unreadable or unwritable files, model that fails to load
+    static final int EXIT_USAGE = 1;
+    static final int EXIT_INPUT = 2;
+    static final int EXIT_MODEL = 3;
+
+    private static final Pattern MODEL_NAME = Pattern.compile("ggml-([a-z0-9.\\-]+?)(?:-q\\d.*)?\\.bin$");
+    private static final int WORDS_PER_SEGMENT = 12;
+    private static final String[] FILLER = {
+        "the", "meeting", "moved", "to", "tuesday", "because", "api", "review", "is", "not", "ready",
+        "we", "should", "ship", "on", "friday", "after", "tests", "pass", "and", "deploy",
+    };
+
+    private FakeWhisperCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.getenv(), System.out, System.err));
+    }
+
+    /**
+     * Write an executable {@code whisper-cli} launcher for this class into {@code dir}, exporting
+     * {@code env} (e.g. {@value #ENV_RTF}). Pass the returned path wherever a whisper binary goes.
+     */
+    public static Path install(Path dir, Map<String, String> env) throws IOException {
+        Files.createDirectories(dir);
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath;
+        try {
+            classpath = Path.of(FakeWhisperCli.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (java.net.URISyntaxException e) {
+            throw new IOException(e);
+        }
+        StringBuilder script = new StringBuilder("#!/bin/sh\n");
+        env.forEach((k, v) -> script.append("export ").append(k).append('=').append(shellQuote(v)).append('\n'));
+        // C1 only and CDS: start-up, not throughput, dominates a short-lived process
+        script.append("exec ").append(shellQuote(java)).append(" -Xshare:auto -XX:TieredStopAtLevel=1 -cp ")
+                .append(shellQuote(classpath)).append(' ').append(FakeWhisperCli.class.getName()).append(" \"$@\"\n");
+        Path launcher = dir.resolve("whisper-cli");
+        Files.writeString(launcher, script);
+        Files.setPosixFilePermissions(launcher, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return launcher;
+    }
+
+    /**
+     * Create placeholder {@code ggml-<model>.bin} files, enough for the existence checks.
+     */
+    public static Path createModels(Path dir, String... models) throws IOException {
+        Files.createDirectories(dir);
+        for (String model : models) {
+            // ggml magic, little-endian
+            Files.write(dir.resolve("ggml-" + model + ".bin"), "lmgg".getBytes(StandardCharsets.US_ASCII));
+        }
+        return dir;
+    }
+
+    /**
+     * SHA-256 of the file bytes, hex; the key for {@value #ENV_TRANSCRIPTS}.
+     */
+    public static String audioHash(Path audio) throws IOException {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(audio)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Simulated decode time: {@code rtf} per second of audio for base on 4 threads with beam size 1.
+     * Larger models cost more, threads help up to the core count (80% of the work parallelizes),
+     * and each extra beam adds 20%.
+     */
+    public static long decodeMillis(double audioSeconds, double rtf, String model, int threads, int beamSize) {
+        int usable = Math.max(1, Math.min(threads, Runtime.getRuntime().availableProcessors()));
+        double threadFactor = 0.2 + 0.8 * 4.0 / usable;
+        double beamFactor = 1 + 0.2 * (Math.max(1, beamSize) - 1);
+        return Math.round(audioSeconds * 1000 * rtf * modelCost(model) * threadFactor * beamFactor);
+    }
+
+    static int run(String[] args, Map<String, String> env, PrintStream out, PrintStream err) {
+        String modelPath = "models/ggml-base.en.bin";
+        String language = "en";
+        String outputFile = null;
+        int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+        int beamSize = 1;
+        boolean outputJson = false;
+        boolean timestamps = true;
+        List<String> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-h", "--help" -> {
+                        usage(out);
+                        return 0;
+                    }
+                    case "-m", "--model" -> modelPath = args[++i];
+                    case "-f", "--file" -> files.add(args[++i]);
+                    case "-l", "--language" -> language = args[++i];
+                    case "-t", "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "-bs", "--beam-size" -> beamSize = Integer.parseInt(args[++i]);
+                    case "-of", "--output-file" -> outputFile = args[++i];
+                    case "-oj", "--output-json" -> outputJson = true;
+                    case "-nt", "--no-timestamps" -> timestamps = false;
+                    // Accepted and ignored: they change nothing a caller can observe here
+                    case "--prompt", "-bo", "--best-of", "-p", "--processors", "-ot", "--offset-t",
+                            "-d", "--duration", "-ml", "--max-len" -> i++;
+                    case "-tr", "--translate", "-np", "--no-prints", "-pp", "--print-progress",
+                            "-otxt", "--output-txt", "-ng", "--no-gpu", "-fa", "--flash-attn" -> { }
+                    default -> {
+                        if (arg.startsWith("-")) {
+                            err.println("error: unknown argument: " + arg);
+                            usage(err);
+                            return EXIT_USAGE;
+                        }
+                        files.add(arg);
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            err.println("error: invalid arguments");
+            usage(err);
+            return EXIT_USAGE;
+        }
+        if (files.isEmpty()) {
+            err.println("error: no input files specified");
+            usage(err);
+            return EXIT_USAGE;
+        }
+
+        err.println("whisper_init_from_file_with_params_no_state: loading model from '" + modelPath + "'");
+        if (!Files.isRegularFile(Path.of(modelPath))) {
+            err.println("whisper_init_from_file_with_params_no_state: failed to open '" + modelPath + "'");
+            err.println("error: failed to initialize whisper context");
+            return EXIT_MODEL;
+        }
+        String model = modelName(modelPath);
+        sleep(parseLong(env.get(ENV_LOAD_MS), 0));
+        double rtf = parseDouble(env.get(ENV_RTF), DEFAULT_RTF);
+        double wordErrors = parseDouble(env.get(ENV_WORD_ERROR_RATE), 0) * accuracyPenalty(model);
+
+        for (String file : files) {
+            Path audio = Path.of(file);
+            double seconds;
+            String hash;
+            try {
+                AudioFileFormat format = AudioSystem.getAudioFileFormat(audio.toFile());
+                seconds = format.getFrameLength() / (double) format.getFormat().getFrameRate();
+                hash = audioHash(audio);
+            } catch (IOException | UnsupportedAudioFileException e) {
+                err.println("error: failed to read audio file '" + file + "'");
+                return EXIT_INPUT;
+            }
+            err.printf(Locale.ROOT, "main: processing '%s' (%d samples, %.1f sec), %d threads, lang = %s, beam = %d ...%n",
+                    file, Math.round(seconds * 16000), seconds, threads, language, beamSize);
+
+            String text = degrade(transcript(hash, seconds, env.get(ENV_TRANSCRIPTS), err), wordErrors, hash + model);
+            List<String[]> segments = segments(text);
+            long decode = decodeMillis(seconds, rtf, model, threads, beamSize);
+            StringBuilder json = new StringBuilder();
+            int words = Math.max(1, text.isBlank() ? 1 : text.trim().split("\\s+").length);
+            int wordsSoFar = 0;
+            if (segments.isEmpty()) sleep(decode);
+            for (String[] segment : segments) {
+                // Segments appear as decoding reaches them
+                sleep(decode * segment.length / words);
+                long from = Math.round(seconds * 1000 * wordsSoFar / words);
+                wordsSoFar += segment.length;
+                long to = Math.round(seconds * 1000 * wordsSoFar / words);
+                String segmentText = " " + String.join(" ", segment);
+                out.println(timestamps ? "[" + clock(from, '.') + " --> " + clock(to, '.') + "]  " + segmentText : segmentText);
+                out.flush();
+                if (json.length() > 0) json.append(",\n");
+                json.append("    {\"timestamps\": {\"from\": \"").append(clock(from, ',')).append("\", \"to\": \"")
+                        .append(clock(to, ',')).append("\"}, \"offsets\": {\"from\": ").append(from)
+                        .append(", \"to\": ").append(to).append("}, \"text\": ").append(jsonString(segmentText)).append('}');
+            }
+            err.printf(Locale.ROOT, "whisper_print_timings:   total time = %8.2f ms%n", (double) decode);
+
+            if (outputJson) {
+                Path jsonFile = Path.of((outputFile != null ? outputFile : file) + ".json");
+                String doc = "{\n  \"systeminfo\": \"FAKE\",\n"
+                        + "  \"model\": {\"type\": " + jsonString(modelType(model)) + "},\n"
+                        + "  \"params\": {\"model\": " + jsonString(modelPath) + ", \"language\": "
+                        + jsonString(language) + ", \"translate\": false},\n"
+                        + "  \"result\": {\"language\": " + jsonString(language) + "},\n"
+                        + "  \"transcription\": [\n" + json + "\n  ]\n}\n";
+                try {
+                    Files.writeString(jsonFile, doc);
+                } catch (IOException e) {
+                    err.println("error: failed to write '" + jsonFile + "'");
+                    return EXIT_INPUT;
+                }
+                err.println("output_json: saving output to '" + jsonFile + "'");
+            }
+        }
+        return 0;
+    }
+
+    private static String transcript(String hash, double seconds, String source, PrintStream err) {
+        if (source != null && !source.isBlank()) {
+            String known = knownTranscripts(Path.of(source), err).get(hash);
+            if (known != null) return known.trim();
+        }
+        // About 2.5 words per second of speech
+        Random random = new Random(Long.parseUnsignedLong(hash.substring(0, 15), 16));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.max(1, Math.round(seconds * 2.5)); i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(FILLER[random.nextInt(FILLER.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, String> knownTranscripts(Path source, PrintStream err) {
+        Map<String, String> byHash = new HashMap<>();
+        try {
+            if (Files.isDirectory(source)) {
+                try (Stream<Path> files = Files.walk(source)) {
+                    for (Path wav : files.filter(p -> p.toString().endsWith(".wav")).toList()) {
+                        String name = wav.getFileName().toString();
+                        Path txt = wav.resolveSibling(name.substring(0, name.length() - 4) + ".txt");
+                        if (Files.isRegularFile(txt)) byHash.put(audioHash(wav), Files.readString(txt));
+                    }
+                }
+            } else if (Files.isRegularFile(source)) {
+                // {"<sha256>": "text", ...}
+                Matcher m = Pattern.compile("\"([0-9a-f]{64})\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"").matcher(Files.readString(source));
+                while (m.find()) byHash.put(m.group(1), unescape(m.group(2)));
+            }
+        } catch (IOException e) {
+            err.println("warning: cannot read transcripts from '" + source + "': " + e.getMessage());
+        }
+        return byHash;
+    }
+
+    // Replace a deterministic fraction of words, the way a smaller model mishears
+    private static String degrade(String text, double rate, String seed) {
+        if (rate <= 0 || text.isBlank()) return text;
+        Random random = new Random(seed.hashCode());
+        String[] words = text.split("\\s+");
+        for (int i = 0; i < words.length; i++) {
+            if (random.nextDouble() < rate) words[i] = FILLER[random.nextInt(FILLER.length)];
+        }
+        return String.join(" ", words);
+    }
+
+    private static List<String[]> segments(String text) {
+        String[] words = text.isBlank() ? new String[0] : text.trim().split("\\s+");
+        List<String[]> segments = new ArrayList<>();
+        for (int i = 0; i < words.length; i += WORDS_PER_SEGMENT) {
+            segments.add(Arrays.copyOfRange(words, i, Math.min(words.length, i + WORDS_PER_SEGMENT)));
+        }
+        return segments;
+    }
+
+    static String modelName(String modelPath) {
+        Matcher m = MODEL_NAME.matcher(Path.of(modelPath).getFileName().toString());
+        return m.find() ? m.group(1) : "base";
+    }
+
+    private static String modelType(String model) {
+        return model.replace(".en", "");
+    }
+
+    // Decode cost relative to base, roughly whisper.cpp's ratios
+    private static double modelCost(String model) {
+        String type = modelType(model);
+        if (type.startsWith("tiny")) return 0.4;
+        if (type.startsWith("small")) return 3;
+        if (type.startsWith("medium")) return 8;
+        if (type.startsWith("large")) return 16;
+        return 1;
+    }
+
+    private static double accuracyPenalty(String model) {
+        String type = modelType(model);
+        if (type.startsWith("tiny")) return 2;
+        if (type.startsWith("small")) return 0.5;
+        if (type.startsWith("medium")) return 0.25;
+        if (type.startsWith("large")) return 0.125;
+        return 1;
+    }
+
+    private static String clock(long millis, char decimal) {
+        return String.format(Locale.ROOT, "%02d:%02d:%02d%c%03d",
+                millis / 3_600_000, millis / 60_000 % 60, millis / 1000 % 60, decimal, millis % 1000);
+    }
+
+    private static void usage(PrintStream out) {
+        out.println("usage: whisper-cli [options] file0.wav file1.wav ...");
+        out.println("  -m FNAME, --model FNAME   model path");
+        out.println("  -f FNAME, --file FNAME    input audio file");
+        out.println("  -l LANG,  --language LANG spoken language");
+        out.println("  -t N,     --threads N     number of threads");
+        out.println("  -bs N,    --beam-size N   beam size for beam search");
+        out.println("  -oj,      --output-json   output result in a JSON file");
+        out.println("  -of FNAME,--output-file   output file path (without extension)");
+        out.println("  -nt,      --no-timestamps do not print timestamps");
+        out.println("  --prompt PROMPT           initial prompt");
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long parseLong(String value, long fallback) {
+        try {
+            return value != null ? Long.parseLong(value.trim()) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static double parseDouble(String value, double fallback) {
+        try {
+            return value != null ? Double.parseDouble(value.trim()) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String unescape(String s) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 't' ? '\t' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String shellQuote(String s) {
+        return "'" + s.replace("'", "'\\''") + "'";
+    }
+}
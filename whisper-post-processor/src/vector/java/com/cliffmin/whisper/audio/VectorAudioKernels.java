@@ -0,0 +1,73 @@
+package com.cliffmin.whisper.audio;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementations of the float[] kernels in {@link AudioKernels}.
+ * Only loaded when jdk.incubator.vector is present in the boot layer.
+ *
+ * Sums widen each float vector to two double vectors of the same shape and accumulate in
+ * double lanes, so a 30-second buffer (480k samples) keeps the precision of the scalar loops.
+ */
+final class VectorAudioKernels {
+    // Same shape, so a float vector converts to exactly two double vectors (parts 0 and 1)
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorAudioKernels() {
+    }
+
+    static double sumSquares(float[] x, int offset, int length) {
+        DoubleVector lo = DoubleVector.zero(DOUBLES);
+        DoubleVector hi = DoubleVector.zero(DOUBLES);
+        int end = offset + length;
+        int i = offset;
+        for (int bound = offset + FLOATS.loopBound(length); i < bound; i += FLOATS.length()) {
+            FloatVector v = FloatVector.fromArray(FLOATS, x, i);
+            DoubleVector a = (DoubleVector) v.convertShape(VectorOperators.F2D, DOUBLES, 0);
+            DoubleVector b = (DoubleVector) v.convertShape(VectorOperators.F2D, DOUBLES, 1);
+            lo = a.fma(a, lo);
+            hi = b.fma(b, hi);
+        }
+        double sum = lo.add(hi).reduceLanes(VectorOperators.ADD);
+        for (; i < end; i++) {
+            sum += (double) x[i] * x[i];
+        }
+        return sum;
+    }
+
+    static double sum(float[] x, int offset, int length) {
+        DoubleVector lo = DoubleVector.zero(DOUBLES);
+        DoubleVector hi = DoubleVector.zero(DOUBLES);
+        int end = offset + length;
+        int i = offset;
+        for (int bound = offset + FLOATS.loopBound(length); i < bound; i += FLOATS.length()) {
+            FloatVector v = FloatVector.fromArray(FLOATS, x, i);
+            lo = lo.add(v.convertShape(VectorOperators.F2D, DOUBLES, 0));
+            hi = hi.add(v.convertShape(VectorOperators.F2D, DOUBLES, 1));
+        }
+        double sum = lo.add(hi).reduceLanes(VectorOperators.ADD);
+        for (; i < end; i++) {
+            sum += x[i];
+        }
+        return sum;
+    }
+
+    static double peak(float[] x, int offset, int length) {
+        // Max is exact in float; no widening needed
+        FloatVector acc = FloatVector.zero(FLOATS);
+        int end = offset + length;
+        int i = offset;
+        for (int bound = offset + FLOATS.loopBound(length); i < bound; i += FLOATS.length()) {
+            acc = acc.max(FloatVector.fromArray(FLOATS, x, i).abs());
+        }
+        float max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < end; i++) {
+            max = Math.max(max, Math.abs(x[i]));
+        }
+        return max;
+    }
+}